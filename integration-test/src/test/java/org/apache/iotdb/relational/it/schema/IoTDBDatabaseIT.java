@@ -378,7 +378,8 @@ public class IoTDBDatabaseIT {
                   "topics,INF,",
                   "pipe_plugins,INF,",
                   "pipes,INF,",
-                  "subscriptions,INF,")));
+                  "subscriptions,INF,",
+                  "recovery_progress,INF,")));
 
       TestUtils.assertResultSetEqual(
           statement.executeQuery("desc databases"),
@@ -461,6 +462,19 @@ public class IoTDBDatabaseIT {
                   "topic_name,STRING,TAG,",
                   "consumer_group_name,STRING,TAG,",
                   "subscribed_consumers,STRING,ATTRIBUTE,")));
+      TestUtils.assertResultSetEqual(
+          statement.executeQuery("desc recovery_progress"),
+          "ColumnName,DataType,Category,",
+          new HashSet<>(
+              Arrays.asList(
+                  "region_id,INT32,TAG,",
+                  "datanode_id,INT32,TAG,",
+                  "database,STRING,ATTRIBUTE,",
+                  "status,STRING,ATTRIBUTE,",
+                  "total_file_num,INT64,ATTRIBUTE,",
+                  "recovered_file_num,INT64,ATTRIBUTE,",
+                  "elapsed_time,FLOAT,ATTRIBUTE,",
+                  "estimated_remaining_seconds,DOUBLE,ATTRIBUTE,")));
 
       // Currently only root can query information_schema
       Assert.assertThrows(
@@ -501,11 +515,12 @@ public class IoTDBDatabaseIT {
                   "information_schema,pipe_plugins,INF,USING,null,",
                   "information_schema,pipes,INF,USING,null,",
                   "information_schema,subscriptions,INF,USING,null,",
+                  "information_schema,recovery_progress,INF,USING,null,",
                   "test,test,INF,USING,test,")));
       TestUtils.assertResultSetEqual(
           statement.executeQuery("count devices from tables where status = 'USING'"),
           "count(devices),",
-          Collections.singleton("10,"));
+          Collections.singleton("11,"));
       TestUtils.assertResultSetEqual(
           statement.executeQuery(
               "select * from columns where table_name = 'queries' or database = 'test'"),
@@ -251,6 +251,8 @@ public class IoTConsensusConfig {
     private final IMemoryBlock consensusMemoryBlock;
     private final double maxMemoryRatioForQueue;
     private final long regionMigrationSpeedLimitBytesPerSecond;
+    private final int logDispatcherThreadNum;
+    private final int maxBatchesNumPerSyncLogRequest;
 
     private Replication(
         int maxLogEntriesNumPerBatch,
@@ -266,7 +268,9 @@ public class IoTConsensusConfig {
         long checkpointGap,
         IMemoryBlock consensusMemoryBlock,
         double maxMemoryRatioForQueue,
-        long regionMigrationSpeedLimitBytesPerSecond) {
+        long regionMigrationSpeedLimitBytesPerSecond,
+        int logDispatcherThreadNum,
+        int maxBatchesNumPerSyncLogRequest) {
       this.maxLogEntriesNumPerBatch = maxLogEntriesNumPerBatch;
       this.maxSizePerBatch = maxSizePerBatch;
       this.maxPendingBatchesNum = maxPendingBatchesNum;
@@ -281,6 +285,8 @@ public class IoTConsensusConfig {
       this.consensusMemoryBlock = consensusMemoryBlock;
       this.maxMemoryRatioForQueue = maxMemoryRatioForQueue;
       this.regionMigrationSpeedLimitBytesPerSecond = regionMigrationSpeedLimitBytesPerSecond;
+      this.logDispatcherThreadNum = logDispatcherThreadNum;
+      this.maxBatchesNumPerSyncLogRequest = maxBatchesNumPerSyncLogRequest;
     }
 
     public int getMaxLogEntriesNumPerBatch() {
@@ -339,6 +345,22 @@ public class IoTConsensusConfig {
       return regionMigrationSpeedLimitBytesPerSecond;
     }
 
+    /**
+     * @return size of the thread pool shared by the log dispatchers of all consensus groups, 0
+     *     means each dispatcher of each peer occupies a thread
+     */
+    public int getLogDispatcherThreadNum() {
+      return logDispatcherThreadNum;
+    }
+
+    /**
+     * @return max number of batches of different consensus groups sent to the same peer in one
+     *     request, 1 means each batch is sent separately
+     */
+    public int getMaxBatchesNumPerSyncLogRequest() {
+      return maxBatchesNumPerSyncLogRequest;
+    }
+
     public static Replication.Builder newBuilder() {
       return new Replication.Builder();
     }
@@ -362,6 +384,8 @@ public class IoTConsensusConfig {
               "Consensus-Default", null, Runtime.getRuntime().maxMemory() / 10);
       private double maxMemoryRatioForQueue = 0.6;
       private long regionMigrationSpeedLimitBytesPerSecond = 32 * 1024 * 1024L;
+      private int logDispatcherThreadNum = 0;
+      private int maxBatchesNumPerSyncLogRequest = 1;
 
       public Replication.Builder setMaxLogEntriesNumPerBatch(int maxLogEntriesNumPerBatch) {
         this.maxLogEntriesNumPerBatch = maxLogEntriesNumPerBatch;
@@ -436,6 +460,16 @@ public class IoTConsensusConfig {
         return this;
       }
 
+      public Builder setLogDispatcherThreadNum(int logDispatcherThreadNum) {
+        this.logDispatcherThreadNum = logDispatcherThreadNum;
+        return this;
+      }
+
+      public Builder setMaxBatchesNumPerSyncLogRequest(int maxBatchesNumPerSyncLogRequest) {
+        this.maxBatchesNumPerSyncLogRequest = maxBatchesNumPerSyncLogRequest;
+        return this;
+      }
+
       public Replication build() {
         return new Replication(
             maxLogEntriesNumPerBatch,
@@ -451,7 +485,9 @@ public class IoTConsensusConfig {
             checkpointGap,
             consensusMemoryBlock,
             maxMemoryRatioForQueue,
-            regionMigrationSpeedLimitBytesPerSecond);
+            regionMigrationSpeedLimitBytesPerSecond,
+            logDispatcherThreadNum,
+            maxBatchesNumPerSyncLogRequest);
       }
     }
   }
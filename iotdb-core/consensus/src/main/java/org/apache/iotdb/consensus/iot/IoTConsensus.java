@@ -54,6 +54,7 @@ import org.apache.iotdb.consensus.iot.client.AsyncIoTConsensusServiceClient;
 import org.apache.iotdb.consensus.iot.client.IoTConsensusClientPool.AsyncIoTConsensusServiceClientPoolFactory;
 import org.apache.iotdb.consensus.iot.client.IoTConsensusClientPool.SyncIoTConsensusServiceClientPoolFactory;
 import org.apache.iotdb.consensus.iot.client.SyncIoTConsensusServiceClient;
+import org.apache.iotdb.consensus.iot.client.SyncLogEntriesAggregator;
 import org.apache.iotdb.consensus.iot.logdispatcher.IoTConsensusMemoryManager;
 import org.apache.iotdb.consensus.iot.service.IoTConsensusRPCService;
 import org.apache.iotdb.consensus.iot.service.IoTConsensusRPCServiceProcessor;
@@ -77,6 +78,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -101,6 +103,10 @@ public class IoTConsensus implements IConsensus {
   private final IClientManager<TEndPoint, AsyncIoTConsensusServiceClient> clientManager;
   private final IClientManager<TEndPoint, SyncIoTConsensusServiceClient> syncClientManager;
   private final ScheduledExecutorService backgroundTaskService;
+  // shared by the log dispatchers of all consensus groups, null if each of them uses own threads
+  private final ExecutorService logDispatcherExecutor;
+  // null if the batches of each consensus group are sent separately
+  private final SyncLogEntriesAggregator syncLogEntriesAggregator;
   private Future<?> updateReaderFuture;
   private Map<ConsensusGroupId, List<Peer>> correctPeerListBeforeStart = null;
 
@@ -122,6 +128,17 @@ public class IoTConsensus implements IConsensus {
     this.backgroundTaskService =
         IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor(
             ThreadName.IOT_CONSENSUS_BACKGROUND_TASK_EXECUTOR.getName());
+    int logDispatcherThreadNum =
+        config.getIotConsensusConfig().getReplication().getLogDispatcherThreadNum();
+    this.logDispatcherExecutor =
+        logDispatcherThreadNum > 0
+            ? IoTDBThreadPoolFactory.newFixedThreadPool(
+                logDispatcherThreadNum, ThreadName.SHARED_LOG_DISPATCHER.getName())
+            : null;
+    this.syncLogEntriesAggregator =
+        config.getIotConsensusConfig().getReplication().getMaxBatchesNumPerSyncLogRequest() > 1
+            ? new SyncLogEntriesAggregator(clientManager, config.getIotConsensusConfig())
+            : null;
     // init IoTConsensus memory manager
     IoTConsensusMemoryManager.getInstance()
         .init(
@@ -178,6 +195,8 @@ public class IoTConsensus implements IConsensus {
                   new TreeSet<>(),
                   registry.apply(consensusGroupId),
                   backgroundTaskService,
+                  logDispatcherExecutor,
+                  syncLogEntriesAggregator,
                   clientManager,
                   syncClientManager,
                   config);
@@ -214,6 +233,7 @@ public class IoTConsensus implements IConsensus {
   public synchronized void stop() {
     Optional.ofNullable(updateReaderFuture).ifPresent(future -> future.cancel(false));
     stateMachineMap.values().parallelStream().forEach(IoTConsensusServerImpl::stop);
+    Optional.ofNullable(logDispatcherExecutor).ifPresent(ExecutorService::shutdownNow);
     clientManager.close();
     syncClientManager.close();
     registerManager.deregisterAll();
@@ -285,6 +305,8 @@ public class IoTConsensus implements IConsensus {
                           new TreeSet<>(peers),
                           registry.apply(groupId),
                           backgroundTaskService,
+                          logDispatcherExecutor,
+                          syncLogEntriesAggregator,
                           clientManager,
                           syncClientManager,
                           config);
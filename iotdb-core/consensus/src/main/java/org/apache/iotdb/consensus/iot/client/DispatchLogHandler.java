@@ -147,5 +147,7 @@ public class DispatchLogHandler implements AsyncMethodCallback<TSyncLogEntriesRe
     // update safely deleted search index after last flushed sync index may be updated by
     // removeBatch
     thread.updateSafelyDeletedSearchIndex();
+    // the synchronization pipeline has room for the next batch
+    thread.signal();
   }
 }
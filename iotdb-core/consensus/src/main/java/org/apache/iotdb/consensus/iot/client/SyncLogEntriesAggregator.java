@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.consensus.iot.client;
+
+import org.apache.iotdb.common.rpc.thrift.TEndPoint;
+import org.apache.iotdb.commons.client.IClientManager;
+import org.apache.iotdb.consensus.config.IoTConsensusConfig;
+import org.apache.iotdb.consensus.iot.thrift.TBatchSyncLogEntriesReq;
+import org.apache.iotdb.consensus.iot.thrift.TBatchSyncLogEntriesRes;
+import org.apache.iotdb.consensus.iot.thrift.TSyncLogEntriesReq;
+import org.apache.iotdb.consensus.iot.thrift.TSyncLogEntriesRes;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.async.AsyncMethodCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Packs the TSyncLogEntriesReqs of different consensus groups to the same peer into one
+ * batchSyncLogEntries request.
+ *
+ * <p>At most maxPendingBatchesNum requests are in flight to each peer. The TSyncLogEntriesReqs
+ * arriving meanwhile are queued and sent together when a request completes, so the more groups
+ * replicate to a peer at the same time, the more of them share one RPC. The response of each
+ * TSyncLogEntriesReq is delivered to its own callback, which retries it separately if needed. The
+ * memory of the queued requests has been reserved from IoTConsensusMemoryManager by the
+ * SyncStatus of each group.
+ */
+public class SyncLogEntriesAggregator {
+
+  private static final Logger logger = LoggerFactory.getLogger(SyncLogEntriesAggregator.class);
+
+  private final IClientManager<TEndPoint, AsyncIoTConsensusServiceClient> clientManager;
+  private final int maxRequestsNumPerBatch;
+  private final long maxSizePerBatch;
+  private final int maxInFlightBatchesNum;
+  private final Map<TEndPoint, PeerChannel> channels = new ConcurrentHashMap<>();
+
+  public SyncLogEntriesAggregator(
+      IClientManager<TEndPoint, AsyncIoTConsensusServiceClient> clientManager,
+      IoTConsensusConfig config) {
+    this.clientManager = clientManager;
+    this.maxRequestsNumPerBatch = config.getReplication().getMaxBatchesNumPerSyncLogRequest();
+    this.maxSizePerBatch = config.getReplication().getMaxSizePerBatch();
+    this.maxInFlightBatchesNum = config.getReplication().getMaxPendingBatchesNum();
+  }
+
+  /**
+   * @param serializedSize size of the log entries in the request, used to limit the size of the
+   *     packed request
+   */
+  public void syncLogEntries(
+      TEndPoint endPoint,
+      TSyncLogEntriesReq req,
+      long serializedSize,
+      AsyncMethodCallback<TSyncLogEntriesRes> handler) {
+    PeerChannel channel = channels.computeIfAbsent(endPoint, PeerChannel::new);
+    channel.add(new PendingRequest(req, serializedSize, handler));
+    channel.trySend();
+  }
+
+  private static class PendingRequest {
+
+    private final TSyncLogEntriesReq req;
+    private final long serializedSize;
+    private final AsyncMethodCallback<TSyncLogEntriesRes> handler;
+
+    private PendingRequest(
+        TSyncLogEntriesReq req,
+        long serializedSize,
+        AsyncMethodCallback<TSyncLogEntriesRes> handler) {
+      this.req = req;
+      this.serializedSize = serializedSize;
+      this.handler = handler;
+    }
+  }
+
+  private class PeerChannel {
+
+    private final TEndPoint endPoint;
+    private final Deque<PendingRequest> pendingRequests = new ArrayDeque<>();
+    private int inFlightBatchesNum = 0;
+    // set if the peer is of an older version which doesn't support batchSyncLogEntries
+    private volatile boolean batchUnsupported = false;
+
+    private PeerChannel(TEndPoint endPoint) {
+      this.endPoint = endPoint;
+    }
+
+    private synchronized void add(PendingRequest request) {
+      pendingRequests.addLast(request);
+    }
+
+    private synchronized void addFirst(List<PendingRequest> requests) {
+      for (int i = requests.size() - 1; i >= 0; i--) {
+        pendingRequests.addFirst(requests.get(i));
+      }
+    }
+
+    private void trySend() {
+      List<PendingRequest> batch;
+      while ((batch = pollBatch()) != null) {
+        send(batch);
+      }
+    }
+
+    /** @return null if there is no pending request or too many batches are in flight */
+    private synchronized List<PendingRequest> pollBatch() {
+      if (pendingRequests.isEmpty() || inFlightBatchesNum >= maxInFlightBatchesNum) {
+        return null;
+      }
+      List<PendingRequest> batch = new ArrayList<>();
+      long size = 0;
+      int maxRequestsNum = batchUnsupported ? 1 : maxRequestsNumPerBatch;
+      // the first request is always taken even if it is larger than maxSizePerBatch
+      while (!pendingRequests.isEmpty()
+          && batch.size() < maxRequestsNum
+          && (batch.isEmpty()
+              || size + pendingRequests.peekFirst().serializedSize <= maxSizePerBatch)) {
+        PendingRequest request = pendingRequests.pollFirst();
+        size += request.serializedSize;
+        batch.add(request);
+      }
+      inFlightBatchesNum++;
+      return batch;
+    }
+
+    private synchronized void releaseInFlightBatch() {
+      inFlightBatchesNum--;
+    }
+
+    private void send(List<PendingRequest> batch) {
+      if (batch.size() == 1) {
+        sendSingle(batch.get(0));
+        return;
+      }
+      List<TSyncLogEntriesReq> reqs = new ArrayList<>(batch.size());
+      batch.forEach(request -> reqs.add(request.req));
+      BatchSyncLogEntriesHandler handler = new BatchSyncLogEntriesHandler(this, batch);
+      try {
+        AsyncIoTConsensusServiceClient client = clientManager.borrowClient(endPoint);
+        logger.debug("Send {} TSyncLogEntriesReqs to {} in one request", reqs.size(), endPoint);
+        client.batchSyncLogEntries(new TBatchSyncLogEntriesReq(reqs), handler);
+      } catch (Exception e) {
+        logger.error("Can not sync logs to {} because", endPoint, e);
+        handler.onError(e);
+      }
+    }
+
+    private void sendSingle(PendingRequest request) {
+      AsyncMethodCallback<TSyncLogEntriesRes> handler =
+          new AsyncMethodCallback<TSyncLogEntriesRes>() {
+            @Override
+            public void onComplete(TSyncLogEntriesRes response) {
+              releaseInFlightBatch();
+              request.handler.onComplete(response);
+              trySend();
+            }
+
+            @Override
+            public void onError(Exception exception) {
+              releaseInFlightBatch();
+              request.handler.onError(exception);
+              trySend();
+            }
+          };
+      try {
+        AsyncIoTConsensusServiceClient client = clientManager.borrowClient(endPoint);
+        client.syncLogEntries(request.req, handler);
+      } catch (Exception e) {
+        logger.error("Can not sync logs to {} because", endPoint, e);
+        handler.onError(e);
+      }
+    }
+  }
+
+  private static class BatchSyncLogEntriesHandler
+      implements AsyncMethodCallback<TBatchSyncLogEntriesRes> {
+
+    private final PeerChannel channel;
+    private final List<PendingRequest> batch;
+
+    private BatchSyncLogEntriesHandler(PeerChannel channel, List<PendingRequest> batch) {
+      this.channel = channel;
+      this.batch = batch;
+    }
+
+    @Override
+    public void onComplete(TBatchSyncLogEntriesRes response) {
+      channel.releaseInFlightBatch();
+      if (response.getResponses().size() != batch.size()) {
+        Exception exception =
+            new IllegalStateException(
+                String.format(
+                    "Receive %s responses for %s TSyncLogEntriesReqs from %s",
+                    response.getResponses().size(), batch.size(), channel.endPoint));
+        batch.forEach(request -> request.handler.onError(exception));
+      } else {
+        for (int i = 0; i < batch.size(); i++) {
+          batch.get(i).handler.onComplete(response.getResponses().get(i));
+        }
+      }
+      channel.trySend();
+    }
+
+    @Override
+    public void onError(Exception exception) {
+      channel.releaseInFlightBatch();
+      Throwable rootCause = ExceptionUtils.getRootCause(exception);
+      if (rootCause instanceof TApplicationException
+          && ((TApplicationException) rootCause).getType()
+              == TApplicationException.UNKNOWN_METHOD) {
+        // the callbacks skip the requests failed with TApplicationException, so resend them
+        logger.warn(
+            "{} doesn't support batchSyncLogEntries, send TSyncLogEntriesReqs to it one by one",
+            channel.endPoint);
+        channel.batchUnsupported = true;
+        channel.addFirst(batch);
+      } else {
+        batch.forEach(request -> request.handler.onError(exception));
+      }
+      channel.trySend();
+    }
+  }
+}
@@ -23,6 +23,7 @@ import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.commons.client.IClientManager;
 import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.commons.concurrent.threadpool.ScheduledExecutorUtil;
 import org.apache.iotdb.commons.service.metric.MetricService;
 import org.apache.iotdb.consensus.common.Peer;
 import org.apache.iotdb.consensus.common.request.IndexedConsensusRequest;
@@ -30,6 +31,7 @@ import org.apache.iotdb.consensus.config.IoTConsensusConfig;
 import org.apache.iotdb.consensus.iot.IoTConsensusServerImpl;
 import org.apache.iotdb.consensus.iot.client.AsyncIoTConsensusServiceClient;
 import org.apache.iotdb.consensus.iot.client.DispatchLogHandler;
+import org.apache.iotdb.consensus.iot.client.SyncLogEntriesAggregator;
 import org.apache.iotdb.consensus.iot.log.ConsensusReqReader;
 import org.apache.iotdb.consensus.iot.log.GetConsensusReqReaderPlan;
 import org.apache.iotdb.consensus.iot.thrift.TLogEntry;
@@ -46,13 +48,24 @@ import java.util.Objects;
 import java.util.OptionalLong;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
-/** Manage all asynchronous replication threads and corresponding async clients. */
+/**
+ * Manage all asynchronous replication threads and corresponding async clients.
+ *
+ * <p>If a shared executor is given, the {@link LogDispatcherThread}s don't occupy threads. Each of
+ * them sends a batch in the executor whenever it is signaled, i.e. a request is offered, a pending
+ * batch is synced, or periodically.
+ */
 public class LogDispatcher {
 
   private static final Logger logger = LoggerFactory.getLogger(LogDispatcher.class);
@@ -62,6 +75,11 @@ public class LogDispatcher {
   private final int selfPeerId;
   private final IClientManager<TEndPoint, AsyncIoTConsensusServiceClient> clientManager;
   private ExecutorService executorService;
+  // shared by the dispatchers of all consensus groups, null if each dispatcher occupies a thread
+  private final ExecutorService sharedExecutorService;
+  private Future<?> periodicSignalFuture;
+  // packs the batches to the same peer with those of other consensus groups, null if disabled
+  private final SyncLogEntriesAggregator syncLogEntriesAggregator;
 
   private final ConsensusReqReader reader;
   private boolean stopped = false;
@@ -71,17 +89,22 @@ public class LogDispatcher {
 
   public LogDispatcher(
       IoTConsensusServerImpl impl,
-      IClientManager<TEndPoint, AsyncIoTConsensusServiceClient> clientManager) {
+      IClientManager<TEndPoint, AsyncIoTConsensusServiceClient> clientManager,
+      ExecutorService sharedExecutorService,
+      SyncLogEntriesAggregator syncLogEntriesAggregator) {
     this.impl = impl;
     this.reader = (ConsensusReqReader) impl.getStateMachine().read(new GetConsensusReqReaderPlan());
     this.selfPeerId = impl.getThisNode().getNodeId();
     this.clientManager = clientManager;
+    this.sharedExecutorService = sharedExecutorService;
+    this.syncLogEntriesAggregator = syncLogEntriesAggregator;
+    // copy on write so that the dispatchers can be signaled without the lock of LogDispatcher
     this.threads =
         impl.getConfiguration().stream()
             .filter(x -> !Objects.equals(x, impl.getThisNode()))
             .map(x -> new LogDispatcherThread(x, impl.getConfig(), DEFAULT_INITIAL_SYNC_INDEX))
-            .collect(Collectors.toList());
-    if (!threads.isEmpty()) {
+            .collect(Collectors.toCollection(CopyOnWriteArrayList::new));
+    if (!threads.isEmpty() && sharedExecutorService == null) {
       initLogSyncThreadPool();
     }
   }
@@ -97,15 +120,31 @@ public class LogDispatcher {
   }
 
   public synchronized void start() {
-    if (!threads.isEmpty()) {
+    if (sharedExecutorService != null) {
+      // in case that the dispatchers miss the requests written into WAL only or the memory freed
+      periodicSignalFuture =
+          ScheduledExecutorUtil.safelyScheduleWithFixedDelay(
+              impl.getBackgroundTaskService(),
+              () -> threads.forEach(LogDispatcherThread::signal),
+              LogDispatcherThread.PENDING_REQUEST_TAKING_TIME_OUT_IN_SEC,
+              LogDispatcherThread.PENDING_REQUEST_TAKING_TIME_OUT_IN_SEC,
+              TimeUnit.SECONDS);
+      threads.forEach(LogDispatcherThread::signal);
+    } else if (!threads.isEmpty()) {
       threads.forEach(logDispatcherThread -> executorService.submit(logDispatcherThread));
     }
   }
 
   public synchronized void stop() {
+    if (periodicSignalFuture != null) {
+      periodicSignalFuture.cancel(false);
+    }
     if (!threads.isEmpty()) {
       threads.forEach(LogDispatcherThread::setStopped);
       threads.forEach(LogDispatcherThread::processStopped);
+    }
+    // the shared executor is shutdown by IoTConsensus
+    if (executorService != null) {
       executorService.shutdownNow();
       int timeout = 10;
       try {
@@ -127,6 +166,12 @@ public class LogDispatcher {
     }
     LogDispatcherThread thread = new LogDispatcherThread(peer, impl.getConfig(), initialSyncIndex);
     threads.add(thread);
+    if (sharedExecutorService != null) {
+      if (startNow) {
+        thread.signal();
+      }
+      return;
+    }
     // If the initial replica is 1, the executorService won't be initialized. And when adding
     // dispatcher thread, the executorService should be initialized manually
     if (this.executorService == null) {
@@ -195,6 +240,8 @@ public class LogDispatcher {
                     thread.getPeer(),
                     request.getSearchIndex());
               }
+              // even if the queue is full, the request can be read from WAL
+              thread.signal();
             });
       }
     }
@@ -211,6 +258,7 @@ public class LogDispatcher {
   public class LogDispatcherThread implements Runnable {
 
     private static final long PENDING_REQUEST_TAKING_TIME_OUT_IN_SEC = 10;
+    private static final long SYNC_STATUS_RETRY_INTERVAL_IN_MS = 100;
     private static final long START_INDEX = 1;
     private final IoTConsensusConfig config;
     private final Peer peer;
@@ -234,6 +282,14 @@ public class LogDispatcher {
 
     private final CountDownLatch runFinished = new CountDownLatch(1);
 
+    // states used only with the shared executor
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile boolean signaled = false;
+    // held while sending a batch, so that stop() can wait for it
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    // the batch which can not be added into syncStatus yet
+    private Batch batchWaitingForSyncStatus;
+
     public LogDispatcherThread(Peer peer, IoTConsensusConfig config, long initialSyncIndex) {
       this.peer = peer;
       this.config = config;
@@ -314,7 +370,16 @@ public class LogDispatcher {
 
     private void processStopped() {
       try {
-        if (!runFinished.await(30, TimeUnit.SECONDS)) {
+        boolean finished;
+        if (sharedExecutorService == null) {
+          finished = runFinished.await(30, TimeUnit.SECONDS);
+        } else {
+          finished = dispatchLock.tryLock(30, TimeUnit.SECONDS);
+          if (finished) {
+            dispatchLock.unlock();
+          }
+        }
+        if (!finished) {
           logger.info("{}: Dispatcher for {} didn't stop after 30s.", impl.getThisNode(), peer);
         }
       } catch (InterruptedException e) {
@@ -393,6 +458,75 @@ public class LogDispatcher {
       logger.info("{}: Dispatcher for {} exits", impl.getThisNode(), peer);
     }
 
+    /**
+     * Schedule this dispatcher in the shared executor to send the next batch, does nothing if each
+     * dispatcher occupies a thread.
+     */
+    public void signal() {
+      if (sharedExecutorService == null || stopped) {
+        return;
+      }
+      signaled = true;
+      if (scheduled.compareAndSet(false, true)) {
+        try {
+          sharedExecutorService.execute(this::dispatch);
+        } catch (RejectedExecutionException e) {
+          // the executor is shutdown when the consensus is stopped
+          scheduled.set(false);
+        }
+      }
+    }
+
+    private void dispatch() {
+      boolean hasMore = false;
+      dispatchLock.lock();
+      try {
+        signaled = false;
+        if (!stopped) {
+          hasMore = dispatchNextBatch();
+        }
+      } catch (Exception e) {
+        logger.error("Unexpected error in logDispatcher for peer {}", peer, e);
+      } finally {
+        dispatchLock.unlock();
+        scheduled.set(false);
+      }
+      // send one batch each time, so that the other dispatchers in the executor are not starved
+      if (hasMore || signaled) {
+        signal();
+      }
+    }
+
+    /**
+     * Send the next batch without waiting for requests or the synchronization pipeline, only
+     * reading WAL entries may wait for them to be flushed.
+     *
+     * @return whether the next batch may be sent right away
+     */
+    private boolean dispatchNextBatch() {
+      long startTime = System.nanoTime();
+      Batch batch = batchWaitingForSyncStatus != null ? batchWaitingForSyncStatus : getBatch();
+      if (batch.isEmpty()) {
+        // signaled again when a request is offered
+        return false;
+      }
+      if (!syncStatus.tryAddNextBatch(batch)) {
+        // signaled again when a pending batch is synced, retry in case the memory is freed by
+        // the other consensus groups
+        batchWaitingForSyncStatus = batch;
+        impl.getBackgroundTaskService()
+            .schedule(this::signal, SYNC_STATUS_RETRY_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+        return false;
+      }
+      batchWaitingForSyncStatus = null;
+      logDispatcherThreadMetrics.recordConstructBatchTime(System.nanoTime() - startTime);
+      logEntriesFromWAL.addAndGet(batch.getLogEntriesNumFromWAL());
+      logEntriesFromQueue.addAndGet(
+          batch.getLogEntries().size() - batch.getLogEntriesNumFromWAL());
+      sendBatchAsync(batch, new DispatchLogHandler(this, logDispatcherThreadMetrics, batch));
+      return true;
+    }
+
     public void updateSafelyDeletedSearchIndex() {
       // update safely deleted search index to delete outdated info,
       // indicating that insert nodes whose search index are before this value can be deleted
@@ -507,7 +641,6 @@ public class LogDispatcher {
 
     public void sendBatchAsync(Batch batch, DispatchLogHandler handler) {
       try {
-        AsyncIoTConsensusServiceClient client = clientManager.borrowClient(peer.getEndpoint());
         TSyncLogEntriesReq req =
             new TSyncLogEntriesReq(
                 selfPeerId, peer.getGroupId().convertToTConsensusGroupId(), batch.getLogEntries());
@@ -516,6 +649,12 @@ public class LogDispatcher {
             batch.getStartIndex(),
             batch.getEndIndex(),
             peer.getGroupId().convertToTConsensusGroupId());
+        if (syncLogEntriesAggregator != null) {
+          syncLogEntriesAggregator.syncLogEntries(
+              peer.getEndpoint(), req, batch.getSerializedSize(), handler);
+          return;
+        }
+        AsyncIoTConsensusServiceClient client = clientManager.borrowClient(peer.getEndpoint());
         client.syncLogEntries(req, handler);
       } catch (Exception e) {
         logger.error("Can not sync logs to peer {} because", peer, e);
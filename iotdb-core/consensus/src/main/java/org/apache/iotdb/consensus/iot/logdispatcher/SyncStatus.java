@@ -44,11 +44,19 @@ public class SyncStatus {
    * @throws InterruptedException
    */
   public synchronized void addNextBatch(Batch batch) throws InterruptedException {
-    while (pendingBatches.size() >= config.getReplication().getMaxPendingBatchesNum()
-        || !iotConsensusMemoryManager.reserve(batch.getSerializedSize(), false)) {
+    while (!tryAddNextBatch(batch)) {
       wait();
     }
+  }
+
+  /** @return false if the synchronization pipeline is full, and the batch is not added */
+  public synchronized boolean tryAddNextBatch(Batch batch) {
+    if (pendingBatches.size() >= config.getReplication().getMaxPendingBatchesNum()
+        || !iotConsensusMemoryManager.reserve(batch.getSerializedSize(), false)) {
+      return false;
+    }
     pendingBatches.add(batch);
+    return true;
   }
 
   /**
@@ -35,6 +35,8 @@ import org.apache.iotdb.consensus.iot.IoTConsensusServerImpl;
 import org.apache.iotdb.consensus.iot.thrift.IoTConsensusIService;
 import org.apache.iotdb.consensus.iot.thrift.TActivatePeerReq;
 import org.apache.iotdb.consensus.iot.thrift.TActivatePeerRes;
+import org.apache.iotdb.consensus.iot.thrift.TBatchSyncLogEntriesReq;
+import org.apache.iotdb.consensus.iot.thrift.TBatchSyncLogEntriesRes;
 import org.apache.iotdb.consensus.iot.thrift.TBuildSyncLogChannelReq;
 import org.apache.iotdb.consensus.iot.thrift.TBuildSyncLogChannelRes;
 import org.apache.iotdb.consensus.iot.thrift.TCleanupTransferredSnapshotReq;
@@ -60,7 +62,9 @@ import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.stream.Collectors;
 
 public class IoTConsensusRPCServiceProcessor implements IoTConsensusIService.Iface {
@@ -132,6 +136,16 @@ public class IoTConsensusRPCServiceProcessor implements IoTConsensusIService.Ifa
     return new TSyncLogEntriesRes(writeStatus.subStatus);
   }
 
+  @Override
+  public TBatchSyncLogEntriesRes batchSyncLogEntries(TBatchSyncLogEntriesReq req) {
+    // the requests are of different consensus groups, so each of them is executed independently
+    List<TSyncLogEntriesRes> responses = new ArrayList<>(req.getRequestsSize());
+    for (TSyncLogEntriesReq syncLogEntriesReq : req.getRequests()) {
+      responses.add(syncLogEntries(syncLogEntriesReq));
+    }
+    return new TBatchSyncLogEntriesRes(responses);
+  }
+
   @Override
   public TInactivatePeerRes inactivatePeer(TInactivatePeerReq req) throws TException {
     if (req.isForDeletionPurpose()) {
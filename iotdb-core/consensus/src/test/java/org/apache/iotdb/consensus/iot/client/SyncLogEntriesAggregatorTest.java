@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.consensus.iot.client;
+
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupId;
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupType;
+import org.apache.iotdb.common.rpc.thrift.TEndPoint;
+import org.apache.iotdb.common.rpc.thrift.TSStatus;
+import org.apache.iotdb.commons.client.IClientManager;
+import org.apache.iotdb.consensus.config.IoTConsensusConfig;
+import org.apache.iotdb.consensus.iot.thrift.TBatchSyncLogEntriesReq;
+import org.apache.iotdb.consensus.iot.thrift.TBatchSyncLogEntriesRes;
+import org.apache.iotdb.consensus.iot.thrift.TSyncLogEntriesReq;
+import org.apache.iotdb.consensus.iot.thrift.TSyncLogEntriesRes;
+
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.async.AsyncMethodCallback;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SyncLogEntriesAggregatorTest {
+
+  private static final TEndPoint END_POINT = new TEndPoint("127.0.0.1", 10760);
+
+  private IClientManager<TEndPoint, AsyncIoTConsensusServiceClient> clientManager;
+
+  // requests and callbacks received by the client, in the order they are sent
+  private final List<TSyncLogEntriesReq> singleReqs = new ArrayList<>();
+  private final List<AsyncMethodCallback<TSyncLogEntriesRes>> singleHandlers = new ArrayList<>();
+  private final List<TBatchSyncLogEntriesReq> batchReqs = new ArrayList<>();
+  private final List<AsyncMethodCallback<TBatchSyncLogEntriesRes>> batchHandlers =
+      new ArrayList<>();
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    AsyncIoTConsensusServiceClient client = Mockito.mock(AsyncIoTConsensusServiceClient.class);
+    Mockito.doAnswer(
+            invocation -> {
+              singleReqs.add(invocation.getArgument(0));
+              singleHandlers.add(invocation.getArgument(1));
+              return null;
+            })
+        .when(client)
+        .syncLogEntries(Mockito.any(), Mockito.any());
+    Mockito.doAnswer(
+            invocation -> {
+              batchReqs.add(invocation.getArgument(0));
+              batchHandlers.add(invocation.getArgument(1));
+              return null;
+            })
+        .when(client)
+        .batchSyncLogEntries(Mockito.any(), Mockito.any());
+    clientManager = Mockito.mock(IClientManager.class);
+    Mockito.when(clientManager.borrowClient(END_POINT)).thenReturn(client);
+  }
+
+  @Test
+  public void testMaxRequestsNumPerBatch() {
+    SyncLogEntriesAggregator aggregator = createAggregator(3, Integer.MAX_VALUE);
+    List<RecordingCallback> callbacks = new ArrayList<>();
+
+    // nothing is in flight, so the first request is sent alone
+    callbacks.add(syncLogEntries(aggregator, 0, 1));
+    Assert.assertEquals(1, singleReqs.size());
+    Assert.assertEquals(0, singleReqs.get(0).getPeerId());
+
+    // queued until the in flight request completes
+    for (int i = 1; i <= 5; i++) {
+      callbacks.add(syncLogEntries(aggregator, i, 1));
+    }
+    Assert.assertEquals(1, singleReqs.size());
+    Assert.assertTrue(batchReqs.isEmpty());
+
+    singleHandlers.get(0).onComplete(response(0));
+    Assert.assertEquals(0, callbacks.get(0).response.getStatuses().get(0).getCode());
+    Assert.assertEquals(1, batchReqs.size());
+    Assert.assertEquals(Arrays.asList(1, 2, 3), peerIds(batchReqs.get(0)));
+
+    batchHandlers.get(0).onComplete(batchResponse(1, 2, 3));
+    for (int i = 1; i <= 3; i++) {
+      Assert.assertEquals(i, callbacks.get(i).response.getStatuses().get(0).getCode());
+    }
+    Assert.assertEquals(2, batchReqs.size());
+    Assert.assertEquals(Arrays.asList(4, 5), peerIds(batchReqs.get(1)));
+
+    batchHandlers.get(1).onComplete(batchResponse(4, 5));
+    for (RecordingCallback callback : callbacks) {
+      Assert.assertNotNull(callback.response);
+      Assert.assertNull(callback.exception);
+    }
+    Assert.assertEquals(1, singleReqs.size());
+    Assert.assertEquals(2, batchReqs.size());
+  }
+
+  @Test
+  public void testMaxSizePerBatch() {
+    SyncLogEntriesAggregator aggregator = createAggregator(10, 100);
+
+    syncLogEntries(aggregator, 0, 10);
+    syncLogEntries(aggregator, 1, 60);
+    syncLogEntries(aggregator, 2, 30);
+    syncLogEntries(aggregator, 3, 20);
+    syncLogEntries(aggregator, 4, 150);
+
+    // 60 + 30 + 20 is larger than 100
+    singleHandlers.get(0).onComplete(response(0));
+    Assert.assertEquals(1, batchReqs.size());
+    Assert.assertEquals(Arrays.asList(1, 2), peerIds(batchReqs.get(0)));
+
+    // 20 + 150 is larger than 100, so the request of 20 is sent alone
+    batchHandlers.get(0).onComplete(batchResponse(1, 2));
+    Assert.assertEquals(2, singleReqs.size());
+    Assert.assertEquals(3, singleReqs.get(1).getPeerId());
+
+    // the first request of a batch is always taken even if it is larger than maxSizePerBatch
+    singleHandlers.get(1).onComplete(response(3));
+    Assert.assertEquals(3, singleReqs.size());
+    Assert.assertEquals(4, singleReqs.get(2).getPeerId());
+    Assert.assertEquals(1, batchReqs.size());
+  }
+
+  @Test
+  public void testFallbackWhenBatchIsUnsupported() {
+    SyncLogEntriesAggregator aggregator = createAggregator(10, Integer.MAX_VALUE);
+    List<RecordingCallback> callbacks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      callbacks.add(syncLogEntries(aggregator, i, 1));
+    }
+    singleHandlers.get(0).onComplete(response(0));
+    Assert.assertEquals(Arrays.asList(1, 2), peerIds(batchReqs.get(0)));
+
+    // the peer is of an older version, the requests of the batch are resent one by one
+    batchHandlers
+        .get(0)
+        .onError(new TApplicationException(TApplicationException.UNKNOWN_METHOD, "unknown"));
+    Assert.assertNull(callbacks.get(1).exception);
+    Assert.assertNull(callbacks.get(2).exception);
+    Assert.assertEquals(2, singleReqs.size());
+    Assert.assertEquals(1, singleReqs.get(1).getPeerId());
+
+    // later requests to this peer are not packed any more
+    callbacks.add(syncLogEntries(aggregator, 3, 1));
+    singleHandlers.get(1).onComplete(response(1));
+    Assert.assertEquals(3, singleReqs.size());
+    Assert.assertEquals(2, singleReqs.get(2).getPeerId());
+    singleHandlers.get(2).onComplete(response(2));
+    Assert.assertEquals(4, singleReqs.size());
+    Assert.assertEquals(3, singleReqs.get(3).getPeerId());
+    singleHandlers.get(3).onComplete(response(3));
+
+    Assert.assertEquals(1, batchReqs.size());
+    for (int i = 0; i < callbacks.size(); i++) {
+      Assert.assertEquals(i, callbacks.get(i).response.getStatuses().get(0).getCode());
+      Assert.assertNull(callbacks.get(i).exception);
+    }
+  }
+
+  @Test
+  public void testResponsesNumMismatch() {
+    SyncLogEntriesAggregator aggregator = createAggregator(10, Integer.MAX_VALUE);
+    List<RecordingCallback> callbacks = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      callbacks.add(syncLogEntries(aggregator, i, 1));
+    }
+    singleHandlers.get(0).onComplete(response(0));
+    Assert.assertEquals(Arrays.asList(1, 2, 3), peerIds(batchReqs.get(0)));
+
+    // every request of the batch fails, instead of completing the wrong callbacks
+    batchHandlers.get(0).onComplete(batchResponse(1, 2));
+    for (int i = 1; i < 4; i++) {
+      Assert.assertNull(callbacks.get(i).response);
+      Assert.assertTrue(callbacks.get(i).exception instanceof IllegalStateException);
+    }
+    Assert.assertEquals(1, singleReqs.size());
+    Assert.assertEquals(1, batchReqs.size());
+  }
+
+  /** At most one request is in flight, so the following requests are queued and packed. */
+  private SyncLogEntriesAggregator createAggregator(int maxRequestsNum, int maxSizePerBatch) {
+    return new SyncLogEntriesAggregator(
+        clientManager,
+        IoTConsensusConfig.newBuilder()
+            .setReplication(
+                IoTConsensusConfig.Replication.newBuilder()
+                    .setMaxBatchesNumPerSyncLogRequest(maxRequestsNum)
+                    .setMaxSizePerBatch(maxSizePerBatch)
+                    .setMaxPendingBatchesNum(1)
+                    .build())
+            .build());
+  }
+
+  /** The peerId of the request is used to identify it. */
+  private static RecordingCallback syncLogEntries(
+      SyncLogEntriesAggregator aggregator, int id, long serializedSize) {
+    RecordingCallback callback = new RecordingCallback();
+    aggregator.syncLogEntries(
+        END_POINT,
+        new TSyncLogEntriesReq(
+            id, new TConsensusGroupId(TConsensusGroupType.DataRegion, id), new ArrayList<>()),
+        serializedSize,
+        callback);
+    return callback;
+  }
+
+  private static List<Integer> peerIds(TBatchSyncLogEntriesReq req) {
+    List<Integer> peerIds = new ArrayList<>();
+    req.getRequests().forEach(request -> peerIds.add(request.getPeerId()));
+    return peerIds;
+  }
+
+  private static TSyncLogEntriesRes response(int code) {
+    return new TSyncLogEntriesRes(Collections.singletonList(new TSStatus(code)));
+  }
+
+  private static TBatchSyncLogEntriesRes batchResponse(int... codes) {
+    List<TSyncLogEntriesRes> responses = new ArrayList<>();
+    for (int code : codes) {
+      responses.add(response(code));
+    }
+    return new TBatchSyncLogEntriesRes(responses);
+  }
+
+  private static class RecordingCallback implements AsyncMethodCallback<TSyncLogEntriesRes> {
+
+    private TSyncLogEntriesRes response;
+    private Exception exception;
+
+    @Override
+    public void onComplete(TSyncLogEntriesRes response) {
+      this.response = response;
+    }
+
+    @Override
+    public void onError(Exception exception) {
+      this.exception = exception;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.benchmark;
+
+import java.util.Random;
+
+/** Orders of the timestamps written by the benchmarks. */
+public enum TimestampOrder {
+  /** strictly increasing, e.g. a single device sending in real time */
+  ORDERED,
+  /** increasing, except that 5% of the points arrive up to 100 points late */
+  SLIGHTLY_UNORDERED,
+  /** a random permutation, e.g. data replayed from many sources */
+  RANDOM;
+
+  private static final double LATE_POINT_RATIO = 0.05;
+  private static final int MAX_DELAY = 100;
+
+  /**
+   * Generate the distinct timestamps [0, size) in this order. The same seed always generates the
+   * same timestamps, so that results are comparable across runs.
+   */
+  public long[] generate(int size, long seed) {
+    long[] timestamps = new long[size];
+    for (int i = 0; i < size; i++) {
+      timestamps[i] = i;
+    }
+    Random random = new Random(seed);
+    switch (this) {
+      case SLIGHTLY_UNORDERED:
+        for (int i = 0; i < size; i++) {
+          if (random.nextDouble() < LATE_POINT_RATIO) {
+            // the point at i arrives after the ones before i + delay
+            int delay = 1 + random.nextInt(MAX_DELAY);
+            int to = Math.min(size - 1, i + delay);
+            long late = timestamps[i];
+            System.arraycopy(timestamps, i + 1, timestamps, i, to - i);
+            timestamps[to] = late;
+          }
+        }
+        break;
+      case RANDOM:
+        for (int i = size - 1; i > 0; i--) {
+          int j = random.nextInt(i + 1);
+          long tmp = timestamps[i];
+          timestamps[i] = timestamps[j];
+          timestamps[j] = tmp;
+        }
+        break;
+      case ORDERED:
+      default:
+        break;
+    }
+    return timestamps;
+  }
+}
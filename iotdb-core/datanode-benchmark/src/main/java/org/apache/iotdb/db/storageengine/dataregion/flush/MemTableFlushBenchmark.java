@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.flush;
+
+import org.apache.iotdb.db.storageengine.dataregion.memtable.IMemTable;
+import org.apache.iotdb.db.storageengine.dataregion.memtable.PrimitiveMemTable;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.tsfile.write.schema.IMeasurementSchema;
+import org.apache.tsfile.write.schema.MeasurementSchema;
+import org.apache.tsfile.write.writer.RestorableTsFileIOWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Points flushed per second by {@link MemTableFlushTask}, i.e. sorting, encoding and writing a
+ * memtable into a TsFile in a temporary directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(
+    MemTableFlushBenchmark.DEVICE_NUM
+        * MemTableFlushBenchmark.MEASUREMENT_NUM
+        * MemTableFlushBenchmark.ROW_NUM)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MemTableFlushBenchmark {
+
+  static final int DEVICE_NUM = 10;
+  static final int MEASUREMENT_NUM = 10;
+  static final int ROW_NUM = 10_000;
+
+  private static final String DATABASE = "root.bench";
+
+  @Param({"false", "true"})
+  private boolean aligned;
+
+  @Param({"TS_2DIFF", "GORILLA", "PLAIN"})
+  private TSEncoding encoding;
+
+  private File outputDir;
+  private int fileIndex = 0;
+
+  private IMemTable memTable;
+  private RestorableTsFileIOWriter writer;
+
+  @Setup(Level.Trial)
+  public void createOutputDir() throws IOException {
+    outputDir = Files.createTempDirectory("memtable-flush-benchmark").toFile();
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteOutputDir() throws IOException {
+    Files.deleteIfExists(outputDir.toPath());
+  }
+
+  @Setup(Level.Invocation)
+  public void prepareMemTable() throws IOException {
+    memTable = new PrimitiveMemTable(DATABASE, "0");
+    List<IMeasurementSchema> schemaList = new ArrayList<>(MEASUREMENT_NUM);
+    for (int i = 0; i < MEASUREMENT_NUM; i++) {
+      schemaList.add(new MeasurementSchema("s" + i, TSDataType.INT64, encoding));
+    }
+    for (int device = 0; device < DEVICE_NUM; device++) {
+      IDeviceID deviceId = IDeviceID.Factory.DEFAULT_FACTORY.create(DATABASE + ".d" + device);
+      for (long time = 0; time < ROW_NUM; time++) {
+        Object[] values = new Object[MEASUREMENT_NUM];
+        for (int i = 0; i < MEASUREMENT_NUM; i++) {
+          // a slowly changing value like most sensors
+          values[i] = time / 10 + i;
+        }
+        if (aligned) {
+          memTable.writeAlignedRow(deviceId, schemaList, time, values);
+        } else {
+          memTable.write(deviceId, schemaList, time, values);
+        }
+      }
+    }
+    writer = new RestorableTsFileIOWriter(new File(outputDir, fileIndex++ + ".tsfile"));
+  }
+
+  @TearDown(Level.Invocation)
+  public void deleteTsFile() throws IOException {
+    writer.close();
+    Files.deleteIfExists(writer.getFile().toPath());
+    memTable.release();
+  }
+
+  @Benchmark
+  public RestorableTsFileIOWriter flush() throws ExecutionException, InterruptedException {
+    new MemTableFlushTask(memTable, writer, DATABASE, "0").syncFlushMemTable();
+    return writer;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.memtable;
+
+import org.apache.iotdb.db.benchmark.TimestampOrder;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.tsfile.write.schema.IMeasurementSchema;
+import org.apache.tsfile.write.schema.MeasurementSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows written into a {@link PrimitiveMemTable} per second, i.e. the cost of {@link
+ * WritableMemChunk} and {@link AlignedWritableMemChunk} appending to their TVLists.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(MemTableWriteBenchmark.ROW_NUM)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MemTableWriteBenchmark {
+
+  static final int ROW_NUM = 100_000;
+
+  private static final long SEED = 20240101L;
+
+  @Param({"ORDERED", "SLIGHTLY_UNORDERED", "RANDOM"})
+  private TimestampOrder timestampOrder;
+
+  @Param({"false", "true"})
+  private boolean aligned;
+
+  @Param({"10"})
+  private int measurementNum;
+
+  private final IDeviceID deviceId = IDeviceID.Factory.DEFAULT_FACTORY.create("root.bench.d0");
+  private List<IMeasurementSchema> schemaList;
+  private long[] timestamps;
+  private Object[][] rows;
+
+  private IMemTable memTable;
+
+  @Setup(Level.Trial)
+  public void prepareData() {
+    schemaList = new ArrayList<>(measurementNum);
+    for (int i = 0; i < measurementNum; i++) {
+      schemaList.add(new MeasurementSchema("s" + i, TSDataType.INT64, TSEncoding.TS_2DIFF));
+    }
+    timestamps = timestampOrder.generate(ROW_NUM, SEED);
+    // box the values in advance, only the memtable is measured
+    rows = new Object[ROW_NUM][];
+    for (int row = 0; row < ROW_NUM; row++) {
+      rows[row] = new Object[measurementNum];
+      for (int column = 0; column < measurementNum; column++) {
+        rows[row][column] = timestamps[row] * measurementNum + column;
+      }
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void createMemTable() {
+    memTable = new PrimitiveMemTable("root.bench", "0");
+  }
+
+  @TearDown(Level.Invocation)
+  public void releaseMemTable() {
+    memTable.release();
+  }
+
+  @Benchmark
+  public IMemTable write() {
+    if (aligned) {
+      for (int row = 0; row < ROW_NUM; row++) {
+        memTable.writeAlignedRow(deviceId, schemaList, timestamps[row], rows[row]);
+      }
+    } else {
+      for (int row = 0; row < ROW_NUM; row++) {
+        memTable.write(deviceId, schemaList, timestamps[row], rows[row]);
+      }
+    }
+    return memTable;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.utils.datastructure;
+
+import org.apache.iotdb.db.benchmark.TimestampOrder;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Points sorted per second by each {@link TVListSortAlgorithm}. The lists are created directly
+ * instead of by {@link TVList#newList}, whose algorithm is fixed once the configuration is loaded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(TVListSortBenchmark.POINT_NUM)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TVListSortBenchmark {
+
+  static final int POINT_NUM = 100_000;
+
+  private static final long SEED = 20240101L;
+
+  private static final int ALIGNED_COLUMN_NUM = 3;
+
+  @Param({"TIM", "QUICK", "BACKWARD"})
+  private TVListSortAlgorithm algorithm;
+
+  @Param({"ORDERED", "SLIGHTLY_UNORDERED", "RANDOM"})
+  private TimestampOrder timestampOrder;
+
+  @Param({"false", "true"})
+  private boolean aligned;
+
+  private long[] timestamps;
+
+  private TVList list;
+
+  @Setup(Level.Trial)
+  public void prepareData() {
+    timestamps = timestampOrder.generate(POINT_NUM, SEED);
+  }
+
+  @Setup(Level.Invocation)
+  public void fillList() {
+    if (aligned) {
+      list = newAlignedList();
+      for (long timestamp : timestamps) {
+        Object[] values = new Object[ALIGNED_COLUMN_NUM];
+        for (int i = 0; i < ALIGNED_COLUMN_NUM; i++) {
+          values[i] = timestamp + i;
+        }
+        list.putAlignedValue(timestamp, values);
+      }
+    } else {
+      list = newLongList();
+      for (long timestamp : timestamps) {
+        list.putLong(timestamp, timestamp);
+      }
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void clearList() {
+    list.clear();
+  }
+
+  @Benchmark
+  public TVList sort() {
+    list.sort();
+    return list;
+  }
+
+  private TVList newLongList() {
+    switch (algorithm) {
+      case QUICK:
+        return new QuickLongTVList();
+      case BACKWARD:
+        return new BackLongTVList();
+      case TIM:
+      default:
+        return new TimLongTVList();
+    }
+  }
+
+  private TVList newAlignedList() {
+    List<TSDataType> dataTypes =
+        new ArrayList<>(Collections.nCopies(ALIGNED_COLUMN_NUM, TSDataType.INT64));
+    switch (algorithm) {
+      case QUICK:
+        return new QuickAlignedTVList(dataTypes);
+      case BACKWARD:
+        return new BackAlignedTVList(dataTypes);
+      case TIM:
+      default:
+        return new TimAlignedTVList(dataTypes);
+    }
+  }
+}
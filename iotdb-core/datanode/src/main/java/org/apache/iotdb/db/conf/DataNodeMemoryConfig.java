@@ -55,6 +55,12 @@ public class DataNodeMemoryConfig {
   /** whether to cache metadata(ChunkMetaData and TsFileMetaData) or not. */
   private boolean metaDataCacheEnable = true;
 
+  /**
+   * The max direct memory used by the off-heap second tier of chunk cache. 0 means the off-heap
+   * chunk cache is disabled.
+   */
+  private long offHeapChunkCacheSizeInBytes = 0L;
+
   /** How many threads can concurrently execute query statement. When <= 0, use CPU core number. */
   private int queryThreadCount = Runtime.getRuntime().availableProcessors();
 
@@ -399,6 +405,11 @@ public class DataNodeMemoryConfig {
         Boolean.parseBoolean(
             properties.getProperty(
                 "meta_data_cache_enable", Boolean.toString(isMetaDataCacheEnable()))));
+    setOffHeapChunkCacheSizeInBytes(
+        Long.parseLong(
+            properties.getProperty(
+                "off_heap_chunk_cache_size_in_bytes",
+                Long.toString(getOffHeapChunkCacheSizeInBytes()))));
     setQueryThreadCount(
         Integer.parseInt(
             properties.getProperty("query_thread_count", Integer.toString(getQueryThreadCount()))));
@@ -554,6 +565,14 @@ public class DataNodeMemoryConfig {
     this.metaDataCacheEnable = metaDataCacheEnable;
   }
 
+  public long getOffHeapChunkCacheSizeInBytes() {
+    return offHeapChunkCacheSizeInBytes;
+  }
+
+  public void setOffHeapChunkCacheSizeInBytes(long offHeapChunkCacheSizeInBytes) {
+    this.offHeapChunkCacheSizeInBytes = offHeapChunkCacheSizeInBytes;
+  }
+
   public int getQueryThreadCount() {
     return queryThreadCount;
   }
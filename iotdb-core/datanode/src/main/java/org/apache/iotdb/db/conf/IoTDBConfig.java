@@ -120,6 +120,15 @@ public class IoTDBConfig {
   /** Max mqtt message size. Unit: byte */
   private int mqttMaxMessageSize = 1048576;
 
+  /**
+   * Max time the mqtt messages of a client are buffered to be inserted together. Unit: ms. 0 means
+   * each message is inserted once it is published.
+   */
+  private long mqttBatchMaxDelayInMs = 0;
+
+  /** Max number of rows of the mqtt messages of a client inserted together. */
+  private int mqttBatchMaxRowNum = 1000;
+
   /** Rpc binding address. */
   private String rpcAddress = "0.0.0.0";
 
@@ -187,9 +196,23 @@ public class IoTDBConfig {
    */
   private volatile long walSyncModeFsyncDelayInMs = 3;
 
+  /**
+   * Max duration a wal flush operation will wait for other write requests to share one fsync in the
+   * group commit mode, counted from the first write request of the group. Unit: millisecond
+   */
+  private volatile long walGroupCommitWindowInMs = 5;
+
+  /**
+   * Max serialized size of the wal entries sharing one fsync in the group commit mode. Unit: byte
+   */
+  private volatile long walGroupCommitMaxBatchSizeInByte = 4 * 1024 * 1024L;
+
   /** Buffer size of each wal node. Unit: byte */
   private int walBufferSize = 32 * 1024 * 1024;
 
+  /** Whether to read wal files through memory mapping instead of file channel reads */
+  private boolean walReadMmapEnable = true;
+
   /** Blocking queue capacity of each delete ahead log buffer */
   private int deletionAheadLogBufferQueueCapacity = 500;
 
@@ -416,6 +439,63 @@ public class IoTDBConfig {
   /** The buffer for sort operation */
   private long sortBufferSize = 1024 * 1024L;
 
+  /** Whether hash aggregation of table model can spill its states to disk */
+  private boolean enableHashAggregationSpill = false;
+
+  /** The in-memory states of hash aggregation will be spilled once it exceeds this threshold */
+  private long hashAggregationSpillThresholdInBytes = 64 * 1024 * 1024L;
+
+  /** Whether equi-join of table model can be executed by hash join when the build side is small */
+  private boolean enableHashJoin = false;
+
+  /** The max row count of build side that hash join can be chosen */
+  private long hashJoinBuildSideMaxRowCount = 100_000L;
+
+  /**
+   * Whether the join keys of hash join build side are published as dynamic filters, which are used
+   * by the table scans of probe side to skip the devices and time ranges that can't be matched
+   */
+  private boolean enableDynamicFilter = true;
+
+  /** The max number of distinct join keys held by a dynamic filter */
+  private int dynamicFilterMaxDistinctValueCount = 10_000;
+
+  /**
+   * Whether the filters of table model FilterAndProjectOperator are compiled into type specialized
+   * kernels evaluated on selected positions, instead of a tree of ColumnTransformers
+   */
+  private boolean enableFilterCompilation = true;
+
+  /**
+   * Whether the table model optimizer uses the statistics of sealed TsFiles to reorder inner joins
+   * and to decide whether an aggregation is worth a partial stage
+   */
+  private boolean enableCostBasedOptimization = true;
+
+  /**
+   * Whether a tree model series aggregation scan over several time partitions of one data region
+   * is split by time partition and executed by parallel drivers
+   */
+  private boolean enableIntraRegionParallelAggregation = true;
+
+  /**
+   * The max number of GROUP BY TIME windows whose aggregation results are cached by a DataNode. 0
+   * means the cache is disabled.
+   */
+  private int aggregationResultCacheMaxWindowNum = 100_000;
+
+  /**
+   * The max memory of the aggregation results cached by a DataNode, which is allocated from the
+   * memory of operators.
+   */
+  private long aggregationResultCacheMaxSizeInBytes = 32 * 1024 * 1024L;
+
+  /**
+   * The interval of persisting the last cache, which is reloaded when the DataNode restarts. A
+   * negative value means the last cache is not persisted.
+   */
+  private long lastCacheSnapshotIntervalInMs = 600_000L;
+
   /**
    * The strategy of inner space compaction task. There are just one inner space compaction strategy
    * SIZE_TIRED_COMPACTION:
@@ -563,6 +643,13 @@ public class IoTDBConfig {
   /** Examining period of cache file reader : 100 seconds. Unit: millisecond */
   private long cacheFileReaderClearPeriod = 100000;
 
+  /**
+   * The max number of TsFile readers opened by FileReaderManager. Readers of closed TsFiles that are
+   * no longer referenced by any query are kept open and evicted in LRU order beyond this number. 0
+   * means closing them as soon as they are not referenced.
+   */
+  private int maxOpenedTsFileReaderNum = 10000;
+
   /** the max executing time of query in ms. Unit: millisecond */
   private long queryTimeoutThreshold = 60000;
 
@@ -748,12 +835,24 @@ public class IoTDBConfig {
   /** The default value of primitive array size in array pool */
   private int primitiveArraySize = 64;
 
+  /**
+   * The max direct memory used to keep the values of non-aligned fixed-length TVLists off heap. 0
+   * means all TVLists are kept on heap.
+   */
+  private long offHeapTVListSizeInBytes = 0L;
+
   /**
    * Level of TimeIndex, which records the start time and end time of TsFileResource. Currently,
    * DEVICE_TIME_INDEX and FILE_TIME_INDEX are supported, and could not be changed after first set.
    */
   private TimeIndexLevel timeIndexLevel = TimeIndexLevel.ARRAY_DEVICE_TIME_INDEX;
 
+  /**
+   * Whether to keep a per-device interval index of file time ranges in each time partition, so
+   * that a single-device query only visits the TsFileResources that overlap its time range.
+   */
+  private boolean enableTsFileIntervalIndex = true;
+
   // just for test
   // wait for 60 second by default.
   private int thriftServerAwaitTimeForStopService = 60;
@@ -808,12 +907,24 @@ public class IoTDBConfig {
   /** the size of ioTaskQueue */
   private int ioTaskQueueSizeForFlushing = 10;
 
+  /**
+   * the number of devices of a memtable encoded concurrently when it is flushed, 1 means encoding
+   * all the devices by a single thread
+   */
+  private int flushEncodingParallelism = Runtime.getRuntime().availableProcessors();
+
   /** the number of data regions per user-defined database */
   private int dataRegionNum = 1;
 
   /** the interval to log recover progress of each vsg when starting iotdb */
   private long recoveryLogIntervalInMs = 5_000L;
 
+  /**
+   * the number of threads loading the TsFileResources of data regions after restart, 0 means the
+   * number of local data directories
+   */
+  private int tsFileResourceRecoverThreadNum = 0;
+
   /**
    * Separate sequence and unsequence data or not. If it is false, then all data will be written
    * into unsequence data dir.
@@ -901,6 +1012,15 @@ public class IoTDBConfig {
   /** Thread keep alive time in ms of mpp data exchange. */
   private int mppDataExchangeKeepAliveTimeInMs = 1000;
 
+  /**
+   * Compressor of TsBlocks pulled from remote DataNodes by mpp data exchange. UNCOMPRESSED means
+   * TsBlocks are sent as they are serialized.
+   */
+  private CompressionType mppDataExchangeCompressor = CompressionType.UNCOMPRESSED;
+
+  /** Serialized TsBlocks smaller than this are sent uncompressed by mpp data exchange. */
+  private int mppDataExchangeCompressionMinSizeInBytes = 4096;
+
   /** Thrift socket and connection timeout between data node and config node. */
   private int connectionTimeoutInMS = (int) TimeUnit.SECONDS.toMillis(60);
 
@@ -927,6 +1047,13 @@ public class IoTDBConfig {
    */
   private int partitionCacheSize = 1000;
 
+  /**
+   * Max number of parsed table model query templates kept in {@link
+   * org.apache.iotdb.db.queryengine.plan.relational.sql.parser.ParameterizedStatementCache}, 0 means
+   * disabled
+   */
+  private int parameterizedStatementCacheSize = 0;
+
   /** Cache size of user and role */
   private int authorCacheSize = 100;
 
@@ -1060,6 +1187,8 @@ public class IoTDBConfig {
   private int maxPendingBatchesNum = 5;
   private double maxMemoryRatioForQueue = 0.6;
   private long regionMigrationSpeedLimitBytesPerSecond = 48 * 1024 * 1024L;
+  private int logDispatcherThreadNum = 0;
+  private int maxBatchesNumPerSyncLogRequest = 1;
 
   // IoTConsensusV2 Config
   private int iotConsensusV2PipelineSize = 5;
@@ -1175,6 +1304,22 @@ public class IoTDBConfig {
     this.regionMigrationSpeedLimitBytesPerSecond = regionMigrationSpeedLimitBytesPerSecond;
   }
 
+  public int getLogDispatcherThreadNum() {
+    return logDispatcherThreadNum;
+  }
+
+  public void setLogDispatcherThreadNum(int logDispatcherThreadNum) {
+    this.logDispatcherThreadNum = logDispatcherThreadNum;
+  }
+
+  public int getMaxBatchesNumPerSyncLogRequest() {
+    return maxBatchesNumPerSyncLogRequest;
+  }
+
+  public void setMaxBatchesNumPerSyncLogRequest(int maxBatchesNumPerSyncLogRequest) {
+    this.maxBatchesNumPerSyncLogRequest = maxBatchesNumPerSyncLogRequest;
+  }
+
   public int getIotConsensusV2PipelineSize() {
     return iotConsensusV2PipelineSize;
   }
@@ -1276,6 +1421,14 @@ public class IoTDBConfig {
     this.timeIndexLevel = TimeIndexLevel.valueOf(timeIndexLevel);
   }
 
+  public boolean isEnableTsFileIntervalIndex() {
+    return enableTsFileIntervalIndex;
+  }
+
+  public void setEnableTsFileIntervalIndex(boolean enableTsFileIntervalIndex) {
+    this.enableTsFileIntervalIndex = enableTsFileIntervalIndex;
+  }
+
   public void updatePath() {
     formulateFolders();
     confirmMultiDirStrategy();
@@ -1816,6 +1969,14 @@ public class IoTDBConfig {
     this.cacheFileReaderClearPeriod = cacheFileReaderClearPeriod;
   }
 
+  public int getMaxOpenedTsFileReaderNum() {
+    return maxOpenedTsFileReaderNum;
+  }
+
+  public void setMaxOpenedTsFileReaderNum(int maxOpenedTsFileReaderNum) {
+    this.maxOpenedTsFileReaderNum = maxOpenedTsFileReaderNum;
+  }
+
   public long getQueryTimeoutThreshold() {
     return queryTimeoutThreshold;
   }
@@ -1872,6 +2033,30 @@ public class IoTDBConfig {
     this.walSyncModeFsyncDelayInMs = walSyncModeFsyncDelayInMs;
   }
 
+  public long getWalGroupCommitWindowInMs() {
+    return walGroupCommitWindowInMs;
+  }
+
+  public void setWalGroupCommitWindowInMs(long walGroupCommitWindowInMs) {
+    this.walGroupCommitWindowInMs = walGroupCommitWindowInMs;
+  }
+
+  public long getWalGroupCommitMaxBatchSizeInByte() {
+    return walGroupCommitMaxBatchSizeInByte;
+  }
+
+  public void setWalGroupCommitMaxBatchSizeInByte(long walGroupCommitMaxBatchSizeInByte) {
+    this.walGroupCommitMaxBatchSizeInByte = walGroupCommitMaxBatchSizeInByte;
+  }
+
+  public boolean isWalReadMmapEnable() {
+    return walReadMmapEnable;
+  }
+
+  public void setWalReadMmapEnable(boolean walReadMmapEnable) {
+    this.walReadMmapEnable = walReadMmapEnable;
+  }
+
   public int getWalBufferSize() {
     return walBufferSize;
   }
@@ -2479,6 +2664,22 @@ public class IoTDBConfig {
     this.mqttMaxMessageSize = mqttMaxMessageSize;
   }
 
+  public long getMqttBatchMaxDelayInMs() {
+    return mqttBatchMaxDelayInMs;
+  }
+
+  public void setMqttBatchMaxDelayInMs(long mqttBatchMaxDelayInMs) {
+    this.mqttBatchMaxDelayInMs = mqttBatchMaxDelayInMs;
+  }
+
+  public int getMqttBatchMaxRowNum() {
+    return mqttBatchMaxRowNum;
+  }
+
+  public void setMqttBatchMaxRowNum(int mqttBatchMaxRowNum) {
+    this.mqttBatchMaxRowNum = mqttBatchMaxRowNum;
+  }
+
   public int getTagAttributeFlushInterval() {
     return tagAttributeFlushInterval;
   }
@@ -2495,6 +2696,14 @@ public class IoTDBConfig {
     this.primitiveArraySize = primitiveArraySize;
   }
 
+  public long getOffHeapTVListSizeInBytes() {
+    return offHeapTVListSizeInBytes;
+  }
+
+  public void setOffHeapTVListSizeInBytes(long offHeapTVListSizeInBytes) {
+    this.offHeapTVListSizeInBytes = offHeapTVListSizeInBytes;
+  }
+
   public int getThriftMaxFrameSize() {
     return thriftMaxFrameSize;
   }
@@ -2585,6 +2794,14 @@ public class IoTDBConfig {
     this.recoveryLogIntervalInMs = recoveryLogIntervalInMs;
   }
 
+  public int getTsFileResourceRecoverThreadNum() {
+    return tsFileResourceRecoverThreadNum;
+  }
+
+  public void setTsFileResourceRecoverThreadNum(int tsFileResourceRecoverThreadNum) {
+    this.tsFileResourceRecoverThreadNum = tsFileResourceRecoverThreadNum;
+  }
+
   public boolean isRpcAdvancedCompressionEnable() {
     return rpcAdvancedCompressionEnable;
   }
@@ -2626,6 +2843,14 @@ public class IoTDBConfig {
     this.ioTaskQueueSizeForFlushing = ioTaskQueueSizeForFlushing;
   }
 
+  public int getFlushEncodingParallelism() {
+    return flushEncodingParallelism;
+  }
+
+  public void setFlushEncodingParallelism(int flushEncodingParallelism) {
+    this.flushEncodingParallelism = flushEncodingParallelism;
+  }
+
   public boolean isEnableSeqSpaceCompaction() {
     return enableSeqSpaceCompaction;
   }
@@ -3031,6 +3256,23 @@ public class IoTDBConfig {
     this.mppDataExchangeKeepAliveTimeInMs = mppDataExchangeKeepAliveTimeInMs;
   }
 
+  public CompressionType getMppDataExchangeCompressor() {
+    return mppDataExchangeCompressor;
+  }
+
+  public void setMppDataExchangeCompressor(CompressionType mppDataExchangeCompressor) {
+    this.mppDataExchangeCompressor = mppDataExchangeCompressor;
+  }
+
+  public int getMppDataExchangeCompressionMinSizeInBytes() {
+    return mppDataExchangeCompressionMinSizeInBytes;
+  }
+
+  public void setMppDataExchangeCompressionMinSizeInBytes(
+      int mppDataExchangeCompressionMinSizeInBytes) {
+    this.mppDataExchangeCompressionMinSizeInBytes = mppDataExchangeCompressionMinSizeInBytes;
+  }
+
   public int getConnectionTimeoutInMS() {
     return connectionTimeoutInMS;
   }
@@ -3096,6 +3338,14 @@ public class IoTDBConfig {
     this.partitionCacheSize = partitionCacheSize;
   }
 
+  public int getParameterizedStatementCacheSize() {
+    return parameterizedStatementCacheSize;
+  }
+
+  public void setParameterizedStatementCacheSize(int parameterizedStatementCacheSize) {
+    this.parameterizedStatementCacheSize = parameterizedStatementCacheSize;
+  }
+
   public int getAuthorCacheSize() {
     return authorCacheSize;
   }
@@ -3961,6 +4211,103 @@ public class IoTDBConfig {
     return sortBufferSize;
   }
 
+  public boolean isEnableHashAggregationSpill() {
+    return enableHashAggregationSpill;
+  }
+
+  public void setEnableHashAggregationSpill(boolean enableHashAggregationSpill) {
+    this.enableHashAggregationSpill = enableHashAggregationSpill;
+  }
+
+  public long getHashAggregationSpillThresholdInBytes() {
+    return hashAggregationSpillThresholdInBytes;
+  }
+
+  public void setHashAggregationSpillThresholdInBytes(long hashAggregationSpillThresholdInBytes) {
+    this.hashAggregationSpillThresholdInBytes = hashAggregationSpillThresholdInBytes;
+  }
+
+  public boolean isEnableHashJoin() {
+    return enableHashJoin;
+  }
+
+  public void setEnableHashJoin(boolean enableHashJoin) {
+    this.enableHashJoin = enableHashJoin;
+  }
+
+  public long getHashJoinBuildSideMaxRowCount() {
+    return hashJoinBuildSideMaxRowCount;
+  }
+
+  public void setHashJoinBuildSideMaxRowCount(long hashJoinBuildSideMaxRowCount) {
+    this.hashJoinBuildSideMaxRowCount = hashJoinBuildSideMaxRowCount;
+  }
+
+  public boolean isEnableDynamicFilter() {
+    return enableDynamicFilter;
+  }
+
+  public void setEnableDynamicFilter(boolean enableDynamicFilter) {
+    this.enableDynamicFilter = enableDynamicFilter;
+  }
+
+  public int getDynamicFilterMaxDistinctValueCount() {
+    return dynamicFilterMaxDistinctValueCount;
+  }
+
+  public void setDynamicFilterMaxDistinctValueCount(int dynamicFilterMaxDistinctValueCount) {
+    this.dynamicFilterMaxDistinctValueCount = dynamicFilterMaxDistinctValueCount;
+  }
+
+  public boolean isEnableFilterCompilation() {
+    return enableFilterCompilation;
+  }
+
+  public void setEnableFilterCompilation(boolean enableFilterCompilation) {
+    this.enableFilterCompilation = enableFilterCompilation;
+  }
+
+  public boolean isEnableCostBasedOptimization() {
+    return enableCostBasedOptimization;
+  }
+
+  public void setEnableCostBasedOptimization(boolean enableCostBasedOptimization) {
+    this.enableCostBasedOptimization = enableCostBasedOptimization;
+  }
+
+  public boolean isEnableIntraRegionParallelAggregation() {
+    return enableIntraRegionParallelAggregation;
+  }
+
+  public void setEnableIntraRegionParallelAggregation(
+      boolean enableIntraRegionParallelAggregation) {
+    this.enableIntraRegionParallelAggregation = enableIntraRegionParallelAggregation;
+  }
+
+  public int getAggregationResultCacheMaxWindowNum() {
+    return aggregationResultCacheMaxWindowNum;
+  }
+
+  public void setAggregationResultCacheMaxWindowNum(int aggregationResultCacheMaxWindowNum) {
+    this.aggregationResultCacheMaxWindowNum = aggregationResultCacheMaxWindowNum;
+  }
+
+  public long getAggregationResultCacheMaxSizeInBytes() {
+    return aggregationResultCacheMaxSizeInBytes;
+  }
+
+  public void setAggregationResultCacheMaxSizeInBytes(long aggregationResultCacheMaxSizeInBytes) {
+    this.aggregationResultCacheMaxSizeInBytes = aggregationResultCacheMaxSizeInBytes;
+  }
+
+  public long getLastCacheSnapshotIntervalInMs() {
+    return lastCacheSnapshotIntervalInMs;
+  }
+
+  public void setLastCacheSnapshotIntervalInMs(long lastCacheSnapshotIntervalInMs) {
+    this.lastCacheSnapshotIntervalInMs = lastCacheSnapshotIntervalInMs;
+  }
+
   public void setSortTmpDir(String sortTmpDir) {
     this.sortTmpDir = sortTmpDir;
   }
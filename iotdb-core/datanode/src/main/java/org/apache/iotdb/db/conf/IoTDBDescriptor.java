@@ -382,6 +382,14 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "io_task_queue_size_for_flushing",
                 Integer.toString(conf.getIoTaskQueueSizeForFlushing()))));
+    conf.setFlushEncodingParallelism(
+        Integer.parseInt(
+            properties.getProperty(
+                "flush_encoding_parallelism",
+                Integer.toString(conf.getFlushEncodingParallelism()))));
+    if (conf.getFlushEncodingParallelism() <= 0) {
+      conf.setFlushEncodingParallelism(Runtime.getRuntime().availableProcessors());
+    }
 
     boolean enableWALCompression =
         Boolean.parseBoolean(properties.getProperty("enable_wal_compression", "true"));
@@ -476,6 +484,12 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "query_timeout_threshold", Long.toString(conf.getQueryTimeoutThreshold()))));
 
+    conf.setEnableTsFileIntervalIndex(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_tsfile_interval_index",
+                String.valueOf(conf.isEnableTsFileIntervalIndex()))));
+
     conf.setSessionTimeoutThreshold(
         Integer.parseInt(
             properties.getProperty(
@@ -802,6 +816,12 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "primitive_array_size", String.valueOf(conf.getPrimitiveArraySize())))));
 
+    conf.setOffHeapTVListSizeInBytes(
+        Long.parseLong(
+            properties.getProperty(
+                "off_heap_tvlist_size_in_bytes",
+                String.valueOf(conf.getOffHeapTVListSizeInBytes()))));
+
     conf.setThriftMaxFrameSize(
         Integer.parseInt(
             properties.getProperty(
@@ -830,6 +850,12 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "recovery_log_interval_in_ms", String.valueOf(conf.getRecoveryLogIntervalInMs()))));
 
+    conf.setTsFileResourceRecoverThreadNum(
+        Integer.parseInt(
+            properties.getProperty(
+                "tsfile_resource_recover_thread_num",
+                String.valueOf(conf.getTsFileResourceRecoverThreadNum()))));
+
     conf.setEnableSeparateData(
         Boolean.parseBoolean(
             properties.getProperty(
@@ -1047,6 +1073,68 @@ public class IoTDBDescriptor {
     // tmp filePath for sort operator
     conf.setSortTmpDir(properties.getProperty("sort_tmp_dir", conf.getSortTmpDir()));
 
+    conf.setEnableHashAggregationSpill(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_hash_aggregation_spill",
+                Boolean.toString(conf.isEnableHashAggregationSpill()))));
+    conf.setHashAggregationSpillThresholdInBytes(
+        Long.parseLong(
+            properties.getProperty(
+                "hash_aggregation_spill_threshold_in_bytes",
+                Long.toString(conf.getHashAggregationSpillThresholdInBytes()))));
+    conf.setEnableHashJoin(
+        Boolean.parseBoolean(
+            properties.getProperty("enable_hash_join", Boolean.toString(conf.isEnableHashJoin()))));
+    conf.setHashJoinBuildSideMaxRowCount(
+        Long.parseLong(
+            properties.getProperty(
+                "hash_join_build_side_max_row_count",
+                Long.toString(conf.getHashJoinBuildSideMaxRowCount()))));
+    conf.setEnableDynamicFilter(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_dynamic_filter", Boolean.toString(conf.isEnableDynamicFilter()))));
+    conf.setDynamicFilterMaxDistinctValueCount(
+        Integer.parseInt(
+            properties.getProperty(
+                "dynamic_filter_max_distinct_value_count",
+                Integer.toString(conf.getDynamicFilterMaxDistinctValueCount()))));
+    conf.setEnableFilterCompilation(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_filter_compilation", Boolean.toString(conf.isEnableFilterCompilation()))));
+    conf.setEnableCostBasedOptimization(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_cost_based_optimization",
+                Boolean.toString(conf.isEnableCostBasedOptimization()))));
+    conf.setEnableIntraRegionParallelAggregation(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_intra_region_parallel_aggregation",
+                Boolean.toString(conf.isEnableIntraRegionParallelAggregation()))));
+    conf.setAggregationResultCacheMaxWindowNum(
+        Integer.parseInt(
+            properties.getProperty(
+                "aggregation_result_cache_max_window_num",
+                Integer.toString(conf.getAggregationResultCacheMaxWindowNum()))));
+    conf.setAggregationResultCacheMaxSizeInBytes(
+        Long.parseLong(
+            properties.getProperty(
+                "aggregation_result_cache_max_size_in_bytes",
+                Long.toString(conf.getAggregationResultCacheMaxSizeInBytes()))));
+    conf.setLastCacheSnapshotIntervalInMs(
+        Long.parseLong(
+            properties.getProperty(
+                "last_cache_snapshot_interval_in_ms",
+                Long.toString(conf.getLastCacheSnapshotIntervalInMs()))));
+    conf.setMaxOpenedTsFileReaderNum(
+        Integer.parseInt(
+            properties.getProperty(
+                "max_opened_tsfile_reader_num",
+                Integer.toString(conf.getMaxOpenedTsFileReaderNum()))));
+
     conf.setRateLimiterType(properties.getProperty("rate_limiter_type", conf.getRateLimiterType()));
 
     conf.setDataNodeSchemaCacheEvictionPolicy(
@@ -1138,6 +1226,18 @@ public class IoTDBDescriptor {
                 "region_migration_speed_limit_bytes_per_second",
                 ConfigurationFileUtils.getConfigurationDefaultValue(
                     "region_migration_speed_limit_bytes_per_second"))));
+    conf.setLogDispatcherThreadNum(
+        Integer.parseInt(
+            properties.getProperty(
+                "data_region_iot_log_dispatcher_thread_num",
+                ConfigurationFileUtils.getConfigurationDefaultValue(
+                    "data_region_iot_log_dispatcher_thread_num"))));
+    conf.setMaxBatchesNumPerSyncLogRequest(
+        Integer.parseInt(
+            properties.getProperty(
+                "data_region_iot_max_batches_num_per_sync_log_request",
+                ConfigurationFileUtils.getConfigurationDefaultValue(
+                    "data_region_iot_max_batches_num_per_sync_log_request"))));
   }
 
   private void loadIoTConsensusV2Props(TrimProperties properties) throws IOException {
@@ -1195,6 +1295,11 @@ public class IoTDBDescriptor {
       conf.setWalBufferSize(walBufferSize);
     }
 
+    conf.setWalReadMmapEnable(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "wal_read_mmap_enable", Boolean.toString(conf.isWalReadMmapEnable()))));
+
     boolean WALInsertNodeCacheShrinkClearEnabled =
         Boolean.parseBoolean(
             properties.getProperty(
@@ -1544,6 +1649,26 @@ public class IoTDBDescriptor {
       conf.setWalSyncModeFsyncDelayInMs(walSyncModeFsyncDelayInMs);
     }
 
+    long walGroupCommitWindowInMs =
+        Long.parseLong(
+            properties.getProperty(
+                "wal_group_commit_window_in_ms",
+                ConfigurationFileUtils.getConfigurationDefaultValue(
+                    "wal_group_commit_window_in_ms")));
+    if (walGroupCommitWindowInMs > 0) {
+      conf.setWalGroupCommitWindowInMs(walGroupCommitWindowInMs);
+    }
+
+    long walGroupCommitMaxBatchSize =
+        Long.parseLong(
+            properties.getProperty(
+                "wal_group_commit_max_batch_size_in_byte",
+                ConfigurationFileUtils.getConfigurationDefaultValue(
+                    "wal_group_commit_max_batch_size_in_byte")));
+    if (walGroupCommitMaxBatchSize > 0) {
+      conf.setWalGroupCommitMaxBatchSizeInByte(walGroupCommitMaxBatchSize);
+    }
+
     long walFileSizeThreshold =
         Long.parseLong(
             properties.getProperty(
@@ -1829,6 +1954,16 @@ public class IoTDBDescriptor {
       conf.setMqttMaxMessageSize(
           Integer.parseInt(properties.getProperty(IoTDBConstant.MQTT_MAX_MESSAGE_SIZE).trim()));
     }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_BATCH_MAX_DELAY_IN_MS) != null) {
+      conf.setMqttBatchMaxDelayInMs(
+          Long.parseLong(properties.getProperty(IoTDBConstant.MQTT_BATCH_MAX_DELAY_IN_MS).trim()));
+    }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_BATCH_MAX_ROW_NUM) != null) {
+      conf.setMqttBatchMaxRowNum(
+          Integer.parseInt(properties.getProperty(IoTDBConstant.MQTT_BATCH_MAX_ROW_NUM).trim()));
+    }
   }
 
   // timed flush memtable
@@ -2502,12 +2637,29 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "mpp_data_exchange_keep_alive_time_in_ms",
                 Integer.toString(conf.getMppDataExchangeKeepAliveTimeInMs()))));
+    conf.setMppDataExchangeCompressor(
+        CompressionType.valueOf(
+            properties
+                .getProperty(
+                    "mpp_data_exchange_compressor", conf.getMppDataExchangeCompressor().name())
+                .trim()));
+    conf.setMppDataExchangeCompressionMinSizeInBytes(
+        Integer.parseInt(
+            properties.getProperty(
+                "mpp_data_exchange_compression_min_size_in_bytes",
+                Integer.toString(conf.getMppDataExchangeCompressionMinSizeInBytes()))));
 
     conf.setPartitionCacheSize(
         Integer.parseInt(
             properties.getProperty(
                 "partition_cache_size", Integer.toString(conf.getPartitionCacheSize()))));
 
+    conf.setParameterizedStatementCacheSize(
+        Integer.parseInt(
+            properties.getProperty(
+                "parameterized_statement_cache_size",
+                Integer.toString(conf.getParameterizedStatementCacheSize()))));
+
     conf.setDriverTaskExecutionTimeSliceInMs(
         Integer.parseInt(
             properties.getProperty(
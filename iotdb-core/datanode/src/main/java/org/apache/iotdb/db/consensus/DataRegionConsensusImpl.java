@@ -149,6 +149,9 @@ public class DataRegionConsensusImpl {
                           .setMaxMemoryRatioForQueue(CONF.getMaxMemoryRatioForQueue())
                           .setRegionMigrationSpeedLimitBytesPerSecond(
                               CONF.getRegionMigrationSpeedLimitBytesPerSecond())
+                          .setLogDispatcherThreadNum(CONF.getLogDispatcherThreadNum())
+                          .setMaxBatchesNumPerSyncLogRequest(
+                              CONF.getMaxBatchesNumPerSyncLogRequest())
                           .build())
                   .build())
           .setPipeConsensusConfig(
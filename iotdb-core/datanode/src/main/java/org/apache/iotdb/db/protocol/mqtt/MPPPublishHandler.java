@@ -25,6 +25,7 @@ import org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory;
 import org.apache.iotdb.db.auth.AuthorityChecker;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.protocol.session.IClientSession;
 import org.apache.iotdb.db.protocol.session.MqttClientSession;
 import org.apache.iotdb.db.protocol.session.SessionManager;
@@ -38,7 +39,9 @@ import org.apache.iotdb.db.queryengine.plan.execution.ExecutionResult;
 import org.apache.iotdb.db.queryengine.plan.planner.LocalExecutionPlanner;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.Metadata;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.parser.SqlParser;
+import org.apache.iotdb.db.queryengine.plan.statement.crud.InsertBaseStatement;
 import org.apache.iotdb.db.queryengine.plan.statement.crud.InsertRowStatement;
+import org.apache.iotdb.db.queryengine.plan.statement.crud.InsertRowsStatement;
 import org.apache.iotdb.db.queryengine.plan.statement.crud.InsertTabletStatement;
 import org.apache.iotdb.db.utils.CommonUtils;
 import org.apache.iotdb.db.utils.TimestampPrecisionUtils;
@@ -52,12 +55,18 @@ import io.moquette.interception.messages.InterceptPublishMessage;
 import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.mqtt.MqttQoS;
 import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.utils.Binary;
 import org.apache.tsfile.utils.BitMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -76,12 +85,29 @@ public class MPPPublishHandler extends AbstractInterceptHandler {
   private final IPartitionFetcher partitionFetcher;
   private final ISchemaFetcher schemaFetcher;
   private final boolean useTableInsert;
+  // null if each message is inserted as soon as it is published
+  private final MessageBatcher messageBatcher;
 
   public MPPPublishHandler(IoTDBConfig config) {
     this.payloadFormat = PayloadFormatManager.getPayloadFormat(config.getMqttPayloadFormatter());
     partitionFetcher = ClusterPartitionFetcher.getInstance();
     schemaFetcher = ClusterSchemaFetcher.getInstance();
     useTableInsert = PayloadFormatter.TABLE_TYPE.equals(this.payloadFormat.getType());
+    messageBatcher =
+        config.getMqttBatchMaxDelayInMs() > 0
+            ? new MessageBatcher(
+                this::insertMessages,
+                config.getMqttBatchMaxDelayInMs(),
+                config.getMqttBatchMaxRowNum(),
+                config.getMqttHandlerPoolSize())
+            : null;
+  }
+
+  /** Insert the buffered messages, called after the broker is stopped. */
+  public void stop() {
+    if (messageBatcher != null) {
+      messageBatcher.stop();
+    }
   }
 
   @Override
@@ -110,6 +136,9 @@ public class MPPPublishHandler extends AbstractInterceptHandler {
   public void onDisconnect(InterceptDisconnectMessage msg) {
     MqttClientSession session = clientIdToSessionMap.remove(msg.getClientID());
     if (null != session) {
+      if (messageBatcher != null) {
+        messageBatcher.flush(msg.getClientID());
+      }
       sessionManager.removeCurrSession();
       sessionManager.closeSession(session, Coordinator.getInstance()::cleanupQueryExecution);
     }
@@ -141,6 +170,7 @@ public class MPPPublishHandler extends AbstractInterceptHandler {
         return;
       }
 
+      List<Message> validMessages = new ArrayList<>(messages.size());
       for (Message message : messages) {
         if (message == null) {
           continue;
@@ -153,10 +183,16 @@ public class MPPPublishHandler extends AbstractInterceptHandler {
                   ? msg.getTopicName()
                   : msg.getTopicName().substring(0, msg.getTopicName().indexOf("/"));
           tableMessage.setDatabase(database);
-          insertTable(tableMessage, session);
-        } else {
-          insertTree((TreeMessage) message, session);
         }
+        validMessages.add(message);
+      }
+      if (validMessages.isEmpty()) {
+        return;
+      }
+      if (messageBatcher != null) {
+        messageBatcher.add(clientId, session, validMessages);
+      } else {
+        insertMessages(session, validMessages);
       }
     } catch (Throwable t) {
       LOG.warn("onPublish execution exception, msg is [{}], error is ", msg, t);
@@ -166,12 +202,60 @@ public class MPPPublishHandler extends AbstractInterceptHandler {
     }
   }
 
-  /** Inserting table using tablet */
-  private void insertTable(TableMessage message, MqttClientSession session) {
+  private void insertMessages(MqttClientSession session, List<Message> messages) {
+    if (useTableInsert) {
+      // only the messages of the same columns can be put into one tablet
+      Map<List<Object>, List<TableMessage>> tabletMessages = new LinkedHashMap<>();
+      for (Message message : messages) {
+        TableMessage tableMessage = (TableMessage) message;
+        tabletMessages
+            .computeIfAbsent(
+                Arrays.asList(
+                    tableMessage.getDatabase(),
+                    tableMessage.getTable(),
+                    tableMessage.getFields(),
+                    tableMessage.getDataTypes(),
+                    tableMessage.getTagKeys(),
+                    tableMessage.getAttributeKeys()),
+                k -> new ArrayList<>())
+            .add(tableMessage);
+      }
+      tabletMessages.values().forEach(tableMessages -> insertTable(tableMessages, session));
+    } else {
+      List<TreeMessage> treeMessages = new ArrayList<>(messages.size());
+      messages.forEach(message -> treeMessages.add((TreeMessage) message));
+      insertTree(treeMessages, session);
+    }
+  }
+
+  /** Inserting table using tablet, the messages are of the same table and columns */
+  private void insertTable(List<TableMessage> messages, MqttClientSession session) {
+    // drop the invalid messages one by one, so that they don't fail the other rows of the tablet
+    List<TableMessage> validMessages = new ArrayList<>(messages.size());
+    for (TableMessage tableMessage : messages) {
+      try {
+        TimestampPrecisionUtils.checkTimestampPrecision(tableMessage.getTimestamp());
+        validMessages.add(tableMessage);
+      } catch (Exception e) {
+        LOG.warn(
+            "meet error when inserting database {}, table {}, tags {}, attributes {}, fields {}, at time {}, because ",
+            tableMessage.getDatabase(),
+            tableMessage.getTable(),
+            tableMessage.getTagValues(),
+            tableMessage.getAttributeValues(),
+            tableMessage.getFields(),
+            tableMessage.getTimestamp(),
+            e);
+      }
+    }
+    if (validMessages.isEmpty()) {
+      return;
+    }
+    messages = validMessages;
     TSStatus tsStatus = null;
+    TableMessage message = messages.get(0);
     try {
-      TimestampPrecisionUtils.checkTimestampPrecision(message.getTimestamp());
-      InsertTabletStatement insertTabletStatement = constructInsertTabletStatement(message);
+      InsertTabletStatement insertTabletStatement = constructInsertTabletStatement(messages);
       tsStatus = AuthorityChecker.checkAuthority(insertTabletStatement, session);
       if (tsStatus.getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
         LOG.warn(tsStatus.message);
@@ -201,19 +285,23 @@ public class MPPPublishHandler extends AbstractInterceptHandler {
       }
     } catch (Exception e) {
       LOG.warn(
-          "meet error when inserting database {}, table {}, tags {}, attributes {}, fields {}, at time {}, because ",
+          "meet error when inserting database {}, table {}, tags {}, attributes {}, fields {}, at time {} ({} rows), because ",
           message.getDatabase(),
           message.getTable(),
           message.getTagKeys(),
           message.getAttributeKeys(),
           message.getFields(),
           message.getTimestamp(),
+          messages.size(),
           e);
     }
   }
 
-  private InsertTabletStatement constructInsertTabletStatement(TableMessage message)
+  private InsertTabletStatement constructInsertTabletStatement(List<TableMessage> messages)
       throws IllegalPathException {
+    // times are sorted in the tablets of the session API as well
+    messages.sort(Comparator.comparingLong(Message::getTimestamp));
+    TableMessage message = messages.get(0);
     InsertTabletStatement insertStatement = new InsertTabletStatement();
     insertStatement.setDevicePath(
         DataNodeDevicePathCache.getInstance().getPartialPath(message.getTable()));
@@ -222,17 +310,10 @@ public class MPPPublishHandler extends AbstractInterceptHandler {
             .flatMap(List::stream)
             .collect(Collectors.toList());
     insertStatement.setMeasurements(measurements.toArray(new String[0]));
-    long[] timestamps = new long[] {message.getTimestamp()};
-    insertStatement.setTimes(timestamps);
     int columnSize = measurements.size();
-    int rowSize = 1;
+    int rowSize = messages.size();
 
     BitMap[] bitMaps = new BitMap[columnSize];
-    Object[] columns =
-        Stream.of(message.getValues(), message.getTagValues(), message.getAttributeValues())
-            .flatMap(List::stream)
-            .toArray(Object[]::new);
-    insertStatement.setColumns(columns);
     insertStatement.setBitMaps(bitMaps);
     insertStatement.setRowCount(rowSize);
     insertStatement.setAligned(false);
@@ -261,33 +342,91 @@ public class MPPPublishHandler extends AbstractInterceptHandler {
     insertStatement.setDataTypes(dataTypes);
     insertStatement.setColumnCategories(columnCategories);
 
+    long[] timestamps = new long[rowSize];
+    Object[] columns;
+    if (rowSize == 1) {
+      // the value of each column is already an array of one element
+      timestamps[0] = message.getTimestamp();
+      columns =
+          Stream.of(message.getValues(), message.getTagValues(), message.getAttributeValues())
+              .flatMap(List::stream)
+              .toArray(Object[]::new);
+    } else {
+      columns = new Object[columnSize];
+      for (int i = 0; i < columnSize; i++) {
+        columns[i] = createColumn(dataTypes[i], rowSize);
+      }
+      for (int row = 0; row < rowSize; row++) {
+        TableMessage rowMessage = messages.get(row);
+        timestamps[row] = rowMessage.getTimestamp();
+        Object[] values =
+            Stream.of(
+                    rowMessage.getValues(),
+                    rowMessage.getTagValues(),
+                    rowMessage.getAttributeValues())
+                .flatMap(List::stream)
+                .toArray(Object[]::new);
+        for (int i = 0; i < columnSize; i++) {
+          System.arraycopy(values[i], 0, columns[i], row, 1);
+        }
+      }
+    }
+    insertStatement.setTimes(timestamps);
+    insertStatement.setColumns(columns);
+
     return insertStatement;
   }
 
-  private void insertTree(TreeMessage message, MqttClientSession session) {
+  private static Object createColumn(TSDataType dataType, int rowSize) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new boolean[rowSize];
+      case INT32:
+      case DATE:
+        return new int[rowSize];
+      case INT64:
+      case TIMESTAMP:
+        return new long[rowSize];
+      case FLOAT:
+        return new float[rowSize];
+      case DOUBLE:
+        return new double[rowSize];
+      case TEXT:
+      case STRING:
+      case BLOB:
+        return new Binary[rowSize];
+      default:
+        throw new UnsupportedOperationException("Unsupported data type: " + dataType);
+    }
+  }
+
+  private void insertTree(List<TreeMessage> messages, MqttClientSession session) {
+    List<InsertRowStatement> rowStatements = new ArrayList<>(messages.size());
+    for (TreeMessage message : messages) {
+      try {
+        rowStatements.add(constructInsertRowStatement(message));
+      } catch (Exception e) {
+        LOG.warn(
+            "meet error when inserting device {}, measurements {}, at time {}, because ",
+            message.getDevice(),
+            message.getMeasurements(),
+            message.getTimestamp(),
+            e);
+      }
+    }
+    if (rowStatements.isEmpty()) {
+      return;
+    }
     TSStatus tsStatus = null;
     try {
-      InsertRowStatement statement = new InsertRowStatement();
-      statement.setDevicePath(
-          DataNodeDevicePathCache.getInstance().getPartialPath(message.getDevice()));
-      TimestampPrecisionUtils.checkTimestampPrecision(message.getTimestamp());
-      statement.setTime(message.getTimestamp());
-      statement.setMeasurements(message.getMeasurements().toArray(new String[0]));
-      if (message.getDataTypes() == null) {
-        statement.setDataTypes(new TSDataType[message.getMeasurements().size()]);
-        statement.setValues(message.getValues().toArray(new Object[0]));
-        statement.setNeedInferType(true);
+      InsertBaseStatement statement;
+      if (rowStatements.size() == 1) {
+        statement = rowStatements.get(0);
       } else {
-        List<TSDataType> dataTypes = message.getDataTypes();
-        List<String> values = message.getValues();
-        Object[] inferredValues = new Object[values.size()];
-        for (int i = 0; i < values.size(); ++i) {
-          inferredValues[i] = CommonUtils.parseValue(dataTypes.get(i), values.get(i));
-        }
-        statement.setDataTypes(dataTypes.toArray(new TSDataType[0]));
-        statement.setValues(inferredValues);
+        InsertRowsStatement insertRowsStatement = new InsertRowsStatement();
+        insertRowsStatement.setInsertRowStatementList(rowStatements);
+        statement = insertRowsStatement;
       }
-      statement.setAligned(false);
 
       tsStatus = AuthorityChecker.checkAuthority(statement, session);
       if (tsStatus.getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
@@ -313,14 +452,39 @@ public class MPPPublishHandler extends AbstractInterceptHandler {
       }
     } catch (Exception e) {
       LOG.warn(
-          "meet error when inserting device {}, measurements {}, at time {}, because ",
-          message.getDevice(),
-          message.getMeasurements(),
-          message.getTimestamp(),
+          "meet error when inserting {} rows of devices from {}, because ",
+          rowStatements.size(),
+          messages.get(0).getDevice(),
           e);
     }
   }
 
+  private InsertRowStatement constructInsertRowStatement(TreeMessage message)
+      throws IllegalPathException, QueryProcessException {
+    InsertRowStatement statement = new InsertRowStatement();
+    statement.setDevicePath(
+        DataNodeDevicePathCache.getInstance().getPartialPath(message.getDevice()));
+    TimestampPrecisionUtils.checkTimestampPrecision(message.getTimestamp());
+    statement.setTime(message.getTimestamp());
+    statement.setMeasurements(message.getMeasurements().toArray(new String[0]));
+    if (message.getDataTypes() == null) {
+      statement.setDataTypes(new TSDataType[message.getMeasurements().size()]);
+      statement.setValues(message.getValues().toArray(new Object[0]));
+      statement.setNeedInferType(true);
+    } else {
+      List<TSDataType> dataTypes = message.getDataTypes();
+      List<String> values = message.getValues();
+      Object[] inferredValues = new Object[values.size()];
+      for (int i = 0; i < values.size(); ++i) {
+        inferredValues[i] = CommonUtils.parseValue(dataTypes.get(i), values.get(i));
+      }
+      statement.setDataTypes(dataTypes.toArray(new TSDataType[0]));
+      statement.setValues(inferredValues);
+    }
+    statement.setAligned(false);
+    return statement;
+  }
+
   @Override
   public void onSessionLoopError(Throwable throwable) {
     // TODO: Implement something sensible here ...
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.protocol.mqtt;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.db.protocol.session.MqttClientSession;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Buffers the messages published by each MQTT client for a bounded time or row number, so that
+ * they are inserted by one statement instead of one statement per message.
+ *
+ * <p>The buffer of a client is flushed on the publishing thread once it holds maxRowNum rows, which
+ * throttles the client just like inserting each message does, otherwise by the flush pool
+ * maxDelayInMs after its first message arrives. The flushes of a client are serialized, as the
+ * statements of a session are executed one by one.
+ */
+class MessageBatcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MessageBatcher.class);
+
+  private final BiConsumer<MqttClientSession, List<Message>> inserter;
+  private final long maxDelayInMs;
+  private final int maxRowNum;
+  private final ScheduledExecutorService flushPool;
+  private final Map<String, ClientBuffer> clientBuffers = new ConcurrentHashMap<>();
+
+  MessageBatcher(
+      BiConsumer<MqttClientSession, List<Message>> inserter,
+      long maxDelayInMs,
+      int maxRowNum,
+      int flushThreadNum) {
+    this.inserter = inserter;
+    this.maxDelayInMs = maxDelayInMs;
+    this.maxRowNum = maxRowNum;
+    this.flushPool =
+        IoTDBThreadPoolFactory.newScheduledThreadPool(
+            flushThreadNum, ThreadName.MQTT_BATCH_FLUSH.getName());
+  }
+
+  void add(String clientId, MqttClientSession session, List<Message> messages) {
+    clientBuffers.computeIfAbsent(clientId, id -> new ClientBuffer(session)).add(messages);
+  }
+
+  /** Insert the buffered messages of the client before its session is closed. */
+  void flush(String clientId) {
+    ClientBuffer buffer = clientBuffers.remove(clientId);
+    if (buffer != null) {
+      buffer.flush();
+    }
+  }
+
+  void stop() {
+    clientBuffers.keySet().forEach(this::flush);
+    // the scheduled flushes left are of the buffers flushed above
+    flushPool.shutdownNow();
+    try {
+      if (!flushPool.awaitTermination(10, TimeUnit.SECONDS)) {
+        LOG.warn("MQTT batch flush pool didn't terminate in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private class ClientBuffer {
+
+    private final MqttClientSession session;
+    private List<Message> messages = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private final Object flushLock = new Object();
+
+    private ClientBuffer(MqttClientSession session) {
+      this.session = session;
+    }
+
+    private void add(List<Message> newMessages) {
+      boolean flushNow;
+      synchronized (this) {
+        messages.addAll(newMessages);
+        flushNow = messages.size() >= maxRowNum;
+        if (!flushNow && !flushScheduled) {
+          flushScheduled = true;
+          flushPool.schedule(this::flush, maxDelayInMs, TimeUnit.MILLISECONDS);
+        }
+      }
+      if (flushNow) {
+        flush();
+      }
+    }
+
+    private void flush() {
+      synchronized (flushLock) {
+        List<Message> messagesToInsert;
+        synchronized (this) {
+          messagesToInsert = messages;
+          messages = new ArrayList<>();
+          flushScheduled = false;
+        }
+        if (messagesToInsert.isEmpty()) {
+          return;
+        }
+        try {
+          inserter.accept(session, messagesToInsert);
+        } catch (Exception e) {
+          LOG.warn("Failed to insert {} mqtt messages, because ", messagesToInsert.size(), e);
+        }
+      }
+    }
+  }
+}
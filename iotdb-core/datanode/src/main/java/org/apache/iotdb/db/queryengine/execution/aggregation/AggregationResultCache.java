@@ -0,0 +1,446 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.aggregation;
+
+import org.apache.iotdb.commons.utils.CommonDateTimeUtils;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.commons.utils.TimePartitionUtils;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.plan.planner.LocalExecutionPlanner;
+
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.common.TimeRange;
+import org.apache.tsfile.utils.RamUsageEstimator;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Results of the closed windows of GROUP BY TIME series aggregation scans, so that a query
+ * refreshed repeatedly, e.g. by a dashboard, only computes the windows written since the last
+ * refresh.
+ *
+ * <p>Entries are grouped by data region and device. Every write, deletion or load of a data region
+ * invalidates the entries of the written devices overlapping the written time range. A query
+ * computing a window may race with a write it doesn't see, so every invalidation also bumps the
+ * version of the time buckets it touches, and a result is only put if none of the buckets of its
+ * window was bumped after the scan was created, see {@link #createScanContext}.
+ *
+ * <p>The memory of the cached results is allocated from the memory of operators, and the cache is
+ * cleared once it is full of windows or memory.
+ */
+public class AggregationResultCache {
+
+  private static final int BUCKET_NUM_PER_TIME_PARTITION = 64;
+
+  /** Buckets of a region with a version, the others share the floor version of the region */
+  private static final int MAX_BUCKET_NUM_PER_REGION = 1024;
+
+  /** Invalidations touching more buckets than this bump the floor version instead */
+  private static final int MAX_BUCKET_NUM_PER_INVALIDATION = 64;
+
+  /** estimated memory of a window in the cache besides its result */
+  private static final long WINDOW_ENTRY_SIZE =
+      RamUsageEstimator.shallowSizeOfInstance(WindowKey.class)
+          + RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY;
+
+  private final int maxWindowNum =
+      IoTDBDescriptor.getInstance().getConfig().getAggregationResultCacheMaxWindowNum();
+
+  private long maxMemoryInBytes =
+      IoTDBDescriptor.getInstance().getConfig().getAggregationResultCacheMaxSizeInBytes();
+
+  private final long bucketInterval =
+      Math.max(1, TimePartitionUtils.getTimePartitionInterval() / BUCKET_NUM_PER_TIME_PARTITION);
+
+  private final Map<String, RegionCache> regionCacheMap = new ConcurrentHashMap<>();
+
+  private final AtomicInteger windowNum = new AtomicInteger();
+
+  /** memory allocated from the operators for the cached windows */
+  private final AtomicLong memoryUsage = new AtomicLong();
+
+  private AggregationResultCache() {}
+
+  public boolean isEnabled() {
+    return maxWindowNum > 0 && maxMemoryInBytes > 0;
+  }
+
+  /** Whether any query has used the cache on the data region, otherwise writes can skip it. */
+  public boolean isUsed(String regionId) {
+    return regionCacheMap.containsKey(regionId);
+  }
+
+  /**
+   * Must be called before the QueryDataSource of the scan is acquired, so that any write the scan
+   * doesn't see bumps a version greater than the one of the returned context.
+   *
+   * @param aggregationKey identifies the aggregations and the series of the scan on the device
+   */
+  public ScanContext createScanContext(
+      String regionId, IDeviceID deviceId, String aggregationKey) {
+    RegionCache regionCache = regionCacheMap.computeIfAbsent(regionId, id -> new RegionCache());
+    return new ScanContext(
+        regionCache,
+        deviceId,
+        aggregationKey,
+        regionCache.version.get(),
+        CommonDateTimeUtils.currentTime());
+  }
+
+  /** @return the output columns of the aggregators on the window, null if not cached */
+  @Nullable
+  public Column[] get(ScanContext context, TimeRange window) {
+    DeviceCache deviceCache = context.regionCache.deviceCacheMap.get(context.deviceId);
+    return deviceCache == null
+        ? null
+        : deviceCache.get(new WindowKey(window, context.aggregationKey));
+  }
+
+  /** Windows which are not closed when the scan is created are ignored. */
+  public void put(ScanContext context, TimeRange window, Column[] result) {
+    if (window.getMax() >= context.closedTimeBound) {
+      return;
+    }
+    long size = sizeOf(result);
+    if (size > maxMemoryInBytes) {
+      return;
+    }
+    // the cache is meant for a limited set of repeated queries, start over once it is full
+    if (memoryUsage.get() + size > maxMemoryInBytes || !allocateMemory(size)) {
+      clearWindows();
+      if (!allocateMemory(size)) {
+        return;
+      }
+    }
+    DeviceCache deviceCache =
+        context.regionCache.deviceCacheMap.computeIfAbsent(
+            context.deviceId, d -> new DeviceCache());
+    Column[] replaced;
+    synchronized (deviceCache) {
+      // an invalidation bumps the versions before removing entries, see invalidate()
+      if (context.regionCache.removed
+          || context.regionCache.isChangedSince(
+              context.version, window.getMin(), window.getMax(), bucketInterval)) {
+        releaseMemory(size);
+        return;
+      }
+      replaced = deviceCache.put(new WindowKey(window, context.aggregationKey), result);
+    }
+    if (replaced != null) {
+      releaseMemory(sizeOf(replaced));
+    } else if (windowNum.incrementAndGet() > maxWindowNum) {
+      clearWindows();
+    }
+  }
+
+  /**
+   * Invalidate the windows overlapping [startTime, endTime] of the device. Must be called in the
+   * write lock of the data region, before the written data is visible to queries.
+   *
+   * @param deviceId null for all the devices of the data region
+   */
+  public void invalidate(
+      String regionId, @Nullable IDeviceID deviceId, long startTime, long endTime) {
+    RegionCache regionCache = regionCacheMap.get(regionId);
+    if (regionCache == null) {
+      // no query has created a scan context on the region
+      return;
+    }
+    regionCache.bump(startTime, endTime, bucketInterval);
+    if (deviceId == null) {
+      for (DeviceCache deviceCache : regionCache.deviceCacheMap.values()) {
+        onRemoved(deviceCache.invalidate(startTime, endTime));
+      }
+    } else {
+      DeviceCache deviceCache = regionCache.deviceCacheMap.get(deviceId);
+      if (deviceCache != null) {
+        onRemoved(deviceCache.invalidate(startTime, endTime));
+      }
+    }
+  }
+
+  public void invalidate(String regionId) {
+    invalidate(regionId, null, Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  public void removeRegion(String regionId) {
+    RegionCache regionCache = regionCacheMap.remove(regionId);
+    if (regionCache != null) {
+      // puts racing with the removal check the flag in the lock of the device cache
+      regionCache.removed = true;
+      clearWindows(regionCache);
+    }
+  }
+
+  private void clearWindows() {
+    for (RegionCache regionCache : regionCacheMap.values()) {
+      clearWindows(regionCache);
+    }
+  }
+
+  private void clearWindows(RegionCache regionCache) {
+    // the device caches are kept, so that no window put concurrently is lost from the accounting
+    for (DeviceCache deviceCache : regionCache.deviceCacheMap.values()) {
+      onRemoved(deviceCache.invalidate(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+  }
+
+  private void onRemoved(List<Column[]> removedResults) {
+    if (removedResults.isEmpty()) {
+      return;
+    }
+    long size = 0;
+    for (Column[] result : removedResults) {
+      size += sizeOf(result);
+    }
+    windowNum.addAndGet(-removedResults.size());
+    releaseMemory(size);
+  }
+
+  private boolean allocateMemory(long size) {
+    if (LocalExecutionPlanner.getInstance().forceAllocateFreeMemoryForOperators(size)) {
+      memoryUsage.addAndGet(size);
+      return true;
+    }
+    return false;
+  }
+
+  private void releaseMemory(long size) {
+    LocalExecutionPlanner.getInstance().releaseToFreeMemoryForOperators(size);
+    memoryUsage.addAndGet(-size);
+  }
+
+  private static long sizeOf(Column[] result) {
+    long size = WINDOW_ENTRY_SIZE + RamUsageEstimator.shallowSizeOf(result);
+    for (Column column : result) {
+      size += column.getRetainedSizeInBytes();
+    }
+    return size;
+  }
+
+  @TestOnly
+  public int getWindowNum() {
+    return windowNum.get();
+  }
+
+  @TestOnly
+  public long getMemoryUsage() {
+    return memoryUsage.get();
+  }
+
+  @TestOnly
+  public void setMaxMemoryInBytes(long maxMemoryInBytes) {
+    this.maxMemoryInBytes = maxMemoryInBytes;
+  }
+
+  @TestOnly
+  public void clear() {
+    for (String regionId : regionCacheMap.keySet()) {
+      removeRegion(regionId);
+    }
+    maxMemoryInBytes =
+        IoTDBDescriptor.getInstance().getConfig().getAggregationResultCacheMaxSizeInBytes();
+  }
+
+  /** The state of the cache used by one aggregation scan. */
+  public static class ScanContext {
+
+    private final RegionCache regionCache;
+    private final IDeviceID deviceId;
+    private final String aggregationKey;
+
+    /** version of the data region when the scan is created */
+    private final long version;
+
+    /** windows ending before it are closed when the scan is created */
+    private final long closedTimeBound;
+
+    private ScanContext(
+        RegionCache regionCache,
+        IDeviceID deviceId,
+        String aggregationKey,
+        long version,
+        long closedTimeBound) {
+      this.regionCache = regionCache;
+      this.deviceId = deviceId;
+      this.aggregationKey = aggregationKey;
+      this.version = version;
+      this.closedTimeBound = closedTimeBound;
+    }
+  }
+
+  private static class RegionCache {
+
+    private final AtomicLong version = new AtomicLong();
+
+    /** time bucket -> the version of the last invalidation touching the bucket */
+    private final Map<Long, Long> bucketVersions = new ConcurrentHashMap<>();
+
+    /** version of the buckets not in bucketVersions */
+    private volatile long floorVersion = 0;
+
+    private final Map<IDeviceID, DeviceCache> deviceCacheMap = new ConcurrentHashMap<>();
+
+    /** set when the data region is removed, then no window can be put into it */
+    private volatile boolean removed = false;
+
+    private synchronized void bump(long startTime, long endTime, long bucketInterval) {
+      long newVersion = version.incrementAndGet();
+      long firstBucket = Math.floorDiv(startTime, bucketInterval);
+      long lastBucket = Math.floorDiv(endTime, bucketInterval);
+      if (lastBucket - firstBucket >= MAX_BUCKET_NUM_PER_INVALIDATION
+          || bucketVersions.size() >= MAX_BUCKET_NUM_PER_REGION) {
+        bucketVersions.clear();
+        floorVersion = newVersion;
+        return;
+      }
+      for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+        bucketVersions.put(bucket, newVersion);
+      }
+    }
+
+    private boolean isChangedSince(
+        long version, long startTime, long endTime, long bucketInterval) {
+      if (floorVersion > version) {
+        return true;
+      }
+      long firstBucket = Math.floorDiv(startTime, bucketInterval);
+      long lastBucket = Math.floorDiv(endTime, bucketInterval);
+      if (lastBucket - firstBucket < MAX_BUCKET_NUM_PER_INVALIDATION) {
+        for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+          Long bucketVersion = bucketVersions.get(bucket);
+          if (bucketVersion != null && bucketVersion > version) {
+            return true;
+          }
+        }
+        return false;
+      }
+      for (Map.Entry<Long, Long> entry : bucketVersions.entrySet()) {
+        if (entry.getKey() >= firstBucket
+            && entry.getKey() <= lastBucket
+            && entry.getValue() > version) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static class DeviceCache {
+
+    /** window start time -> the cached windows starting at it */
+    private final TreeMap<Long, Map<WindowKey, Column[]>> windowMap = new TreeMap<>();
+
+    private long maxWindowLength = 0;
+
+    private synchronized Column[] get(WindowKey key) {
+      Map<WindowKey, Column[]> windows = windowMap.get(key.startTime);
+      return windows == null ? null : windows.get(key);
+    }
+
+    /** @return the result replaced by this one, null if a new window is added */
+    private synchronized Column[] put(WindowKey key, Column[] result) {
+      maxWindowLength = Math.max(maxWindowLength, key.endTime - key.startTime);
+      return windowMap.computeIfAbsent(key.startTime, t -> new HashMap<>()).put(key, result);
+    }
+
+    /** @return results of the removed windows */
+    private synchronized List<Column[]> invalidate(long startTime, long endTime) {
+      // only windows starting in [startTime - maxWindowLength, endTime] may overlap the range
+      long fromStartTime =
+          startTime < Long.MIN_VALUE + maxWindowLength
+              ? Long.MIN_VALUE
+              : startTime - maxWindowLength;
+      List<Column[]> removedResults = new ArrayList<>();
+      Iterator<Map<WindowKey, Column[]>> iterator =
+          windowMap.subMap(fromStartTime, true, endTime, true).values().iterator();
+      while (iterator.hasNext()) {
+        Map<WindowKey, Column[]> windows = iterator.next();
+        Iterator<Map.Entry<WindowKey, Column[]>> entryIterator = windows.entrySet().iterator();
+        while (entryIterator.hasNext()) {
+          Map.Entry<WindowKey, Column[]> entry = entryIterator.next();
+          if (entry.getKey().endTime >= startTime) {
+            entryIterator.remove();
+            removedResults.add(entry.getValue());
+          }
+        }
+        if (windows.isEmpty()) {
+          iterator.remove();
+        }
+      }
+      return removedResults;
+    }
+  }
+
+  private static class WindowKey {
+
+    // both inclusive
+    private final long startTime;
+    private final long endTime;
+    private final String aggregationKey;
+
+    private WindowKey(TimeRange window, String aggregationKey) {
+      this.startTime = window.getMin();
+      this.endTime = window.getMax();
+      this.aggregationKey = aggregationKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      WindowKey that = (WindowKey) o;
+      return startTime == that.startTime
+          && endTime == that.endTime
+          && aggregationKey.equals(that.aggregationKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(startTime, endTime, aggregationKey);
+    }
+  }
+
+  public static AggregationResultCache getInstance() {
+    return AggregationResultCache.InstanceHolder.INSTANCE;
+  }
+
+  private static class InstanceHolder {
+    private InstanceHolder() {}
+
+    private static final AggregationResultCache INSTANCE = new AggregationResultCache();
+  }
+}
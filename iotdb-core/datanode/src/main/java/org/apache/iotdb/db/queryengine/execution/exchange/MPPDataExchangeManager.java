@@ -23,6 +23,7 @@ import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.common.rpc.thrift.TSStatus;
 import org.apache.iotdb.commons.client.IClientManager;
 import org.apache.iotdb.commons.client.sync.SyncDataNodeMPPDataExchangeServiceClient;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.queryengine.exception.exchange.GetTsBlockFromClosedOrAbortedChannelException;
 import org.apache.iotdb.db.queryengine.execution.driver.DriverContext;
 import org.apache.iotdb.db.queryengine.execution.exchange.sink.DownStreamChannelIndex;
@@ -54,6 +55,7 @@ import org.apache.iotdb.rpc.TSStatusCode;
 
 import org.apache.commons.lang3.Validate;
 import org.apache.thrift.TException;
+import org.apache.tsfile.file.metadata.enums.CompressionType;
 import org.apache.tsfile.read.common.block.column.TsBlockSerde;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,6 +87,9 @@ public class MPPDataExchangeManager implements IMPPDataExchangeManager {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MPPDataExchangeManager.class);
 
+  private static final int COMPRESSION_MIN_SIZE_IN_BYTES =
+      IoTDBDescriptor.getInstance().getConfig().getMppDataExchangeCompressionMinSizeInBytes();
+
   // region =========== MPPDataExchangeServiceImpl ===========
 
   /** Handle thrift communications. */
@@ -116,10 +121,32 @@ public class MPPDataExchangeManager implements IMPPDataExchangeManager {
         }
         // index of the channel must be a SinkChannel
         SinkChannel sinkChannel = (SinkChannel) (sinkHandle.getChannel(req.getIndex()));
+        CompressionType compressionType =
+            req.isSetCompressionType()
+                ? CompressionType.deserialize(req.getCompressionType())
+                : CompressionType.UNCOMPRESSED;
+        if (req.isSetCompressionType()) {
+          resp.setUncompressedSizes(new ArrayList<>());
+        }
         for (int i = req.getStartSequenceId(); i < req.getEndSequenceId(); i++) {
           try {
             ByteBuffer serializedTsBlock = sinkChannel.getSerializedTsBlock(i);
-            resp.addToTsBlocks(serializedTsBlock);
+            int serializedSize = serializedTsBlock.remaining();
+            ByteBuffer compressedTsBlock =
+                TsBlockCompressionCodec.compress(
+                    serializedTsBlock, compressionType, COMPRESSION_MIN_SIZE_IN_BYTES);
+            if (compressedTsBlock != null) {
+              resp.addToTsBlocks(compressedTsBlock);
+              resp.addToUncompressedSizes(serializedSize);
+            } else {
+              resp.addToTsBlocks(serializedTsBlock);
+              if (req.isSetCompressionType()) {
+                resp.addToUncompressedSizes(TsBlockCompressionCodec.NOT_COMPRESSED);
+              }
+            }
+            MPPDataExchangeServiceMetrics.recordSentTsBlock(
+                serializedSize,
+                compressedTsBlock == null ? serializedSize : compressedTsBlock.remaining());
           } catch (GetTsBlockFromClosedOrAbortedChannelException e) {
             // Return an empty block list to indicate that getting data block failed this time.
             // The SourceHandle will deal with this signal depending on its state.
@@ -24,11 +24,27 @@ import org.apache.iotdb.commons.service.AbstractThriftServiceThread;
 import org.apache.iotdb.commons.service.metric.enums.Metric;
 import org.apache.iotdb.commons.service.metric.enums.Tag;
 import org.apache.iotdb.metrics.AbstractMetricService;
+import org.apache.iotdb.metrics.impl.DoNothingMetricManager;
 import org.apache.iotdb.metrics.metricsets.IMetricSet;
+import org.apache.iotdb.metrics.type.Counter;
+import org.apache.iotdb.metrics.type.Timer;
 import org.apache.iotdb.metrics.utils.MetricLevel;
 import org.apache.iotdb.metrics.utils.MetricType;
 
+import java.util.Arrays;
+
 public class MPPDataExchangeServiceMetrics implements IMetricSet {
+  private static final String SERIALIZED = "serialized";
+  private static final String WIRE = "wire";
+  private static final String COMPRESS = "compress";
+  private static final String UNCOMPRESS = "uncompress";
+
+  // bytes of TsBlocks sent to remote DataNodes, before and after compression
+  private static Counter serializedBytesCounter = DoNothingMetricManager.DO_NOTHING_COUNTER;
+  private static Counter wireBytesCounter = DoNothingMetricManager.DO_NOTHING_COUNTER;
+  private static Timer compressTimer = DoNothingMetricManager.DO_NOTHING_TIMER;
+  private static Timer uncompressTimer = DoNothingMetricManager.DO_NOTHING_TIMER;
+
   private AbstractThriftServiceThread thriftServiceThread;
 
   public MPPDataExchangeServiceMetrics(AbstractThriftServiceThread thriftServiceThread) {
@@ -44,6 +60,30 @@ public class MPPDataExchangeServiceMetrics implements IMetricSet {
         AbstractThriftServiceThread::getActiveThreadCount,
         Tag.NAME.toString(),
         ThreadName.MPP_DATA_EXCHANGE_RPC_SERVICE.getName());
+    serializedBytesCounter =
+        metricService.getOrCreateCounter(
+            Metric.DATA_EXCHANGE_BYTES.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.TYPE.toString(),
+            SERIALIZED);
+    wireBytesCounter =
+        metricService.getOrCreateCounter(
+            Metric.DATA_EXCHANGE_BYTES.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.TYPE.toString(),
+            WIRE);
+    compressTimer =
+        metricService.getOrCreateTimer(
+            Metric.DATA_EXCHANGE_CODEC_COST.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.TYPE.toString(),
+            COMPRESS);
+    uncompressTimer =
+        metricService.getOrCreateTimer(
+            Metric.DATA_EXCHANGE_CODEC_COST.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.TYPE.toString(),
+            UNCOMPRESS);
   }
 
   @Override
@@ -53,5 +93,39 @@ public class MPPDataExchangeServiceMetrics implements IMetricSet {
         Metric.THRIFT_ACTIVE_THREADS.toString(),
         Tag.NAME.toString(),
         ThreadName.MPP_DATA_EXCHANGE_RPC_SERVICE.getName());
+    serializedBytesCounter = DoNothingMetricManager.DO_NOTHING_COUNTER;
+    wireBytesCounter = DoNothingMetricManager.DO_NOTHING_COUNTER;
+    compressTimer = DoNothingMetricManager.DO_NOTHING_TIMER;
+    uncompressTimer = DoNothingMetricManager.DO_NOTHING_TIMER;
+    Arrays.asList(SERIALIZED, WIRE)
+        .forEach(
+            type ->
+                metricService.remove(
+                    MetricType.COUNTER,
+                    Metric.DATA_EXCHANGE_BYTES.toString(),
+                    Tag.TYPE.toString(),
+                    type));
+    Arrays.asList(COMPRESS, UNCOMPRESS)
+        .forEach(
+            type ->
+                metricService.remove(
+                    MetricType.TIMER,
+                    Metric.DATA_EXCHANGE_CODEC_COST.toString(),
+                    Tag.TYPE.toString(),
+                    type));
+  }
+
+  /** Record a TsBlock sent to a remote DataNode, wireBytes is the size after compression. */
+  public static void recordSentTsBlock(long serializedBytes, long wireBytes) {
+    serializedBytesCounter.inc(serializedBytes);
+    wireBytesCounter.inc(wireBytes);
+  }
+
+  public static void recordCompressCost(long costInNanos) {
+    compressTimer.updateNanos(costInNanos);
+  }
+
+  public static void recordUncompressCost(long costInNanos) {
+    uncompressTimer.updateNanos(costInNanos);
   }
 }
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.exchange;
+
+import org.apache.tsfile.compress.ICompressor;
+import org.apache.tsfile.compress.IUnCompressor;
+import org.apache.tsfile.file.metadata.enums.CompressionType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compress serialized TsBlocks before they are sent to a remote DataNode and uncompress them after
+ * they are received. The compression type is decided by the receiver in {@link
+ * org.apache.iotdb.mpp.rpc.thrift.TGetDataBlockRequest}, the sender only decides whether a TsBlock
+ * is worth compressing.
+ */
+public class TsBlockCompressionCodec {
+
+  /** Uncompressed size of a TsBlock that is sent as it is serialized. */
+  public static final int NOT_COMPRESSED = -1;
+
+  private TsBlockCompressionCodec() {
+    // util class
+  }
+
+  /**
+   * @return the compressed TsBlock, or null if it is smaller than minSize or compression does not
+   *     make it smaller
+   */
+  public static ByteBuffer compress(
+      ByteBuffer serializedTsBlock, CompressionType compressionType, int minSize)
+      throws IOException {
+    int size = serializedTsBlock.remaining();
+    if (compressionType == CompressionType.UNCOMPRESSED || size < minSize) {
+      return null;
+    }
+    long startTime = System.nanoTime();
+    try {
+      ICompressor compressor = ICompressor.getCompressor(compressionType);
+      byte[] compressed;
+      if (serializedTsBlock.hasArray()) {
+        compressed =
+            compressor.compress(
+                serializedTsBlock.array(),
+                serializedTsBlock.arrayOffset() + serializedTsBlock.position(),
+                size);
+      } else {
+        byte[] data = new byte[size];
+        serializedTsBlock.duplicate().get(data);
+        compressed = compressor.compress(data);
+      }
+      return compressed.length < size ? ByteBuffer.wrap(compressed) : null;
+    } finally {
+      MPPDataExchangeServiceMetrics.recordCompressCost(System.nanoTime() - startTime);
+    }
+  }
+
+  public static ByteBuffer uncompress(
+      ByteBuffer compressedTsBlock, CompressionType compressionType, int uncompressedSize)
+      throws IOException {
+    long startTime = System.nanoTime();
+    try {
+      byte[] compressed;
+      int offset;
+      int length = compressedTsBlock.remaining();
+      if (compressedTsBlock.hasArray()) {
+        compressed = compressedTsBlock.array();
+        offset = compressedTsBlock.arrayOffset() + compressedTsBlock.position();
+      } else {
+        compressed = new byte[length];
+        compressedTsBlock.duplicate().get(compressed);
+        offset = 0;
+      }
+      byte[] uncompressed = new byte[uncompressedSize];
+      IUnCompressor.getUnCompressor(compressionType)
+          .uncompress(compressed, offset, length, uncompressed, 0);
+      return ByteBuffer.wrap(uncompressed);
+    } finally {
+      MPPDataExchangeServiceMetrics.recordUncompressCost(System.nanoTime() - startTime);
+    }
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.queryengine.common.FragmentInstanceId;
 import org.apache.iotdb.db.queryengine.execution.exchange.MPPDataExchangeManager.SourceHandleListener;
+import org.apache.iotdb.db.queryengine.execution.exchange.TsBlockCompressionCodec;
 import org.apache.iotdb.db.queryengine.execution.memory.LocalMemoryManager;
 import org.apache.iotdb.db.queryengine.metric.DataExchangeCostMetricSet;
 import org.apache.iotdb.db.queryengine.metric.DataExchangeCountMetricSet;
@@ -39,6 +40,7 @@ import org.apache.iotdb.mpp.rpc.thrift.TGetDataBlockResponse;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import org.apache.commons.lang3.Validate;
+import org.apache.tsfile.file.metadata.enums.CompressionType;
 import org.apache.tsfile.read.common.block.TsBlock;
 import org.apache.tsfile.read.common.block.column.TsBlockSerde;
 import org.apache.tsfile.utils.Pair;
@@ -116,6 +118,9 @@ public class SourceHandle implements ISourceHandle {
    */
   private boolean canGetTsBlockFromRemote = false;
 
+  private static final CompressionType COMPRESSION_TYPE =
+      IoTDBDescriptor.getInstance().getConfig().getMppDataExchangeCompressor();
+
   private static final DataExchangeCostMetricSet DATA_EXCHANGE_COST_METRIC_SET =
       DataExchangeCostMetricSet.getInstance();
   private static final DataExchangeCountMetricSet DATA_EXCHANGE_COUNT_METRIC_SET =
@@ -548,6 +553,9 @@ public class SourceHandle implements ISourceHandle {
                 startSequenceId,
                 endSequenceId,
                 indexOfUpstreamSinkHandle);
+        if (COMPRESSION_TYPE != CompressionType.UNCOMPRESSED) {
+          req.setCompressionType(COMPRESSION_TYPE.serialize());
+        }
         int attempt = 0;
         while (attempt < MAX_ATTEMPT_TIMES) {
           attempt += 1;
@@ -571,7 +579,18 @@ public class SourceHandle implements ISourceHandle {
               return;
             }
             List<ByteBuffer> tsBlocks = new ArrayList<>(tsBlockNum);
-            tsBlocks.addAll(resp.getTsBlocks());
+            if (resp.isSetUncompressedSizes()) {
+              for (int i = 0; i < tsBlockNum; i++) {
+                int uncompressedSize = resp.getUncompressedSizes().get(i);
+                tsBlocks.add(
+                    uncompressedSize == TsBlockCompressionCodec.NOT_COMPRESSED
+                        ? resp.getTsBlocks().get(i)
+                        : TsBlockCompressionCodec.uncompress(
+                            resp.getTsBlocks().get(i), COMPRESSION_TYPE, uncompressedSize));
+              }
+            } else {
+              tsBlocks.addAll(resp.getTsBlocks());
+            }
 
             if (LOGGER.isDebugEnabled()) {
               LOGGER.debug("[EndPullTsBlocksFromRemote] Count:{}", tsBlockNum);
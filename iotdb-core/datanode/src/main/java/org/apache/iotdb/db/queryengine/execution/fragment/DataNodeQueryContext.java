@@ -20,6 +20,7 @@
 package org.apache.iotdb.db.queryengine.execution.fragment;
 
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.DynamicFilter;
 
 import org.apache.tsfile.read.TimeValuePair;
 import org.apache.tsfile.utils.Pair;
@@ -28,6 +29,7 @@ import javax.annotation.concurrent.GuardedBy;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -38,6 +40,9 @@ public class DataNodeQueryContext {
 
   private final AtomicInteger dataNodeFINum;
 
+  // dynamic filters published by the hash joins of this query, key is the id of DynamicFilter
+  private final Map<String, DynamicFilter> dynamicFilters = new ConcurrentHashMap<>();
+
   // TODO consider more fine-grained locks, now the AtomicInteger in uncachedPathToSeriesScanInfo is
   // unnecessary
   private final ReentrantLock lock = new ReentrantLock();
@@ -63,6 +68,17 @@ public class DataNodeQueryContext {
     return dataNodeFINum.decrementAndGet();
   }
 
+  public void publishDynamicFilter(String filterId, DynamicFilter dynamicFilter) {
+    dynamicFilters.put(filterId, dynamicFilter);
+  }
+
+  /**
+   * @return null if the DynamicFilter hasn't been published in this DataNode
+   */
+  public DynamicFilter getDynamicFilter(String filterId) {
+    return dynamicFilters.get(filterId);
+  }
+
   public void lock() {
     lock.lock();
   }
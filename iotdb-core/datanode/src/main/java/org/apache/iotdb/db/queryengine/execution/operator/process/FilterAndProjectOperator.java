@@ -22,6 +22,7 @@ package org.apache.iotdb.db.queryengine.execution.operator.process;
 import org.apache.iotdb.db.queryengine.execution.MemoryEstimationHelper;
 import org.apache.iotdb.db.queryengine.execution.operator.Operator;
 import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
+import org.apache.iotdb.db.queryengine.execution.relational.CompiledFilter;
 import org.apache.iotdb.db.queryengine.transformation.dag.column.AbstractCaseWhenThenColumnTransformer;
 import org.apache.iotdb.db.queryengine.transformation.dag.column.ColumnTransformer;
 import org.apache.iotdb.db.queryengine.transformation.dag.column.binary.BinaryColumnTransformer;
@@ -74,6 +75,13 @@ public class FilterAndProjectOperator implements ProcessOperator {
   // false when we only need to do projection
   private final boolean hasFilter;
 
+  // evaluates the filter instead of filterOutputTransformer if not null, only set when there is no
+  // common subexpression between filter and projection
+  private final CompiledFilter compiledFilter;
+
+  // selected positions of the input, reused by compiledFilter
+  private int[] selectedPositions = new int[0];
+
   private long filteredRowCount = 0;
 
   @SuppressWarnings("squid:S107")
@@ -88,6 +96,33 @@ public class FilterAndProjectOperator implements ProcessOperator {
       List<ColumnTransformer> projectOutputTransformerList,
       boolean hasNonMappableUDF,
       boolean hasFilter) {
+    this(
+        operatorContext,
+        inputOperator,
+        filterOutputDataTypes,
+        filterLeafColumnTransformerList,
+        filterOutputTransformer,
+        commonTransformerList,
+        projectLeafColumnTransformerList,
+        projectOutputTransformerList,
+        hasNonMappableUDF,
+        hasFilter,
+        null);
+  }
+
+  @SuppressWarnings("squid:S107")
+  public FilterAndProjectOperator(
+      OperatorContext operatorContext,
+      Operator inputOperator,
+      List<TSDataType> filterOutputDataTypes,
+      List<LeafColumnTransformer> filterLeafColumnTransformerList,
+      ColumnTransformer filterOutputTransformer,
+      List<ColumnTransformer> commonTransformerList,
+      List<LeafColumnTransformer> projectLeafColumnTransformerList,
+      List<ColumnTransformer> projectOutputTransformerList,
+      boolean hasNonMappableUDF,
+      boolean hasFilter,
+      CompiledFilter compiledFilter) {
     this.operatorContext = operatorContext;
     this.inputOperator = inputOperator;
     this.filterLeafColumnTransformerList = filterLeafColumnTransformerList;
@@ -98,6 +133,7 @@ public class FilterAndProjectOperator implements ProcessOperator {
     this.hasNonMappableUDF = hasNonMappableUDF;
     this.filterTsBlockBuilder = new TsBlockBuilder(8, filterOutputDataTypes);
     this.hasFilter = hasFilter;
+    this.compiledFilter = compiledFilter;
   }
 
   @Override
@@ -117,7 +153,8 @@ public class FilterAndProjectOperator implements ProcessOperator {
     }
 
     long inputRowCount = input.getPositionCount();
-    TsBlock filterResult = getFilterTsBlock(input);
+    TsBlock filterResult =
+        compiledFilter == null ? getFilterTsBlock(input) : getCompiledFilterTsBlock(input);
     filteredRowCount += inputRowCount - filterResult.getPositionCount();
     operatorContext.recordSpecifiedInfo("Filtered Rows", Long.toString(filteredRowCount));
 
@@ -183,6 +220,43 @@ public class FilterAndProjectOperator implements ProcessOperator {
     }
   }
 
+  /** Return the rows of the input selected by the compiled filter. */
+  private TsBlock getCompiledFilterTsBlock(TsBlock input) {
+    final int positionCount = input.getPositionCount();
+    if (selectedPositions.length < positionCount) {
+      selectedPositions = new int[positionCount];
+    }
+    final int rowCount = compiledFilter.filter(input, selectedPositions);
+    if (rowCount == positionCount) {
+      return input;
+    }
+
+    filterTsBlockBuilder.reset();
+    final ColumnBuilder[] columnBuilders = filterTsBlockBuilder.getValueColumnBuilders();
+    for (int i = 0, n = input.getValueColumnCount(); i < n; i++) {
+      Column curColumn = input.getColumn(i);
+      for (int j = 0; j < rowCount; j++) {
+        int position = selectedPositions[j];
+        if (curColumn.isNull(position)) {
+          columnBuilders[i].appendNull();
+        } else {
+          columnBuilders[i].write(curColumn, position);
+        }
+      }
+    }
+    filterTsBlockBuilder.declarePositions(rowCount);
+
+    final Column originTimeColumn = input.getTimeColumn();
+    if (originTimeColumn instanceof RunLengthEncodedColumn) {
+      return filterTsBlockBuilder.build(originTimeColumn.getRegion(0, rowCount));
+    }
+    final TimeColumnBuilder timeBuilder = filterTsBlockBuilder.getTimeColumnBuilder();
+    for (int j = 0; j < rowCount; j++) {
+      timeBuilder.writeLong(originTimeColumn.getLong(selectedPositions[j]));
+    }
+    return filterTsBlockBuilder.build();
+  }
+
   private static int constructFilteredTsBlock(
       List<Column> resultColumns,
       TimeColumnBuilder timeBuilder,
@@ -417,6 +491,7 @@ public class FilterAndProjectOperator implements ProcessOperator {
     return INSTANCE_SIZE
         + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(inputOperator)
         + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(operatorContext)
-        + filterTsBlockBuilder.getRetainedSizeInBytes();
+        + filterTsBlockBuilder.getRetainedSizeInBytes()
+        + RamUsageEstimator.sizeOf(selectedPositions);
   }
 }
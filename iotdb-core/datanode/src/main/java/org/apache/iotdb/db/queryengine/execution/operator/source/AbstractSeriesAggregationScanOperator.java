@@ -19,16 +19,21 @@
 
 package org.apache.iotdb.db.queryengine.execution.operator.source;
 
+import org.apache.iotdb.db.queryengine.execution.aggregation.AggregationResultCache;
 import org.apache.iotdb.db.queryengine.execution.aggregation.TreeAggregator;
 import org.apache.iotdb.db.queryengine.execution.aggregation.timerangeiterator.ITimeRangeIterator;
 import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.GroupByTimeParameter;
 
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.block.column.ColumnBuilder;
 import org.apache.tsfile.enums.TSDataType;
 import org.apache.tsfile.file.metadata.statistics.Statistics;
 import org.apache.tsfile.read.common.TimeRange;
 import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.tsfile.read.filter.basic.Filter;
 import org.apache.tsfile.utils.Pair;
 
 import java.io.IOException;
@@ -70,6 +75,9 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
   /** Some special data types(like BLOB) cannot use statistics. */
   protected final boolean canUseStatistics;
 
+  /** Not null if the results of closed windows are read from and put into the result cache */
+  private AggregationResultCache.ScanContext resultCacheContext;
+
   @SuppressWarnings("squid:S107")
   protected AbstractSeriesAggregationScanOperator(
       PlanNodeId sourceId,
@@ -99,6 +107,11 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     this.canUseStatistics = canUseStatistics;
   }
 
+  /** Must be called before the QueryDataSource is acquired, see AggregationResultCache. */
+  public void setResultCacheContext(AggregationResultCache.ScanContext resultCacheContext) {
+    this.resultCacheContext = resultCacheContext;
+  }
+
   @Override
   public long calculateMaxPeekMemory() {
     return cachedRawDataSize + maxReturnSize;
@@ -132,6 +145,10 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
       if (curTimeRange == null) {
         // move to the next time window
         curTimeRange = timeRangeIterator.nextTimeRange();
+        if (appendResultFromCache()) {
+          curTimeRange = null;
+          continue;
+        }
         // clear previous aggregation result
         for (TreeAggregator aggregator : aggregators) {
           aggregator.reset();
@@ -205,6 +222,15 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
   }
 
   protected void updateResultTsBlock() {
+    if (isCurrentWindowCacheable()) {
+      TsBlockBuilder windowResultBuilder = new TsBlockBuilder(1, getAggregatorOutputDataTypes());
+      appendAggregationResult(
+          windowResultBuilder, aggregators, timeRangeIterator.currentOutputTime());
+      Column[] windowResult = windowResultBuilder.build().getValueColumns();
+      AggregationResultCache.getInstance().put(resultCacheContext, curTimeRange, windowResult);
+      appendWindowResult(windowResult);
+      return;
+    }
     if (!outputEndTime) {
       appendAggregationResult(
           resultTsBlockBuilder, aggregators, timeRangeIterator.currentOutputTime());
@@ -217,6 +243,49 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     }
   }
 
+  /**
+   * Only the windows not cut by the time filter are cached, since their results don't depend on
+   * the query. The time filter is read from the SeriesScanUtil, which may narrow it by TTL.
+   */
+  private boolean isCurrentWindowCacheable() {
+    if (resultCacheContext == null) {
+      return false;
+    }
+    Filter globalTimeFilter = seriesScanUtil.getGlobalTimeFilter();
+    return globalTimeFilter == null
+        || globalTimeFilter.containStartEndTime(curTimeRange.getMin(), curTimeRange.getMax());
+  }
+
+  private boolean appendResultFromCache() {
+    if (!isCurrentWindowCacheable()) {
+      return false;
+    }
+    Column[] windowResult =
+        AggregationResultCache.getInstance().get(resultCacheContext, curTimeRange);
+    if (windowResult == null) {
+      return false;
+    }
+    appendWindowResult(windowResult);
+    return true;
+  }
+
+  private void appendWindowResult(Column[] windowResult) {
+    resultTsBlockBuilder.getTimeColumnBuilder().writeLong(timeRangeIterator.currentOutputTime());
+    ColumnBuilder[] columnBuilders = resultTsBlockBuilder.getValueColumnBuilders();
+    int columnIndex = 0;
+    if (outputEndTime) {
+      columnBuilders[columnIndex++].writeLong(curTimeRange.getMax());
+    }
+    for (Column column : windowResult) {
+      if (column.isNull(0)) {
+        columnBuilders[columnIndex++].appendNull();
+      } else {
+        columnBuilders[columnIndex++].write(column, 0);
+      }
+    }
+    resultTsBlockBuilder.declarePosition();
+  }
+
   protected boolean calcFromCachedData() {
     return calcFromRawData(inputTsBlock);
   }
@@ -244,6 +313,11 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     while (System.nanoTime() - start < leftRuntimeOfOneNextCall && seriesScanUtil.hasNextFile()) {
       if (canUseStatistics && seriesScanUtil.canUseCurrentFileStatistics()) {
         Statistics fileTimeStatistics = seriesScanUtil.currentFileTimeStatistics();
+        if (ascending && fileTimeStatistics.getEndTime() < curTimeRange.getMin()) {
+          // only has data before the window, e.g. of the windows read from the result cache
+          seriesScanUtil.skipCurrentFile();
+          continue;
+        }
         if (fileTimeStatistics.getStartTime() > curTimeRange.getMax()) {
           if (ascending) {
             return true;
@@ -285,6 +359,11 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     while (System.nanoTime() - start < leftRuntimeOfOneNextCall && seriesScanUtil.hasNextChunk()) {
       if (canUseStatistics && seriesScanUtil.canUseCurrentChunkStatistics()) {
         Statistics chunkTimeStatistics = seriesScanUtil.currentChunkTimeStatistics();
+        if (ascending && chunkTimeStatistics.getEndTime() < curTimeRange.getMin()) {
+          // only has data before the window, e.g. of the windows read from the result cache
+          seriesScanUtil.skipCurrentChunk();
+          continue;
+        }
         if (chunkTimeStatistics.getStartTime() > curTimeRange.getMax()) {
           if (ascending) {
             return true;
@@ -327,6 +406,11 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
       while (System.nanoTime() - start < leftRuntimeOfOneNextCall && seriesScanUtil.hasNextPage()) {
         if (canUseStatistics && seriesScanUtil.canUseCurrentPageStatistics()) {
           Statistics pageTimeStatistics = seriesScanUtil.currentPageTimeStatistics();
+          if (ascending && pageTimeStatistics.getEndTime() < curTimeRange.getMin()) {
+            // only has data before the window, e.g. of the windows read from the result cache
+            seriesScanUtil.skipCurrentPage();
+            continue;
+          }
           // There is no more eligible points in current time range
           if (pageTimeStatistics.getStartTime() > curTimeRange.getMax()) {
             if (ascending) {
@@ -376,6 +460,12 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     if (outputEndTime) {
       dataTypes.add(TSDataType.INT64);
     }
+    dataTypes.addAll(getAggregatorOutputDataTypes());
+    return dataTypes;
+  }
+
+  private List<TSDataType> getAggregatorOutputDataTypes() {
+    List<TSDataType> dataTypes = new ArrayList<>();
     for (TreeAggregator aggregator : aggregators) {
       dataTypes.addAll(Arrays.asList(aggregator.getOutputType()));
     }
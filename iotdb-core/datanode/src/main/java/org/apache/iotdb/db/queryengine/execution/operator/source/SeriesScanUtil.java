@@ -263,6 +263,10 @@ public class SeriesScanUtil implements Accountable {
                 fileStatistics, unSeqTimeSeriesMetadata.peek().getStatistics());
   }
 
+  public Filter getGlobalTimeFilter() {
+    return scanOptions.getGlobalTimeFilter();
+  }
+
   public boolean canUseCurrentFileStatistics() {
     checkState(firstTimeSeriesMetadata != null, "no first file");
 
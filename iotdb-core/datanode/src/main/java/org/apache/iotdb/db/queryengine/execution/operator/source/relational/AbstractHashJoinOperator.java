@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import org.apache.iotdb.db.queryengine.execution.fragment.DataNodeQueryContext;
+import org.apache.iotdb.db.queryengine.execution.operator.AbstractOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.Operator;
+import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.hash.GroupByHash;
+import org.apache.iotdb.db.queryengine.plan.planner.memory.MemoryReservationManager;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.block.column.ColumnBuilder;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.tsfile.read.common.block.column.RunLengthEncodedColumn;
+import org.apache.tsfile.read.common.type.Type;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.TableScanOperator.TIME_COLUMN_TEMPLATE;
+import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.UpdateMemory.NOOP;
+import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.hash.GroupByHash.DEFAULT_GROUP_NUMBER;
+import static org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanGraphPrinter.MAX_RESERVED_MEMORY;
+import static org.apache.iotdb.db.queryengine.plan.relational.type.InternalTypeManager.getTSDataType;
+
+/**
+ * Base class of hash join. All the data of right child (the build side) is consumed first and its
+ * join keys are put into a {@link GroupByHash}, then the left child (the probe side) is streamed
+ * and each row of it looks up the matched rows in the hash. Neither of the children need to be
+ * sorted, but the build side must be small enough to be held in memory.
+ */
+public abstract class AbstractHashJoinOperator extends AbstractOperator {
+
+  protected final Operator leftChild;
+  protected TsBlock leftBlock;
+  protected int leftIndex; // index of current probing row in leftBlock
+  // group id of each row in leftBlock, -1 if the join key doesn't exist in build side
+  protected int[] leftGroupIds;
+  protected final int[] leftJoinKeyPositions;
+  protected final int[] leftOutputSymbolIdx;
+
+  protected final Operator rightChild;
+  protected final int[] rightJoinKeyPositions;
+  protected boolean buildFinished = false;
+
+  protected final GroupByHash buildHash;
+  protected final TsBlockBuilder resultBuilder;
+
+  // builders of the DynamicFilters of each join key, null if DynamicFilter is not published or the
+  // type of join key is not supported
+  private final DynamicFilter.Builder[] dynamicFilterBuilders;
+
+  protected final MemoryReservationManager memoryReservationManager;
+
+  protected long maxUsedMemory;
+  protected long usedMemory;
+
+  protected AbstractHashJoinOperator(
+      OperatorContext operatorContext,
+      Operator leftChild,
+      int[] leftJoinKeyPositions,
+      int[] leftOutputSymbolIdx,
+      Operator rightChild,
+      int[] rightJoinKeyPositions,
+      List<Type> joinKeyTypes,
+      List<TSDataType> dataTypes,
+      boolean publishDynamicFilter,
+      int maxDynamicFilterValueCount) {
+    this.operatorContext = operatorContext;
+    this.leftChild = leftChild;
+    this.leftJoinKeyPositions = leftJoinKeyPositions;
+    this.leftOutputSymbolIdx = leftOutputSymbolIdx;
+    this.rightChild = rightChild;
+    this.rightJoinKeyPositions = rightJoinKeyPositions;
+
+    this.buildHash = GroupByHash.createGroupByHash(joinKeyTypes, false, DEFAULT_GROUP_NUMBER, NOOP);
+    this.memoryReservationManager =
+        operatorContext
+            .getDriverContext()
+            .getFragmentInstanceContext()
+            .getMemoryReservationContext();
+
+    this.resultBuilder = new TsBlockBuilder(dataTypes);
+
+    if (publishDynamicFilter) {
+      this.dynamicFilterBuilders = new DynamicFilter.Builder[joinKeyTypes.size()];
+      for (int i = 0; i < joinKeyTypes.size(); i++) {
+        TSDataType joinKeyType = getTSDataType(joinKeyTypes.get(i));
+        if (DynamicFilter.isSupportedType(joinKeyType)) {
+          dynamicFilterBuilders[i] =
+              new DynamicFilter.Builder(joinKeyType, maxDynamicFilterValueCount);
+        }
+      }
+    } else {
+      this.dynamicFilterBuilders = null;
+    }
+  }
+
+  /**
+   * Add one TsBlock of build side.
+   *
+   * @param groupIds group id of each row in the block, rows which have NULL join key are also
+   *     assigned group ids, but they should never be matched.
+   */
+  protected abstract void addBuildBlock(TsBlock block, int[] groupIds);
+
+  /**
+   * @return the memory retained by build side except the hash, which will be reserved from the
+   *     memory pool of this query
+   */
+  protected abstract long getBuildSideRetainedSizeInBytes();
+
+  /**
+   * Probe the rows of leftBlock from leftIndex until leftBlock is consumed up or result is full.
+   */
+  protected abstract void probeLeftBlock();
+
+  /**
+   * @return true if the result can be decided without probing, e.g. build side of inner join is
+   *     empty
+   */
+  protected boolean skipProbe() {
+    return false;
+  }
+
+  @Override
+  public ListenableFuture<?> isBlocked() {
+    if (!buildFinished) {
+      return rightChild.isBlocked();
+    }
+    return leftBlock != null ? NOT_BLOCKED : leftChild.isBlocked();
+  }
+
+  @Override
+  public boolean hasNext() throws Exception {
+    if (retainedTsBlock != null) {
+      return true;
+    }
+    if (!buildFinished) {
+      return true;
+    }
+    if (skipProbe()) {
+      return false;
+    }
+    return leftBlock != null || leftChild.hasNextWithTimer();
+  }
+
+  @Override
+  public boolean isFinished() throws Exception {
+    return !hasNext();
+  }
+
+  @Override
+  public TsBlock next() throws Exception {
+    if (retainedTsBlock != null) {
+      return getResultFromRetainedTsBlock();
+    }
+
+    long maxRuntime = operatorContext.getMaxRunTime().roundTo(TimeUnit.NANOSECONDS);
+    long start = System.nanoTime();
+
+    if (!buildFinished) {
+      buildHashTable(start, maxRuntime);
+      return null;
+    }
+
+    if (leftBlock == null) {
+      if (!leftChild.hasNextWithTimer()) {
+        return null;
+      }
+      TsBlock block = leftChild.nextWithTimer();
+      if (block == null || block.isEmpty()) {
+        return null;
+      }
+      leftBlock = block;
+      leftIndex = 0;
+      leftGroupIds = buildHash.getExistingGroupIds(getColumns(block, leftJoinKeyPositions));
+    }
+
+    probeLeftBlock();
+    if (leftIndex >= leftBlock.getPositionCount()) {
+      leftBlock = null;
+      leftGroupIds = null;
+    }
+
+    if (resultBuilder.isEmpty()) {
+      return null;
+    }
+
+    resultTsBlock =
+        resultBuilder.build(
+            new RunLengthEncodedColumn(TIME_COLUMN_TEMPLATE, resultBuilder.getPositionCount()));
+    resultBuilder.reset();
+    return checkTsBlockSizeAndGetResult();
+  }
+
+  private void buildHashTable(long start, long maxRuntime) throws Exception {
+    while (rightChild.isBlocked().isDone() && System.nanoTime() - start < maxRuntime) {
+      if (!rightChild.hasNextWithTimer()) {
+        buildFinished = true;
+        publishDynamicFilters();
+        return;
+      }
+      TsBlock block = rightChild.nextWithTimer();
+      if (block != null && !block.isEmpty()) {
+        Column[] joinKeyColumns = getColumns(block, rightJoinKeyPositions);
+        addBuildBlock(block, buildHash.getGroupIds(joinKeyColumns));
+        if (dynamicFilterBuilders != null) {
+          for (int i = 0; i < dynamicFilterBuilders.length; i++) {
+            if (dynamicFilterBuilders[i] != null) {
+              dynamicFilterBuilders[i].add(joinKeyColumns[i]);
+            }
+          }
+        }
+        updateMemory();
+      }
+    }
+  }
+
+  /**
+   * Publish the join keys of build side, so that the table scans of probe side in the same DataNode
+   * can skip the data which can never be matched.
+   */
+  private void publishDynamicFilters() {
+    if (dynamicFilterBuilders == null) {
+      return;
+    }
+    DataNodeQueryContext dataNodeQueryContext =
+        operatorContext.getDriverContext().getFragmentInstanceContext().getDataNodeQueryContext();
+    if (dataNodeQueryContext == null) {
+      return;
+    }
+    for (int i = 0; i < dynamicFilterBuilders.length; i++) {
+      if (dynamicFilterBuilders[i] != null) {
+        dataNodeQueryContext.publishDynamicFilter(
+            DynamicFilter.getFilterId(operatorContext.getPlanNodeId(), i),
+            dynamicFilterBuilders[i].build());
+        dynamicFilterBuilders[i] = null;
+      }
+    }
+  }
+
+  private void updateMemory() {
+    long size = buildHash.getEstimatedSize() + getBuildSideRetainedSizeInBytes();
+    if (size > usedMemory) {
+      memoryReservationManager.reserveMemoryCumulatively(size - usedMemory);
+    } else {
+      memoryReservationManager.releaseMemoryCumulatively(usedMemory - size);
+    }
+    usedMemory = size;
+    if (usedMemory > maxUsedMemory) {
+      maxUsedMemory = usedMemory;
+      operatorContext.recordSpecifiedInfo(MAX_RESERVED_MEMORY, Long.toString(maxUsedMemory));
+    }
+  }
+
+  protected static Column[] getColumns(TsBlock block, int[] positions) {
+    Column[] columns = new Column[positions.length];
+    for (int i = 0; i < positions.length; i++) {
+      columns[i] = block.getColumn(positions[i]);
+    }
+    return columns;
+  }
+
+  protected static boolean hasNullValue(TsBlock block, int[] joinKeyPositions, int index) {
+    for (int joinKeyPosition : joinKeyPositions) {
+      if (block.getColumn(joinKeyPosition).isNull(index)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  protected void appendLeftBlockData(int index) {
+    for (int i = 0; i < leftOutputSymbolIdx.length; i++) {
+      Column column = leftBlock.getColumn(leftOutputSymbolIdx[i]);
+      ColumnBuilder columnBuilder = resultBuilder.getColumnBuilder(i);
+      if (column.isNull(index)) {
+        columnBuilder.appendNull();
+      } else {
+        columnBuilder.write(column, index);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (leftChild != null) {
+      leftChild.close();
+    }
+    if (rightChild != null) {
+      rightChild.close();
+    }
+    if (usedMemory > 0) {
+      memoryReservationManager.releaseMemoryCumulatively(usedMemory);
+      usedMemory = 0;
+    }
+  }
+
+  @Override
+  public long calculateMaxPeekMemory() {
+    return Math.max(
+        Math.max(
+            leftChild.calculateMaxPeekMemoryWithCounter(),
+            rightChild.calculateMaxPeekMemoryWithCounter()),
+        calculateRetainedSizeAfterCallingNext() + calculateMaxReturnSize());
+  }
+
+  @Override
+  public long calculateMaxReturnSize() {
+    return maxReturnSize;
+  }
+
+  @Override
+  public long calculateRetainedSizeAfterCallingNext() {
+    return leftChild.calculateMaxReturnSize()
+        + leftChild.calculateRetainedSizeAfterCallingNext()
+        + rightChild.calculateMaxReturnSize()
+        + rightChild.calculateRetainedSizeAfterCallingNext()
+        + maxReturnSize;
+  }
+}
@@ -20,7 +20,9 @@
 package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
 
 import org.apache.iotdb.commons.path.AlignedFullPath;
+import org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory;
 import org.apache.iotdb.db.queryengine.execution.MemoryEstimationHelper;
+import org.apache.iotdb.db.queryengine.execution.fragment.DataNodeQueryContext;
 import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
 import org.apache.iotdb.db.queryengine.execution.operator.source.AbstractSeriesScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.AlignedSeriesScanUtil;
@@ -41,6 +43,7 @@ import org.apache.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.tsfile.read.common.block.column.BinaryColumn;
 import org.apache.tsfile.read.common.block.column.LongColumn;
 import org.apache.tsfile.read.common.block.column.RunLengthEncodedColumn;
+import org.apache.tsfile.read.filter.basic.Filter;
 import org.apache.tsfile.utils.Binary;
 import org.apache.tsfile.utils.RamUsageEstimator;
 import org.apache.tsfile.write.schema.IMeasurementSchema;
@@ -63,6 +66,9 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
 
   public static final String CURRENT_DEVICE_INDEX_STRING = "CurrentDeviceIndex";
 
+  public static final String DYNAMIC_FILTER_SKIPPED_DEVICE_NUMBER =
+      "DynamicFilterSkippedDeviceNumber";
+
   public static final LongColumn TIME_COLUMN_TEMPLATE =
       new LongColumn(1, Optional.empty(), new long[] {0});
 
@@ -95,6 +101,11 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
 
   private int currentDeviceIndex;
 
+  private final List<DynamicFilterTarget> dynamicFilterTargets;
+  // received DynamicFilters, in the same order as dynamicFilterTargets, null if not published yet
+  private final DynamicFilter[] dynamicFilters;
+  private int skippedDeviceNumber = 0;
+
   public AbstractTableScanOperator(AbstractTableScanOperatorParameter parameter) {
     this.sourceId = parameter.sourceId;
     this.operatorContext = parameter.context;
@@ -122,6 +133,8 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
             (1L + parameter.columnsIndexArray.length)
                 * TSFileDescriptor.getInstance().getConfig().getPageSizeInByte());
     this.maxTsBlockLineNum = parameter.maxTsBlockLineNum;
+    this.dynamicFilterTargets = parameter.dynamicFilterTargets;
+    this.dynamicFilters = new DynamicFilter[parameter.dynamicFilterTargets.size()];
 
     constructAlignedSeriesScanUtil();
   }
@@ -290,6 +303,7 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
   }
 
   private void prepareForNextDevice() {
+    skipDevicesByDynamicFilters();
     if (currentDeviceIndex < deviceCount) {
       // construct AlignedSeriesScanUtil for next device
       constructAlignedSeriesScanUtil();
@@ -303,7 +317,7 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
   }
 
   private void constructAlignedSeriesScanUtil() {
-    if (this.deviceEntries.isEmpty()) {
+    if (this.currentDeviceIndex >= this.deviceCount) {
       // no need to construct SeriesScanUtil, hasNext will return false
       return;
     }
@@ -326,6 +340,80 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
             measurementColumnTSDataTypes);
   }
 
+  /** Skip the devices which can never be matched by the join, starting from currentDeviceIndex. */
+  private void skipDevicesByDynamicFilters() {
+    if (dynamicFilterTargets.isEmpty()) {
+      return;
+    }
+    receiveDynamicFilters();
+    int skippedDeviceNumberBefore = skippedDeviceNumber;
+    while (currentDeviceIndex < deviceCount
+        && !passDynamicFilters(deviceEntries.get(currentDeviceIndex))) {
+      currentDeviceIndex++;
+      skippedDeviceNumber++;
+    }
+    if (skippedDeviceNumber != skippedDeviceNumberBefore) {
+      operatorContext.recordSpecifiedInfo(
+          DYNAMIC_FILTER_SKIPPED_DEVICE_NUMBER, Integer.toString(skippedDeviceNumber));
+    }
+  }
+
+  private void receiveDynamicFilters() {
+    DataNodeQueryContext dataNodeQueryContext =
+        operatorContext.getInstanceContext().getDataNodeQueryContext();
+    if (dataNodeQueryContext == null) {
+      return;
+    }
+    for (int i = 0; i < dynamicFilters.length; i++) {
+      if (dynamicFilters[i] != null) {
+        continue;
+      }
+      DynamicFilterTarget target = dynamicFilterTargets.get(i);
+      dynamicFilters[i] = dataNodeQueryContext.getDynamicFilter(target.filterId);
+      if (dynamicFilters[i] != null && target.columnCategory == TsTableColumnCategory.TIME) {
+        // chunks and pages out of the range of join keys will be skipped by their statistics
+        Filter timeFilter = dynamicFilters[i].toTimeFilter();
+        if (timeFilter != null) {
+          seriesScanOptions.addGlobalTimeFilter(timeFilter);
+        }
+      }
+    }
+  }
+
+  private boolean passDynamicFilters(DeviceEntry deviceEntry) {
+    for (int i = 0; i < dynamicFilters.length; i++) {
+      DynamicFilter dynamicFilter = dynamicFilters[i];
+      if (dynamicFilter == null) {
+        continue;
+      }
+      if (dynamicFilter.isEmpty()) {
+        return false;
+      }
+      DynamicFilterTarget target = dynamicFilterTargets.get(i);
+      switch (target.columnCategory) {
+        case TAG:
+          String idColumnValue = getNthIdColumnValue(deviceEntry, target.columnIndex);
+          if (!dynamicFilter.mayContain(
+              idColumnValue == null
+                  ? null
+                  : new Binary(idColumnValue, TSFileConfig.STRING_CHARSET))) {
+            return false;
+          }
+          break;
+        case ATTRIBUTE:
+          if (!dynamicFilter.mayContain(
+              deviceEntry.getAttributeColumnValues()[target.columnIndex])) {
+            return false;
+          }
+          break;
+        default:
+          // range of TIME column has been added into the global time filter
+          break;
+      }
+    }
+    return true;
+  }
+
   public static AlignedFullPath constructAlignedPath(
       DeviceEntry deviceEntry,
       List<String> measurementColumnNames,
@@ -357,6 +445,7 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
     public final Set<String> allSensors;
     public final List<IMeasurementSchema> measurementSchemas;
     public final int maxTsBlockLineNum;
+    public final List<DynamicFilterTarget> dynamicFilterTargets;
 
     public AbstractTableScanOperatorParameter(
         Set<String> allSensors,
@@ -369,7 +458,8 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
         SeriesScanOptions seriesScanOptions,
         List<String> measurementColumnNames,
         List<IMeasurementSchema> measurementSchemas,
-        int maxTsBlockLineNum) {
+        int maxTsBlockLineNum,
+        List<DynamicFilterTarget> dynamicFilterTargets) {
       this.allSensors = allSensors;
       this.context = context;
       this.sourceId = sourceId;
@@ -381,6 +471,22 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
       this.measurementColumnNames = measurementColumnNames;
       this.measurementSchemas = measurementSchemas;
       this.maxTsBlockLineNum = maxTsBlockLineNum;
+      this.dynamicFilterTargets = dynamicFilterTargets;
+    }
+  }
+
+  /** A {@link DynamicFilter} applied on one TAG, ATTRIBUTE or TIME column of the scan. */
+  public static class DynamicFilterTarget {
+    public final String filterId;
+    public final TsTableColumnCategory columnCategory;
+    // index of the TAG or ATTRIBUTE column in DeviceEntry, not used by TIME column
+    public final int columnIndex;
+
+    public DynamicFilterTarget(
+        String filterId, TsTableColumnCategory columnCategory, int columnIndex) {
+      this.filterId = filterId;
+      this.columnCategory = columnCategory;
+      this.columnIndex = columnIndex;
     }
   }
 }
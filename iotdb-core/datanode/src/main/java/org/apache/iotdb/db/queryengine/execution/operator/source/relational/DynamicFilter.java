@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
+
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.read.filter.basic.Filter;
+import org.apache.tsfile.read.filter.factory.TimeFilterApi;
+import org.apache.tsfile.utils.Binary;
+
+import javax.annotation.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Runtime filter generated from the join keys of the build side of a hash join. It is published
+ * into the {@link org.apache.iotdb.db.queryengine.execution.fragment.DataNodeQueryContext} once the
+ * build side is finished, then the table scans of probe side in the same query can use it to skip
+ * the devices and time ranges which can never be matched.
+ *
+ * <p>DynamicFilter is only a necessary condition, a value which passes it may still not be matched.
+ */
+public class DynamicFilter {
+
+  private final boolean empty;
+
+  // distinct join keys of build side, null if the keys are not binary or there are too many of them
+  @Nullable private final Set<Binary> values;
+
+  // range of join keys, only available when the keys are INT64 or TIMESTAMP
+  private final boolean hasRange;
+  private final long min;
+  private final long max;
+
+  private DynamicFilter(
+      boolean empty, @Nullable Set<Binary> values, boolean hasRange, long min, long max) {
+    this.empty = empty;
+    this.values = values;
+    this.hasRange = hasRange;
+    this.min = min;
+    this.max = max;
+  }
+
+  public static String getFilterId(PlanNodeId producerId, int joinKeyIndex) {
+    return producerId.getId() + "_" + joinKeyIndex;
+  }
+
+  public static boolean isSupportedType(TSDataType dataType) {
+    return isBinaryType(dataType) || isLongType(dataType);
+  }
+
+  private static boolean isBinaryType(TSDataType dataType) {
+    return dataType == TSDataType.TEXT
+        || dataType == TSDataType.STRING
+        || dataType == TSDataType.BLOB;
+  }
+
+  private static boolean isLongType(TSDataType dataType) {
+    return dataType == TSDataType.INT64 || dataType == TSDataType.TIMESTAMP;
+  }
+
+  /**
+   * @return true if there is no non-null join key in build side, which means nothing can be matched
+   */
+  public boolean isEmpty() {
+    return empty;
+  }
+
+  /**
+   * @return false only if the value can never be matched, NULL is never matched
+   */
+  public boolean mayContain(@Nullable Binary value) {
+    if (value == null || empty) {
+      return false;
+    }
+    return values == null || values.contains(value);
+  }
+
+  /**
+   * @return time filter which only keeps the timestamps in [min, max] of join keys, null if the
+   *     range is not available
+   */
+  @Nullable
+  public Filter toTimeFilter() {
+    return hasRange && !empty ? TimeFilterApi.between(min, max) : null;
+  }
+
+  public static class Builder {
+    private final TSDataType dataType;
+    private final int maxDistinctValueCount;
+
+    private boolean empty = true;
+    private Set<Binary> values;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public Builder(TSDataType dataType, int maxDistinctValueCount) {
+      this.dataType = dataType;
+      this.maxDistinctValueCount = maxDistinctValueCount;
+      if (isBinaryType(dataType)) {
+        values = new HashSet<>();
+      }
+    }
+
+    /** Add all the non-null values of join key column. */
+    public void add(Column column) {
+      for (int i = 0, size = column.getPositionCount(); i < size; i++) {
+        if (column.isNull(i)) {
+          continue;
+        }
+        empty = false;
+        if (values != null) {
+          values.add(column.getBinary(i));
+          if (values.size() > maxDistinctValueCount) {
+            // too many values to be held, the filter can only tell whether build side is empty
+            values = null;
+          }
+        } else if (isLongType(dataType)) {
+          long value = column.getLong(i);
+          min = Math.min(min, value);
+          max = Math.max(max, value);
+        } else {
+          // nothing more can be collected
+          return;
+        }
+      }
+    }
+
+    public DynamicFilter build() {
+      return new DynamicFilter(empty, values, isLongType(dataType), min, max);
+    }
+  }
+}
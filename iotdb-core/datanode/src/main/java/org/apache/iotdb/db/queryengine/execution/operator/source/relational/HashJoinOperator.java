@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import org.apache.iotdb.db.queryengine.execution.MemoryEstimationHelper;
+import org.apache.iotdb.db.queryengine.execution.operator.Operator;
+import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
+
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.block.column.ColumnBuilder;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.type.Type;
+import org.apache.tsfile.utils.RamUsageEstimator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash join for INNER JOIN and LEFT JOIN, the right child is the build side. Rows of build side
+ * which have the same join key are chained together, so all the matched rows of a probing row can
+ * be found by walking through the chain from the head of its group.
+ */
+public class HashJoinOperator extends AbstractHashJoinOperator {
+  private static final long INSTANCE_SIZE =
+      RamUsageEstimator.shallowSizeOfInstance(HashJoinOperator.class);
+
+  private static final int INITIAL_ROW_CAPACITY = 1024;
+
+  private final boolean outerJoin;
+  private final int[] rightOutputSymbolIdx;
+
+  private final List<TsBlock> rightBlockList = new ArrayList<>();
+  private long rightBlocksRetainedSize = 0;
+
+  // address of each chained build row, high 32 bits is the index of block in rightBlockList and low
+  // 32 bits is the position in that block
+  private long[] rightRowAddresses = new long[INITIAL_ROW_CAPACITY];
+  // next build row which has the same join key, -1 means the end of chain
+  private int[] nextRightRows = new int[INITIAL_ROW_CAPACITY];
+  private int rightRowCount = 0;
+  // first build row of each group, -1 if no row of this group can be matched
+  private int[] groupHeads = new int[0];
+
+  // next build row to be output for current probing row, -1 if current probing row is not started
+  private int currentRightRow = -1;
+
+  public HashJoinOperator(
+      OperatorContext operatorContext,
+      Operator leftChild,
+      int[] leftJoinKeyPositions,
+      int[] leftOutputSymbolIdx,
+      Operator rightChild,
+      int[] rightJoinKeyPositions,
+      int[] rightOutputSymbolIdx,
+      List<Type> joinKeyTypes,
+      List<TSDataType> dataTypes,
+      boolean outerJoin,
+      boolean publishDynamicFilter,
+      int maxDynamicFilterValueCount) {
+    super(
+        operatorContext,
+        leftChild,
+        leftJoinKeyPositions,
+        leftOutputSymbolIdx,
+        rightChild,
+        rightJoinKeyPositions,
+        joinKeyTypes,
+        dataTypes,
+        publishDynamicFilter,
+        maxDynamicFilterValueCount);
+    this.rightOutputSymbolIdx = rightOutputSymbolIdx;
+    this.outerJoin = outerJoin;
+  }
+
+  @Override
+  protected void addBuildBlock(TsBlock block, int[] groupIds) {
+    int groupCount = buildHash.getGroupCount();
+    if (groupHeads.length < groupCount) {
+      int oldLength = groupHeads.length;
+      groupHeads = Arrays.copyOf(groupHeads, Math.max(groupCount, oldLength * 2));
+      Arrays.fill(groupHeads, oldLength, groupHeads.length, -1);
+    }
+    ensureRowCapacity(rightRowCount + block.getPositionCount());
+
+    long blockIndex = rightBlockList.size();
+    rightBlockList.add(block);
+    rightBlocksRetainedSize += block.getRetainedSizeInBytes();
+
+    for (int position = 0; position < block.getPositionCount(); position++) {
+      // NULL value will not match any value
+      if (hasNullValue(block, rightJoinKeyPositions, position)) {
+        continue;
+      }
+      int groupId = groupIds[position];
+      rightRowAddresses[rightRowCount] = (blockIndex << 32) | position;
+      nextRightRows[rightRowCount] = groupHeads[groupId];
+      groupHeads[groupId] = rightRowCount;
+      rightRowCount++;
+    }
+  }
+
+  private void ensureRowCapacity(int capacity) {
+    if (rightRowAddresses.length < capacity) {
+      int newCapacity = Math.max(capacity, rightRowAddresses.length * 2);
+      rightRowAddresses = Arrays.copyOf(rightRowAddresses, newCapacity);
+      nextRightRows = Arrays.copyOf(nextRightRows, newCapacity);
+    }
+  }
+
+  @Override
+  protected long getBuildSideRetainedSizeInBytes() {
+    return rightBlocksRetainedSize
+        + RamUsageEstimator.sizeOf(rightRowAddresses)
+        + RamUsageEstimator.sizeOf(nextRightRows)
+        + RamUsageEstimator.sizeOf(groupHeads);
+  }
+
+  @Override
+  protected boolean skipProbe() {
+    // no row of left can be matched
+    return !outerJoin && rightRowCount == 0;
+  }
+
+  @Override
+  protected void probeLeftBlock() {
+    int positionCount = leftBlock.getPositionCount();
+    while (leftIndex < positionCount && !resultBuilder.isFull()) {
+      if (currentRightRow == -1) {
+        int groupId = leftGroupIds[leftIndex];
+        currentRightRow = groupId < 0 ? -1 : groupHeads[groupId];
+        if (currentRightRow == -1) {
+          if (outerJoin) {
+            appendLeftWithEmptyRight();
+          }
+          leftIndex++;
+          continue;
+        }
+      }
+
+      appendValueToResultWhenMatches(currentRightRow);
+      currentRightRow = nextRightRows[currentRightRow];
+      if (currentRightRow == -1) {
+        leftIndex++;
+      }
+    }
+  }
+
+  private void appendValueToResultWhenMatches(int rightRow) {
+    appendLeftBlockData(leftIndex);
+
+    long address = rightRowAddresses[rightRow];
+    TsBlock rightBlock = rightBlockList.get((int) (address >>> 32));
+    int rightIndex = (int) address;
+    for (int i = 0; i < rightOutputSymbolIdx.length; i++) {
+      Column column = rightBlock.getColumn(rightOutputSymbolIdx[i]);
+      ColumnBuilder columnBuilder = resultBuilder.getColumnBuilder(leftOutputSymbolIdx.length + i);
+      if (column.isNull(rightIndex)) {
+        columnBuilder.appendNull();
+      } else {
+        columnBuilder.write(column, rightIndex);
+      }
+    }
+
+    resultBuilder.declarePosition();
+  }
+
+  private void appendLeftWithEmptyRight() {
+    appendLeftBlockData(leftIndex);
+
+    for (int i = 0; i < rightOutputSymbolIdx.length; i++) {
+      resultBuilder.getColumnBuilder(leftOutputSymbolIdx.length + i).appendNull();
+    }
+
+    resultBuilder.declarePosition();
+  }
+
+  @Override
+  public void close() throws Exception {
+    super.close();
+    rightBlockList.clear();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return INSTANCE_SIZE
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(leftChild)
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(rightChild)
+        + RamUsageEstimator.sizeOf(leftOutputSymbolIdx)
+        + RamUsageEstimator.sizeOf(rightOutputSymbolIdx)
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(operatorContext)
+        + resultBuilder.getRetainedSizeInBytes();
+  }
+}
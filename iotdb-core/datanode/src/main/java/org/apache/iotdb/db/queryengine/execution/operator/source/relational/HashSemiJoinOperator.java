@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import org.apache.iotdb.db.queryengine.execution.MemoryEstimationHelper;
+import org.apache.iotdb.db.queryengine.execution.operator.Operator;
+import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
+
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.block.column.ColumnBuilder;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.type.Type;
+import org.apache.tsfile.utils.RamUsageEstimator;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hash semi join, only the distinct join keys of filtering source (right child) are held in the
+ * hash. The output is all the columns of source followed by the SemiJoin result, which is the same
+ * as {@link MergeSortSemiJoinOperator}.
+ */
+public class HashSemiJoinOperator extends AbstractHashJoinOperator {
+  private static final long INSTANCE_SIZE =
+      RamUsageEstimator.shallowSizeOfInstance(HashSemiJoinOperator.class);
+
+  private final int outputColumnNum;
+
+  private boolean rightHasNullValue = false;
+
+  public HashSemiJoinOperator(
+      OperatorContext operatorContext,
+      Operator leftChild,
+      int leftJoinKeyPosition,
+      int[] leftOutputSymbolIdx,
+      Operator rightChild,
+      int rightJoinKeyPosition,
+      Type joinKeyType,
+      List<TSDataType> dataTypes,
+      boolean publishDynamicFilter,
+      int maxDynamicFilterValueCount) {
+    super(
+        operatorContext,
+        leftChild,
+        new int[] {leftJoinKeyPosition},
+        leftOutputSymbolIdx,
+        rightChild,
+        new int[] {rightJoinKeyPosition},
+        Collections.singletonList(joinKeyType),
+        dataTypes,
+        publishDynamicFilter,
+        maxDynamicFilterValueCount);
+    outputColumnNum = dataTypes.size();
+  }
+
+  @Override
+  protected void addBuildBlock(TsBlock block, int[] groupIds) {
+    if (!rightHasNullValue) {
+      Column column = block.getColumn(rightJoinKeyPositions[0]);
+      rightHasNullValue = column.mayHaveNull() && hasNull(column);
+    }
+  }
+
+  private static boolean hasNull(Column column) {
+    for (int i = 0, size = column.getPositionCount(); i < size; i++) {
+      if (column.isNull(i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  protected long getBuildSideRetainedSizeInBytes() {
+    return 0;
+  }
+
+  @Override
+  protected void probeLeftBlock() {
+    int positionCount = leftBlock.getPositionCount();
+    while (leftIndex < positionCount && !resultBuilder.isFull()) {
+      appendLeftBlockData(leftIndex);
+      ColumnBuilder columnBuilder = resultBuilder.getColumnBuilder(outputColumnNum - 1);
+      if (hasNullValue(leftBlock, leftJoinKeyPositions, leftIndex)) {
+        // NULL IN (empty set) is false, otherwise it is NULL
+        if (buildHash.getGroupCount() == 0) {
+          columnBuilder.writeBoolean(false);
+        } else {
+          columnBuilder.appendNull();
+        }
+      } else if (leftGroupIds[leftIndex] >= 0) {
+        columnBuilder.writeBoolean(true);
+      } else if (rightHasNullValue) {
+        // if right has null value, append null to result. This behaves like MySQL and Trino.
+        columnBuilder.appendNull();
+      } else {
+        columnBuilder.writeBoolean(false);
+      }
+      resultBuilder.declarePosition();
+      leftIndex++;
+    }
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return INSTANCE_SIZE
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(leftChild)
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(rightChild)
+        + RamUsageEstimator.sizeOf(leftOutputSymbolIdx)
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(operatorContext)
+        + resultBuilder.getRetainedSizeInBytes();
+  }
+}
@@ -40,6 +40,7 @@ import org.apache.iotdb.confignode.rpc.thrift.TShowSubscriptionReq;
 import org.apache.iotdb.confignode.rpc.thrift.TShowTopicInfo;
 import org.apache.iotdb.confignode.rpc.thrift.TShowTopicReq;
 import org.apache.iotdb.confignode.rpc.thrift.TTableInfo;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.pipe.metric.overview.PipeDataNodeRemainingEventAndTimeMetrics;
 import org.apache.iotdb.db.protocol.client.ConfigNodeClient;
 import org.apache.iotdb.db.protocol.client.ConfigNodeClientManager;
@@ -48,6 +49,8 @@ import org.apache.iotdb.db.protocol.session.IClientSession;
 import org.apache.iotdb.db.queryengine.plan.Coordinator;
 import org.apache.iotdb.db.queryengine.plan.execution.IQueryExecution;
 import org.apache.iotdb.db.schemaengine.table.InformationSchemaUtils;
+import org.apache.iotdb.db.storageengine.StorageEngine;
+import org.apache.iotdb.db.storageengine.dataregion.DataRegionRecoveryProgress;
 import org.apache.iotdb.db.utils.TimestampPrecisionUtils;
 
 import org.apache.tsfile.block.column.ColumnBuilder;
@@ -102,6 +105,8 @@ public class InformationSchemaContentSupplierFactory {
         return new TopicSupplier(dataTypes);
       case InformationSchema.SUBSCRIPTIONS:
         return new SubscriptionSupplier(dataTypes);
+      case InformationSchema.RECOVERY_PROGRESS:
+        return new RecoveryProgressSupplier(dataTypes);
       default:
         throw new UnsupportedOperationException("Unknown table: " + tableName);
     }
@@ -582,6 +587,42 @@ public class InformationSchemaContentSupplierFactory {
     }
   }
 
+  private static class RecoveryProgressSupplier extends TsBlockSupplier {
+    private final int dataNodeId = IoTDBDescriptor.getInstance().getConfig().getDataNodeId();
+    private final Iterator<DataRegionRecoveryProgress> iterator;
+
+    private RecoveryProgressSupplier(final List<TSDataType> dataTypes) {
+      super(dataTypes);
+      iterator = StorageEngine.getInstance().getDataRegionRecoveryProgresses().iterator();
+    }
+
+    @Override
+    protected void constructLine() {
+      final DataRegionRecoveryProgress progress = iterator.next();
+      columnBuilders[0].writeInt(progress.getDataRegionId().getId());
+      columnBuilders[1].writeInt(dataNodeId);
+      columnBuilders[2].writeBinary(
+          new Binary(progress.getDatabaseName(), TSFileConfig.STRING_CHARSET));
+      columnBuilders[3].writeBinary(
+          new Binary(progress.getStatus().toString(), TSFileConfig.STRING_CHARSET));
+      columnBuilders[4].writeLong(progress.getTotalFileNum());
+      columnBuilders[5].writeLong(progress.getRecoveredFileNum());
+      columnBuilders[6].writeFloat((float) progress.getElapsedTimeInMs() / 1000);
+      final long estimatedRemainingTime = progress.getEstimatedRemainingTimeInMs();
+      if (estimatedRemainingTime < 0) {
+        columnBuilders[7].appendNull();
+      } else {
+        columnBuilders[7].writeDouble((double) estimatedRemainingTime / 1000);
+      }
+      resultBuilder.declarePosition();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+  }
+
   private abstract static class TsBlockSupplier implements Iterator<TsBlock> {
 
     protected final TsBlockBuilder resultBuilder;
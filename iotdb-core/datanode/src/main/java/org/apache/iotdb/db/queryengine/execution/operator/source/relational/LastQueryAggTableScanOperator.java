@@ -226,7 +226,7 @@ public class LastQueryAggTableScanOperator extends AbstractAggTableScanOperator
                           lastTime,
                           new TsPrimitiveType.TsLong(lastTime))));
             } else {
-              columnBuilder.writeTsPrimitiveType(new TsPrimitiveType.TsLong(lastTime));
+              columnBuilder.writeLong(lastTime);
             }
           } else {
             // for last_by(time,time) aggregation
@@ -239,7 +239,7 @@ public class LastQueryAggTableScanOperator extends AbstractAggTableScanOperator
                           false,
                           new TsPrimitiveType.TsLong(lastTime))));
             } else {
-              columnBuilder.writeTsPrimitiveType(new TsPrimitiveType.TsLong(lastTime));
+              columnBuilder.writeLong(lastTime);
             }
           }
           break;
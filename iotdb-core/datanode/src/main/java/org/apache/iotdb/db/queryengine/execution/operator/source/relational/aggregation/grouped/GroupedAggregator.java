@@ -29,6 +29,7 @@ import org.apache.tsfile.enums.TSDataType;
 import org.apache.tsfile.read.common.block.TsBlock;
 import org.apache.tsfile.read.common.block.column.RunLengthEncodedColumn;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.OptionalInt;
 
@@ -40,6 +41,7 @@ public class GroupedAggregator {
   private final GroupedAccumulator accumulator;
   private final AggregationNode.Step step;
   private final TSDataType outputType;
+  private final TSDataType intermediateType;
   private final int[] inputChannels;
   private final OptionalInt maskChannel;
 
@@ -49,9 +51,25 @@ public class GroupedAggregator {
       TSDataType outputType,
       List<Integer> inputChannels,
       OptionalInt maskChannel) {
+    this(accumulator, step, outputType, outputType, inputChannels, maskChannel);
+  }
+
+  /**
+   * @param intermediateType type of the partial state produced by {@link
+   *     GroupedAccumulator#evaluateIntermediate}, it is needed when the state has to be written out
+   *     before the final output, e.g. when spilling
+   */
+  public GroupedAggregator(
+      GroupedAccumulator accumulator,
+      AggregationNode.Step step,
+      TSDataType outputType,
+      TSDataType intermediateType,
+      List<Integer> inputChannels,
+      OptionalInt maskChannel) {
     this.accumulator = requireNonNull(accumulator, "accumulator is null");
     this.step = requireNonNull(step, "step is null");
-    this.outputType = requireNonNull(outputType, "intermediateType is null");
+    this.outputType = requireNonNull(outputType, "outputType is null");
+    this.intermediateType = requireNonNull(intermediateType, "intermediateType is null");
     this.inputChannels = Ints.toArray(requireNonNull(inputChannels, "inputChannels is null"));
     this.maskChannel = requireNonNull(maskChannel, "maskChannel is null");
     checkArgument(
@@ -63,6 +81,24 @@ public class GroupedAggregator {
     return outputType;
   }
 
+  public TSDataType getIntermediateType() {
+    return intermediateType;
+  }
+
+  /**
+   * Create an aggregator sharing the same accumulator, which consumes the intermediate states
+   * located in the specified channel and produces the same output as this aggregator.
+   */
+  public GroupedAggregator toIntermediateInputAggregator(int intermediateChannel) {
+    return new GroupedAggregator(
+        accumulator,
+        AggregationNode.Step.partialInput(step),
+        outputType,
+        intermediateType,
+        Collections.singletonList(intermediateChannel),
+        OptionalInt.empty());
+  }
+
   public void processBlock(int groupCount, int[] groupIds, TsBlock block) {
     accumulator.setGroupCount(groupCount);
     Column[] arguments = block.getColumns(inputChannels);
@@ -93,6 +129,10 @@ public class GroupedAggregator {
     }
   }
 
+  public void evaluateIntermediate(int groupId, ColumnBuilder columnBuilder) {
+    accumulator.evaluateIntermediate(groupId, columnBuilder);
+  }
+
   public void prepareFinal() {
     accumulator.prepareFinal();
   }
@@ -24,7 +24,9 @@ import org.apache.iotdb.db.queryengine.execution.operator.AbstractOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.Operator;
 import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.builder.HashAggregationBuilder;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.builder.HashAggregationSpiller;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.builder.InMemoryHashAggregationBuilder;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.builder.SpillableHashAggregationBuilder;
 import org.apache.iotdb.db.queryengine.plan.planner.memory.MemoryReservationManager;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationNode;
 
@@ -45,6 +47,8 @@ public class HashAggregationOperator extends AbstractOperator {
   private static final long INSTANCE_SIZE =
       RamUsageEstimator.shallowSizeOfInstance(HashAggregationOperator.class);
 
+  private static final int SPILL_PARTITION_COUNT = 16;
+
   private final Operator child;
 
   private final List<Type> groupByTypes;
@@ -58,7 +62,9 @@ public class HashAggregationOperator extends AbstractOperator {
   private final long maxPartialMemory;
 
   private final boolean spillEnabled;
-  private final long unspillMemoryLimit;
+  // the in-memory states will be spilled to disk once their size exceeds this limit
+  private final long memoryLimitBeforeSpill;
+  private final String spillFolderPath;
 
   private HashAggregationBuilder aggregationBuilder;
 
@@ -78,7 +84,8 @@ public class HashAggregationOperator extends AbstractOperator {
       int expectedGroups,
       long maxPartialMemory,
       boolean spillEnabled,
-      long unspillMemoryLimit) {
+      long memoryLimitBeforeSpill,
+      String spillFolderPath) {
     super.operatorContext = operatorContext;
     this.child = child;
     this.groupByTypes = ImmutableList.copyOf(groupByTypes);
@@ -88,7 +95,8 @@ public class HashAggregationOperator extends AbstractOperator {
     this.expectedGroups = expectedGroups;
     this.maxPartialMemory = maxPartialMemory;
     this.spillEnabled = spillEnabled;
-    this.unspillMemoryLimit = unspillMemoryLimit;
+    this.memoryLimitBeforeSpill = memoryLimitBeforeSpill;
+    this.spillFolderPath = spillFolderPath;
     this.memoryReservationManager =
         operatorContext
             .getDriverContext()
@@ -114,7 +122,20 @@ public class HashAggregationOperator extends AbstractOperator {
 
     if (aggregationBuilder == null) {
       if (spillEnabled) {
-        throw new UnsupportedOperationException();
+        aggregationBuilder =
+            new SpillableHashAggregationBuilder(
+                aggregators,
+                step,
+                expectedGroups,
+                groupByTypes,
+                groupByChannels,
+                operatorContext,
+                maxPartialMemory,
+                memoryLimitBeforeSpill,
+                new HashAggregationSpiller(
+                    spillFolderPath,
+                    spillFolderPath + operatorContext.getOperatorId(),
+                    SPILL_PARTITION_COUNT));
       } else {
         aggregationBuilder =
             new InMemoryHashAggregationBuilder(
@@ -172,6 +193,9 @@ public class HashAggregationOperator extends AbstractOperator {
     if (aggregationBuilder.finished()) {
       closeAggregationBuilder();
       finished = true;
+    } else if (spillEnabled) {
+      // spilled partitions are loaded into memory while building result
+      updateOccupiedMemorySize();
     }
     return result;
   }
@@ -194,6 +218,7 @@ public class HashAggregationOperator extends AbstractOperator {
 
   @Override
   public void close() throws Exception {
+    closeAggregationBuilder();
     child.close();
     aggregators.forEach(GroupedAggregator::close);
   }
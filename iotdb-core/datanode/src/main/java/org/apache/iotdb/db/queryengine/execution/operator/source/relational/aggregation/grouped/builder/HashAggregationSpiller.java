@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.builder;
+
+import org.apache.iotdb.commons.exception.IoTDBRuntimeException;
+import org.apache.iotdb.rpc.TSStatusCode;
+
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.column.TsBlockSerde;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes intermediate aggregation states into hash partitioned temporary files. Each partition is
+ * one file, which consists of length-prefixed serialized TsBlocks, the same layout as the one used
+ * by {@link org.apache.iotdb.db.utils.sort.DiskSpiller}. A partition file may be appended by
+ * several spills and is read back as a whole when merging.
+ */
+public class HashAggregationSpiller implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HashAggregationSpiller.class);
+
+  private static final String FILE_SUFFIX = ".aggTemp";
+
+  private final String folderPath;
+  private final String filePrefix;
+  private final int partitionCount;
+  private final TsBlockSerde serde = new TsBlockSerde();
+
+  private final FileChannel[] writers;
+  private final long[] spilledBytes;
+  private boolean folderCreated = false;
+
+  public HashAggregationSpiller(String folderPath, String filePrefix, int partitionCount) {
+    this.folderPath = folderPath;
+    this.filePrefix = filePrefix + "-";
+    this.partitionCount = partitionCount;
+    this.writers = new FileChannel[partitionCount];
+    this.spilledBytes = new long[partitionCount];
+  }
+
+  public int getPartitionCount() {
+    return partitionCount;
+  }
+
+  /** Append one TsBlock to the file of the specified partition. */
+  public void spill(int partition, TsBlock tsBlock) {
+    try {
+      FileChannel writer = getOrCreateWriter(partition);
+      ByteBuffer tsBlockBuffer = serde.serialize(tsBlock);
+      int size = tsBlockBuffer.remaining();
+      ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+      length.putInt(size);
+      length.flip();
+      writeFully(writer, length);
+      writeFully(writer, tsBlockBuffer);
+      spilledBytes[partition] += Integer.BYTES + size;
+    } catch (IOException e) {
+      throw new IoTDBRuntimeException(
+          "Can't write intermediate aggregation states to file: " + getFileName(partition),
+          e,
+          TSStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+    }
+  }
+
+  /** Close all the opened writers, must be called before reading any partition. */
+  public void finishSpill() {
+    for (int i = 0; i < partitionCount; i++) {
+      closeWriter(i);
+    }
+  }
+
+  public boolean hasSpilledData(int partition) {
+    return spilledBytes[partition] != 0;
+  }
+
+  public long getSpilledBytes() {
+    long total = 0;
+    for (long bytes : spilledBytes) {
+      total += bytes;
+    }
+    return total;
+  }
+
+  public SpilledPartitionReader getReader(int partition) {
+    try {
+      return new SpilledPartitionReader(getFileName(partition));
+    } catch (IOException e) {
+      throw new IoTDBRuntimeException(
+          "Can't open spilled aggregation file, check if the file exists: "
+              + getFileName(partition),
+          e,
+          TSStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+    }
+  }
+
+  /** Delete the file of the specified partition once it has been merged. */
+  public void deletePartition(int partition) {
+    closeWriter(partition);
+    if (spilledBytes[partition] != 0) {
+      try {
+        Files.deleteIfExists(Paths.get(getFileName(partition)));
+      } catch (IOException e) {
+        LOGGER.warn("Failed to delete spilled aggregation file {}", getFileName(partition), e);
+      }
+      spilledBytes[partition] = 0;
+    }
+  }
+
+  @Override
+  public void close() {
+    for (int i = 0; i < partitionCount; i++) {
+      deletePartition(i);
+    }
+  }
+
+  private FileChannel getOrCreateWriter(int partition) throws IOException {
+    if (writers[partition] == null) {
+      if (!folderCreated) {
+        Files.createDirectories(Paths.get(folderPath));
+        folderCreated = true;
+      }
+      writers[partition] =
+          FileChannel.open(
+              Paths.get(getFileName(partition)),
+              StandardOpenOption.WRITE,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.APPEND);
+    }
+    return writers[partition];
+  }
+
+  private void closeWriter(int partition) {
+    if (writers[partition] != null) {
+      try {
+        writers[partition].close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to close spilled aggregation file {}", getFileName(partition), e);
+      }
+      writers[partition] = null;
+    }
+  }
+
+  private String getFileName(int partition) {
+    return filePrefix + String.format("%05d", partition) + FILE_SUFFIX;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /** Sequentially reads back the TsBlocks of one partition file. */
+  public class SpilledPartitionReader implements AutoCloseable {
+
+    private final String fileName;
+    private final FileChannel fileChannel;
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+
+    private SpilledPartitionReader(String fileName) throws IOException {
+      this.fileName = fileName;
+      this.fileChannel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+    }
+
+    /**
+     * @return next TsBlock in this partition, or null if the end of the file has been reached
+     */
+    public TsBlock next() {
+      try {
+        lengthBuffer.clear();
+        if (!readFully(lengthBuffer, true)) {
+          return null;
+        }
+        lengthBuffer.flip();
+        ByteBuffer tsBlockBytes = ByteBuffer.allocate(lengthBuffer.getInt());
+        readFully(tsBlockBytes, false);
+        tsBlockBytes.flip();
+        return serde.deserialize(tsBlockBytes);
+      } catch (IOException e) {
+        throw new IoTDBRuntimeException(
+            "Can't read a new tsBlock from spilled aggregation file: " + fileName,
+            e,
+            TSStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+      }
+    }
+
+    private boolean readFully(ByteBuffer buffer, boolean allowEndOfFile) throws IOException {
+      while (buffer.hasRemaining()) {
+        if (fileChannel.read(buffer) == -1) {
+          if (allowEndOfFile && buffer.position() == 0) {
+            return false;
+          }
+          throw new EOFException("Unexpected end of file: " + fileName);
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void close() {
+      try {
+        fileChannel.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to close spilled aggregation file {}", fileName, e);
+      }
+    }
+  }
+}
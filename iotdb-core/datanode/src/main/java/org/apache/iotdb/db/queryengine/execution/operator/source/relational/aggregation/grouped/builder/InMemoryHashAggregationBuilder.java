@@ -37,7 +37,6 @@ import org.apache.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.tsfile.read.common.block.column.RunLengthEncodedColumn;
 import org.apache.tsfile.read.common.type.Type;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -221,12 +220,30 @@ public class InMemoryHashAggregationBuilder implements HashAggregationBuilder {
     return !groupIds.hasNext();
   }
 
-  public List<Type> buildSpillTypes() {
-    ArrayList<Type> types = new ArrayList<>(groupByOutputTypes);
-    for (GroupedAggregator groupedAggregator : groupedAggregators) {
-      // types.add(groupedAggregator.getSpillType());
+  /** Types of the spilled rows, i.e. group keys followed by intermediate states. */
+  public List<TSDataType> buildSpillTypes() {
+    return Stream.concat(
+            groupByOutputTypes.stream().map(InternalTypeManager::getTSDataType),
+            groupedAggregators.stream().map(GroupedAggregator::getIntermediateType))
+        .collect(Collectors.toList());
+  }
+
+  public long getRawHash(int groupId) {
+    return groupByHash.getRawHash(groupId);
+  }
+
+  /**
+   * Append group keys and intermediate states of specified group into the builder, whose types
+   * should be the same as {@link #buildSpillTypes()}.
+   */
+  public void appendIntermediateTo(int groupId, TsBlockBuilder spillBuilder) {
+    groupByHash.appendValuesTo(groupId, spillBuilder);
+    spillBuilder.declarePosition();
+    for (int i = 0; i < groupedAggregators.size(); i++) {
+      groupedAggregators
+          .get(i)
+          .evaluateIntermediate(groupId, spillBuilder.getColumnBuilder(groupByChannels.length + i));
     }
-    return types;
   }
 
   public int getCapacity() {
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.builder;
+
+import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.GroupedAggregator;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationNode;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.tsfile.read.common.block.column.RunLengthEncodedColumn;
+import org.apache.tsfile.read.common.type.Type;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkState;
+import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.TableScanOperator.TIME_COLUMN_TEMPLATE;
+import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.UpdateMemory.NOOP;
+
+/**
+ * HashAggregationBuilder which spills its states to disk when the memory used by the in-memory
+ * states exceeds the limit.
+ *
+ * <p>Groups are spilled as intermediate states into several files partitioned by the hash of group
+ * keys, so every group is located in exactly one partition. After all input is consumed, the
+ * remaining in-memory states are spilled too, and then the partitions are merged back one by one,
+ * which means only about 1/partitionCount of the groups need to be held in memory at the same time.
+ */
+public class SpillableHashAggregationBuilder implements HashAggregationBuilder {
+
+  private static final String SPILLED_BYTES = "SpilledBytes";
+  private static final String SPILL_COUNT = "SpillCount";
+
+  private final List<GroupedAggregator> groupedAggregators;
+  private final AggregationNode.Step step;
+  private final int expectedGroups;
+  private final List<Type> groupByTypes;
+  private final List<Integer> groupByChannels;
+  private final OperatorContext operatorContext;
+  private final long maxPartialMemory;
+  private final long memoryLimitBeforeSpill;
+
+  private final HashAggregationSpiller spiller;
+
+  private InMemoryHashAggregationBuilder inMemoryBuilder;
+  private int spillCount = 0;
+
+  // builder used to merge the spilled partitions
+  private InMemoryHashAggregationBuilder mergingBuilder;
+  private int mergingPartition = -1;
+
+  public SpillableHashAggregationBuilder(
+      List<GroupedAggregator> groupedAggregators,
+      AggregationNode.Step step,
+      int expectedGroups,
+      List<Type> groupByTypes,
+      List<Integer> groupByChannels,
+      OperatorContext operatorContext,
+      long maxPartialMemory,
+      long memoryLimitBeforeSpill,
+      HashAggregationSpiller spiller) {
+    this.groupedAggregators = groupedAggregators;
+    this.step = step;
+    this.expectedGroups = expectedGroups;
+    this.groupByTypes = ImmutableList.copyOf(groupByTypes);
+    this.groupByChannels = ImmutableList.copyOf(groupByChannels);
+    this.operatorContext = operatorContext;
+    this.maxPartialMemory = maxPartialMemory;
+    this.memoryLimitBeforeSpill = memoryLimitBeforeSpill;
+    this.spiller = spiller;
+    this.inMemoryBuilder = createInMemoryBuilder();
+  }
+
+  @Override
+  public void processBlock(TsBlock block) {
+    checkState(inMemoryBuilder != null, "SpillableHashAggregationBuilder is already merging");
+    inMemoryBuilder.processBlock(block);
+    if (inMemoryBuilder.getEstimatedSize() > memoryLimitBeforeSpill) {
+      spillToDisk();
+    }
+  }
+
+  @Override
+  public TsBlock buildResult() {
+    if (!hasSpilled()) {
+      return inMemoryBuilder.buildResult();
+    }
+
+    if (inMemoryBuilder != null) {
+      // all input has been consumed, spill the remaining states so that each group only exists in
+      // one partition
+      spillToDisk();
+      inMemoryBuilder.close();
+      inMemoryBuilder = null;
+      spiller.finishSpill();
+    }
+
+    if (mergingBuilder == null) {
+      checkState(startMergingNextPartition(), "No spilled partition left to be merged");
+    }
+
+    TsBlock result = mergingBuilder.buildResult();
+    if (mergingBuilder.finished()) {
+      spiller.deletePartition(mergingPartition);
+      mergingBuilder.close();
+      mergingBuilder = null;
+    }
+    return result;
+  }
+
+  @Override
+  public boolean finished() {
+    if (!hasSpilled()) {
+      return inMemoryBuilder.finished();
+    }
+    return inMemoryBuilder == null
+        && mergingBuilder == null
+        && nextSpilledPartition(mergingPartition + 1) == -1;
+  }
+
+  @Override
+  public long getEstimatedSize() {
+    if (inMemoryBuilder != null) {
+      return inMemoryBuilder.getEstimatedSize();
+    }
+    return mergingBuilder == null ? 0 : mergingBuilder.getEstimatedSize();
+  }
+
+  @Override
+  public boolean isFull() {
+    return inMemoryBuilder != null && inMemoryBuilder.isFull();
+  }
+
+  @Override
+  public void updateMemory() {
+    // memory is accounted by the operator according to getEstimatedSize()
+  }
+
+  /** Drop all the states, including the spilled ones, so that the builder can be reused. */
+  @Override
+  public void reset() {
+    if (mergingBuilder != null) {
+      mergingBuilder.close();
+      mergingBuilder = null;
+    }
+    mergingPartition = -1;
+    for (int partition = 0; partition < spiller.getPartitionCount(); partition++) {
+      spiller.deletePartition(partition);
+    }
+    spillCount = 0;
+
+    if (inMemoryBuilder != null) {
+      inMemoryBuilder.reset();
+    } else {
+      // accumulators are shared with the merging builder, clear the states of last partition
+      groupedAggregators.forEach(GroupedAggregator::reset);
+      inMemoryBuilder = createInMemoryBuilder();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (inMemoryBuilder != null) {
+      inMemoryBuilder.close();
+      inMemoryBuilder = null;
+    }
+    if (mergingBuilder != null) {
+      mergingBuilder.close();
+      mergingBuilder = null;
+    }
+    spiller.close();
+  }
+
+  public boolean hasSpilled() {
+    return spillCount > 0;
+  }
+
+  private InMemoryHashAggregationBuilder createInMemoryBuilder() {
+    return new InMemoryHashAggregationBuilder(
+        groupedAggregators,
+        step,
+        expectedGroups,
+        groupByTypes,
+        groupByChannels,
+        Optional.empty(),
+        operatorContext,
+        maxPartialMemory,
+        NOOP);
+  }
+
+  /** Spill all the states of inMemoryBuilder and reset it. */
+  private void spillToDisk() {
+    int groupCount = (int) inMemoryBuilder.getGroupCount();
+    if (groupCount == 0) {
+      return;
+    }
+
+    // bucket group ids by partition, counting sort keeps the memory overhead at 2 int per group
+    int partitionCount = spiller.getPartitionCount();
+    int[] partitionOffsets = new int[partitionCount + 1];
+    int[] partitionOfGroup = new int[groupCount];
+    for (int groupId = 0; groupId < groupCount; groupId++) {
+      int partition = getPartition(inMemoryBuilder.getRawHash(groupId), partitionCount);
+      partitionOfGroup[groupId] = partition;
+      partitionOffsets[partition + 1]++;
+    }
+    for (int i = 0; i < partitionCount; i++) {
+      partitionOffsets[i + 1] += partitionOffsets[i];
+    }
+    int[] groupIds = new int[groupCount];
+    int[] nextPositions = new int[partitionCount];
+    System.arraycopy(partitionOffsets, 0, nextPositions, 0, partitionCount);
+    for (int groupId = 0; groupId < groupCount; groupId++) {
+      groupIds[nextPositions[partitionOfGroup[groupId]]++] = groupId;
+    }
+
+    TsBlockBuilder spillBuilder = new TsBlockBuilder(inMemoryBuilder.buildSpillTypes());
+    for (int partition = 0; partition < partitionCount; partition++) {
+      for (int i = partitionOffsets[partition]; i < partitionOffsets[partition + 1]; i++) {
+        inMemoryBuilder.appendIntermediateTo(groupIds[i], spillBuilder);
+        if (spillBuilder.isFull()) {
+          spiller.spill(partition, buildSpillBlock(spillBuilder));
+          spillBuilder.reset();
+        }
+      }
+      if (!spillBuilder.isEmpty()) {
+        spiller.spill(partition, buildSpillBlock(spillBuilder));
+        spillBuilder.reset();
+      }
+    }
+
+    inMemoryBuilder.reset();
+    spillCount++;
+    operatorContext.recordSpecifiedInfo(SPILL_COUNT, Integer.toString(spillCount));
+    operatorContext.recordSpecifiedInfo(SPILLED_BYTES, Long.toString(spiller.getSpilledBytes()));
+  }
+
+  private boolean startMergingNextPartition() {
+    int partition = nextSpilledPartition(mergingPartition + 1);
+    if (partition == -1) {
+      return false;
+    }
+    mergingPartition = partition;
+
+    // spilled rows are laid out as group keys followed by intermediate states
+    int groupKeyCount = groupByChannels.size();
+    ImmutableList.Builder<Integer> keyChannels = ImmutableList.builder();
+    for (int i = 0; i < groupKeyCount; i++) {
+      keyChannels.add(i);
+    }
+    ImmutableList.Builder<GroupedAggregator> mergingAggregators = ImmutableList.builder();
+    for (int i = 0; i < groupedAggregators.size(); i++) {
+      GroupedAggregator groupedAggregator = groupedAggregators.get(i);
+      // accumulators are shared with the previous builder, clear the states of last partition
+      groupedAggregator.reset();
+      mergingAggregators.add(groupedAggregator.toIntermediateInputAggregator(groupKeyCount + i));
+    }
+
+    mergingBuilder =
+        new InMemoryHashAggregationBuilder(
+            mergingAggregators.build(),
+            step,
+            expectedGroups,
+            groupByTypes,
+            keyChannels.build(),
+            Optional.empty(),
+            operatorContext,
+            maxPartialMemory,
+            NOOP);
+
+    try (HashAggregationSpiller.SpilledPartitionReader reader = spiller.getReader(partition)) {
+      TsBlock block;
+      while ((block = reader.next()) != null) {
+        mergingBuilder.processBlock(block);
+      }
+    }
+    return true;
+  }
+
+  private int nextSpilledPartition(int from) {
+    for (int i = from; i < spiller.getPartitionCount(); i++) {
+      if (spiller.hasSpilledData(i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static TsBlock buildSpillBlock(TsBlockBuilder spillBuilder) {
+    return spillBuilder.build(
+        new RunLengthEncodedColumn(TIME_COLUMN_TEMPLATE, spillBuilder.getPositionCount()));
+  }
+
+  /** Use the high bits of hash, the low bits are used to locate the bucket in FlatHash. */
+  private static int getPartition(long rawHash, int partitionCount) {
+    return Math.floorMod((int) (rawHash >>> 32), partitionCount);
+  }
+}
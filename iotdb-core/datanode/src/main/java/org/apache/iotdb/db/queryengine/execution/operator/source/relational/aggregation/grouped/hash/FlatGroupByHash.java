@@ -131,6 +131,29 @@ public class FlatGroupByHash implements GroupByHash {
     return getNonDictionaryPageWork(columns);
   }
 
+  @Override
+  public int[] getExistingGroupIds(Column[] page) {
+    if (page[0].getPositionCount() == 0) {
+      return new int[0];
+    }
+
+    Column[] columns = getColumnsFromPage(page);
+    int positionCount = columns[0].getPositionCount();
+    int[] groupIds = new int[positionCount];
+
+    long[] hashes = getHashesBufferArray();
+    int lastPosition = 0;
+    while (lastPosition < positionCount) {
+      int batchSize = min(positionCount - lastPosition, hashes.length);
+      flatHash.computeHashes(columns, hashes, lastPosition, batchSize);
+      for (int i = 0; i < batchSize; i++) {
+        groupIds[lastPosition + i] = flatHash.getGroupId(columns, lastPosition + i, hashes[i]);
+      }
+      lastPosition += batchSize;
+    }
+    return groupIds;
+  }
+
   @Override
   public int getCapacity() {
     return flatHash.getCapacity();
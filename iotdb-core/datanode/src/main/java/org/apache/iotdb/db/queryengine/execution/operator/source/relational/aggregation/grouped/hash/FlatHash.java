@@ -212,6 +212,17 @@ public final class FlatHash {
     return getIndex(columns, position, hash) >= 0;
   }
 
+  /**
+   * @return groupId of the row if it has been put into this hash, otherwise -1
+   */
+  public int getGroupId(Column[] columns, int position, long hash) {
+    int index = getIndex(columns, position, hash);
+    if (index < 0) {
+      return -1;
+    }
+    return bytesToInt(getRecords(index), getRecordOffset(index) + recordGroupIdOffset);
+  }
+
   public void computeHashes(Column[] columns, long[] hashes, int offset, int length) {
     if (hasPrecomputedHash) {
       Column hashColumn = columns[columns.length - 1];
@@ -54,6 +54,12 @@ public interface GroupByHash {
    */
   int[] getGroupIds(Column[] groupedColumns);
 
+  /**
+   * Look up the group ids of rows without adding new groups, the group id of a row which doesn't
+   * exist in this hash is -1.
+   */
+  int[] getExistingGroupIds(Column[] groupedColumns);
+
   long getRawHash(int groupId);
 
   @VisibleForTesting
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.relational;
+
+import org.apache.tsfile.read.common.block.TsBlock;
+
+/**
+ * A filter compiled by {@link FilterCompiler}. It is immutable and shared by all the operators
+ * whose predicates have the same signature.
+ */
+public class CompiledFilter {
+
+  private final FilterCompiler.Kernel kernel;
+  private final String signature;
+
+  CompiledFilter(FilterCompiler.Kernel kernel, String signature) {
+    this.kernel = kernel;
+    this.signature = signature;
+  }
+
+  /**
+   * Select the rows of the input which satisfy the filter.
+   *
+   * @param positions buffer to put the selected row indexes in ascending order, whose length should
+   *     be no less than the position count of the input
+   * @return the number of selected rows
+   */
+  public int filter(TsBlock input, int[] positions) {
+    int positionCount = input.getPositionCount();
+    for (int i = 0; i < positionCount; i++) {
+      positions[i] = i;
+    }
+    return positionCount == 0 ? 0 : kernel.filter(input, positions, positionCount);
+  }
+
+  public String getSignature() {
+    return signature;
+  }
+
+  @Override
+  public String toString() {
+    return signature;
+  }
+}
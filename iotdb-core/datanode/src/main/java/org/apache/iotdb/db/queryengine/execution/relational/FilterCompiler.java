@@ -0,0 +1,612 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.relational;
+
+import org.apache.iotdb.db.queryengine.plan.analyze.TypeProvider;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.InputLocation;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.BetweenPredicate;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ComparisonExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.DoubleLiteral;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.GenericLiteral;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.IsNotNullPredicate;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.IsNullPredicate;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.LogicalExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.LongLiteral;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.NotExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.SymbolReference;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.type.Type;
+import org.apache.tsfile.read.common.type.TypeEnum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles the predicate of a table model FilterAndProjectOperator into a tree of kernels. Every
+ * kernel is specialized for the type of the column it reads, and narrows a list of selected row
+ * indexes in one loop over the column, so that no intermediate boolean column is materialized and
+ * the rows rejected by former conjuncts are never evaluated again.
+ *
+ * <p>Only predicates made up of comparisons and BETWEEN between numeric columns and literals, IS
+ * [NOT] NULL, boolean columns, AND, OR and NOT are compiled. NOT is pushed down to the leaves,
+ * which evaluate it with the same null and NaN semantics as the ColumnTransformers. Compiled
+ * filters are immutable and cached by their signatures.
+ */
+public class FilterCompiler {
+
+  private static final int MAX_CACHED_FILTER_NUM = 1024;
+
+  private static final Cache<String, CompiledFilter> COMPILED_FILTER_CACHE =
+      Caffeine.newBuilder().maximumSize(MAX_CACHED_FILTER_NUM).build();
+
+  private FilterCompiler() {
+    // util class
+  }
+
+  /** @return null if the predicate contains any expression which can't be compiled */
+  public static CompiledFilter compile(
+      Expression predicate,
+      Map<Symbol, List<InputLocation>> inputLocations,
+      TypeProvider typeProvider) {
+    Kernel kernel = new Compiler(inputLocations, typeProvider).compile(predicate, false);
+    if (kernel == null) {
+      return null;
+    }
+    String signature = kernel.toString();
+    return COMPILED_FILTER_CACHE.get(signature, s -> new CompiledFilter(kernel, s));
+  }
+
+  private static class Compiler {
+
+    private final Map<Symbol, List<InputLocation>> inputLocations;
+    private final TypeProvider typeProvider;
+
+    private Compiler(Map<Symbol, List<InputLocation>> inputLocations, TypeProvider typeProvider) {
+      this.inputLocations = inputLocations;
+      this.typeProvider = typeProvider;
+    }
+
+    private Kernel compile(Expression expression, boolean negated) {
+      if (expression instanceof LogicalExpression) {
+        return compileLogical((LogicalExpression) expression, negated);
+      } else if (expression instanceof NotExpression) {
+        return compile(((NotExpression) expression).getValue(), !negated);
+      } else if (expression instanceof ComparisonExpression) {
+        return compileComparison((ComparisonExpression) expression, negated);
+      } else if (expression instanceof BetweenPredicate) {
+        return compileBetween((BetweenPredicate) expression, negated);
+      } else if (expression instanceof IsNullPredicate) {
+        return compileIsNull(((IsNullPredicate) expression).getValue(), negated);
+      } else if (expression instanceof IsNotNullPredicate) {
+        return compileIsNull(((IsNotNullPredicate) expression).getValue(), !negated);
+      } else if (expression instanceof SymbolReference) {
+        return compileBooleanColumn((SymbolReference) expression, negated);
+      }
+      return null;
+    }
+
+    private Kernel compileLogical(LogicalExpression expression, boolean negated) {
+      List<Kernel> children = new ArrayList<>(expression.getTerms().size());
+      for (Expression term : expression.getTerms()) {
+        Kernel child = compile(term, negated);
+        if (child == null) {
+          return null;
+        }
+        children.add(child);
+      }
+      // NOT (a AND b) = NOT a OR NOT b holds in three-valued logic as well
+      boolean isAnd = (expression.getOperator() == LogicalExpression.Operator.AND) != negated;
+      Kernel[] kernels = children.toArray(new Kernel[0]);
+      return isAnd ? new AndKernel(kernels) : new OrKernel(kernels);
+    }
+
+    private Kernel compileComparison(ComparisonExpression expression, boolean negated) {
+      ComparisonExpression.Operator operator = expression.getOperator();
+      Expression columnSide = expression.getLeft();
+      Expression literalSide = expression.getRight();
+      if (!(columnSide instanceof SymbolReference)) {
+        columnSide = expression.getRight();
+        literalSide = expression.getLeft();
+        operator = operator.flip();
+      }
+      Integer channel = getChannel(columnSide);
+      Double literal = getNumericLiteral(literalSide);
+      if (channel == null || literal == null) {
+        return null;
+      }
+      double min = Double.NEGATIVE_INFINITY;
+      double max = Double.POSITIVE_INFINITY;
+      boolean minInclusive = true;
+      boolean maxInclusive = true;
+      boolean complement = false;
+      switch (operator) {
+        case EQUAL:
+          min = literal;
+          max = literal;
+          break;
+        case NOT_EQUAL:
+          min = literal;
+          max = literal;
+          complement = true;
+          break;
+        case GREATER_THAN:
+          min = literal;
+          minInclusive = false;
+          break;
+        case GREATER_THAN_OR_EQUAL:
+          min = literal;
+          break;
+        case LESS_THAN:
+          max = literal;
+          maxInclusive = false;
+          break;
+        case LESS_THAN_OR_EQUAL:
+          max = literal;
+          break;
+        default:
+          return null;
+      }
+      return createRangeKernel(
+          getTypeEnum((SymbolReference) columnSide),
+          channel,
+          new Range(min, minInclusive, max, maxInclusive, complement),
+          negated);
+    }
+
+    private Kernel compileBetween(BetweenPredicate predicate, boolean negated) {
+      Integer channel = getChannel(predicate.getValue());
+      Double min = getNumericLiteral(predicate.getMin());
+      Double max = getNumericLiteral(predicate.getMax());
+      if (channel == null || min == null || max == null) {
+        return null;
+      }
+      return createRangeKernel(
+          getTypeEnum((SymbolReference) predicate.getValue()),
+          channel,
+          new Range(min, true, max, true, false),
+          negated);
+    }
+
+    private Kernel compileIsNull(Expression value, boolean negated) {
+      Integer channel = getChannel(value);
+      return channel == null ? null : new IsNullKernel(channel, negated);
+    }
+
+    private Kernel compileBooleanColumn(SymbolReference symbolReference, boolean negated) {
+      Integer channel = getChannel(symbolReference);
+      if (channel == null || getTypeEnum(symbolReference) != TypeEnum.BOOLEAN) {
+        return null;
+      }
+      return new BooleanKernel(channel, negated);
+    }
+
+    /** @return -1 for the time column, null if the expression is not an input column */
+    private Integer getChannel(Expression expression) {
+      if (!(expression instanceof SymbolReference)) {
+        return null;
+      }
+      List<InputLocation> locations =
+          inputLocations.get(Symbol.from((SymbolReference) expression));
+      if (locations == null || locations.isEmpty()) {
+        return null;
+      }
+      return locations.get(0).getValueColumnIndex();
+    }
+
+    private TypeEnum getTypeEnum(SymbolReference symbolReference) {
+      Type type = typeProvider.getTableModelType(Symbol.from(symbolReference));
+      return type == null ? null : type.getTypeEnum();
+    }
+
+    /** @return null if the expression is not a numeric literal supported by the kernels */
+    private static Double getNumericLiteral(Expression expression) {
+      double value;
+      if (expression instanceof LongLiteral) {
+        value = ((LongLiteral) expression).getParsedValue();
+      } else if (expression instanceof DoubleLiteral) {
+        value = ((DoubleLiteral) expression).getValue();
+      } else if (expression instanceof GenericLiteral) {
+        String type = ((GenericLiteral) expression).getType();
+        if (!TypeEnum.DATE.name().equals(type)
+            && !TypeEnum.TIMESTAMP.name().equals(type)
+            && !TypeEnum.INT64.name().equals(type)) {
+          return null;
+        }
+        try {
+          value = Long.parseLong(((GenericLiteral) expression).getValue());
+        } catch (NumberFormatException e) {
+          return null;
+        }
+      } else {
+        return null;
+      }
+      // -0.0 is less than 0.0 by Double.compare used by ColumnTransformers, but the integer
+      // kernels compare primitive doubles
+      if (Double.isNaN(value) || (value == 0 && Double.doubleToRawLongBits(value) != 0)) {
+        return null;
+      }
+      return value;
+    }
+
+    private static Kernel createRangeKernel(
+        TypeEnum typeEnum, int channel, Range range, boolean negated) {
+      if (typeEnum == null) {
+        return null;
+      }
+      switch (typeEnum) {
+        case INT32:
+        case DATE:
+          return new IntRangeKernel(channel, typeEnum, range, negated);
+        case INT64:
+        case TIMESTAMP:
+          return new LongRangeKernel(channel, typeEnum, range, negated);
+        case FLOAT:
+          return new FloatRangeKernel(channel, typeEnum, range, negated);
+        case DOUBLE:
+          return new DoubleRangeKernel(channel, typeEnum, range, negated);
+        default:
+          return null;
+      }
+    }
+  }
+
+  /** Narrows the selected rows of a TsBlock. Kernels are immutable and thread safe. */
+  abstract static class Kernel {
+
+    /**
+     * Keep the positions in positions[0, size) whose rows satisfy this kernel, in the same order.
+     *
+     * @return the number of kept positions
+     */
+    abstract int filter(TsBlock input, int[] positions, int size);
+
+    static Column getColumn(TsBlock input, int channel) {
+      return channel == -1 ? input.getTimeColumn() : input.getColumn(channel);
+    }
+  }
+
+  private static class AndKernel extends Kernel {
+
+    private final Kernel[] children;
+
+    private AndKernel(Kernel[] children) {
+      this.children = children;
+    }
+
+    @Override
+    int filter(TsBlock input, int[] positions, int size) {
+      for (Kernel child : children) {
+        size = child.filter(input, positions, size);
+        if (size == 0) {
+          break;
+        }
+      }
+      return size;
+    }
+
+    @Override
+    public String toString() {
+      return Arrays.stream(children)
+          .map(Kernel::toString)
+          .collect(Collectors.joining(", ", "AND(", ")"));
+    }
+  }
+
+  private static class OrKernel extends Kernel {
+
+    private final Kernel[] children;
+
+    private OrKernel(Kernel[] children) {
+      this.children = children;
+    }
+
+    @Override
+    int filter(TsBlock input, int[] positions, int size) {
+      // positions are ascending, so the last one is the max
+      boolean[] selected = new boolean[positions[size - 1] + 1];
+      int[] remaining = Arrays.copyOf(positions, size);
+      int remainingSize = size;
+      int[] matched = new int[size];
+      for (Kernel child : children) {
+        // each child only evaluates the rows not selected by former children
+        System.arraycopy(remaining, 0, matched, 0, remainingSize);
+        int matchedSize = child.filter(input, matched, remainingSize);
+        if (matchedSize == 0) {
+          continue;
+        }
+        for (int i = 0; i < matchedSize; i++) {
+          selected[matched[i]] = true;
+        }
+        int kept = 0;
+        for (int i = 0; i < remainingSize; i++) {
+          if (!selected[remaining[i]]) {
+            remaining[kept++] = remaining[i];
+          }
+        }
+        remainingSize = kept;
+        if (remainingSize == 0) {
+          break;
+        }
+      }
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        if (selected[positions[i]]) {
+          positions[kept++] = positions[i];
+        }
+      }
+      return kept;
+    }
+
+    @Override
+    public String toString() {
+      return Arrays.stream(children)
+          .map(Kernel::toString)
+          .collect(Collectors.joining(", ", "OR(", ")"));
+    }
+  }
+
+  private static class IsNullKernel extends Kernel {
+
+    private final int channel;
+    private final boolean negated;
+
+    private IsNullKernel(int channel, boolean negated) {
+      this.channel = channel;
+      this.negated = negated;
+    }
+
+    @Override
+    int filter(TsBlock input, int[] positions, int size) {
+      Column column = getColumn(input, channel);
+      if (!column.mayHaveNull()) {
+        return negated ? size : 0;
+      }
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        int position = positions[i];
+        if (column.isNull(position) != negated) {
+          positions[kept++] = position;
+        }
+      }
+      return kept;
+    }
+
+    @Override
+    public String toString() {
+      return "#" + channel + (negated ? " IS NOT NULL" : " IS NULL");
+    }
+  }
+
+  private static class BooleanKernel extends Kernel {
+
+    private final int channel;
+    private final boolean negated;
+
+    private BooleanKernel(int channel, boolean negated) {
+      this.channel = channel;
+      this.negated = negated;
+    }
+
+    @Override
+    int filter(TsBlock input, int[] positions, int size) {
+      Column column = getColumn(input, channel);
+      boolean mayHaveNull = column.mayHaveNull();
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        int position = positions[i];
+        if ((!mayHaveNull || !column.isNull(position))
+            && column.getBoolean(position) != negated) {
+          positions[kept++] = position;
+        }
+      }
+      return kept;
+    }
+
+    @Override
+    public String toString() {
+      return (negated ? "NOT #" : "#") + channel;
+    }
+  }
+
+  /**
+   * A value v is in the range if min < v < max, or equal to an inclusive bound. Complement means
+   * the range is reversed, NaN never matches either way.
+   */
+  private static class Range {
+
+    private final double min;
+    private final boolean minInclusive;
+    private final double max;
+    private final boolean maxInclusive;
+    private final boolean complement;
+
+    private Range(
+        double min, boolean minInclusive, double max, boolean maxInclusive, boolean complement) {
+      this.min = min;
+      this.minInclusive = minInclusive;
+      this.max = max;
+      this.maxInclusive = maxInclusive;
+      this.complement = complement;
+    }
+
+    @Override
+    public String toString() {
+      return (complement ? "NOT IN " : "IN ")
+          + (minInclusive ? "[" : "(")
+          + min
+          + ", "
+          + max
+          + (maxInclusive ? "]" : ")");
+    }
+  }
+
+  /**
+   * Comparisons with literals, evaluated on the double value of the column as
+   * CompareBinaryColumnTransformer does. A NOT above the comparison is applied after it, so that
+   * NaN, which fails every comparison, satisfies the negated one as before.
+   */
+  private abstract static class RangeKernel extends Kernel {
+
+    protected final int channel;
+    private final TypeEnum typeEnum;
+    private final Range range;
+    protected final double min;
+    protected final boolean minInclusive;
+    protected final double max;
+    protected final boolean maxInclusive;
+    protected final boolean complement;
+    protected final boolean negated;
+
+    private RangeKernel(int channel, TypeEnum typeEnum, Range range, boolean negated) {
+      this.channel = channel;
+      this.typeEnum = typeEnum;
+      this.range = range;
+      this.min = range.min;
+      this.minInclusive = range.minInclusive;
+      this.max = range.max;
+      this.maxInclusive = range.maxInclusive;
+      this.complement = range.complement;
+      this.negated = negated;
+    }
+
+    /** For integer values, which are never NaN or -0.0. */
+    protected final boolean inRange(double value) {
+      return (value > min || (minInclusive && value == min))
+          && (value < max || (maxInclusive && value == max));
+    }
+
+    /** For floating point values, ordered by Double.compare, and NaN never matches. */
+    protected final boolean matchesFloating(double value) {
+      if (Double.isNaN(value)) {
+        return false;
+      }
+      int lower = Double.compare(value, min);
+      int upper = Double.compare(value, max);
+      boolean inRange =
+          (lower > 0 || (minInclusive && lower == 0))
+              && (upper < 0 || (maxInclusive && upper == 0));
+      return inRange != complement;
+    }
+
+    @Override
+    public String toString() {
+      return (negated ? "NOT " : "") + typeEnum + "#" + channel + " " + range;
+    }
+  }
+
+  private static final class IntRangeKernel extends RangeKernel {
+
+    private IntRangeKernel(int channel, TypeEnum typeEnum, Range range, boolean negated) {
+      super(channel, typeEnum, range, negated);
+    }
+
+    @Override
+    int filter(TsBlock input, int[] positions, int size) {
+      Column column = getColumn(input, channel);
+      boolean mayHaveNull = column.mayHaveNull();
+      boolean inverted = complement != negated;
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        int position = positions[i];
+        if ((!mayHaveNull || !column.isNull(position))
+            && inRange(column.getInt(position)) != inverted) {
+          positions[kept++] = position;
+        }
+      }
+      return kept;
+    }
+  }
+
+  private static final class LongRangeKernel extends RangeKernel {
+
+    private LongRangeKernel(int channel, TypeEnum typeEnum, Range range, boolean negated) {
+      super(channel, typeEnum, range, negated);
+    }
+
+    @Override
+    int filter(TsBlock input, int[] positions, int size) {
+      Column column = getColumn(input, channel);
+      boolean mayHaveNull = column.mayHaveNull();
+      boolean inverted = complement != negated;
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        int position = positions[i];
+        if ((!mayHaveNull || !column.isNull(position))
+            && inRange(column.getLong(position)) != inverted) {
+          positions[kept++] = position;
+        }
+      }
+      return kept;
+    }
+  }
+
+  private static final class FloatRangeKernel extends RangeKernel {
+
+    private FloatRangeKernel(int channel, TypeEnum typeEnum, Range range, boolean negated) {
+      super(channel, typeEnum, range, negated);
+    }
+
+    @Override
+    int filter(TsBlock input, int[] positions, int size) {
+      Column column = getColumn(input, channel);
+      boolean mayHaveNull = column.mayHaveNull();
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        int position = positions[i];
+        if ((!mayHaveNull || !column.isNull(position))
+            && matchesFloating(column.getFloat(position)) != negated) {
+          positions[kept++] = position;
+        }
+      }
+      return kept;
+    }
+  }
+
+  private static final class DoubleRangeKernel extends RangeKernel {
+
+    private DoubleRangeKernel(int channel, TypeEnum typeEnum, Range range, boolean negated) {
+      super(channel, typeEnum, range, negated);
+    }
+
+    @Override
+    int filter(TsBlock input, int[] positions, int size) {
+      Column column = getColumn(input, channel);
+      boolean mayHaveNull = column.mayHaveNull();
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        int position = positions[i];
+        if ((!mayHaveNull || !column.isNull(position))
+            && matchesFloating(column.getDouble(position)) != negated) {
+          positions[kept++] = position;
+        }
+      }
+      return kept;
+    }
+  }
+}
@@ -46,12 +46,37 @@ public class ChunkCacheMetrics implements IMetricSet {
         ChunkCache::getHitRate,
         Tag.NAME.toString(),
         "chunk");
+    if (chunkCache.isOffHeapCacheEnabled()) {
+      metricService.createAutoGauge(
+          Metric.CACHE_HIT_RATE.toString(),
+          MetricLevel.IMPORTANT,
+          chunkCache,
+          ChunkCache::getOffHeapHitRate,
+          Tag.NAME.toString(),
+          "chunkOffHeap");
+      metricService.createAutoGauge(
+          Metric.MEM.toString(),
+          MetricLevel.IMPORTANT,
+          chunkCache,
+          ChunkCache::getOffHeapUsedSizeInBytes,
+          Tag.NAME.toString(),
+          "chunkOffHeap");
+    }
   }
 
   @Override
   public void unbindFrom(AbstractMetricService metricService) {
     metricService.remove(
         MetricType.AUTO_GAUGE, Metric.CACHE_HIT_RATE.toString(), Tag.NAME.toString(), "chunk");
+    if (chunkCache.isOffHeapCacheEnabled()) {
+      metricService.remove(
+          MetricType.AUTO_GAUGE,
+          Metric.CACHE_HIT_RATE.toString(),
+          Tag.NAME.toString(),
+          "chunkOffHeap");
+      metricService.remove(
+          MetricType.AUTO_GAUGE, Metric.MEM.toString(), Tag.NAME.toString(), "chunkOffHeap");
+    }
   }
 
   @Override
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.queryengine.metric;
+
+import org.apache.iotdb.commons.service.metric.enums.Metric;
+import org.apache.iotdb.commons.service.metric.enums.Tag;
+import org.apache.iotdb.db.storageengine.dataregion.read.control.FileReaderManager;
+import org.apache.iotdb.metrics.AbstractMetricService;
+import org.apache.iotdb.metrics.metricsets.IMetricSet;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+import org.apache.iotdb.metrics.utils.MetricType;
+
+import java.util.Objects;
+
+public class FileReaderManagerMetrics implements IMetricSet {
+
+  private static final String OPENED_CLOSED = "opened_closed";
+  private static final String OPENED_UNCLOSED = "opened_unclosed";
+  private static final String IDLE = "idle";
+  private static final String HIT = "hit";
+  private static final String MISS = "miss";
+  private static final String EVICTED = "evicted";
+
+  private final FileReaderManager fileReaderManager;
+
+  public FileReaderManagerMetrics(FileReaderManager fileReaderManager) {
+    this.fileReaderManager = fileReaderManager;
+  }
+
+  @Override
+  public void bindTo(AbstractMetricService metricService) {
+    metricService.createAutoGauge(
+        Metric.CACHE_HIT_RATE.toString(),
+        MetricLevel.IMPORTANT,
+        fileReaderManager,
+        FileReaderManager::getHitRate,
+        Tag.NAME.toString(),
+        "fileReader");
+    metricService.createAutoGauge(
+        Metric.FILE_READER_MANAGER.toString(),
+        MetricLevel.IMPORTANT,
+        fileReaderManager,
+        FileReaderManager::getOpenedClosedReaderNum,
+        Tag.TYPE.toString(),
+        OPENED_CLOSED);
+    metricService.createAutoGauge(
+        Metric.FILE_READER_MANAGER.toString(),
+        MetricLevel.IMPORTANT,
+        fileReaderManager,
+        FileReaderManager::getOpenedUnclosedReaderNum,
+        Tag.TYPE.toString(),
+        OPENED_UNCLOSED);
+    metricService.createAutoGauge(
+        Metric.FILE_READER_MANAGER.toString(),
+        MetricLevel.IMPORTANT,
+        fileReaderManager,
+        FileReaderManager::getIdleClosedReaderNum,
+        Tag.TYPE.toString(),
+        IDLE);
+    metricService.createAutoGauge(
+        Metric.FILE_READER_MANAGER.toString(),
+        MetricLevel.IMPORTANT,
+        fileReaderManager,
+        FileReaderManager::getHitCount,
+        Tag.TYPE.toString(),
+        HIT);
+    metricService.createAutoGauge(
+        Metric.FILE_READER_MANAGER.toString(),
+        MetricLevel.IMPORTANT,
+        fileReaderManager,
+        FileReaderManager::getMissCount,
+        Tag.TYPE.toString(),
+        MISS);
+    metricService.createAutoGauge(
+        Metric.FILE_READER_MANAGER.toString(),
+        MetricLevel.IMPORTANT,
+        fileReaderManager,
+        FileReaderManager::getEvictedCount,
+        Tag.TYPE.toString(),
+        EVICTED);
+  }
+
+  @Override
+  public void unbindFrom(AbstractMetricService metricService) {
+    metricService.remove(
+        MetricType.AUTO_GAUGE, Metric.CACHE_HIT_RATE.toString(), Tag.NAME.toString(), "fileReader");
+    for (String type : new String[] {OPENED_CLOSED, OPENED_UNCLOSED, IDLE, HIT, MISS, EVICTED}) {
+      metricService.remove(
+          MetricType.AUTO_GAUGE,
+          Metric.FILE_READER_MANAGER.toString(),
+          Tag.TYPE.toString(),
+          type);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    FileReaderManagerMetrics that = (FileReaderManagerMetrics) o;
+    return Objects.equals(fileReaderManager, that.fileReaderManager);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(fileReaderManager);
+  }
+}
@@ -25,6 +25,7 @@ import org.apache.iotdb.metrics.AbstractMetricService;
 import org.apache.iotdb.metrics.impl.DoNothingMetricManager;
 import org.apache.iotdb.metrics.metricsets.IMetricSet;
 import org.apache.iotdb.metrics.type.Histogram;
+import org.apache.iotdb.metrics.type.Timer;
 import org.apache.iotdb.metrics.utils.MetricLevel;
 import org.apache.iotdb.metrics.utils.MetricType;
 
@@ -46,6 +47,13 @@ public class QueryResourceMetricSet implements IMetricSet {
   private Histogram flushingMemTableHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
   private Histogram workingMemTableHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
 
+  public static final String READ_LOCK = "read";
+  public static final String WRITE_LOCK = "write";
+  public static final String STALE_SNAPSHOT = "stale_snapshot";
+  private Timer readLockWaitTimer = DoNothingMetricManager.DO_NOTHING_TIMER;
+  private Timer writeLockWaitTimer = DoNothingMetricManager.DO_NOTHING_TIMER;
+  private Timer staleSnapshotWaitTimer = DoNothingMetricManager.DO_NOTHING_TIMER;
+
   public void recordQueryResourceNum(String type, int count) {
     switch (type) {
       case SEQUENCE_TSFILE:
@@ -65,6 +73,23 @@ public class QueryResourceMetricSet implements IMetricSet {
     }
   }
 
+  /** Record the time spent waiting for the file lists of a data region. */
+  public void recordTsFileListLockWait(String type, long costTimeInNanos) {
+    switch (type) {
+      case READ_LOCK:
+        readLockWaitTimer.updateNanos(costTimeInNanos);
+        break;
+      case WRITE_LOCK:
+        writeLockWaitTimer.updateNanos(costTimeInNanos);
+        break;
+      case STALE_SNAPSHOT:
+        staleSnapshotWaitTimer.updateNanos(costTimeInNanos);
+        break;
+      default:
+        break;
+    }
+  }
+
   @Override
   public void bindTo(AbstractMetricService metricService) {
     sequenceTsFileHistogram =
@@ -91,6 +116,24 @@ public class QueryResourceMetricSet implements IMetricSet {
             MetricLevel.IMPORTANT,
             Tag.TYPE.toString(),
             WORKING_MEMTABLE);
+    readLockWaitTimer =
+        metricService.getOrCreateTimer(
+            Metric.TSFILE_LIST_LOCK_WAIT.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.TYPE.toString(),
+            READ_LOCK);
+    writeLockWaitTimer =
+        metricService.getOrCreateTimer(
+            Metric.TSFILE_LIST_LOCK_WAIT.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.TYPE.toString(),
+            WRITE_LOCK);
+    staleSnapshotWaitTimer =
+        metricService.getOrCreateTimer(
+            Metric.TSFILE_LIST_LOCK_WAIT.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.TYPE.toString(),
+            STALE_SNAPSHOT);
   }
 
   @Override
@@ -103,6 +146,14 @@ public class QueryResourceMetricSet implements IMetricSet {
                     Metric.QUERY_RESOURCE.toString(),
                     Tag.TYPE.toString(),
                     type));
+    Arrays.asList(READ_LOCK, WRITE_LOCK, STALE_SNAPSHOT)
+        .forEach(
+            type ->
+                metricService.remove(
+                    MetricType.TIMER,
+                    Metric.TSFILE_LIST_LOCK_WAIT.toString(),
+                    Tag.TYPE.toString(),
+                    type));
   }
 
   public static QueryResourceMetricSet getInstance() {
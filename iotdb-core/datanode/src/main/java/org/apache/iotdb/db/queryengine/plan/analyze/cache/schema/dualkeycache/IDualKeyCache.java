@@ -23,6 +23,7 @@ import org.apache.iotdb.commons.utils.TestOnly;
 
 import javax.annotation.concurrent.GuardedBy;
 
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
@@ -95,6 +96,12 @@ public interface IDualKeyCache<FK, SK, V> {
       final Predicate<SK> secondKeyChecker,
       final ToIntFunction<V> updater);
 
+  /**
+   * Visit all the existing values with a {@link FK} matching the given predicate. The visit doesn't
+   * affect the eviction order of the values.
+   */
+  void forEach(final Predicate<FK> firstKeyChecker, final BiConsumer<SK, V> visitor);
+
   /**
    * Invalidate all cache values in the cache and clear related cache keys. The cache status and
    * statistics won't be clear and they can still be accessed via cache.stats().
@@ -35,6 +35,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
@@ -291,6 +292,21 @@ class DualKeyCacheImpl<FK, SK, V, T extends ICacheEntry<SK, V>>
     increaseMemoryUsageAndMayEvict(usedMemorySize.get());
   }
 
+  @Override
+  public void forEach(final Predicate<FK> firstKeyChecker, final BiConsumer<SK, V> visitor) {
+    for (final FK firstKey : firstKeyMap.getAllKeys()) {
+      if (!firstKeyChecker.test(firstKey)) {
+        continue;
+      }
+      final ICacheEntryGroup<FK, SK, V, T> cacheEntryGroup = firstKeyMap.get(firstKey);
+      if (Objects.nonNull(cacheEntryGroup)) {
+        cacheEntryGroup
+            .getAllCacheEntries()
+            .forEachRemaining(entry -> visitor.accept(entry.getKey(), entry.getValue().getValue()));
+      }
+    }
+  }
+
   private void increaseMemoryUsageAndMayEvict(final int memorySize) {
     cacheStats.increaseMemoryUsage(memorySize);
     while (cacheStats.isExceedMemoryCapacity()) {
@@ -28,6 +28,7 @@ import org.apache.iotdb.commons.path.IFullPath;
 import org.apache.iotdb.commons.path.MeasurementPath;
 import org.apache.iotdb.commons.path.NonAlignedFullPath;
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.commons.utils.TimePartitionUtils;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.queryengine.common.DeviceContext;
@@ -36,6 +37,7 @@ import org.apache.iotdb.db.queryengine.common.NodeRef;
 import org.apache.iotdb.db.queryengine.common.TimeseriesContext;
 import org.apache.iotdb.db.queryengine.execution.aggregation.Accumulator;
 import org.apache.iotdb.db.queryengine.execution.aggregation.AccumulatorFactory;
+import org.apache.iotdb.db.queryengine.execution.aggregation.AggregationResultCache;
 import org.apache.iotdb.db.queryengine.execution.aggregation.TreeAggregator;
 import org.apache.iotdb.db.queryengine.execution.aggregation.slidingwindow.SlidingWindowAggregatorFactory;
 import org.apache.iotdb.db.queryengine.execution.aggregation.timerangeiterator.ITimeRangeIterator;
@@ -143,6 +145,7 @@ import org.apache.iotdb.db.queryengine.execution.operator.schema.SchemaQueryScan
 import org.apache.iotdb.db.queryengine.execution.operator.schema.source.SchemaSourceFactory;
 import org.apache.iotdb.db.queryengine.execution.operator.sink.IdentitySinkOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.sink.ShuffleHelperOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.AbstractSeriesAggregationScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.ActiveDeviceRegionScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.ActiveTimeSeriesRegionScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.AlignedSeriesAggregationScanOperator;
@@ -234,11 +237,13 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.AlignedSeri
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.AlignedSeriesScanNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.DeviceRegionScanNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.LastQueryScanNode;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.SeriesAggregationSourceNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.SeriesAggregationScanNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.SeriesScanNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.ShowQueriesNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.TimeseriesRegionScanNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.AggregationDescriptor;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.AggregationStep;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.CrossSeriesAggregationDescriptor;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.DeviceViewIntoPathDescriptor;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.FillDescriptor;
@@ -264,6 +269,8 @@ import org.apache.iotdb.db.queryengine.statistics.StatisticsManager;
 import org.apache.iotdb.db.queryengine.transformation.dag.column.ColumnTransformer;
 import org.apache.iotdb.db.queryengine.transformation.dag.column.leaf.LeafColumnTransformer;
 import org.apache.iotdb.db.queryengine.transformation.dag.udf.UDTFContext;
+import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
+import org.apache.iotdb.db.storageengine.dataregion.IDataRegionForQuery;
 import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSourceType;
 import org.apache.iotdb.db.utils.columngenerator.ColumnGenerator;
 import org.apache.iotdb.db.utils.columngenerator.ColumnGeneratorType;
@@ -282,6 +289,8 @@ import org.apache.tsfile.read.TimeValuePair;
 import org.apache.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.tsfile.read.common.block.column.TimeColumn;
 import org.apache.tsfile.read.filter.basic.Filter;
+import org.apache.tsfile.read.filter.factory.FilterFactory;
+import org.apache.tsfile.read.filter.factory.TimeFilterApi;
 import org.apache.tsfile.read.filter.operator.TimeFilterOperators.TimeGt;
 import org.apache.tsfile.read.filter.operator.TimeFilterOperators.TimeGtEq;
 import org.apache.tsfile.utils.Binary;
@@ -292,6 +301,8 @@ import org.apache.tsfile.write.schema.MeasurementSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.File;
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -619,6 +630,11 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
   @Override
   public Operator visitSeriesAggregationScan(
       SeriesAggregationScanNode node, LocalExecutionPlanContext context) {
+    AggregationNode splitAggregation = splitAggregationScanByTimePartition(node, context);
+    if (splitAggregation != null) {
+      return splitAggregation.accept(this, context);
+    }
+
     NonAlignedFullPath seriesPath =
         (NonAlignedFullPath) IFullPath.convertToIFullPath(node.getSeriesPath());
     boolean ascending = node.getScanOrder() == ASC;
@@ -645,7 +661,8 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
         AggregationUtil.calculateMaxAggregationResultSize(
             node.getAggregationDescriptorList(), timeRangeIterator, context.getTypeProvider());
 
-    SeriesScanOptions.Builder scanOptionsBuilder = getSeriesScanOptionsBuilder(context);
+    SeriesScanOptions.Builder scanOptionsBuilder =
+        getSeriesScanOptionsBuilder(context, node.getSplitTimeRange());
     scanOptionsBuilder.withAllSensors(
         context.getAllSensors(seriesPath.getDeviceId(), seriesPath.getMeasurement()));
 
@@ -685,6 +702,15 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
             node.getGroupByTimeParameter(),
             maxReturnSize,
             canUseStatistics);
+    setAggregationResultCacheContext(
+        aggregateScanOperator,
+        seriesPath.getDeviceId(),
+        Collections.singletonList(seriesPath.getMeasurement()),
+        Collections.singletonList(node.getSeriesPath().getSeriesType()),
+        aggregationDescriptors,
+        node.getGroupByTimeParameter(),
+        pushDownPredicate,
+        context);
 
     ((DataDriverContext) context.getDriverContext()).addSourceOperator(aggregateScanOperator);
     ((DataDriverContext) context.getDriverContext()).addPath(seriesPath);
@@ -714,9 +740,15 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
           scanOrder,
           context.getTemplatedInfo().getGroupByTimeParameter(),
           context.getTemplatedInfo().isOutputEndTime(),
+          null,
           context);
     }
 
+    AggregationNode splitAggregation = splitAggregationScanByTimePartition(node, context);
+    if (splitAggregation != null) {
+      return splitAggregation.accept(this, context);
+    }
+
     return constructAlignedSeriesAggregationScanOperator(
         node.getPlanNodeId(),
         node.getAlignedPath(),
@@ -725,9 +757,128 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
         node.getScanOrder(),
         node.getGroupByTimeParameter(),
         node.isOutputEndTime(),
+        node.getSplitTimeRange(),
         context);
   }
 
+  /**
+   * Split an aggregation scan into one partial aggregation scan for each group of adjacent time
+   * partitions of the data region, and merge their results by an AggregationNode. Then the
+   * AggregationNode puts the scans into different pipelines, so that a region holding data of
+   * many time partitions is no longer scanned by a single driver.
+   *
+   * @return null if the scan shouldn't be split
+   */
+  @Nullable
+  private AggregationNode splitAggregationScanByTimePartition(
+      SeriesAggregationSourceNode node, LocalExecutionPlanContext context) {
+    if (!IoTDBDescriptor.getInstance().getConfig().isEnableIntraRegionParallelAggregation()
+        || context.getDegreeOfParallelism() <= 1
+        || node.getSplitTimeRange() != null
+        || node.isOutputEndTime()
+        || !node.getAggregationDescriptorList().stream()
+            .allMatch(OperatorTreeGenerator::canMergeByFinalAggregation)) {
+      return null;
+    }
+    IDataRegionForQuery dataRegion =
+        context.getDriverContext().getFragmentInstanceContext().getDataRegion();
+    if (!(dataRegion instanceof DataRegion)) {
+      return null;
+    }
+    Filter globalTimeFilter = context.getGlobalTimeFilter();
+    List<Long> timePartitions =
+        ((DataRegion) dataRegion)
+            .getTimePartitions().stream()
+                .filter(
+                    partitionId ->
+                        TimePartitionUtils.satisfyTimePartition(globalTimeFilter, partitionId))
+                .sorted()
+                .collect(Collectors.toList());
+    int splitNum = Math.min(context.getDegreeOfParallelism(), timePartitions.size());
+    if (splitNum <= 1) {
+      return null;
+    }
+
+    List<AggregationDescriptor> splitDescriptorList = new ArrayList<>();
+    List<AggregationDescriptor> mergeDescriptorList = new ArrayList<>();
+    for (AggregationDescriptor descriptor : node.getAggregationDescriptorList()) {
+      AggregationDescriptor splitDescriptor =
+          new AggregationDescriptor(
+              descriptor.getAggregationFuncName(),
+              AggregationStep.PARTIAL,
+              descriptor.getInputExpressions(),
+              descriptor.getInputAttributes());
+      LogicalPlanBuilder.updateTypeProviderByPartialAggregation(
+          splitDescriptor, context.getTypeProvider());
+      splitDescriptorList.add(splitDescriptor);
+      mergeDescriptorList.add(
+          new AggregationDescriptor(
+              descriptor.getAggregationFuncName(),
+              descriptor.getStep() == AggregationStep.SINGLE
+                  ? AggregationStep.FINAL
+                  : AggregationStep.INTERMEDIATE,
+              descriptor.getInputExpressions(),
+              descriptor.getInputAttributes()));
+    }
+
+    // keep the id of the origin node, the memory estimators of pipelines are bound to it
+    AggregationNode aggregationNode =
+        new AggregationNode(
+            node.getPlanNodeId(),
+            mergeDescriptorList,
+            node.getGroupByTimeParameter(),
+            node.getScanOrder());
+    // the first and the last split are unbounded, so data out of the known time partitions, e.g.
+    // those created after the query started, is still scanned by exactly one split
+    long lowerBound = Long.MIN_VALUE;
+    for (int i = 0; i < splitNum; i++) {
+      long upperBound =
+          i == splitNum - 1
+              ? Long.MAX_VALUE
+              : TimePartitionUtils.getTimePartitionStartTime(
+                      timePartitions.get((i + 1) * timePartitions.size() / splitNum))
+                  - 1;
+      SeriesAggregationSourceNode split = (SeriesAggregationSourceNode) node.clone();
+      split.setPlanNodeId(new PlanNodeId(node.getPlanNodeId().getId() + "_" + i));
+      split.setAggregationDescriptorList(splitDescriptorList);
+      split.setSplitTimeRange(TimeFilterApi.between(lowerBound, upperBound));
+      aggregationNode.addChild(split);
+      lowerBound = upperBound + 1;
+    }
+    return aggregationNode;
+  }
+
+  /**
+   * Whether the results of the aggregation on disjoint time ranges can be merged by the FINAL or
+   * INTERMEDIATE step. Aggregations depending on the adjacency of rows, like COUNT_IF, are excluded.
+   */
+  private static boolean canMergeByFinalAggregation(AggregationDescriptor descriptor) {
+    if (!descriptor.getStep().isInputRaw()) {
+      return false;
+    }
+    switch (descriptor.getAggregationType()) {
+      case COUNT:
+      case AVG:
+      case SUM:
+      case FIRST_VALUE:
+      case LAST_VALUE:
+      case MAX_TIME:
+      case MIN_TIME:
+      case MAX_VALUE:
+      case MIN_VALUE:
+      case EXTREME:
+      case STDDEV:
+      case STDDEV_POP:
+      case STDDEV_SAMP:
+      case VARIANCE:
+      case VAR_POP:
+      case VAR_SAMP:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   private Operator constructAlignedSeriesAggregationScanOperator(
       PlanNodeId planNodeId,
       AlignedPath alignedPath,
@@ -736,6 +887,7 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
       Ordering scanOrder,
       GroupByTimeParameter groupByTimeParameter,
       boolean outputEndTime,
+      Filter splitTimeRange,
       LocalExecutionPlanContext context) {
     AlignedFullPath seriesPath = (AlignedFullPath) IFullPath.convertToIFullPath(alignedPath);
     boolean ascending = scanOrder == ASC;
@@ -796,7 +948,8 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
         AggregationUtil.calculateMaxAggregationResultSize(
             aggregationDescriptorList, timeRangeIterator, context.getTypeProvider());
 
-    SeriesScanOptions.Builder scanOptionsBuilder = getSeriesScanOptionsBuilder(context);
+    SeriesScanOptions.Builder scanOptionsBuilder =
+        getSeriesScanOptionsBuilder(context, splitTimeRange);
     scanOptionsBuilder.withAllSensors(new HashSet<>(alignedPath.getMeasurementList()));
 
     if (pushDownPredicate != null) {
@@ -830,6 +983,17 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
             groupByTimeParameter,
             maxReturnSize,
             canUseStatistics);
+    setAggregationResultCacheContext(
+        seriesAggregationScanOperator,
+        seriesPath.getDeviceId(),
+        alignedPath.getMeasurementList(),
+        alignedPath.getSchemaList().stream()
+            .map(IMeasurementSchema::getType)
+            .collect(Collectors.toList()),
+        aggregationDescriptorList,
+        groupByTimeParameter,
+        pushDownPredicate,
+        context);
 
     ((DataDriverContext) context.getDriverContext())
         .addSourceOperator(seriesAggregationScanOperator);
@@ -838,6 +1002,44 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
     return seriesAggregationScanOperator;
   }
 
+  /**
+   * Let a GROUP BY TIME aggregation scan read the results of closed windows from {@link
+   * AggregationResultCache}. The results of scans with a value filter are not cached.
+   */
+  private void setAggregationResultCacheContext(
+      AbstractSeriesAggregationScanOperator operator,
+      IDeviceID deviceId,
+      List<String> measurements,
+      List<TSDataType> dataTypes,
+      List<AggregationDescriptor> aggregationDescriptors,
+      @Nullable GroupByTimeParameter groupByTimeParameter,
+      @Nullable Expression pushDownPredicate,
+      LocalExecutionPlanContext context) {
+    AggregationResultCache resultCache = AggregationResultCache.getInstance();
+    IDataRegionForQuery dataRegion =
+        context.getDriverContext().getFragmentInstanceContext().getDataRegion();
+    if (!resultCache.isEnabled()
+        || groupByTimeParameter == null
+        || pushDownPredicate != null
+        || !(dataRegion instanceof DataRegion)) {
+      return;
+    }
+    StringBuilder aggregationKey = new StringBuilder().append(measurements).append(dataTypes);
+    for (AggregationDescriptor descriptor : aggregationDescriptors) {
+      aggregationKey
+          .append(';')
+          .append(descriptor.getStep())
+          .append(':')
+          .append(descriptor.getAggregationFuncName())
+          .append('(')
+          .append(descriptor.getParametersString())
+          .append(')');
+    }
+    operator.setResultCacheContext(
+        resultCache.createScanContext(
+            ((DataRegion) dataRegion).getDataRegionId(), deviceId, aggregationKey.toString()));
+  }
+
   private boolean judgeCanUseStatistics(
       final TAggregationType aggregationType, final TSDataType seriesType) {
     return !TSDataType.BLOB.equals(seriesType)
@@ -846,12 +1048,26 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
   }
 
   private SeriesScanOptions.Builder getSeriesScanOptionsBuilder(LocalExecutionPlanContext context) {
+    return getSeriesScanOptionsBuilder(context, null);
+  }
+
+  private SeriesScanOptions.Builder getSeriesScanOptionsBuilder(
+      LocalExecutionPlanContext context, @Nullable Filter splitTimeRange) {
     SeriesScanOptions.Builder scanOptionsBuilder = new SeriesScanOptions.Builder();
 
+    // time filter may be stateful, so we need to copy it
     Filter globalTimeFilter = context.getGlobalTimeFilter();
     if (globalTimeFilter != null) {
-      // time filter may be stateful, so we need to copy it
-      scanOptionsBuilder.withGlobalTimeFilter(globalTimeFilter.copy());
+      globalTimeFilter = globalTimeFilter.copy();
+    }
+    if (splitTimeRange != null) {
+      globalTimeFilter =
+          globalTimeFilter == null
+              ? splitTimeRange.copy()
+              : FilterFactory.and(globalTimeFilter, splitTimeRange.copy());
+    }
+    if (globalTimeFilter != null) {
+      scanOptionsBuilder.withGlobalTimeFilter(globalTimeFilter);
     }
 
     return scanOptionsBuilder;
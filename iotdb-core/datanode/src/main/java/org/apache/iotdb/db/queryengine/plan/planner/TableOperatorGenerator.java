@@ -26,6 +26,7 @@ import org.apache.iotdb.commons.path.AlignedFullPath;
 import org.apache.iotdb.commons.path.PartialPath;
 import org.apache.iotdb.commons.schema.table.TsTable;
 import org.apache.iotdb.commons.schema.table.column.TsTableColumnSchema;
+import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.sql.SemanticException;
 import org.apache.iotdb.db.queryengine.common.FragmentInstanceId;
@@ -84,6 +85,8 @@ import org.apache.iotdb.db.queryengine.execution.operator.source.ExchangeOperato
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.AbstractAggTableScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.AbstractTableScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.DefaultAggTableScanOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.HashJoinOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.HashSemiJoinOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.InformationSchemaTableScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.LastQueryAggTableScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.MarkDistinctOperator;
@@ -105,6 +108,8 @@ import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggr
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.StreamingAggregationOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.StreamingHashAggregationOperator;
 import org.apache.iotdb.db.queryengine.execution.relational.ColumnTransformerBuilder;
+import org.apache.iotdb.db.queryengine.execution.relational.CompiledFilter;
+import org.apache.iotdb.db.queryengine.execution.relational.FilterCompiler;
 import org.apache.iotdb.db.queryengine.plan.analyze.TypeProvider;
 import org.apache.iotdb.db.queryengine.plan.analyze.cache.schema.DataNodeTTLCache;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
@@ -236,6 +241,7 @@ import static java.util.Objects.requireNonNull;
 import static org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory.FIELD;
 import static org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory.TIME;
 import static org.apache.iotdb.commons.udf.builtin.relational.TableBuiltinAggregationFunction.getAggregationTypeByFuncName;
+import static org.apache.iotdb.commons.udf.builtin.relational.TableBuiltinAggregationFunction.getIntermediateType;
 import static org.apache.iotdb.db.queryengine.common.DataNodeEndPoints.isSameNode;
 import static org.apache.iotdb.db.queryengine.execution.operator.process.join.merge.MergeSortComparator.getComparatorForTable;
 import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.InformationSchemaContentSupplierFactory.getSupplier;
@@ -547,6 +553,36 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
     // for time column
     allSensors.add("");
 
+    List<AbstractTableScanOperator.DynamicFilterTarget> dynamicFilterTargets = new ArrayList<>();
+    // skipping data of probe side will change the result of pushed down limit and offset
+    if (node.getPushDownLimit() <= 0 && node.getPushDownOffset() <= 0) {
+      for (Map.Entry<String, Symbol> entry : node.getDynamicFilters().entrySet()) {
+        ColumnSchema schema = columnSchemaMap.get(entry.getValue());
+        if (schema == null) {
+          continue;
+        }
+        switch (schema.getColumnCategory()) {
+          case TAG:
+          case ATTRIBUTE:
+            Integer columnIndex = idAndAttributeColumnsIndexMap.get(entry.getValue());
+            if (columnIndex != null) {
+              dynamicFilterTargets.add(
+                  new AbstractTableScanOperator.DynamicFilterTarget(
+                      entry.getKey(), schema.getColumnCategory(), columnIndex));
+            }
+            break;
+          case TIME:
+            dynamicFilterTargets.add(
+                new AbstractTableScanOperator.DynamicFilterTarget(
+                    entry.getKey(), schema.getColumnCategory(), -1));
+            break;
+          default:
+            // only TAG, ATTRIBUTE and TIME columns are supported now
+            break;
+        }
+      }
+    }
+
     return new AbstractTableScanOperator.AbstractTableScanOperatorParameter(
         allSensors,
         operatorContext,
@@ -558,7 +594,8 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
         seriesScanOptions,
         measurementColumnNames,
         measurementSchemas,
-        maxTsBlockLineNum);
+        maxTsBlockLineNum,
+        dynamicFilterTargets);
   }
 
   // used for TableScanOperator
@@ -747,6 +784,15 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
                 planNodeId,
                 FilterAndProjectOperator.class.getSimpleName());
 
+    // common subexpressions are calculated by filterOutputTransformer, which is skipped by the
+    // compiled filter
+    CompiledFilter compiledFilter =
+        predicate.isPresent()
+                && commonTransformerList.isEmpty()
+                && IoTDBDescriptor.getInstance().getConfig().isEnableFilterCompilation()
+            ? FilterCompiler.compile(predicate.get(), inputLocations, context.getTypeProvider())
+            : null;
+
     // Project expressions don't contain Non-Mappable UDF, TransformOperator is not needed
     return new FilterAndProjectOperator(
         operatorContext,
@@ -758,7 +804,8 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
         projectLeafColumnTransformerList,
         projectOutputTransformerList,
         false,
-        predicate.isPresent());
+        predicate.isPresent(),
+        compiledFilter);
   }
 
   @Override
@@ -1442,6 +1489,36 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
       joinKeyTypes.add(leftJoinKeyType);
     }
 
+    if (node.isHashJoin()) {
+      checkArgument(
+          node.getJoinType() == JoinNode.JoinType.INNER
+              || node.getJoinType() == JoinNode.JoinType.LEFT,
+          "Unsupported join type of HashJoin: %s",
+          node.getJoinType());
+      OperatorContext operatorContext =
+          context
+              .getDriverContext()
+              .addOperatorContext(
+                  context.getNextOperatorId(),
+                  node.getPlanNodeId(),
+                  HashJoinOperator.class.getSimpleName());
+      return new HashJoinOperator(
+          operatorContext,
+          leftChild,
+          leftJoinKeyPositions,
+          leftOutputSymbolIdx,
+          rightChild,
+          rightJoinKeyPositions,
+          rightOutputSymbolIdx,
+          joinKeyTypes,
+          dataTypes,
+          node.getJoinType() == JoinNode.JoinType.LEFT,
+          // rows of probe side which can't be matched are still output by LEFT JOIN
+          node.getJoinType() == JoinNode.JoinType.INNER
+              && IoTDBDescriptor.getInstance().getConfig().isEnableDynamicFilter(),
+          IoTDBDescriptor.getInstance().getConfig().getDynamicFilterMaxDistinctValueCount());
+    }
+
     if (requireNonNull(node.getJoinType()) == JoinNode.JoinType.INNER) {
       OperatorContext operatorContext =
           context
@@ -1583,6 +1660,27 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
         sourceJoinKeyType,
         context.getTypeProvider().getTableModelType(node.getFilteringSourceJoinSymbol()));
 
+    if (node.isHashJoin()) {
+      OperatorContext operatorContext =
+          context
+              .getDriverContext()
+              .addOperatorContext(
+                  context.getNextOperatorId(),
+                  node.getPlanNodeId(),
+                  HashSemiJoinOperator.class.getSimpleName());
+      return new HashSemiJoinOperator(
+          operatorContext,
+          leftChild,
+          sourceJoinKeyPosition,
+          sourceOutputSymbolIdx,
+          rightChild,
+          filteringSourceJoinKeyPosition,
+          sourceJoinKeyType,
+          dataTypes,
+          IoTDBDescriptor.getInstance().getConfig().isEnableDynamicFilter(),
+          IoTDBDescriptor.getInstance().getConfig().getDynamicFilterMaxDistinctValueCount());
+    }
+
     OperatorContext operatorContext =
         context
             .getDriverContext()
@@ -1953,6 +2051,27 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
                 node.getPlanNodeId(),
                 HashAggregationOperator.class.getSimpleName());
 
+    // partial aggregation never needs to spill, and states of distinct aggregation can not be
+    // merged from several spilled files
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean spillEnabled =
+        config.isEnableHashAggregationSpill()
+            && !node.getStep().isOutputPartial()
+            && node.getAggregations().values().stream()
+                .noneMatch(AggregationNode.Aggregation::isDistinct);
+    String spillFolderPath = null;
+    if (spillEnabled) {
+      spillFolderPath =
+          config.getSortTmpDir()
+              + File.separator
+              + operatorContext.getDriverContext().getFragmentInstanceContext().getId().getFullId()
+              + File.separator
+              + operatorContext.getDriverContext().getPipelineId()
+              + File.separator;
+      context.getDriverContext().setHaveTmpFile(true);
+      context.getDriverContext().getFragmentInstanceContext().setMayHaveTmpFile(true);
+    }
+
     return new HashAggregationOperator(
         operatorContext,
         child,
@@ -1962,8 +2081,9 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
         node.getStep(),
         DEFAULT_GROUP_NUMBER,
         Long.MAX_VALUE,
-        false,
-        Long.MAX_VALUE);
+        spillEnabled,
+        config.getHashAggregationSpillThresholdInBytes(),
+        spillFolderPath);
   }
 
   private Comparator<SortKey> genGroupKeyComparator(
@@ -2016,12 +2136,16 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
       maskChannel = OptionalInt.of(childLayout.get(aggregation.getMask().get()));
     }
 
+    TSDataType outputType = getTSDataType(typeProvider.getTableModelType(symbol));
+    TSDataType intermediateType =
+        step.isOutputPartial()
+            ? outputType
+            : getTSDataType(
+                getIntermediateType(
+                    functionName,
+                    aggregation.getResolvedFunction().getSignature().getArgumentTypes()));
     return new GroupedAggregator(
-        accumulator,
-        step,
-        getTSDataType(typeProvider.getTableModelType(symbol)),
-        argumentChannels,
-        maskChannel);
+        accumulator, step, outputType, intermediateType, argumentChannels, maskChannel);
   }
 
   @Override
@@ -665,6 +665,9 @@ public class PlanGraphPrinter extends PlanVisitor<List<String>, PlanGraphPrinter
       boxValue.add(
           String.format(
               "PushDownLimitToEachDevice: %s", deviceTableScanNode.isPushLimitToEachDevice()));
+      if (!deviceTableScanNode.getDynamicFilters().isEmpty()) {
+        boxValue.add(String.format("DynamicFilters: %s", deviceTableScanNode.getDynamicFilters()));
+      }
     }
 
     boxValue.add(
@@ -973,7 +976,9 @@ public class PlanGraphPrinter extends PlanVisitor<List<String>, PlanGraphPrinter
       org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode node,
       GraphContext context) {
     List<String> boxValue = new ArrayList<>();
-    boxValue.add(String.format("Join-%s", node.getPlanNodeId().getId()));
+    boxValue.add(
+        String.format(
+            "%s-%s", node.isHashJoin() ? "HashJoin" : "Join", node.getPlanNodeId().getId()));
     boxValue.add(String.format("JoinType: %s", node.getJoinType()));
     boxValue.add(String.format("JoinCriteria: %s", node.getCriteria()));
     boxValue.add(String.format("LeftOutputSymbols: %s", node.getLeftOutputSymbols()));
@@ -988,7 +993,10 @@ public class PlanGraphPrinter extends PlanVisitor<List<String>, PlanGraphPrinter
   @Override
   public List<String> visitSemiJoin(SemiJoinNode node, GraphContext context) {
     List<String> boxValue = new ArrayList<>();
-    boxValue.add(String.format("SemiJoin-%s", node.getPlanNodeId().getId()));
+    boxValue.add(
+        String.format(
+            "%s-%s",
+            node.isHashJoin() ? "HashSemiJoin" : "SemiJoin", node.getPlanNodeId().getId()));
     boxValue.add(String.format("OutputSymbols: %s", node.getOutputSymbols()));
     boxValue.add(String.format("SourceJoinSymbol: %s", node.getSourceJoinSymbol()));
     boxValue.add(
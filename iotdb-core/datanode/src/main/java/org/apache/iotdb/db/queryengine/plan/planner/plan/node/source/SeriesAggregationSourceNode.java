@@ -27,6 +27,8 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.AggregationDe
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.GroupByTimeParameter;
 import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
 
+import org.apache.tsfile.read.filter.basic.Filter;
+
 import javax.annotation.Nullable;
 
 import java.util.ArrayList;
@@ -55,6 +57,11 @@ public abstract class SeriesAggregationSourceNode extends SeriesSourceNode {
   // If the resultSet should contain 'endTime' column in GROUP BY TIME query.
   private boolean outputEndTime = false;
 
+  // The time range of the time partitions scanned by this node, set only when the node is one of
+  // the splits of an aggregation scan divided by time partition on the DataNode. It is never
+  // serialized.
+  @Nullable private Filter splitTimeRange;
+
   protected SeriesAggregationSourceNode(
       PlanNodeId id, List<AggregationDescriptor> aggregationDescriptorList) {
     super(id);
@@ -91,6 +98,15 @@ public abstract class SeriesAggregationSourceNode extends SeriesSourceNode {
     this.outputEndTime = outputEndTime;
   }
 
+  @Nullable
+  public Filter getSplitTimeRange() {
+    return splitTimeRange;
+  }
+
+  public void setSplitTimeRange(@Nullable Filter splitTimeRange) {
+    this.splitTimeRange = splitTimeRange;
+  }
+
   @Nullable
   public GroupByTimeParameter getGroupByTimeParameter() {
     return groupByTimeParameter;
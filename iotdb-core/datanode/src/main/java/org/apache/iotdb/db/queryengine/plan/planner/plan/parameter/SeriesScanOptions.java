@@ -122,6 +122,12 @@ public class SeriesScanOptions {
     }
   }
 
+  /** Narrow the global time filter using a time filter generated at runtime. */
+  public void addGlobalTimeFilter(Filter timeFilter) {
+    this.globalTimeFilter =
+        globalTimeFilter == null ? timeFilter : FilterFactory.and(globalTimeFilter, timeFilter);
+  }
+
   /**
    * @return an updated filter concerning TTL
    */
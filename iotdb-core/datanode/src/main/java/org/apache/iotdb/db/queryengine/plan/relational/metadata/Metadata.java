@@ -53,6 +53,17 @@ public interface Metadata {
    */
   Optional<TableSchema> getTableSchema(final SessionInfo session, final QualifiedObjectName name);
 
+  /**
+   * Return the estimated data volume of the specified table, which is used by the cost based
+   * optimizations.
+   *
+   * @return empty if the statistics are unknown
+   */
+  default Optional<TableStatistics> getTableStatistics(
+      final SessionInfo session, final QualifiedObjectName name) {
+    return Optional.empty();
+  }
+
   Type getOperatorReturnType(
       final OperatorType operatorType, final List<? extends Type> argumentTypes)
       throws OperatorNotFoundException;
@@ -52,6 +52,7 @@ import org.apache.iotdb.db.queryengine.plan.relational.type.TypeManager;
 import org.apache.iotdb.db.queryengine.plan.relational.type.TypeNotFoundException;
 import org.apache.iotdb.db.queryengine.plan.relational.type.TypeSignature;
 import org.apache.iotdb.db.schemaengine.table.DataNodeTableCache;
+import org.apache.iotdb.db.storageengine.dataregion.statistics.TableStatisticsManager;
 import org.apache.iotdb.db.utils.constant.SqlConstant;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.udf.api.customizer.analysis.AggregateFunctionAnalysis;
@@ -118,6 +119,13 @@ public class TableMetadataImpl implements Metadata {
                     .collect(Collectors.toList())));
   }
 
+  @Override
+  public Optional<TableStatistics> getTableStatistics(
+      final SessionInfo session, final QualifiedObjectName name) {
+    return TableStatisticsManager.getInstance()
+        .getTableStatistics(name.getDatabaseName(), name.getObjectName());
+  }
+
   @Override
   public Type getOperatorReturnType(OperatorType operatorType, List<? extends Type> argumentTypes)
       throws OperatorNotFoundException {
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.metadata;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimated data volume of a table, which is used by the optimizer to choose between plans. All
+ * the numbers are collected from the sealed TsFiles, so they are approximate: data in memtables is
+ * not counted and data overwritten by later files is counted more than once.
+ */
+public class TableStatistics {
+
+  private final long rowCount;
+  private final long deviceCount;
+  private final long minTime;
+  private final long maxTime;
+
+  /** number of distinct values of each tag column, in the order of tag columns */
+  private final long[] tagDistinctCounts;
+
+  private final Map<String, ColumnStatistics> fieldStatistics;
+
+  public TableStatistics(
+      long rowCount,
+      long deviceCount,
+      long minTime,
+      long maxTime,
+      long[] tagDistinctCounts,
+      Map<String, ColumnStatistics> fieldStatistics) {
+    this.rowCount = rowCount;
+    this.deviceCount = deviceCount;
+    this.minTime = minTime;
+    this.maxTime = maxTime;
+    this.tagDistinctCounts = requireNonNull(tagDistinctCounts, "tagDistinctCounts is null");
+    this.fieldStatistics =
+        Collections.unmodifiableMap(requireNonNull(fieldStatistics, "fieldStatistics is null"));
+  }
+
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  public long getDeviceCount() {
+    return deviceCount;
+  }
+
+  public long getMinTime() {
+    return minTime;
+  }
+
+  public long getMaxTime() {
+    return maxTime;
+  }
+
+  /**
+   * @param tagIndex index of the tag column among all the tag columns of the table
+   * @return 1 if no device has a value on this tag
+   */
+  public long getTagDistinctCount(int tagIndex) {
+    return tagIndex < tagDistinctCounts.length ? tagDistinctCounts[tagIndex] : 1;
+  }
+
+  public Optional<ColumnStatistics> getFieldStatistics(String columnName) {
+    return Optional.ofNullable(fieldStatistics.get(columnName));
+  }
+
+  @Override
+  public String toString() {
+    return "TableStatistics{rowCount="
+        + rowCount
+        + ", deviceCount="
+        + deviceCount
+        + ", minTime="
+        + minTime
+        + ", maxTime="
+        + maxTime
+        + '}';
+  }
+
+  public static class ColumnStatistics {
+
+    private final long nonNullCount;
+    private final double minValue;
+    private final double maxValue;
+
+    public ColumnStatistics(long nonNullCount, double minValue, double maxValue) {
+      this.nonNullCount = nonNullCount;
+      this.minValue = minValue;
+      this.maxValue = maxValue;
+    }
+
+    public long getNonNullCount() {
+      return nonNullCount;
+    }
+
+    /** @return NaN if the column is not numeric */
+    public double getMinValue() {
+      return minValue;
+    }
+
+    /** @return NaN if the column is not numeric */
+    public double getMaxValue() {
+      return maxValue;
+    }
+
+    public boolean hasRange() {
+      return !Double.isNaN(minValue) && !Double.isNaN(maxValue);
+    }
+  }
+}
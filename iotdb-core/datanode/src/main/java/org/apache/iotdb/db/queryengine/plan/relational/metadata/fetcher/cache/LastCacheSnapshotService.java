@@ -0,0 +1,452 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher.cache;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.commons.concurrent.threadpool.ScheduledExecutorUtil;
+import org.apache.iotdb.commons.conf.CommonDescriptor;
+import org.apache.iotdb.commons.file.SystemFileFactory;
+import org.apache.iotdb.commons.service.IService;
+import org.apache.iotdb.commons.service.ServiceType;
+import org.apache.iotdb.commons.utils.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.storageengine.StorageEngine;
+import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.TimeValuePair;
+import org.apache.tsfile.utils.ReadWriteIOUtils;
+import org.apache.tsfile.utils.TsPrimitiveType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persists the last caches in {@link TableDeviceSchemaCache} periodically and on shutdown, and
+ * reloads them when the DataNode restarts, so that the last queries don't need to read the TsFiles
+ * of every device again.
+ *
+ * <p>The last caches of a database are persisted only if the TsFiles of all its local data regions
+ * are sealed, together with a fingerprint of the TsFiles and their mods of each region. They are
+ * reloaded only if the regions of the database and their fingerprints are not changed, i.e. no
+ * data is written, deleted, loaded or compacted since they are persisted.
+ */
+public class LastCacheSnapshotService implements IService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LastCacheSnapshotService.class);
+
+  private static final String SNAPSHOT_FILE_NAME = "last_cache.snapshot";
+  private static final String SNAPSHOT_TMP_FILE_NAME = SNAPSHOT_FILE_NAME + ".tmp";
+
+  // Codes of a TimeValuePair in the snapshot
+  private static final byte EMPTY = 0;
+  private static final byte NO_VALUE = 1;
+  private static final byte NULL_VALUE = 2;
+  private static final byte VALUE = 3;
+
+  private final long snapshotIntervalInMs =
+      IoTDBDescriptor.getInstance().getConfig().getLastCacheSnapshotIntervalInMs();
+
+  private final File snapshotDir =
+      SystemFileFactory.INSTANCE.getFile(IoTDBDescriptor.getInstance().getConfig().getSystemDir());
+
+  private ScheduledExecutorService snapshotExecutor;
+
+  private Future<?> snapshotFuture;
+
+  // Avoid overwriting the snapshot before it is loaded
+  private volatile boolean isLoaded = false;
+
+  private LastCacheSnapshotService() {}
+
+  private boolean isEnabled() {
+    return snapshotIntervalInMs >= 0
+        && CommonDescriptor.getInstance().getConfig().isLastCacheEnable();
+  }
+
+  /** Shall be called after all the data regions are recovered and before serving queries. */
+  @Override
+  public void start() {
+    if (!isEnabled()) {
+      return;
+    }
+    loadSnapshot();
+    isLoaded = true;
+    if (snapshotIntervalInMs > 0) {
+      snapshotExecutor =
+          IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor(
+              ThreadName.LAST_CACHE_SNAPSHOT.getName());
+      snapshotFuture =
+          ScheduledExecutorUtil.safelyScheduleWithFixedDelay(
+              snapshotExecutor,
+              this::takeSnapshot,
+              snapshotIntervalInMs,
+              snapshotIntervalInMs,
+              TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (Objects.nonNull(snapshotFuture)) {
+      snapshotFuture.cancel(false);
+      snapshotFuture = null;
+    }
+    if (Objects.nonNull(snapshotExecutor)) {
+      snapshotExecutor.shutdown();
+      snapshotExecutor = null;
+    }
+  }
+
+  /**
+   * Persist the last caches of the databases whose TsFiles are all sealed. Shall be called on
+   * shutdown after all the TsFiles are sealed, so that all the last caches are persisted.
+   */
+  public synchronized void takeSnapshot() {
+    if (!isEnabled() || !isLoaded) {
+      return;
+    }
+    final long startTime = System.currentTimeMillis();
+    final File snapshotTmp =
+        SystemFileFactory.INSTANCE.getFile(snapshotDir, SNAPSHOT_TMP_FILE_NAME);
+    final File snapshot = SystemFileFactory.INSTANCE.getFile(snapshotDir, SNAPSHOT_FILE_NAME);
+    try {
+      final FileOutputStream fileOutputStream = new FileOutputStream(snapshotTmp);
+      final BufferedOutputStream outputStream = new BufferedOutputStream(fileOutputStream);
+      final int deviceNum;
+      try {
+        deviceNum = serialize(outputStream);
+      } finally {
+        outputStream.flush();
+        fileOutputStream.getFD().sync();
+        outputStream.close();
+      }
+      if (snapshot.exists() && !FileUtils.deleteFileIfExist(snapshot)) {
+        LOGGER.warn("Failed to delete old last cache snapshot {}", snapshot);
+        return;
+      }
+      if (!snapshotTmp.renameTo(snapshot)) {
+        LOGGER.warn("Failed to rename {} to {}", snapshotTmp, snapshot);
+        return;
+      }
+      LOGGER.info(
+          "Persisted the last caches of {} devices, which takes {} ms.",
+          deviceNum,
+          System.currentTimeMillis() - startTime);
+    } catch (final IOException e) {
+      LOGGER.warn("Failed to persist the last caches", e);
+    } finally {
+      FileUtils.deleteFileIfExist(snapshotTmp);
+    }
+  }
+
+  private void loadSnapshot() {
+    final File snapshot = SystemFileFactory.INSTANCE.getFile(snapshotDir, SNAPSHOT_FILE_NAME);
+    if (!snapshot.exists()) {
+      return;
+    }
+    final long startTime = System.currentTimeMillis();
+    final Map<String, Map<String, Long>> fingerprints = getFingerprints();
+    final Map<String, Map<String, Long>> loadedFingerprints;
+    try (final InputStream inputStream =
+        new BufferedInputStream(Files.newInputStream(snapshot.toPath()))) {
+      loadedFingerprints = deserialize(inputStream, fingerprints);
+    } catch (final IOException e) {
+      LOGGER.warn("Failed to load the last caches from {}", snapshot, e);
+      TableDeviceSchemaCache.getInstance().invalidateLastCache();
+      return;
+    }
+
+    // The data regions may have changed while loading
+    final Map<String, Map<String, Long>> currentFingerprints = getFingerprints();
+    final Iterator<Map.Entry<String, Map<String, Long>>> iterator =
+        loadedFingerprints.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<String, Map<String, Long>> entry = iterator.next();
+      if (!entry.getValue().equals(currentFingerprints.get(entry.getKey()))) {
+        TableDeviceSchemaCache.getInstance().invalidateLastCache(entry.getKey());
+        iterator.remove();
+      }
+    }
+    LOGGER.info(
+        "Loaded the last caches of databases {}, which takes {} ms.",
+        loadedFingerprints.keySet(),
+        System.currentTimeMillis() - startTime);
+  }
+
+  /** @return the number of the persisted devices */
+  private int serialize(final OutputStream stream) throws IOException {
+    int deviceNum = 0;
+    for (final Map.Entry<String, Map<String, Long>> entry : getFingerprints().entrySet()) {
+      final String database = entry.getKey();
+      ReadWriteIOUtils.write(true, stream);
+      ReadWriteIOUtils.write(database, stream);
+      ReadWriteIOUtils.write(entry.getValue().size(), stream);
+      for (final Map.Entry<String, Long> regionFingerprint : entry.getValue().entrySet()) {
+        ReadWriteIOUtils.write(regionFingerprint.getKey(), stream);
+        ReadWriteIOUtils.write(regionFingerprint.getValue(), stream);
+      }
+
+      final AtomicInteger databaseDeviceNum = new AtomicInteger(0);
+      try {
+        TableDeviceSchemaCache.getInstance()
+            .forEachLastCache(
+                database,
+                (deviceId, timeValuePairs) -> {
+                  try {
+                    ReadWriteIOUtils.write(true, stream);
+                    deviceId.serialize(stream);
+                    ReadWriteIOUtils.write(timeValuePairs.size(), stream);
+                    for (final Map.Entry<String, TimeValuePair> measurementEntry :
+                        timeValuePairs.entrySet()) {
+                      ReadWriteIOUtils.write(measurementEntry.getKey(), stream);
+                      serialize(measurementEntry.getValue(), stream);
+                    }
+                  } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                  databaseDeviceNum.incrementAndGet();
+                });
+      } catch (final UncheckedIOException e) {
+        throw e.getCause();
+      }
+      ReadWriteIOUtils.write(false, stream);
+      deviceNum += databaseDeviceNum.get();
+    }
+    ReadWriteIOUtils.write(false, stream);
+    return deviceNum;
+  }
+
+  /**
+   * Put the last caches of the databases whose data regions are not changed.
+   *
+   * @return database -> fingerprints of its data regions, for the loaded databases
+   */
+  private Map<String, Map<String, Long>> deserialize(
+      final InputStream stream, final Map<String, Map<String, Long>> fingerprints)
+      throws IOException {
+    final Map<String, Map<String, Long>> loadedFingerprints = new HashMap<>();
+    while (ReadWriteIOUtils.readBool(stream)) {
+      final String database = ReadWriteIOUtils.readString(stream);
+      final int regionNum = ReadWriteIOUtils.readInt(stream);
+      final Map<String, Long> regionFingerprints = new HashMap<>(regionNum);
+      for (int i = 0; i < regionNum; ++i) {
+        regionFingerprints.put(
+            ReadWriteIOUtils.readString(stream), ReadWriteIOUtils.readLong(stream));
+      }
+      final boolean isValid = regionFingerprints.equals(fingerprints.get(database));
+      if (isValid) {
+        loadedFingerprints.put(database, regionFingerprints);
+      }
+
+      while (ReadWriteIOUtils.readBool(stream)) {
+        final IDeviceID deviceId =
+            IDeviceID.Deserializer.DEFAULT_DESERIALIZER.deserializeFrom(stream);
+        final int measurementNum = ReadWriteIOUtils.readInt(stream);
+        final String[] measurements = new String[measurementNum];
+        final TimeValuePair[] timeValuePairs = new TimeValuePair[measurementNum];
+        for (int i = 0; i < measurementNum; ++i) {
+          measurements[i] = ReadWriteIOUtils.readString(stream);
+          timeValuePairs[i] = deserialize(stream);
+        }
+        if (isValid) {
+          TableDeviceSchemaCache.getInstance()
+              .putLastCache(database, deviceId, measurements, timeValuePairs);
+        }
+      }
+    }
+    return loadedFingerprints;
+  }
+
+  private static void serialize(final TimeValuePair timeValuePair, final OutputStream stream)
+      throws IOException {
+    if (timeValuePair == TableDeviceLastCache.EMPTY_TIME_VALUE_PAIR) {
+      ReadWriteIOUtils.write(EMPTY, stream);
+      return;
+    }
+    final TsPrimitiveType value = timeValuePair.getValue();
+    if (value == TableDeviceLastCache.EMPTY_PRIMITIVE_TYPE) {
+      ReadWriteIOUtils.write(NO_VALUE, stream);
+    } else if (Objects.isNull(value)) {
+      ReadWriteIOUtils.write(NULL_VALUE, stream);
+    } else {
+      ReadWriteIOUtils.write(VALUE, stream);
+    }
+    ReadWriteIOUtils.write(timeValuePair.getTimestamp(), stream);
+    if (Objects.isNull(value) || value == TableDeviceLastCache.EMPTY_PRIMITIVE_TYPE) {
+      return;
+    }
+    final TSDataType dataType = value.getDataType();
+    ReadWriteIOUtils.write(dataType, stream);
+    switch (dataType) {
+      case BOOLEAN:
+        ReadWriteIOUtils.write(value.getBoolean(), stream);
+        break;
+      case INT32:
+      case DATE:
+        ReadWriteIOUtils.write(value.getInt(), stream);
+        break;
+      case INT64:
+      case TIMESTAMP:
+        ReadWriteIOUtils.write(value.getLong(), stream);
+        break;
+      case FLOAT:
+        ReadWriteIOUtils.write(value.getFloat(), stream);
+        break;
+      case DOUBLE:
+        ReadWriteIOUtils.write(value.getDouble(), stream);
+        break;
+      default:
+        ReadWriteIOUtils.write(value.getBinary(), stream);
+        break;
+    }
+  }
+
+  private static TimeValuePair deserialize(final InputStream stream) throws IOException {
+    final byte code = ReadWriteIOUtils.readByte(stream);
+    if (code == EMPTY) {
+      return TableDeviceLastCache.EMPTY_TIME_VALUE_PAIR;
+    }
+    final long time = ReadWriteIOUtils.readLong(stream);
+    if (code == NO_VALUE) {
+      return new TimeValuePair(time, TableDeviceLastCache.EMPTY_PRIMITIVE_TYPE);
+    }
+    if (code == NULL_VALUE) {
+      return new TimeValuePair(time, null);
+    }
+    final TsPrimitiveType value;
+    switch (ReadWriteIOUtils.readDataType(stream)) {
+      case BOOLEAN:
+        value = new TsPrimitiveType.TsBoolean(ReadWriteIOUtils.readBool(stream));
+        break;
+      case INT32:
+      case DATE:
+        value = new TsPrimitiveType.TsInt(ReadWriteIOUtils.readInt(stream));
+        break;
+      case INT64:
+      case TIMESTAMP:
+        value = new TsPrimitiveType.TsLong(ReadWriteIOUtils.readLong(stream));
+        break;
+      case FLOAT:
+        value = new TsPrimitiveType.TsFloat(ReadWriteIOUtils.readFloat(stream));
+        break;
+      case DOUBLE:
+        value = new TsPrimitiveType.TsDouble(ReadWriteIOUtils.readDouble(stream));
+        break;
+      default:
+        value = new TsPrimitiveType.TsBinary(ReadWriteIOUtils.readBinary(stream));
+        break;
+    }
+    return new TimeValuePair(time, value);
+  }
+
+  /**
+   * @return database -> data region id -> fingerprint of the TsFiles of the region, only contains
+   *     the databases whose local TsFiles are all sealed
+   */
+  private static Map<String, Map<String, Long>> getFingerprints() {
+    final Map<String, Map<String, Long>> fingerprints = new HashMap<>();
+    final Map<String, Boolean> isSealed = new HashMap<>();
+    for (final DataRegion dataRegion : StorageEngine.getInstance().getAllDataRegions()) {
+      final String database = dataRegion.getDatabaseName();
+      final Long fingerprint = getFingerprint(dataRegion);
+      if (Objects.isNull(fingerprint)) {
+        isSealed.put(database, false);
+        continue;
+      }
+      isSealed.putIfAbsent(database, true);
+      fingerprints
+          .computeIfAbsent(database, k -> new HashMap<>())
+          .put(dataRegion.getDataRegionId(), fingerprint);
+    }
+    isSealed.forEach(
+        (database, sealed) -> {
+          if (!sealed) {
+            fingerprints.remove(database);
+          }
+        });
+    return fingerprints;
+  }
+
+  /** @return {@code null} if any TsFile of the region is not sealed */
+  private static Long getFingerprint(final DataRegion dataRegion) {
+    long fingerprint = 0;
+    for (final boolean sequence : new boolean[] {true, false}) {
+      for (final TsFileResource resource :
+          dataRegion.getTsFileManager().getTsFileList(sequence)) {
+        if (!resource.isClosed()) {
+          return null;
+        }
+        // Independent of the order of the TsFiles
+        fingerprint +=
+            mix(
+                resource.getTsFile().getPath().hashCode() * 31L
+                    + mix(resource.getTsFileSize())
+                    + mix(~resource.getTotalModSizeInByte()));
+      }
+    }
+    return fingerprint;
+  }
+
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.LAST_CACHE_SNAPSHOT_SERVICE;
+  }
+
+  public static LastCacheSnapshotService getInstance() {
+    return LastCacheSnapshotServiceHolder.INSTANCE;
+  }
+
+  private static class LastCacheSnapshotServiceHolder {
+
+    private static final LastCacheSnapshotService INSTANCE = new LastCacheSnapshotService();
+
+    private LastCacheSnapshotServiceHolder() {}
+  }
+}
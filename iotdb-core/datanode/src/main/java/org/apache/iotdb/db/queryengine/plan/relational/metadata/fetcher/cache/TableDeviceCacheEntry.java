@@ -208,6 +208,11 @@ public class TableDeviceCacheEntry {
     return Objects.nonNull(cache) ? cache.getTimeValuePair(measurement) : null;
   }
 
+  Map<String, TimeValuePair> getTimeValuePairs() {
+    final TableDeviceLastCache cache = lastCache.get();
+    return Objects.nonNull(cache) ? cache.getTimeValuePairs() : Collections.emptyMap();
+  }
+
   // Shall pass in "" if last by time
   Optional<Pair<OptionalLong, TsPrimitiveType[]>> getLastRow(
       final String sourceMeasurement, final List<String> targetMeasurements) {
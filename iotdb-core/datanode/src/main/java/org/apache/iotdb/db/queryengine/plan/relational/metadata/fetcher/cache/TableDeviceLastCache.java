@@ -23,6 +23,7 @@ import org.apache.iotdb.db.schemaengine.table.DataNodeTableCache;
 
 import org.apache.tsfile.enums.TSDataType;
 import org.apache.tsfile.read.TimeValuePair;
+import org.apache.tsfile.utils.Binary;
 import org.apache.tsfile.utils.Pair;
 import org.apache.tsfile.utils.RamUsageEstimator;
 import org.apache.tsfile.utils.TsPrimitiveType;
@@ -32,20 +33,26 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * The last cache of a device. The measurements are mapped to slots by a {@link MeasurementIndex},
+ * which is shared by all the devices of a table in table model, and each device only keeps the
+ * times and the primitive values of its slots, instead of a map entry, a {@link TimeValuePair} and
+ * a boxed {@link TsPrimitiveType} for each measurement.
+ */
 @ThreadSafe
 public class TableDeviceLastCache {
   static final int INSTANCE_SIZE =
-      (int) RamUsageEstimator.shallowSizeOfInstance(TableDeviceLastCache.class)
-          + (int) RamUsageEstimator.shallowSizeOfInstance(ConcurrentHashMap.class);
+      (int) RamUsageEstimator.shallowSizeOfInstance(TableDeviceLastCache.class);
 
   public static final TsPrimitiveType EMPTY_PRIMITIVE_TYPE =
       new TsPrimitiveType() {
@@ -84,188 +91,451 @@ public class TableDeviceLastCache {
       Optional.of(new Pair<>(OptionalLong.empty(), null));
   public static final TimeValuePair EMPTY_TIME_VALUE_PAIR =
       new TimeValuePair(Long.MIN_VALUE, EMPTY_PRIMITIVE_TYPE);
-  private static final TimeValuePair PLACEHOLDER_TIME_VALUE_PAIR =
-      new TimeValuePair(Long.MIN_VALUE, EMPTY_PRIMITIVE_TYPE);
+
+  // States of a slot
+  private static final byte ABSENT = 0;
+  // Put by "initOrInvalidate" and waiting for the value
+  private static final byte PLACEHOLDER = 1;
+  // EMPTY_TIME_VALUE_PAIR
+  private static final byte EMPTY = 2;
+  // The value is EMPTY_PRIMITIVE_TYPE, e.g. the time column
+  private static final byte NO_VALUE = 3;
+  private static final byte NULL_VALUE = 4;
+  private static final byte BOOLEAN = 5;
+  private static final byte INT = 6;
+  private static final byte LONG = 7;
+  private static final byte FLOAT = 8;
+  private static final byte DOUBLE = 9;
+  private static final byte BINARY = 10;
+
+  // Database -> table -> the index shared by the devices of the table
+  private static final Map<String, Map<String, MeasurementIndex>> TABLE_INDEX_MAP =
+      new ConcurrentHashMap<>();
 
   // Time is seen as "" as a measurement
-  private final Map<String, TimeValuePair> measurement2CachedLastMap = new ConcurrentHashMap<>();
+  @GuardedBy("this")
+  private MeasurementIndex index;
+
+  // Whether the index is shared with the other devices of the table, which is not counted in
+  // the size of this cache
+  @GuardedBy("this")
+  private boolean isIndexShared = false;
+
+  // Indexed by slot, allocated when a measurement is put
+  @GuardedBy("this")
+  private byte[] states;
+
+  @GuardedBy("this")
+  private long[] times;
 
-  int initOrInvalidate(
+  // The bits of BOOLEAN, INT, LONG, FLOAT and DOUBLE values
+  @GuardedBy("this")
+  private long[] values;
+
+  // Allocated when a BINARY value is put
+  @GuardedBy("this")
+  private Binary[] binaries;
+
+  @GuardedBy("this")
+  private int binariesSize = 0;
+
+  synchronized int initOrInvalidate(
       final String database,
       final String tableName,
       final String[] measurements,
       final boolean isInvalidate,
       final boolean isTableModel) {
-    final AtomicInteger diff = new AtomicInteger(0);
+    final int previousSize = estimateSize();
+    if (!isInvalidate) {
+      extendIndex(database, tableName, measurements, isTableModel);
+    }
+    if (Objects.isNull(index)) {
+      return 0;
+    }
 
     for (final String measurement : measurements) {
-      final String finalMeasurement =
-          !measurement2CachedLastMap.containsKey(measurement) && isTableModel
-              ? DataNodeTableCache.getInstance()
-                  .tryGetInternColumnName(database, tableName, measurement)
-              : measurement;
-
-      // Removing table measurement, do not put cache
-      if (Objects.isNull(finalMeasurement)) {
+      final int slot = index.getSlot(measurement);
+      if (getState(slot) != ABSENT) {
+        if (isInvalidate) {
+          clear(slot);
+        }
         continue;
       }
-      final TimeValuePair newPair = isInvalidate ? null : PLACEHOLDER_TIME_VALUE_PAIR;
-
-      measurement2CachedLastMap.compute(
-          finalMeasurement,
-          (measurementKey, tvPair) -> {
-            if (Objects.isNull(newPair)) {
-              diff.addAndGet(
-                  -((isTableModel ? 0 : (int) RamUsageEstimator.sizeOf(finalMeasurement))
-                      + getTVPairEntrySize(tvPair)));
-              return null;
-            }
-            if (Objects.isNull(tvPair)) {
-              diff.addAndGet(
-                  (isTableModel ? 0 : (int) RamUsageEstimator.sizeOf(finalMeasurement))
-                      + (int) RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY);
-              return newPair;
-            }
-            return tvPair;
-          });
-    }
-    return diff.get();
+      // Removing table measurement, do not put cache
+      if (!isInvalidate
+          && slot >= 0
+          && (!isTableModel
+              || Objects.nonNull(
+                  DataNodeTableCache.getInstance()
+                      .tryGetInternColumnName(database, tableName, measurement)))) {
+        ensureCapacity(slot);
+        states[slot] = PLACEHOLDER;
+        times[slot] = Long.MIN_VALUE;
+      }
+    }
+    return estimateSize() - previousSize;
   }
 
-  int tryUpdate(
+  private void extendIndex(
+      final String database,
+      final String tableName,
+      final String[] measurements,
+      final boolean isTableModel) {
+    if (Objects.nonNull(index) && index.containsAll(measurements)) {
+      return;
+    }
+    if (!isTableModel) {
+      index = (Objects.nonNull(index) ? index : new MeasurementIndex()).extend(measurements);
+      return;
+    }
+
+    final MeasurementIndex current = index;
+    final String[] internMeasurements = new String[measurements.length];
+    for (int i = 0; i < measurements.length; ++i) {
+      // Null for the indexed ones and the removing table measurements
+      if (Objects.isNull(current) || current.getSlot(measurements[i]) < 0) {
+        internMeasurements[i] =
+            DataNodeTableCache.getInstance()
+                .tryGetInternColumnName(database, tableName, measurements[i]);
+      }
+    }
+    final MeasurementIndex shared =
+        TABLE_INDEX_MAP
+            .computeIfAbsent(database, k -> new ConcurrentHashMap<>())
+            .compute(
+                tableName,
+                (table, sharedIndex) -> {
+                  if (Objects.isNull(sharedIndex)) {
+                    return (Objects.nonNull(current) ? current : new MeasurementIndex())
+                        .extend(internMeasurements);
+                  }
+                  return sharedIndex.isExtensionOf(current)
+                      ? sharedIndex.extend(internMeasurements)
+                      : sharedIndex;
+                });
+    // The slots of this device are kept in the extended index
+    if (shared.isExtensionOf(current)) {
+      index = shared;
+      isIndexShared = true;
+    } else {
+      index = current.extend(internMeasurements);
+      isIndexShared = false;
+    }
+  }
+
+  synchronized int tryUpdate(
       final @Nonnull String[] measurements, final @Nonnull TimeValuePair[] timeValuePairs) {
-    final AtomicInteger diff = new AtomicInteger(0);
+    if (Objects.isNull(index)) {
+      return 0;
+    }
+    final int previousSize = estimateSize();
     long lastTime = Long.MIN_VALUE;
 
     for (int i = 0; i < measurements.length; ++i) {
       if (Objects.isNull(timeValuePairs[i])) {
         continue;
       }
-      final int finalI = i;
       if (lastTime < timeValuePairs[i].getTimestamp()) {
         lastTime = timeValuePairs[i].getTimestamp();
       }
-      measurement2CachedLastMap.computeIfPresent(
-          measurements[i],
-          (measurement, tvPair) -> {
-            if (tvPair.getTimestamp() <= timeValuePairs[finalI].getTimestamp()) {
-              diff.addAndGet(getDiffSize(tvPair, timeValuePairs[finalI]));
-              return timeValuePairs[finalI];
-            }
-            return tvPair;
-          });
-    }
-    final long finalLastTime = lastTime;
-    measurement2CachedLastMap.computeIfPresent(
-        "",
-        (time, tvPair) ->
-            tvPair.getTimestamp() < finalLastTime
-                ? new TimeValuePair(finalLastTime, EMPTY_PRIMITIVE_TYPE)
-                : tvPair);
-    return diff.get();
+      final int slot = index.getSlot(measurements[i]);
+      if (getState(slot) != ABSENT && times[slot] <= timeValuePairs[i].getTimestamp()) {
+        set(slot, timeValuePairs[i]);
+      }
+    }
+    final int timeSlot = index.getSlot("");
+    if (getState(timeSlot) != ABSENT && times[timeSlot] < lastTime) {
+      clearBinary(timeSlot);
+      states[timeSlot] = NO_VALUE;
+      times[timeSlot] = lastTime;
+    }
+    return estimateSize() - previousSize;
   }
 
   @GuardedBy("DataRegionInsertLock#writeLock")
-  int invalidate(final String measurement, final boolean isTableModel) {
-    final AtomicInteger diff = new AtomicInteger();
-    final AtomicLong time = new AtomicLong();
-    measurement2CachedLastMap.computeIfPresent(
-        measurement,
-        (s, timeValuePair) -> {
-          diff.set(
-              (isTableModel ? 0 : (int) RamUsageEstimator.sizeOf(s))
-                  + getTVPairEntrySize(timeValuePair));
-          time.set(timeValuePair.getTimestamp());
-          return null;
-        });
-    if (diff.get() == 0) {
+  synchronized int invalidate(final String measurement, final boolean isTableModel) {
+    final int slot = Objects.nonNull(index) ? index.getSlot(measurement) : -1;
+    if (getState(slot) == ABSENT) {
       return 0;
     }
-    measurement2CachedLastMap.computeIfPresent(
-        "",
-        (s, timeValuePair) -> {
-          if (timeValuePair.getTimestamp() <= time.get()) {
-            diff.addAndGet(getTVPairEntrySize(timeValuePair));
-            return null;
-          }
-          return timeValuePair;
-        });
-
-    return diff.get();
-  }
+    final int previousSize = estimateSize();
+    final long time = times[slot];
+    clear(slot);
 
-  private int getTVPairEntrySize(final TimeValuePair tvPair) {
-    return (int) RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY
-        + ((Objects.isNull(tvPair)
-                || tvPair == PLACEHOLDER_TIME_VALUE_PAIR
-                || tvPair == EMPTY_TIME_VALUE_PAIR)
-            ? 0
-            : tvPair.getSize());
+    final int timeSlot = index.getSlot("");
+    if (getState(timeSlot) != ABSENT && times[timeSlot] <= time) {
+      clear(timeSlot);
+    }
+    return previousSize - estimateSize();
   }
 
   @Nullable
-  TimeValuePair getTimeValuePair(final @Nonnull String measurement) {
-    final TimeValuePair result = measurement2CachedLastMap.get(measurement);
-    return result != PLACEHOLDER_TIME_VALUE_PAIR ? result : null;
+  synchronized TimeValuePair getTimeValuePair(final @Nonnull String measurement) {
+    return getTimeValuePair(Objects.nonNull(index) ? index.getSlot(measurement) : -1);
+  }
+
+  // The measurements with a value, including "" for the time column
+  synchronized Map<String, TimeValuePair> getTimeValuePairs() {
+    if (Objects.isNull(index)) {
+      return Collections.emptyMap();
+    }
+    final Map<String, TimeValuePair> result = new HashMap<>();
+    for (final Map.Entry<String, Integer> entry : index.slotMap.entrySet()) {
+      final TimeValuePair timeValuePair = getTimeValuePair(entry.getValue());
+      if (Objects.nonNull(timeValuePair)) {
+        result.put(entry.getKey(), timeValuePair);
+      }
+    }
+    return result;
+  }
+
+  private TimeValuePair getTimeValuePair(final int slot) {
+    switch (getState(slot)) {
+      case ABSENT:
+      case PLACEHOLDER:
+        return null;
+      case EMPTY:
+        return EMPTY_TIME_VALUE_PAIR;
+      default:
+        return new TimeValuePair(times[slot], getValue(slot));
+    }
   }
 
   // Shall pass in "" if last by time
-  Optional<Pair<OptionalLong, TsPrimitiveType[]>> getLastRow(
+  synchronized Optional<Pair<OptionalLong, TsPrimitiveType[]>> getLastRow(
       final @Nonnull String sourceMeasurement, final List<String> targetMeasurements) {
-    final TimeValuePair pair = measurement2CachedLastMap.get(sourceMeasurement);
-    if (Objects.isNull(pair) || pair == PLACEHOLDER_TIME_VALUE_PAIR) {
+    final int sourceSlot = Objects.nonNull(index) ? index.getSlot(sourceMeasurement) : -1;
+    final byte sourceState = getState(sourceSlot);
+    if (sourceState == ABSENT || sourceState == PLACEHOLDER) {
       return Optional.empty();
     }
 
-    if (pair == EMPTY_TIME_VALUE_PAIR) {
+    if (sourceState == EMPTY) {
       return HIT_AND_ALL_NULL;
     }
-    final long alignTime = pair.getTimestamp();
-
-    return Optional.of(
-        new Pair<>(
-            OptionalLong.of(alignTime),
-            targetMeasurements.stream()
-                .map(
-                    targetMeasurement -> {
-                      if (!targetMeasurement.isEmpty()) {
-                        final TimeValuePair tvPair =
-                            measurement2CachedLastMap.get(targetMeasurement);
-                        if (Objects.isNull(tvPair)) {
-                          return null;
-                        }
-                        return tvPair.getTimestamp() == alignTime
-                            ? tvPair.getValue()
-                            : EMPTY_PRIMITIVE_TYPE;
-                      } else {
-                        return new TsPrimitiveType.TsLong(alignTime);
-                      }
-                    })
-                .toArray(TsPrimitiveType[]::new)));
+    final long alignTime = times[sourceSlot];
+
+    final TsPrimitiveType[] row = new TsPrimitiveType[targetMeasurements.size()];
+    for (int i = 0; i < row.length; ++i) {
+      final String targetMeasurement = targetMeasurements.get(i);
+      if (targetMeasurement.isEmpty()) {
+        row[i] = new TsPrimitiveType.TsLong(alignTime);
+        continue;
+      }
+      final int slot = index.getSlot(targetMeasurement);
+      if (getState(slot) != ABSENT) {
+        row[i] = times[slot] == alignTime ? getValue(slot) : EMPTY_PRIMITIVE_TYPE;
+      }
+    }
+    return Optional.of(new Pair<>(OptionalLong.of(alignTime), row));
   }
 
-  int estimateSize() {
+  synchronized int estimateSize() {
     return INSTANCE_SIZE
-        + (int) RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY * measurement2CachedLastMap.size()
-        + measurement2CachedLastMap.values().stream()
-            .mapToInt(TimeValuePair::getSize)
-            .reduce(0, Integer::sum);
+        + (Objects.nonNull(states)
+            ? (int)
+                (RamUsageEstimator.sizeOf(states)
+                    + RamUsageEstimator.sizeOf(times)
+                    + RamUsageEstimator.sizeOf(values))
+            : 0)
+        + (Objects.nonNull(binaries) ? (int) RamUsageEstimator.shallowSizeOf(binaries) : 0)
+        + binariesSize
+        + (Objects.nonNull(index) && !isIndexShared ? index.ramBytesUsed : 0);
+  }
+
+  private byte getState(final int slot) {
+    return slot >= 0 && Objects.nonNull(states) && slot < states.length ? states[slot] : ABSENT;
+  }
+
+  private void ensureCapacity(final int slot) {
+    if (Objects.nonNull(states) && slot < states.length) {
+      return;
+    }
+    final int length = Math.max(slot + 1, index.size());
+    if (Objects.isNull(states)) {
+      states = new byte[length];
+      times = new long[length];
+      values = new long[length];
+      return;
+    }
+    states = Arrays.copyOf(states, length);
+    times = Arrays.copyOf(times, length);
+    values = Arrays.copyOf(values, length);
+    if (Objects.nonNull(binaries)) {
+      binaries = Arrays.copyOf(binaries, length);
+    }
   }
 
-  private static int getDiffSize(
-      final TimeValuePair oldTimeValuePair, final TimeValuePair newTimeValuePair) {
-    if (oldTimeValuePair == EMPTY_TIME_VALUE_PAIR
-        || oldTimeValuePair == PLACEHOLDER_TIME_VALUE_PAIR) {
-      return newTimeValuePair.getSize();
-    }
-    final TsPrimitiveType oldValue = oldTimeValuePair.getValue();
-    final TsPrimitiveType newValue = newTimeValuePair.getValue();
-    if (oldValue == null) {
-      return newValue == null ? 0 : newValue.getSize();
-    } else if (oldValue instanceof TsPrimitiveType.TsBinary) {
-      return (newValue == null ? 0 : newValue.getSize()) - oldValue.getSize();
+  private void set(final int slot, final TimeValuePair timeValuePair) {
+    clearBinary(slot);
+    if (timeValuePair == EMPTY_TIME_VALUE_PAIR) {
+      states[slot] = EMPTY;
+      times[slot] = Long.MIN_VALUE;
+      return;
+    }
+    times[slot] = timeValuePair.getTimestamp();
+    final TsPrimitiveType value = timeValuePair.getValue();
+    if (Objects.isNull(value)) {
+      states[slot] = NULL_VALUE;
+    } else if (value == EMPTY_PRIMITIVE_TYPE) {
+      states[slot] = NO_VALUE;
+    } else if (value instanceof TsPrimitiveType.TsBoolean) {
+      states[slot] = BOOLEAN;
+      values[slot] = value.getBoolean() ? 1 : 0;
+    } else if (value instanceof TsPrimitiveType.TsInt) {
+      states[slot] = INT;
+      values[slot] = value.getInt();
+    } else if (value instanceof TsPrimitiveType.TsLong) {
+      states[slot] = LONG;
+      values[slot] = value.getLong();
+    } else if (value instanceof TsPrimitiveType.TsFloat) {
+      states[slot] = FLOAT;
+      values[slot] = Float.floatToRawIntBits(value.getFloat());
+    } else if (value instanceof TsPrimitiveType.TsDouble) {
+      states[slot] = DOUBLE;
+      values[slot] = Double.doubleToRawLongBits(value.getDouble());
+    } else if (value instanceof TsPrimitiveType.TsBinary) {
+      if (Objects.isNull(binaries)) {
+        binaries = new Binary[states.length];
+      }
+      states[slot] = BINARY;
+      binaries[slot] = value.getBinary();
+      binariesSize += (int) binaries[slot].ramBytesUsed();
     } else {
-      return newValue == null ? -oldValue.getSize() : 0;
+      // Not cacheable, drop the slot so that the later updates are not accepted either
+      states[slot] = ABSENT;
+    }
+  }
+
+  private TsPrimitiveType getValue(final int slot) {
+    switch (states[slot]) {
+      case NULL_VALUE:
+        return null;
+      case BOOLEAN:
+        return new TsPrimitiveType.TsBoolean(values[slot] != 0);
+      case INT:
+        return new TsPrimitiveType.TsInt((int) values[slot]);
+      case LONG:
+        return new TsPrimitiveType.TsLong(values[slot]);
+      case FLOAT:
+        return new TsPrimitiveType.TsFloat(Float.intBitsToFloat((int) values[slot]));
+      case DOUBLE:
+        return new TsPrimitiveType.TsDouble(Double.longBitsToDouble(values[slot]));
+      case BINARY:
+        return new TsPrimitiveType.TsBinary(binaries[slot]);
+      default:
+        return EMPTY_PRIMITIVE_TYPE;
+    }
+  }
+
+  private void clear(final int slot) {
+    clearBinary(slot);
+    states[slot] = ABSENT;
+  }
+
+  private void clearBinary(final int slot) {
+    if (Objects.nonNull(binaries) && Objects.nonNull(binaries[slot])) {
+      binariesSize -= (int) binaries[slot].ramBytesUsed();
+      binaries[slot] = null;
+    }
+  }
+
+  /** Shall be called when the devices of the database are invalidated. */
+  static void invalidateIndex(final String database) {
+    TABLE_INDEX_MAP.remove(database);
+  }
+
+  /** Shall be called when the devices of the table are invalidated. */
+  static void invalidateIndex(final String database, final String tableName) {
+    final Map<String, MeasurementIndex> tableIndexMap = TABLE_INDEX_MAP.get(database);
+    if (Objects.nonNull(tableIndexMap)) {
+      tableIndexMap.remove(tableName);
+    }
+  }
+
+  static void invalidateAllIndexes() {
+    TABLE_INDEX_MAP.clear();
+  }
+
+  /**
+   * Maps the measurements to slots. It is immutable and only extended by appending slots, thus the
+   * slots of a device are still valid in the indexes extended from its index.
+   */
+  private static class MeasurementIndex {
+
+    private static final int INSTANCE_SIZE =
+        (int)
+            (RamUsageEstimator.shallowSizeOfInstance(MeasurementIndex.class)
+                + RamUsageEstimator.shallowSizeOfInstance(HashMap.class));
+
+    private final Map<String, Integer> slotMap;
+    private final int ramBytesUsed;
+
+    private MeasurementIndex() {
+      this(new HashMap<>(), INSTANCE_SIZE);
+    }
+
+    private MeasurementIndex(final Map<String, Integer> slotMap, final int ramBytesUsed) {
+      this.slotMap = slotMap;
+      this.ramBytesUsed = ramBytesUsed;
+    }
+
+    private int getSlot(final String measurement) {
+      final Integer slot = slotMap.get(measurement);
+      return Objects.nonNull(slot) ? slot : -1;
+    }
+
+    private int size() {
+      return slotMap.size();
+    }
+
+    private boolean containsAll(final String[] measurements) {
+      for (final String measurement : measurements) {
+        if (!slotMap.containsKey(measurement)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // Whether the slots of the index are the same in this one
+    private boolean isExtensionOf(final @Nullable MeasurementIndex index) {
+      if (Objects.isNull(index) || index == this) {
+        return true;
+      }
+      if (size() < index.size()) {
+        return false;
+      }
+      for (final Map.Entry<String, Integer> entry : index.slotMap.entrySet()) {
+        if (!entry.getValue().equals(slotMap.get(entry.getKey()))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // The null measurements are ignored
+    private MeasurementIndex extend(final String[] measurements) {
+      Map<String, Integer> newSlotMap = null;
+      int newRamBytesUsed = ramBytesUsed;
+      for (final String measurement : measurements) {
+        if (Objects.isNull(measurement) || slotMap.containsKey(measurement)) {
+          continue;
+        }
+        if (Objects.isNull(newSlotMap)) {
+          newSlotMap = new HashMap<>(slotMap);
+        }
+        if (!newSlotMap.containsKey(measurement)) {
+          newSlotMap.put(measurement, newSlotMap.size());
+          newRamBytesUsed +=
+              (int)
+                  (RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY
+                      + RamUsageEstimator.sizeOf(measurement));
+        }
+      }
+      return Objects.nonNull(newSlotMap)
+          ? new MeasurementIndex(newSlotMap, newRamBytesUsed)
+          : this;
     }
   }
 }
@@ -60,6 +60,7 @@ import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
 import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
@@ -509,6 +510,66 @@ public class TableDeviceSchemaCache {
     }
   }
 
+  /////////////////////////////// Snapshot ///////////////////////////////
+
+  // Shall be accessed through "LastCacheSnapshotService"
+
+  /**
+   * Visit the last caches of the devices of a database, with "" for the time column.
+   *
+   * @param database the devices' database, WITH "root" iff it is of tree model
+   */
+  void forEachLastCache(
+      final String database, final BiConsumer<IDeviceID, Map<String, TimeValuePair>> visitor) {
+    final boolean isTableModel = PathUtils.isTableModelDatabase(database);
+    dualKeyCache.forEach(
+        tableId ->
+            isTableModel ? tableId.belongTo(database) : Objects.isNull(tableId.getDatabase()),
+        (deviceId, entry) -> {
+          if (!isTableModel && !deviceId.matchDatabaseName(database)) {
+            return;
+          }
+          final Map<String, TimeValuePair> timeValuePairs = entry.getTimeValuePairs();
+          if (!timeValuePairs.isEmpty()) {
+            visitor.accept(deviceId, timeValuePairs);
+          }
+        });
+  }
+
+  /**
+   * Put the last cache of a device loaded from the snapshot. The newer values put by writing are
+   * kept.
+   *
+   * @param database the device's database, WITH "root" iff it is of tree model
+   */
+  void putLastCache(
+      final String database,
+      final IDeviceID deviceId,
+      final String[] measurements,
+      final TimeValuePair[] timeValuePairs) {
+    final boolean isTableModel = PathUtils.isTableModelDatabase(database);
+    readWriteLock.readLock().lock();
+    try {
+      // Avoid stale table
+      if (isTableModel
+          && Objects.isNull(
+              DataNodeTableCache.getInstance().getTable(database, deviceId.getTableName()))) {
+        return;
+      }
+      dualKeyCache.update(
+          new TableId(isTableModel ? database : null, deviceId.getTableName()),
+          deviceId,
+          new TableDeviceCacheEntry(),
+          entry ->
+              entry.initOrInvalidateLastCache(
+                      database, deviceId.getTableName(), measurements, false, isTableModel)
+                  + entry.tryUpdateLastCache(measurements, timeValuePairs),
+          true);
+    } finally {
+      readWriteLock.readLock().unlock();
+    }
+  }
+
   /////////////////////////////// Management  ///////////////////////////////
 
   long getHitCount() {
@@ -564,6 +625,7 @@ public class TableDeviceSchemaCache {
     try {
       if (PathUtils.isTableModelDatabase(database)) {
         dualKeyCache.invalidate(tableId -> tableId.belongTo(database), deviceID -> true);
+        TableDeviceLastCache.invalidateIndex(database);
       } else {
         dualKeyCache.invalidate(
             tableId ->
@@ -588,6 +650,7 @@ public class TableDeviceSchemaCache {
       // Table cache's invalidate must be guarded by this lock
       DataNodeTableCache.getInstance().invalid(database, tableName);
       dualKeyCache.invalidate(new TableId(database, tableName));
+      TableDeviceLastCache.invalidateIndex(database, tableName);
     } finally {
       readWriteLock.writeLock().unlock();
     }
@@ -694,6 +757,7 @@ public class TableDeviceSchemaCache {
     readWriteLock.writeLock().lock();
     try {
       dualKeyCache.invalidateAll();
+      TableDeviceLastCache.invalidateAllIndexes();
     } finally {
       readWriteLock.writeLock().unlock();
     }
@@ -42,6 +42,7 @@ import org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations.Dat
 import org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations.PlanOptimizer;
 import org.apache.iotdb.db.queryengine.plan.relational.security.AccessControl;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.LoadTsFile;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ParameterizedStatement;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.PipeEnriched;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Statement;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.WrappedInsertStatement;
@@ -123,6 +124,18 @@ public class TableModelPlanner implements IPlanner {
 
   @Override
   public IAnalysis analyze(final MPPQueryContext context) {
+    if (statement instanceof ParameterizedStatement) {
+      final ParameterizedStatement parameterizedStatement = (ParameterizedStatement) statement;
+      return new Analyzer(
+              context,
+              context.getSession(),
+              new StatementAnalyzerFactory(metadata, sqlParser, accessControl),
+              parameterizedStatement.getParameters(),
+              parameterizedStatement.getParameterLookup(),
+              statementRewrite,
+              warningCollector)
+          .analyze(parameterizedStatement.getInnerStatement());
+    }
     return new Analyzer(
             context,
             context.getSession(),
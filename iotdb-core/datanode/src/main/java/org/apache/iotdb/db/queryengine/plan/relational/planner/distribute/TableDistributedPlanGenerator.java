@@ -27,6 +27,7 @@ import org.apache.iotdb.commons.partition.DataPartition;
 import org.apache.iotdb.commons.partition.SchemaPartition;
 import org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory;
 import org.apache.iotdb.commons.utils.TimePartitionUtils;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.sql.SemanticException;
 import org.apache.iotdb.db.queryengine.common.MPPQueryContext;
 import org.apache.iotdb.db.queryengine.common.QueryId;
@@ -43,6 +44,7 @@ import org.apache.iotdb.db.queryengine.plan.relational.analyzer.Analysis;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.AlignedDeviceEntry;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.ColumnSchema;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.DeviceEntry;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.Metadata;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.OrderingScheme;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.SortOrder;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
@@ -80,6 +82,7 @@ import org.apache.iotdb.db.queryengine.plan.relational.planner.node.schema.Table
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.schema.TableDeviceQueryCountNode;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.schema.TableDeviceQueryScanNode;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations.DataNodeLocationSupplierFactory;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations.PlanNodeStatsEstimator;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations.PushPredicateIntoTableScan;
 import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
 
@@ -128,16 +131,22 @@ public class TableDistributedPlanGenerator
   private final Map<PlanNodeId, OrderingScheme> nodeOrderingMap = new HashMap<>();
   private final DataNodeLocationSupplierFactory.DataNodeLocationSupplier dataNodeLocationSupplier;
   private final ClusterTopology topology = ClusterTopology.getInstance();
+  private final PlanNodeStatsEstimator statsEstimator;
+
+  // the partial aggregation is skipped if it is estimated to reduce the rows by less than this
+  private static final double MIN_PARTIAL_AGGREGATION_REDUCTION = 0.2;
 
   public TableDistributedPlanGenerator(
       final MPPQueryContext queryContext,
       final Analysis analysis,
+      final Metadata metadata,
       final SymbolAllocator symbolAllocator,
       final DataNodeLocationSupplierFactory.DataNodeLocationSupplier dataNodeLocationSupplier) {
     this.queryId = queryContext.getQueryId();
     this.analysis = analysis;
     this.symbolAllocator = symbolAllocator;
     this.dataNodeLocationSupplier = dataNodeLocationSupplier;
+    this.statsEstimator = new PlanNodeStatsEstimator(metadata, queryContext.getSession());
   }
 
   public List<PlanNode> genResult(final PlanNode node, final PlanContext context) {
@@ -425,18 +434,17 @@ public class TableDistributedPlanGenerator
 
     List<PlanNode> leftChildrenNodes = node.getLeftChild().accept(this, context);
     List<PlanNode> rightChildrenNodes = node.getRightChild().accept(this, context);
-    if (!node.isCrossJoin()) {
-      // child of JoinNode(excluding CrossJoin) must be SortNode, so after rewritten, the child must
-      // be MergeSortNode or
-      // SortNode
+    if (!node.isCrossJoin() && !node.isHashJoin()) {
+      // child of JoinNode(excluding CrossJoin and HashJoin) must be SortNode, so after rewritten,
+      // the child must be MergeSortNode or SortNode
       checkArgument(
           leftChildrenNodes.size() == 1, "The size of left children node of JoinNode should be 1");
       checkArgument(
           rightChildrenNodes.size() == 1,
           "The size of right children node of JoinNode should be 1");
     }
-    // For CrossJoinNode, we need to merge children nodes(It's safe for other JoinNodes here since
-    // the size of their children is always 1.)
+    // For CrossJoin and HashJoin, we need to merge children nodes(It's safe for other
+    // JoinNodes here since the size of their children is always 1.)
     node.setLeftChild(
         mergeChildrenViaCollectOrMergeSort(
             nodeOrderingMap.get(node.getLeftChild().getPlanNodeId()), leftChildrenNodes));
@@ -450,6 +458,16 @@ public class TableDistributedPlanGenerator
   public List<PlanNode> visitSemiJoin(SemiJoinNode node, PlanContext context) {
     List<PlanNode> leftChildrenNodes = node.getLeftChild().accept(this, context);
     List<PlanNode> rightChildrenNodes = node.getRightChild().accept(this, context);
+    if (node.isHashJoin()) {
+      // children of hash semi join are not required to be sorted, so they can be merged directly
+      node.setLeftChild(
+          mergeChildrenViaCollectOrMergeSort(
+              nodeOrderingMap.get(node.getLeftChild().getPlanNodeId()), leftChildrenNodes));
+      node.setRightChild(
+          mergeChildrenViaCollectOrMergeSort(
+              nodeOrderingMap.get(node.getRightChild().getPlanNodeId()), rightChildrenNodes));
+      return Collections.singletonList(node);
+    }
     checkArgument(
         leftChildrenNodes.size() == 1,
         "The size of left children node of SemiJoinNode should be 1");
@@ -507,6 +525,7 @@ public class TableDistributedPlanGenerator
                           node.getPushDownOffset(),
                           node.isPushLimitToEachDevice(),
                           node.containsNonAlignedDevice());
+                  scanNode.setDynamicFilters(node.getDynamicFilters());
                   scanNode.setRegionReplicaSet(regionReplicaSet);
                   return scanNode;
                 });
@@ -701,6 +720,8 @@ public class TableDistributedPlanGenerator
 
   @Override
   public List<PlanNode> visitAggregation(AggregationNode node, PlanContext context) {
+    // estimate on the logical plan, before the child is split by regions
+    boolean partialAggregationUseless = isPartialAggregationUseless(node);
     if (node.isStreamable()) {
       OrderingScheme expectedOrderingSchema = constructOrderingSchema(node.getPreGroupedSymbols());
       context.setExpectedOrderingScheme(expectedOrderingSchema);
@@ -719,8 +740,11 @@ public class TableDistributedPlanGenerator
     // We cannot do multi-stage Aggregate if any aggregation-function is distinct.
     // For Aggregation with mask, there is no need to do multi-stage Aggregate because the
     // MarkDistinctNode will merge all data from different child.
-    if (node.getAggregations().values().stream()
-        .anyMatch(aggregation -> aggregation.isDistinct() || aggregation.hasMask())) {
+    // The partial aggregation is also skipped if nearly every row is a group of its own, because it
+    // only adds the cost of hashing without reducing the data transferred to the final aggregation.
+    if (partialAggregationUseless
+        || node.getAggregations().values().stream()
+            .anyMatch(aggregation -> aggregation.isDistinct() || aggregation.hasMask())) {
       node.setChild(
           mergeChildrenViaCollectOrMergeSort(
               nodeOrderingMap.get(childrenNodes.get(0).getPlanNodeId()), childrenNodes));
@@ -757,6 +781,17 @@ public class TableDistributedPlanGenerator
     return Collections.singletonList(splitResult.left);
   }
 
+  private boolean isPartialAggregationUseless(AggregationNode node) {
+    if (!IoTDBDescriptor.getInstance().getConfig().isEnableCostBasedOptimization()
+        || node.getGroupingKeys().isEmpty()) {
+      return false;
+    }
+    double inputRowCount = statsEstimator.estimateRowCount(node.getChild());
+    double groupCount = statsEstimator.estimateRowCount(node);
+    // comparisons with NaN are always false, so unknown estimates keep the partial aggregation
+    return groupCount >= inputRowCount * (1 - MIN_PARTIAL_AGGREGATION_REDUCTION);
+  }
+
   @Override
   public List<PlanNode> visitAggregationTableScan(
       AggregationTableScanNode node, PlanContext context) {
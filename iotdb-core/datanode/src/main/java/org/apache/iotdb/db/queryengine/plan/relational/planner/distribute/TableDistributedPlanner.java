@@ -120,7 +120,7 @@ public class TableDistributedPlanner {
 
     List<PlanNode> distributedPlanResult =
         new TableDistributedPlanGenerator(
-                mppQueryContext, analysis, symbolAllocator, dataNodeLocationSupplier)
+                mppQueryContext, analysis, metadata, symbolAllocator, dataNodeLocationSupplier)
             .genResult(logicalQueryPlan.getRootNode(), planContext);
     checkArgument(distributedPlanResult.size() == 1, "Root node must return only one");
 
@@ -109,7 +109,7 @@ public class PruneTableScanColumns extends ProjectOffPushDownRule<TableScanNode>
                 treeDeviceViewScanNode.getTreeDBName(),
                 treeDeviceViewScanNode.getMeasurementColumnNameMap()));
       } else {
-        return Optional.of(
+        DeviceTableScanNode newNode =
             new DeviceTableScanNode(
                 deviceTableScanNode.getPlanNodeId(),
                 deviceTableScanNode.getQualifiedObjectName(),
@@ -123,7 +123,9 @@ public class PruneTableScanColumns extends ProjectOffPushDownRule<TableScanNode>
                 deviceTableScanNode.getPushDownLimit(),
                 deviceTableScanNode.getPushDownOffset(),
                 deviceTableScanNode.isPushLimitToEachDevice(),
-                deviceTableScanNode.containsNonAlignedDevice()));
+                deviceTableScanNode.containsNonAlignedDevice());
+        newNode.setDynamicFilters(deviceTableScanNode.getDynamicFilters());
+        return Optional.of(newNode);
       }
     } else if (node instanceof InformationSchemaTableScanNode) {
       // For the convenience of process in execution stage, column-prune for
@@ -41,6 +41,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 public class DeviceTableScanNode extends TableScanNode {
@@ -76,6 +77,10 @@ public class DeviceTableScanNode extends TableScanNode {
 
   protected transient boolean containsNonAlignedDevice;
 
+  // DynamicFilters applied on this scan, key is the id of DynamicFilter, value is the TAG,
+  // ATTRIBUTE or TIME column which the DynamicFilter is applied on
+  protected Map<String, Symbol> dynamicFilters = new HashMap<>();
+
   protected DeviceTableScanNode() {}
 
   public DeviceTableScanNode(
@@ -126,20 +131,23 @@ public class DeviceTableScanNode extends TableScanNode {
 
   @Override
   public DeviceTableScanNode clone() {
-    return new DeviceTableScanNode(
-        getPlanNodeId(),
-        qualifiedObjectName,
-        outputSymbols,
-        assignments,
-        deviceEntries,
-        idAndAttributeIndexMap,
-        scanOrder,
-        timePredicate,
-        pushDownPredicate,
-        pushDownLimit,
-        pushDownOffset,
-        pushLimitToEachDevice,
-        containsNonAlignedDevice);
+    DeviceTableScanNode node =
+        new DeviceTableScanNode(
+            getPlanNodeId(),
+            qualifiedObjectName,
+            outputSymbols,
+            assignments,
+            deviceEntries,
+            idAndAttributeIndexMap,
+            scanOrder,
+            timePredicate,
+            pushDownPredicate,
+            pushDownLimit,
+            pushDownOffset,
+            pushLimitToEachDevice,
+            containsNonAlignedDevice);
+    node.setDynamicFilters(dynamicFilters);
+    return node;
   }
 
   protected static void serializeMemberVariables(
@@ -167,6 +175,12 @@ public class DeviceTableScanNode extends TableScanNode {
     }
 
     ReadWriteIOUtils.write(node.pushLimitToEachDevice, byteBuffer);
+
+    ReadWriteIOUtils.write(node.dynamicFilters.size(), byteBuffer);
+    for (Map.Entry<String, Symbol> entry : node.dynamicFilters.entrySet()) {
+      ReadWriteIOUtils.write(entry.getKey(), byteBuffer);
+      Symbol.serialize(entry.getValue(), byteBuffer);
+    }
   }
 
   protected static void serializeMemberVariables(
@@ -195,6 +209,12 @@ public class DeviceTableScanNode extends TableScanNode {
     }
 
     ReadWriteIOUtils.write(node.pushLimitToEachDevice, stream);
+
+    ReadWriteIOUtils.write(node.dynamicFilters.size(), stream);
+    for (Map.Entry<String, Symbol> entry : node.dynamicFilters.entrySet()) {
+      ReadWriteIOUtils.write(entry.getKey(), stream);
+      Symbol.serialize(entry.getValue(), stream);
+    }
   }
 
   protected static void deserializeMemberVariables(
@@ -224,6 +244,13 @@ public class DeviceTableScanNode extends TableScanNode {
     }
 
     node.pushLimitToEachDevice = ReadWriteIOUtils.readBool(byteBuffer);
+
+    size = ReadWriteIOUtils.readInt(byteBuffer);
+    Map<String, Symbol> dynamicFilters = new HashMap<>(size);
+    while (size-- > 0) {
+      dynamicFilters.put(ReadWriteIOUtils.readString(byteBuffer), Symbol.deserialize(byteBuffer));
+    }
+    node.dynamicFilters = dynamicFilters;
   }
 
   @Override
@@ -304,6 +331,38 @@ public class DeviceTableScanNode extends TableScanNode {
     this.containsNonAlignedDevice = true;
   }
 
+  public Map<String, Symbol> getDynamicFilters() {
+    return dynamicFilters;
+  }
+
+  public void setDynamicFilters(Map<String, Symbol> dynamicFilters) {
+    this.dynamicFilters = new HashMap<>(dynamicFilters);
+  }
+
+  public void addDynamicFilter(String filterId, Symbol symbol) {
+    this.dynamicFilters.put(filterId, symbol);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    if (!super.equals(o)) {
+      return false;
+    }
+    DeviceTableScanNode that = (DeviceTableScanNode) o;
+    return Objects.equals(dynamicFilters, that.dynamicFilters);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), dynamicFilters);
+  }
+
   public String toString() {
     return "DeviceTableScanNode-" + this.getPlanNodeId();
   }
@@ -56,6 +56,9 @@ public class JoinNode extends TwoChildProcessNode {
   // some filter like 'a.xx_column < b.yy_column'
   private final Optional<Expression> filter;
   private final Optional<Boolean> spillable;
+  // whether this join is executed by hash join, otherwise both children are sorted on join keys
+  // and it is executed by merge sort join
+  private final boolean hashJoin;
 
   // private final boolean maySkipOutputDuplicates;
   // private final Optional<Symbol> leftHashSymbol;
@@ -73,6 +76,30 @@ public class JoinNode extends TwoChildProcessNode {
       List<Symbol> rightOutputSymbols,
       Optional<Expression> filter,
       Optional<Boolean> spillable) {
+    this(
+        id,
+        joinType,
+        leftChild,
+        rightChild,
+        criteria,
+        leftOutputSymbols,
+        rightOutputSymbols,
+        filter,
+        spillable,
+        false);
+  }
+
+  public JoinNode(
+      PlanNodeId id,
+      JoinType joinType,
+      PlanNode leftChild,
+      PlanNode rightChild,
+      List<EquiJoinClause> criteria,
+      List<Symbol> leftOutputSymbols,
+      List<Symbol> rightOutputSymbols,
+      Optional<Expression> filter,
+      Optional<Boolean> spillable,
+      boolean hashJoin) {
     super(id);
     requireNonNull(joinType, "type is null");
     requireNonNull(leftChild, "left is null");
@@ -100,6 +127,7 @@ public class JoinNode extends TwoChildProcessNode {
     this.rightOutputSymbols = ImmutableList.copyOf(rightOutputSymbols);
     this.filter = filter;
     this.spillable = spillable;
+    this.hashJoin = hashJoin;
     // this.maySkipOutputDuplicates = maySkipOutputDuplicates;
     // this.leftHashSymbol = leftHashSymbol;
     // this.rightHashSymbol = rightHashSymbol;
@@ -136,7 +164,8 @@ public class JoinNode extends TwoChildProcessNode {
       JoinType joinType,
       List<EquiJoinClause> criteria,
       List<Symbol> leftOutputSymbols,
-      List<Symbol> rightOutputSymbols) {
+      List<Symbol> rightOutputSymbols,
+      boolean hashJoin) {
     super(id);
     requireNonNull(joinType, "type is null");
     requireNonNull(criteria, "criteria is null");
@@ -145,6 +174,7 @@ public class JoinNode extends TwoChildProcessNode {
     this.rightOutputSymbols = rightOutputSymbols;
     this.filter = Optional.empty();
     this.spillable = Optional.empty();
+    this.hashJoin = hashJoin;
 
     this.joinType = joinType;
     this.criteria = criteria;
@@ -167,7 +197,8 @@ public class JoinNode extends TwoChildProcessNode {
         leftOutputSymbols,
         rightOutputSymbols,
         filter,
-        spillable);
+        spillable,
+        hashJoin);
   }
 
   @Override
@@ -190,7 +221,8 @@ public class JoinNode extends TwoChildProcessNode {
             leftOutputSymbols,
             rightOutputSymbols,
             filter,
-            spillable);
+            spillable,
+            hashJoin);
     joinNode.setLeftChild(null);
     joinNode.setRightChild(null);
     return joinNode;
@@ -221,6 +253,8 @@ public class JoinNode extends TwoChildProcessNode {
     for (Symbol rightOutputSymbol : rightOutputSymbols) {
       Symbol.serialize(rightOutputSymbol, byteBuffer);
     }
+
+    ReadWriteIOUtils.write(hashJoin, byteBuffer);
   }
 
   @Override
@@ -243,6 +277,8 @@ public class JoinNode extends TwoChildProcessNode {
     for (Symbol rightOutputSymbol : rightOutputSymbols) {
       Symbol.serialize(rightOutputSymbol, stream);
     }
+
+    ReadWriteIOUtils.write(hashJoin, stream);
   }
 
   public static JoinNode deserialize(ByteBuffer byteBuffer) {
@@ -266,8 +302,11 @@ public class JoinNode extends TwoChildProcessNode {
       rightOutputSymbols.add(Symbol.deserialize(byteBuffer));
     }
 
+    boolean hashJoin = ReadWriteIOUtils.readBool(byteBuffer);
+
     PlanNodeId planNodeId = PlanNodeId.deserialize(byteBuffer);
-    return new JoinNode(planNodeId, joinType, criteria, leftOutputSymbols, rightOutputSymbols);
+    return new JoinNode(
+        planNodeId, joinType, criteria, leftOutputSymbols, rightOutputSymbols, hashJoin);
   }
 
   public JoinType getJoinType() {
@@ -294,10 +333,43 @@ public class JoinNode extends TwoChildProcessNode {
     return spillable;
   }
 
+  public boolean isHashJoin() {
+    return hashJoin;
+  }
+
   public boolean isCrossJoin() {
     return criteria.isEmpty() && !filter.isPresent() && joinType == INNER;
   }
 
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+
+    if (obj == null || !this.getClass().equals(obj.getClass())) {
+      return false;
+    }
+
+    if (!super.equals(obj)) {
+      return false;
+    }
+
+    JoinNode other = (JoinNode) obj;
+
+    return joinType == other.joinType
+        && Objects.equals(this.criteria, other.criteria)
+        && Objects.equals(this.leftOutputSymbols, other.leftOutputSymbols)
+        && Objects.equals(this.rightOutputSymbols, other.rightOutputSymbols)
+        && this.hashJoin == other.hashJoin;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        super.hashCode(), joinType, criteria, leftOutputSymbols, rightOutputSymbols, hashJoin);
+  }
+
   @Override
   public String toString() {
     return "JoinNode-" + this.getPlanNodeId();
@@ -27,6 +27,7 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.node.process.TwoChildPr
 import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
 
 import com.google.common.collect.ImmutableList;
+import org.apache.tsfile.utils.ReadWriteIOUtils;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -41,6 +42,9 @@ public class SemiJoinNode extends TwoChildProcessNode {
   private final Symbol sourceJoinSymbol;
   private final Symbol filteringSourceJoinSymbol;
   private final Symbol semiJoinOutput;
+  // whether this semi join is executed by hash join, otherwise both children are sorted on join
+  // keys and it is executed by merge sort join
+  private final boolean hashJoin;
 
   public SemiJoinNode(
       PlanNodeId id,
@@ -49,11 +53,30 @@ public class SemiJoinNode extends TwoChildProcessNode {
       Symbol sourceJoinSymbol,
       Symbol filteringSourceJoinSymbol,
       Symbol semiJoinOutput) {
+    this(
+        id,
+        source,
+        filteringSource,
+        sourceJoinSymbol,
+        filteringSourceJoinSymbol,
+        semiJoinOutput,
+        false);
+  }
+
+  public SemiJoinNode(
+      PlanNodeId id,
+      PlanNode source,
+      PlanNode filteringSource,
+      Symbol sourceJoinSymbol,
+      Symbol filteringSourceJoinSymbol,
+      Symbol semiJoinOutput,
+      boolean hashJoin) {
     super(id, source, filteringSource);
     this.sourceJoinSymbol = requireNonNull(sourceJoinSymbol, "sourceJoinSymbol is null");
     this.filteringSourceJoinSymbol =
         requireNonNull(filteringSourceJoinSymbol, "filteringSourceJoinSymbol is null");
     this.semiJoinOutput = requireNonNull(semiJoinOutput, "semiJoinOutput is null");
+    this.hashJoin = hashJoin;
 
     if (source != null) {
       checkArgument(
@@ -88,6 +111,10 @@ public class SemiJoinNode extends TwoChildProcessNode {
     return semiJoinOutput;
   }
 
+  public boolean isHashJoin() {
+    return hashJoin;
+  }
+
   @Override
   public List<Symbol> getOutputSymbols() {
     return ImmutableList.<Symbol>builder()
@@ -110,14 +137,21 @@ public class SemiJoinNode extends TwoChildProcessNode {
         newChildren.get(1),
         sourceJoinSymbol,
         filteringSourceJoinSymbol,
-        semiJoinOutput);
+        semiJoinOutput,
+        hashJoin);
   }
 
   @Override
   public PlanNode clone() {
     // clone without children
     return new SemiJoinNode(
-        getPlanNodeId(), null, null, sourceJoinSymbol, filteringSourceJoinSymbol, semiJoinOutput);
+        getPlanNodeId(),
+        null,
+        null,
+        sourceJoinSymbol,
+        filteringSourceJoinSymbol,
+        semiJoinOutput,
+        hashJoin);
   }
 
   @Override
@@ -143,13 +177,14 @@ public class SemiJoinNode extends TwoChildProcessNode {
 
     return Objects.equals(this.sourceJoinSymbol, other.sourceJoinSymbol)
         && Objects.equals(this.filteringSourceJoinSymbol, other.filteringSourceJoinSymbol)
-        && Objects.equals(this.semiJoinOutput, other.semiJoinOutput);
+        && Objects.equals(this.semiJoinOutput, other.semiJoinOutput)
+        && this.hashJoin == other.hashJoin;
   }
 
   @Override
   public int hashCode() {
     return Objects.hash(
-        super.hashCode(), sourceJoinSymbol, filteringSourceJoinSymbol, semiJoinOutput);
+        super.hashCode(), sourceJoinSymbol, filteringSourceJoinSymbol, semiJoinOutput, hashJoin);
   }
 
   @Override
@@ -159,6 +194,7 @@ public class SemiJoinNode extends TwoChildProcessNode {
     Symbol.serialize(sourceJoinSymbol, byteBuffer);
     Symbol.serialize(filteringSourceJoinSymbol, byteBuffer);
     Symbol.serialize(semiJoinOutput, byteBuffer);
+    ReadWriteIOUtils.write(hashJoin, byteBuffer);
   }
 
   @Override
@@ -168,14 +204,22 @@ public class SemiJoinNode extends TwoChildProcessNode {
     Symbol.serialize(sourceJoinSymbol, stream);
     Symbol.serialize(filteringSourceJoinSymbol, stream);
     Symbol.serialize(semiJoinOutput, stream);
+    ReadWriteIOUtils.write(hashJoin, stream);
   }
 
   public static SemiJoinNode deserialize(ByteBuffer byteBuffer) {
     Symbol sourceJoinSymbol = Symbol.deserialize(byteBuffer);
     Symbol filteringSourceJoinSymbol = Symbol.deserialize(byteBuffer);
     Symbol semiJoinOutput = Symbol.deserialize(byteBuffer);
+    boolean hashJoin = ReadWriteIOUtils.readBool(byteBuffer);
     PlanNodeId planNodeId = PlanNodeId.deserialize(byteBuffer);
     return new SemiJoinNode(
-        planNodeId, null, null, sourceJoinSymbol, filteringSourceJoinSymbol, semiJoinOutput);
+        planNodeId,
+        null,
+        null,
+        sourceJoinSymbol,
+        filteringSourceJoinSymbol,
+        semiJoinOutput,
+        hashJoin);
   }
 }
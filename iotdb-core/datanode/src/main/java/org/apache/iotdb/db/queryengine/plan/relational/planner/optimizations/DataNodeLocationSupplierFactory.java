@@ -89,6 +89,7 @@ public class DataNodeLocationSupplierFactory {
     public List<TDataNodeLocation> getDataNodeLocations(final String tableName) {
       switch (tableName) {
         case InformationSchema.QUERIES:
+        case InformationSchema.RECOVERY_PROGRESS:
           return getReadableDataNodeLocations();
         case InformationSchema.DATABASES:
         case InformationSchema.TABLES:
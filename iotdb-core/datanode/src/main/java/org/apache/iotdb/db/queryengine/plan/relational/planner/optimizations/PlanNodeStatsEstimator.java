@@ -0,0 +1,506 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations;
+
+import org.apache.iotdb.db.queryengine.common.SessionInfo;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanVisitor;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.ColumnSchema;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.Metadata;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.TableStatistics;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.DeviceTableScanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.FilterNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.LimitNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.OutputNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.ProjectNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.SortNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.StreamSortNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.TopKNode;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.BetweenPredicate;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ComparisonExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.DoubleLiteral;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.InListExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.InPredicate;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.LogicalExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.LongLiteral;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.SymbolReference;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.apache.iotdb.db.queryengine.plan.relational.planner.ir.IrUtils.extractConjuncts;
+
+/**
+ * Estimate the output row count of a table model plan and the number of distinct values of its
+ * symbols, based on the {@link TableStatistics} returned by {@link Metadata}. An estimate is NaN if
+ * it can't be derived, e.g. the plan reads a table without statistics, and callers should keep the
+ * original plan in that case.
+ *
+ * <p>Selectivity of the predicates follows the usual textbook assumptions: values are uniformly
+ * distributed within their range and columns are independent of each other.
+ */
+public class PlanNodeStatsEstimator {
+
+  // selectivity of a predicate that can't be estimated from the statistics
+  static final double UNKNOWN_FILTER_COEFFICIENT = 0.9;
+  static final double DEFAULT_EQUALITY_SELECTIVITY = 0.1;
+  static final double DEFAULT_RANGE_SELECTIVITY = 0.33;
+
+  private final Metadata metadata;
+  private final SessionInfo session;
+
+  private final Map<PlanNode, Double> rowCountCache = new IdentityHashMap<>();
+  private final RowCountVisitor rowCountVisitor = new RowCountVisitor();
+
+  public PlanNodeStatsEstimator(Metadata metadata, SessionInfo session) {
+    this.metadata = metadata;
+    this.session = session;
+  }
+
+  public double estimateRowCount(PlanNode node) {
+    Double rowCount = rowCountCache.get(node);
+    if (rowCount == null) {
+      rowCount = node.accept(rowCountVisitor, null);
+      rowCountCache.put(node, rowCount);
+    }
+    return rowCount;
+  }
+
+  /** @return NaN if the symbol can't be traced back to a column of a table with statistics */
+  public double estimateDistinctValues(PlanNode node, Symbol symbol) {
+    return estimateDistinctValues(node, symbol, true);
+  }
+
+  /**
+   * @param capByRowCount false if the row count of node is being estimated, which depends on the
+   *     result of this method
+   */
+  private double estimateDistinctValues(PlanNode node, Symbol symbol, boolean capByRowCount) {
+    Optional<ColumnReference> column = resolveColumn(node, symbol);
+    if (!column.isPresent()) {
+      return Double.NaN;
+    }
+    double distinctValues = column.get().estimateDistinctValues();
+    double rowCount = capByRowCount ? estimateRowCount(node) : Double.NaN;
+    return Double.isNaN(rowCount)
+        ? distinctValues
+        : Math.max(Math.min(distinctValues, rowCount), 1);
+  }
+
+  /** @return estimated fraction of the rows produced by source that satisfy the predicate */
+  public double estimateSelectivity(Expression predicate, PlanNode source) {
+    return estimateSelectivity(predicate, source, true);
+  }
+
+  private double estimateSelectivity(
+      Expression predicate, PlanNode source, boolean capByRowCount) {
+    double selectivity = 1;
+    for (Expression conjunct : extractConjuncts(predicate)) {
+      selectivity *= estimateConjunctSelectivity(conjunct, source, capByRowCount);
+    }
+    return selectivity;
+  }
+
+  private double estimateConjunctSelectivity(
+      Expression expression, PlanNode source, boolean capByRowCount) {
+    if (expression instanceof LogicalExpression) {
+      LogicalExpression logicalExpression = (LogicalExpression) expression;
+      if (logicalExpression.getOperator() == LogicalExpression.Operator.AND) {
+        return estimateSelectivity(expression, source, capByRowCount);
+      }
+      double unselected = 1;
+      for (Expression term : logicalExpression.getTerms()) {
+        unselected *= 1 - estimateConjunctSelectivity(term, source, capByRowCount);
+      }
+      return 1 - unselected;
+    } else if (expression instanceof ComparisonExpression) {
+      return estimateComparisonSelectivity(
+          (ComparisonExpression) expression, source, capByRowCount);
+    } else if (expression instanceof BetweenPredicate) {
+      BetweenPredicate between = (BetweenPredicate) expression;
+      if (between.getValue() instanceof SymbolReference) {
+        Optional<ColumnReference> column =
+            resolveColumn(source, Symbol.from(between.getValue()));
+        double min = toDouble(between.getMin());
+        double max = toDouble(between.getMax());
+        if (column.isPresent() && !Double.isNaN(min) && !Double.isNaN(max)) {
+          return column.get().estimateRangeFraction(min, max);
+        }
+      }
+      return DEFAULT_RANGE_SELECTIVITY;
+    } else if (expression instanceof InPredicate) {
+      InPredicate inPredicate = (InPredicate) expression;
+      if (inPredicate.getValue() instanceof SymbolReference
+          && inPredicate.getValueList() instanceof InListExpression) {
+        double distinctValues =
+            estimateDistinctValues(source, Symbol.from(inPredicate.getValue()), capByRowCount);
+        int size = ((InListExpression) inPredicate.getValueList()).getValues().size();
+        if (!Double.isNaN(distinctValues)) {
+          return Math.min(size / distinctValues, 1);
+        }
+        return Math.min(size * DEFAULT_EQUALITY_SELECTIVITY, 1);
+      }
+    }
+    return UNKNOWN_FILTER_COEFFICIENT;
+  }
+
+  private double estimateComparisonSelectivity(
+      ComparisonExpression comparison, PlanNode source, boolean capByRowCount) {
+    Expression left = comparison.getLeft();
+    Expression right = comparison.getRight();
+    ComparisonExpression.Operator operator = comparison.getOperator();
+    if (!(left instanceof SymbolReference) && right instanceof SymbolReference) {
+      left = comparison.getRight();
+      right = comparison.getLeft();
+      operator = operator.flip();
+    }
+    if (!(left instanceof SymbolReference)) {
+      return UNKNOWN_FILTER_COEFFICIENT;
+    }
+    Symbol symbol = Symbol.from(left);
+
+    if (right instanceof SymbolReference) {
+      if (operator != ComparisonExpression.Operator.EQUAL) {
+        return UNKNOWN_FILTER_COEFFICIENT;
+      }
+      // equality of two columns, e.g. a join condition evaluated after a cross join
+      double distinctValues =
+          Math.max(
+              estimateDistinctValues(source, symbol, capByRowCount),
+              estimateDistinctValues(source, Symbol.from(right), capByRowCount));
+      return Double.isNaN(distinctValues)
+          ? DEFAULT_EQUALITY_SELECTIVITY
+          : 1 / Math.max(distinctValues, 1);
+    }
+
+    switch (operator) {
+      case EQUAL:
+      case IS_DISTINCT_FROM:
+        double distinctValues = estimateDistinctValues(source, symbol, capByRowCount);
+        double equality =
+            Double.isNaN(distinctValues)
+                ? DEFAULT_EQUALITY_SELECTIVITY
+                : 1 / Math.max(distinctValues, 1);
+        return operator == ComparisonExpression.Operator.EQUAL ? equality : 1 - equality;
+      case NOT_EQUAL:
+        return UNKNOWN_FILTER_COEFFICIENT;
+      case LESS_THAN:
+      case LESS_THAN_OR_EQUAL:
+      case GREATER_THAN:
+      case GREATER_THAN_OR_EQUAL:
+        Optional<ColumnReference> column = resolveColumn(source, symbol);
+        double value = toDouble(right);
+        if (!column.isPresent() || Double.isNaN(value)) {
+          return DEFAULT_RANGE_SELECTIVITY;
+        }
+        boolean upperBound =
+            operator == ComparisonExpression.Operator.LESS_THAN
+                || operator == ComparisonExpression.Operator.LESS_THAN_OR_EQUAL;
+        return upperBound
+            ? column.get().estimateRangeFraction(Double.NEGATIVE_INFINITY, value)
+            : column.get().estimateRangeFraction(value, Double.POSITIVE_INFINITY);
+      default:
+        return UNKNOWN_FILTER_COEFFICIENT;
+    }
+  }
+
+  private static double toDouble(Expression expression) {
+    if (expression instanceof LongLiteral) {
+      return ((LongLiteral) expression).getParsedValue();
+    } else if (expression instanceof DoubleLiteral) {
+      return ((DoubleLiteral) expression).getValue();
+    }
+    return Double.NaN;
+  }
+
+  /**
+   * Trace the symbol through the plan to the column of a table scan. Only identity projections are
+   * followed, since the statistics of a computed expression are unknown.
+   */
+  private Optional<ColumnReference> resolveColumn(PlanNode node, Symbol symbol) {
+    while (true) {
+      if (node instanceof DeviceTableScanNode) {
+        DeviceTableScanNode scanNode = (DeviceTableScanNode) node;
+        ColumnSchema columnSchema = scanNode.getAssignments().get(symbol);
+        if (columnSchema == null) {
+          return Optional.empty();
+        }
+        return getTableStatistics(scanNode)
+            .map(statistics -> new ColumnReference(scanNode, symbol, columnSchema, statistics));
+      } else if (node instanceof ProjectNode) {
+        Expression expression = ((ProjectNode) node).getAssignments().get(symbol);
+        if (!(expression instanceof SymbolReference)) {
+          return Optional.empty();
+        }
+        symbol = Symbol.from(expression);
+        node = ((ProjectNode) node).getChild();
+      } else if (node instanceof JoinNode) {
+        JoinNode joinNode = (JoinNode) node;
+        node =
+            joinNode.getLeftChild().getOutputSymbols().contains(symbol)
+                ? joinNode.getLeftChild()
+                : joinNode.getRightChild();
+      } else if (node instanceof AggregationNode) {
+        if (!((AggregationNode) node).getGroupingKeys().contains(symbol)) {
+          return Optional.empty();
+        }
+        node = ((AggregationNode) node).getChild();
+      } else if (node.getChildren().size() == 1 && isRowFiltering(node)) {
+        node = node.getChildren().get(0);
+      } else {
+        return Optional.empty();
+      }
+    }
+  }
+
+  private static boolean isRowFiltering(PlanNode node) {
+    return node instanceof FilterNode
+        || node instanceof LimitNode
+        || node instanceof TopKNode
+        || node instanceof SortNode
+        || node instanceof OutputNode;
+  }
+
+  private Optional<TableStatistics> getTableStatistics(DeviceTableScanNode node) {
+    // the subclasses read tree model devices or pre-aggregated data, whose statistics are unknown
+    if (node.getClass() != DeviceTableScanNode.class) {
+      return Optional.empty();
+    }
+    return metadata.getTableStatistics(session, node.getQualifiedObjectName());
+  }
+
+  private class RowCountVisitor extends PlanVisitor<Double, Void> {
+
+    @Override
+    public Double visitPlan(PlanNode node, Void context) {
+      return Double.NaN;
+    }
+
+    @Override
+    public Double visitDeviceTableScan(DeviceTableScanNode node, Void context) {
+      Optional<TableStatistics> statistics = getTableStatistics(node);
+      if (!statistics.isPresent()) {
+        return Double.NaN;
+      }
+      double rowCount = statistics.get().getRowCount();
+      // device entries are only known after the predicates are pushed into the scan
+      if (node.getDeviceEntries() != null && statistics.get().getDeviceCount() > 0) {
+        rowCount *=
+            Math.min(
+                (double) node.getDeviceEntries().size() / statistics.get().getDeviceCount(), 1);
+      }
+      if (node.getTimePredicate().isPresent()) {
+        rowCount *= estimateSelectivity(node.getTimePredicate().get(), node, false);
+      }
+      if (node.getPushDownPredicate() != null) {
+        rowCount *= estimateSelectivity(node.getPushDownPredicate(), node, false);
+      }
+      if (node.getPushDownLimit() > 0) {
+        rowCount = Math.min(rowCount, node.getPushDownLimit());
+      }
+      return rowCount;
+    }
+
+    @Override
+    public Double visitFilter(FilterNode node, Void context) {
+      return estimateRowCount(node.getChild())
+          * estimateSelectivity(node.getPredicate(), node.getChild());
+    }
+
+    @Override
+    public Double visitProject(ProjectNode node, Void context) {
+      return estimateRowCount(node.getChild());
+    }
+
+    @Override
+    public Double visitOutput(OutputNode node, Void context) {
+      return estimateRowCount(node.getChild());
+    }
+
+    @Override
+    public Double visitSort(SortNode node, Void context) {
+      return estimateRowCount(node.getChild());
+    }
+
+    @Override
+    public Double visitStreamSort(StreamSortNode node, Void context) {
+      return estimateRowCount(node.getChild());
+    }
+
+    @Override
+    public Double visitLimit(LimitNode node, Void context) {
+      return Math.min(estimateRowCount(node.getChild()), node.getCount());
+    }
+
+    @Override
+    public Double visitTopK(TopKNode node, Void context) {
+      double rowCount = 0;
+      for (PlanNode child : node.getChildren()) {
+        rowCount += estimateRowCount(child);
+      }
+      return Math.min(rowCount, node.getCount());
+    }
+
+    @Override
+    public Double visitAggregation(AggregationNode node, Void context) {
+      if (node.getGroupingKeys().isEmpty()) {
+        return 1.0;
+      }
+      double inputRowCount = estimateRowCount(node.getChild());
+      double groupCount = 1;
+      for (Symbol groupingKey : node.getGroupingKeys()) {
+        groupCount *= estimateDistinctValues(node.getChild(), groupingKey);
+      }
+      return Math.min(groupCount, inputRowCount);
+    }
+
+    @Override
+    public Double visitJoin(JoinNode node, Void context) {
+      double leftRowCount = estimateRowCount(node.getLeftChild());
+      double rightRowCount = estimateRowCount(node.getRightChild());
+      double rowCount = leftRowCount * rightRowCount;
+      // use the most selective clause only, since the join keys are usually correlated
+      double maxDistinctValues = 1;
+      for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+        double distinctValues =
+            Math.max(
+                estimateDistinctValues(node.getLeftChild(), clause.getLeft()),
+                estimateDistinctValues(node.getRightChild(), clause.getRight()));
+        maxDistinctValues =
+            Double.isNaN(distinctValues)
+                ? Math.max(maxDistinctValues, Math.min(leftRowCount, rightRowCount))
+                : Math.max(maxDistinctValues, distinctValues);
+      }
+      rowCount /= maxDistinctValues;
+      if (node.getFilter().isPresent()) {
+        rowCount *= estimateSelectivity(node.getFilter().get(), node, false);
+      }
+      switch (node.getJoinType()) {
+        case LEFT:
+          return Math.max(rowCount, leftRowCount);
+        case RIGHT:
+          return Math.max(rowCount, rightRowCount);
+        case FULL:
+          return Math.max(rowCount, Math.max(leftRowCount, rightRowCount));
+        default:
+          return rowCount;
+      }
+    }
+  }
+
+  private static class ColumnReference {
+
+    private final DeviceTableScanNode scanNode;
+    private final Symbol symbol;
+    private final ColumnSchema columnSchema;
+    private final TableStatistics statistics;
+
+    private ColumnReference(
+        DeviceTableScanNode scanNode,
+        Symbol symbol,
+        ColumnSchema columnSchema,
+        TableStatistics statistics) {
+      this.scanNode = scanNode;
+      this.symbol = symbol;
+      this.columnSchema = columnSchema;
+      this.statistics = statistics;
+    }
+
+    private double estimateDistinctValues() {
+      long deviceCount = Math.max(statistics.getDeviceCount(), 1);
+      switch (columnSchema.getColumnCategory()) {
+        case TAG:
+          Integer tagIndex = scanNode.getIdAndAttributeIndexMap().get(symbol);
+          return tagIndex == null ? deviceCount : statistics.getTagDistinctCount(tagIndex);
+        case ATTRIBUTE:
+          return deviceCount;
+        case TIME:
+          // timestamps of different devices are usually aligned
+          return Math.max((double) statistics.getRowCount() / deviceCount, 1);
+        case FIELD:
+        default:
+          Optional<TableStatistics.ColumnStatistics> fieldStatistics =
+              statistics.getFieldStatistics(columnSchema.getName());
+          if (!fieldStatistics.isPresent()) {
+            return Double.NaN;
+          }
+          double nonNullCount = fieldStatistics.get().getNonNullCount();
+          if (fieldStatistics.get().hasRange() && isIntegral()) {
+            return Math.min(
+                nonNullCount,
+                fieldStatistics.get().getMaxValue() - fieldStatistics.get().getMinValue() + 1);
+          }
+          return nonNullCount;
+      }
+    }
+
+    /** @return fraction of the values in [lower, upper], assuming they are uniformly distributed */
+    private double estimateRangeFraction(double lower, double upper) {
+      double min;
+      double max;
+      switch (columnSchema.getColumnCategory()) {
+        case TIME:
+          min = statistics.getMinTime();
+          max = statistics.getMaxTime();
+          break;
+        case FIELD:
+          Optional<TableStatistics.ColumnStatistics> fieldStatistics =
+              statistics.getFieldStatistics(columnSchema.getName());
+          if (!fieldStatistics.isPresent() || !fieldStatistics.get().hasRange()) {
+            return DEFAULT_RANGE_SELECTIVITY;
+          }
+          min = fieldStatistics.get().getMinValue();
+          max = fieldStatistics.get().getMaxValue();
+          break;
+        default:
+          return DEFAULT_RANGE_SELECTIVITY;
+      }
+      if (max < min) {
+        return DEFAULT_RANGE_SELECTIVITY;
+      }
+      double overlapLower = Math.max(lower, min);
+      double overlapUpper = Math.min(upper, max);
+      if (overlapUpper < overlapLower) {
+        return 0;
+      }
+      if (max == min) {
+        return 1;
+      }
+      return (overlapUpper - overlapLower) / (max - min);
+    }
+
+    private boolean isIntegral() {
+      switch (columnSchema.getType().getTypeEnum()) {
+        case INT32:
+        case INT64:
+        case DATE:
+        case TIMESTAMP:
+          return true;
+        default:
+          return false;
+      }
+    }
+  }
+}
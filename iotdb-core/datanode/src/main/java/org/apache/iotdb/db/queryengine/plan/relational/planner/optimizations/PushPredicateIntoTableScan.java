@@ -27,6 +27,7 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.sql.SemanticException;
 import org.apache.iotdb.db.queryengine.common.MPPQueryContext;
 import org.apache.iotdb.db.queryengine.common.QueryId;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.DynamicFilter;
 import org.apache.iotdb.db.queryengine.metric.QueryPlanCostMetricSet;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanVisitor;
@@ -95,6 +96,7 @@ import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static java.util.Objects.requireNonNull;
 import static org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory.ATTRIBUTE;
@@ -819,8 +821,15 @@ public class PushPredicateIntoTableScan implements PlanOptimizer {
 
       JoinNode outputJoinNode = (JoinNode) output;
       if (!((JoinNode) output).isCrossJoin()) {
-        // inner join or full join, use MergeSortJoinNode
-        appendSortNodeForMergeSortJoin(outputJoinNode);
+        if (canUseHashJoin(outputJoinNode)) {
+          // one side is small enough to be the build side, use HashJoin to avoid sorting
+          outputJoinNode = toHashJoin(outputJoinNode);
+          addDynamicFilters(outputJoinNode);
+          output = outputJoinNode;
+        } else {
+          // inner join or full join, use MergeSortJoinNode
+          appendSortNodeForMergeSortJoin(outputJoinNode);
+        }
       }
 
       if (!TRUE_LITERAL.equals(postJoinPredicate)) {
@@ -872,6 +881,99 @@ public class PushPredicateIntoTableScan implements PlanOptimizer {
       return symbolAllocator.newSymbol(expression, analysis.getType(expression));
     }
 
+    private boolean canUseHashJoin(JoinNode joinNode) {
+      if (!CONFIG.isEnableHashJoin()
+          || joinNode.getCriteria().isEmpty()
+          || joinNode.getFilter().isPresent()) {
+        return false;
+      }
+      if (joinNode.getJoinType() == INNER) {
+        return isSmallBuildSide(joinNode.getRightChild())
+            || isSmallBuildSide(joinNode.getLeftChild());
+      }
+      return joinNode.getJoinType() == JoinNode.JoinType.LEFT
+          && isSmallBuildSide(joinNode.getRightChild());
+    }
+
+    /** The right child is always used as build side of HashJoin. */
+    private JoinNode toHashJoin(JoinNode joinNode) {
+      if (joinNode.getJoinType() == INNER && !isSmallBuildSide(joinNode.getRightChild())) {
+        // only left side is small, flip the inner join so that it can be the build side
+        return new JoinNode(
+            joinNode.getPlanNodeId(),
+            joinNode.getJoinType(),
+            joinNode.getRightChild(),
+            joinNode.getLeftChild(),
+            joinNode.getCriteria().stream()
+                .map(JoinNode.EquiJoinClause::flip)
+                .collect(toImmutableList()),
+            joinNode.getRightOutputSymbols(),
+            joinNode.getLeftOutputSymbols(),
+            joinNode.getFilter(),
+            joinNode.isSpillable(),
+            true);
+      }
+      return new JoinNode(
+          joinNode.getPlanNodeId(),
+          joinNode.getJoinType(),
+          joinNode.getLeftChild(),
+          joinNode.getRightChild(),
+          joinNode.getCriteria(),
+          joinNode.getLeftOutputSymbols(),
+          joinNode.getRightOutputSymbols(),
+          joinNode.getFilter(),
+          joinNode.isSpillable(),
+          true);
+    }
+
+    /**
+     * Let the table scans of probe side skip the data which can't be matched by the join keys of
+     * build side, which are published as DynamicFilters at runtime. Rows of probe side can't be
+     * skipped for LEFT JOIN, because they are output even if they are not matched.
+     */
+    private void addDynamicFilters(JoinNode joinNode) {
+      if (!CONFIG.isEnableDynamicFilter() || joinNode.getJoinType() != INNER) {
+        return;
+      }
+      List<JoinNode.EquiJoinClause> criteria = joinNode.getCriteria();
+      for (int i = 0; i < criteria.size(); i++) {
+        addDynamicFilter(
+            joinNode.getLeftChild(),
+            criteria.get(i).getLeft(),
+            DynamicFilter.getFilterId(joinNode.getPlanNodeId(), i));
+      }
+    }
+
+    /**
+     * Find the table scan which produces the symbol through Project and Filter, and apply the
+     * DynamicFilter on it.
+     */
+    private void addDynamicFilter(PlanNode probeSide, Symbol symbol, String filterId) {
+      PlanNode node = probeSide;
+      while (true) {
+        if (node instanceof ProjectNode) {
+          Expression expression = ((ProjectNode) node).getAssignments().get(symbol);
+          if (!(expression instanceof SymbolReference)) {
+            return;
+          }
+          symbol = Symbol.from(expression);
+          node = ((ProjectNode) node).getChild();
+        } else if (node instanceof FilterNode) {
+          node = ((FilterNode) node).getChild();
+        } else {
+          break;
+        }
+      }
+      // scan of tree device view is not supported now
+      if (node.getClass() == DeviceTableScanNode.class) {
+        ((DeviceTableScanNode) node).addDynamicFilter(filterId, symbol);
+      }
+    }
+
+    private boolean isSmallBuildSide(PlanNode node) {
+      return extractCardinality(node).isAtMost(CONFIG.getHashJoinBuildSideMaxRowCount());
+    }
+
     private void appendSortNodeForMergeSortJoin(JoinNode joinNode) {
       int size = joinNode.getCriteria().size();
       List<Symbol> leftOrderBy = new ArrayList<>(size);
@@ -944,7 +1046,7 @@ public class PushPredicateIntoTableScan implements PlanOptimizer {
       PlanNode rewrittenSource =
           node.getSource().accept(this, new RewriteContext(combineConjuncts(sourceConjuncts)));
 
-      PlanNode output = appendSortNodeForSemiJoin(node, rewrittenSource, rewrittenFilteringSource);
+      PlanNode output = planSemiJoin(node, rewrittenSource, rewrittenFilteringSource, false);
 
       if (!postJoinConjuncts.isEmpty()) {
         output =
@@ -953,6 +1055,31 @@ public class PushPredicateIntoTableScan implements PlanOptimizer {
       return output;
     }
 
+    private SemiJoinNode planSemiJoin(
+        SemiJoinNode node,
+        PlanNode rewrittenSource,
+        PlanNode rewrittenFilteringSource,
+        boolean filtering) {
+      if (CONFIG.isEnableHashJoin() && isSmallBuildSide(rewrittenFilteringSource)) {
+        if (filtering && CONFIG.isEnableDynamicFilter()) {
+          addDynamicFilter(
+              rewrittenSource,
+              node.getSourceJoinSymbol(),
+              DynamicFilter.getFilterId(node.getPlanNodeId(), 0));
+        }
+        // filtering source is small enough to be the build side, use HashSemiJoin to avoid sorting
+        return new SemiJoinNode(
+            node.getPlanNodeId(),
+            rewrittenSource,
+            rewrittenFilteringSource,
+            node.getSourceJoinSymbol(),
+            node.getFilteringSourceJoinSymbol(),
+            node.getSemiJoinOutput(),
+            true);
+      }
+      return appendSortNodeForSemiJoin(node, rewrittenSource, rewrittenFilteringSource);
+    }
+
     private SemiJoinNode appendSortNodeForSemiJoin(
         SemiJoinNode node, PlanNode rewrittenSource, PlanNode rewrittenFilteringSource) {
       OrderingScheme sourceOrderingScheme =
@@ -1087,7 +1214,8 @@ public class PushPredicateIntoTableScan implements PlanOptimizer {
           node.getFilteringSource()
               .accept(this, new RewriteContext(combineConjuncts(filteringSourceConjuncts)));
 
-      PlanNode output = appendSortNodeForSemiJoin(node, rewrittenSource, rewrittenFilteringSource);
+      // rows of source whose SemiJoinOutput is not true will be filtered out
+      PlanNode output = planSemiJoin(node, rewrittenSource, rewrittenFilteringSource, true);
       if (!postJoinConjuncts.isEmpty()) {
         output =
             new FilterNode(queryId.genPlanNodeId(), output, combineConjuncts(postJoinConjuncts));
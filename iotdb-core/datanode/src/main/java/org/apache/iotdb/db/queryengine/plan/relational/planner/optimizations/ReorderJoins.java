@@ -0,0 +1,355 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.common.QueryId;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanVisitor;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Assignments;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.FilterNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.ProjectNode;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ComparisonExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.SymbolReference;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.apache.iotdb.db.queryengine.plan.relational.planner.SymbolsExtractor.extractUnique;
+import static org.apache.iotdb.db.queryengine.plan.relational.planner.ir.IrUtils.combineConjuncts;
+import static org.apache.iotdb.db.queryengine.plan.relational.planner.ir.IrUtils.extractConjuncts;
+import static org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode.JoinType.INNER;
+import static org.apache.iotdb.db.queryengine.plan.relational.sql.ast.BooleanLiteral.TRUE_LITERAL;
+
+/**
+ * <b>Optimization phase:</b> Logical plan planning.
+ *
+ * <p>Reorder the tree of inner joins by the row counts estimated by {@link
+ * PlanNodeStatsEstimator}. The join sources are joined in a left-deep tree, starting from the pair
+ * with the smallest result and then adding the source which keeps the intermediate result
+ * smallest, preferring the sources connected by a join condition to avoid cross joins. The new
+ * order is used only if the sum of the estimated intermediate results is smaller than the
+ * original one.
+ *
+ * <p>All the join conditions are put in a FilterNode above the reordered joins, so this rule must
+ * be applied before {@link PushPredicateIntoTableScan}, which pushes them back into the joins.
+ */
+public class ReorderJoins implements PlanOptimizer {
+
+  // bit masks of long are used to represent the sets of sources
+  private static final int MAX_REORDERED_SOURCES = 32;
+
+  @Override
+  public PlanNode optimize(PlanNode plan, Context context) {
+    if (!IoTDBDescriptor.getInstance().getConfig().isEnableCostBasedOptimization()
+        || !context.getAnalysis().isQuery()
+        || !context.getAnalysis().hasJoinNode()) {
+      return plan;
+    }
+    return plan.accept(
+        new Rewriter(
+            new PlanNodeStatsEstimator(context.getMetadata(), context.sessionInfo()),
+            context.getQueryContext().getQueryId()),
+        null);
+  }
+
+  private static class Rewriter extends PlanVisitor<PlanNode, Void> {
+
+    private final PlanNodeStatsEstimator estimator;
+    private final QueryId queryId;
+
+    private Rewriter(PlanNodeStatsEstimator estimator, QueryId queryId) {
+      this.estimator = estimator;
+      this.queryId = queryId;
+    }
+
+    @Override
+    public PlanNode visitPlan(PlanNode node, Void context) {
+      PlanNode newNode = node.clone();
+      for (PlanNode child : node.getChildren()) {
+        newNode.addChild(child.accept(this, context));
+      }
+      return newNode;
+    }
+
+    @Override
+    public PlanNode visitFilter(FilterNode node, Void context) {
+      if (isInnerJoin(node.getChild())) {
+        return tryReorder(node).orElseGet(() -> visitPlan(node, context));
+      }
+      return visitPlan(node, context);
+    }
+
+    @Override
+    public PlanNode visitJoin(JoinNode node, Void context) {
+      if (node.getJoinType() == INNER) {
+        return tryReorder(node).orElseGet(() -> rewriteChildren(node, context));
+      }
+      return rewriteChildren(node, context);
+    }
+
+    /** Rebuild the join with the rewritten children, keeping its id and attributes. */
+    private PlanNode rewriteChildren(JoinNode node, Void context) {
+      return node.replaceChildren(
+          ImmutableList.of(
+              node.getLeftChild().accept(this, context),
+              node.getRightChild().accept(this, context)));
+    }
+
+    private Optional<PlanNode> tryReorder(PlanNode root) {
+      JoinGraph graph = new JoinGraph();
+      if (graph.flatten(root) < 0 || graph.sources.size() < 3) {
+        return Optional.empty();
+      }
+      if (!graph.estimate(estimator)) {
+        return Optional.empty();
+      }
+      List<Integer> order = graph.chooseOrder();
+      if (graph.estimateCost(order) >= graph.originalCost()) {
+        return Optional.empty();
+      }
+
+      PlanNode result = graph.sources.get(order.get(0)).accept(this, null);
+      for (int i = 1; i < order.size(); i++) {
+        PlanNode source = graph.sources.get(order.get(i)).accept(this, null);
+        result =
+            new JoinNode(
+                queryId.genPlanNodeId(),
+                INNER,
+                result,
+                source,
+                Collections.emptyList(),
+                result.getOutputSymbols(),
+                source.getOutputSymbols(),
+                Optional.empty(),
+                Optional.empty());
+      }
+      Expression predicate = combineConjuncts(graph.conjuncts);
+      if (!TRUE_LITERAL.equals(predicate)) {
+        result = new FilterNode(queryId.genPlanNodeId(), result, predicate);
+      }
+      if (!result.getOutputSymbols().equals(root.getOutputSymbols())) {
+        result =
+            new ProjectNode(
+                queryId.genPlanNodeId(), result, Assignments.identity(root.getOutputSymbols()));
+      }
+      return Optional.of(result);
+    }
+  }
+
+  private static boolean isInnerJoin(PlanNode node) {
+    return node instanceof JoinNode && ((JoinNode) node).getJoinType() == INNER;
+  }
+
+  /** Sources of a tree of inner joins, and the conditions on them. */
+  private static class JoinGraph {
+
+    private final List<PlanNode> sources = new ArrayList<>();
+    private final List<Expression> conjuncts = new ArrayList<>();
+
+    /** sets of sources joined by each JoinNode of the original tree */
+    private final List<Long> originalJoins = new ArrayList<>();
+
+    private final Map<Symbol, Integer> symbolToSource = new HashMap<>();
+
+    /** estimated row counts of the sources after applying the conditions only on themselves */
+    private double[] sourceRowCounts;
+
+    /** conditions on more than one source, with the sources they reference */
+    private final List<Long> joinConditionSources = new ArrayList<>();
+
+    private final List<Double> joinConditionSelectivities = new ArrayList<>();
+
+    /** @return set of the sources under node, or -1 if there are too many sources */
+    private long flatten(PlanNode node) {
+      if (node instanceof FilterNode && isInnerJoin(((FilterNode) node).getChild())) {
+        conjuncts.addAll(extractConjuncts(((FilterNode) node).getPredicate()));
+        return flatten(((FilterNode) node).getChild());
+      } else if (isInnerJoin(node)) {
+        JoinNode joinNode = (JoinNode) node;
+        long left = flatten(joinNode.getLeftChild());
+        long right = left < 0 ? -1 : flatten(joinNode.getRightChild());
+        if (right < 0) {
+          return -1;
+        }
+        joinNode.getCriteria().forEach(clause -> conjuncts.add(clause.toExpression()));
+        joinNode.getFilter().ifPresent(filter -> conjuncts.addAll(extractConjuncts(filter)));
+        originalJoins.add(left | right);
+        return left | right;
+      } else if (sources.size() >= MAX_REORDERED_SOURCES) {
+        return -1;
+      }
+      for (Symbol symbol : node.getOutputSymbols()) {
+        symbolToSource.put(symbol, sources.size());
+      }
+      sources.add(node);
+      return 1L << (sources.size() - 1);
+    }
+
+    /** @return false if the row count of any source is unknown */
+    private boolean estimate(PlanNodeStatsEstimator estimator) {
+      sourceRowCounts = new double[sources.size()];
+      for (int i = 0; i < sources.size(); i++) {
+        sourceRowCounts[i] = estimator.estimateRowCount(sources.get(i));
+        if (Double.isNaN(sourceRowCounts[i])) {
+          return false;
+        }
+      }
+      for (Expression conjunct : conjuncts) {
+        long referencedSources = 0;
+        for (Symbol symbol : extractUnique(conjunct)) {
+          Integer source = symbolToSource.get(symbol);
+          if (source != null) {
+            referencedSources |= 1L << source;
+          }
+        }
+        if (Long.bitCount(referencedSources) == 1) {
+          int source = Long.numberOfTrailingZeros(referencedSources);
+          sourceRowCounts[source] *= estimator.estimateSelectivity(conjunct, sources.get(source));
+        } else if (referencedSources != 0) {
+          joinConditionSources.add(referencedSources);
+          joinConditionSelectivities.add(estimateJoinSelectivity(estimator, conjunct));
+        }
+      }
+      return true;
+    }
+
+    private double estimateJoinSelectivity(PlanNodeStatsEstimator estimator, Expression conjunct) {
+      if (conjunct instanceof ComparisonExpression
+          && ((ComparisonExpression) conjunct).getOperator() == ComparisonExpression.Operator.EQUAL
+          && ((ComparisonExpression) conjunct).getLeft() instanceof SymbolReference
+          && ((ComparisonExpression) conjunct).getRight() instanceof SymbolReference) {
+        Symbol left = Symbol.from(((ComparisonExpression) conjunct).getLeft());
+        Symbol right = Symbol.from(((ComparisonExpression) conjunct).getRight());
+        double distinctValues =
+            Math.max(
+                estimator.estimateDistinctValues(sources.get(symbolToSource.get(left)), left),
+                estimator.estimateDistinctValues(sources.get(symbolToSource.get(right)), right));
+        if (!Double.isNaN(distinctValues)) {
+          return 1 / Math.max(distinctValues, 1);
+        }
+        return PlanNodeStatsEstimator.DEFAULT_EQUALITY_SELECTIVITY;
+      }
+      return PlanNodeStatsEstimator.UNKNOWN_FILTER_COEFFICIENT;
+    }
+
+    /** The estimated result of joining a set of sources doesn't depend on the join order. */
+    private double estimateRowCount(long joinedSources) {
+      double rowCount = 1;
+      for (int i = 0; i < sources.size(); i++) {
+        if ((joinedSources & (1L << i)) != 0) {
+          rowCount *= sourceRowCounts[i];
+        }
+      }
+      for (int i = 0; i < joinConditionSources.size(); i++) {
+        long referencedSources = joinConditionSources.get(i);
+        if ((joinedSources & referencedSources) == referencedSources) {
+          rowCount *= joinConditionSelectivities.get(i);
+        }
+      }
+      return rowCount;
+    }
+
+    private boolean isConnected(long joinedSources, int source) {
+      for (long referencedSources : joinConditionSources) {
+        if ((referencedSources & (1L << source)) != 0
+            && (referencedSources & joinedSources) != 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private List<Integer> chooseOrder() {
+      List<Integer> order = new ArrayList<>(sources.size());
+      int bestLeft = -1;
+      int bestRight = -1;
+      double bestRowCount = Double.MAX_VALUE;
+      boolean bestConnected = false;
+      for (int i = 0; i < sources.size(); i++) {
+        for (int j = i + 1; j < sources.size(); j++) {
+          boolean connected = isConnected(1L << i, j);
+          double rowCount = estimateRowCount((1L << i) | (1L << j));
+          if ((connected && !bestConnected)
+              || (connected == bestConnected && rowCount < bestRowCount)) {
+            // the larger source is on the left, which is the probe side of hash join
+            bestLeft = sourceRowCounts[i] >= sourceRowCounts[j] ? i : j;
+            bestRight = bestLeft == i ? j : i;
+            bestRowCount = rowCount;
+            bestConnected = connected;
+          }
+        }
+      }
+      order.add(bestLeft);
+      order.add(bestRight);
+      long joinedSources = (1L << bestLeft) | (1L << bestRight);
+
+      while (order.size() < sources.size()) {
+        int bestSource = -1;
+        bestRowCount = Double.MAX_VALUE;
+        bestConnected = false;
+        for (int i = 0; i < sources.size(); i++) {
+          if ((joinedSources & (1L << i)) != 0) {
+            continue;
+          }
+          boolean connected = isConnected(joinedSources, i);
+          double rowCount = estimateRowCount(joinedSources | (1L << i));
+          if ((connected && !bestConnected)
+              || (connected == bestConnected && rowCount < bestRowCount)) {
+            bestSource = i;
+            bestRowCount = rowCount;
+            bestConnected = connected;
+          }
+        }
+        order.add(bestSource);
+        joinedSources |= 1L << bestSource;
+      }
+      return order;
+    }
+
+    /** Cost of a join tree is the sum of the estimated rows produced by its joins. */
+    private double estimateCost(List<Integer> order) {
+      double cost = 0;
+      long joinedSources = 1L << order.get(0);
+      for (int i = 1; i < order.size(); i++) {
+        joinedSources |= 1L << order.get(i);
+        cost += estimateRowCount(joinedSources);
+      }
+      return cost;
+    }
+
+    private double originalCost() {
+      double cost = 0;
+      for (long joinedSources : originalJoins) {
+        cost += estimateRowCount(joinedSources);
+      }
+      return cost;
+    }
+  }
+}
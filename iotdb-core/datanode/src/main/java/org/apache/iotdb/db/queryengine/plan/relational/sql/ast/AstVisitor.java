@@ -597,6 +597,10 @@ public abstract class AstVisitor<R, C> {
     return visitStatement(node, context);
   }
 
+  protected R visitParameterizedStatement(ParameterizedStatement node, C context) {
+    return visitStatement(node, context);
+  }
+
   protected R visitCreateTopic(CreateTopic node, C context) {
     return visitStatement(node, context);
   }
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.sql.ast;
+
+import org.apache.iotdb.db.queryengine.plan.relational.analyzer.NodeRef;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A statement shared by queries that are only different in some literals, together with the
+ * literals of one of these queries. The literals are bound to the {@link Parameter}s of the shared
+ * statement during analysis.
+ */
+public class ParameterizedStatement extends Statement {
+
+  private final Statement innerStatement;
+  private final List<Expression> parameters;
+  private final Map<NodeRef<Parameter>, Expression> parameterLookup;
+
+  public ParameterizedStatement(
+      final Statement innerStatement,
+      final List<Expression> parameters,
+      final Map<NodeRef<Parameter>, Expression> parameterLookup) {
+    super(innerStatement.getLocation().orElse(null));
+    this.innerStatement = innerStatement;
+    this.parameters = ImmutableList.copyOf(parameters);
+    this.parameterLookup = parameterLookup;
+  }
+
+  @Override
+  public <R, C> R accept(final AstVisitor<R, C> visitor, final C context) {
+    return visitor.visitParameterizedStatement(this, context);
+  }
+
+  @Override
+  public List<? extends Node> getChildren() {
+    return innerStatement.getChildren();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(innerStatement, parameters);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final ParameterizedStatement that = (ParameterizedStatement) obj;
+    return Objects.equals(innerStatement, that.innerStatement)
+        && Objects.equals(parameters, that.parameters);
+  }
+
+  @Override
+  public String toString() {
+    return innerStatement.toString();
+  }
+
+  public Statement getInnerStatement() {
+    return innerStatement;
+  }
+
+  public List<Expression> getParameters() {
+    return parameters;
+  }
+
+  public Map<NodeRef<Parameter>, Expression> getParameterLookup() {
+    return parameterLookup;
+  }
+}
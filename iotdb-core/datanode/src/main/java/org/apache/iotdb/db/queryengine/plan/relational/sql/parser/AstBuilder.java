@@ -1346,6 +1346,37 @@ public class AstBuilder extends RelationalSqlBaseVisitor<Node> {
         limit);
   }
 
+  @Override
+  public Node visitShowRecoveryProgressStatement(
+      RelationalSqlParser.ShowRecoveryProgressStatementContext ctx) {
+    Optional<OrderBy> orderBy = Optional.empty();
+    if (ctx.ORDER() != null) {
+      orderBy =
+          Optional.of(new OrderBy(getLocation(ctx.ORDER()), visit(ctx.sortItem(), SortItem.class)));
+    }
+
+    Optional<Offset> offset = Optional.empty();
+    if (ctx.limitOffsetClause().OFFSET() != null) {
+      offset = visitIfPresent(ctx.limitOffsetClause().offset, Offset.class);
+    }
+
+    Optional<Node> limit = Optional.empty();
+    if (ctx.limitOffsetClause().LIMIT() != null) {
+      if (ctx.limitOffsetClause().limit == null) {
+        throw new IllegalStateException("Missing LIMIT value");
+      }
+      limit = visitIfPresent(ctx.limitOffsetClause().limit, Node.class);
+    }
+
+    return new ShowStatement(
+        getLocation(ctx),
+        InformationSchema.RECOVERY_PROGRESS,
+        visitIfPresent(ctx.where, Expression.class),
+        orderBy,
+        offset,
+        limit);
+  }
+
   @Override
   public Node visitKillQueryStatement(RelationalSqlParser.KillQueryStatementContext ctx) {
     if (ctx.queryId == null) {
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.sql.parser;
+
+import org.apache.iotdb.commons.service.metric.MetricService;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.protocol.session.IClientSession;
+import org.apache.iotdb.db.queryengine.plan.relational.analyzer.NodeRef;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.DefaultTraversalVisitor;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.DoubleLiteral;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.LongLiteral;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.NodeLocation;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Parameter;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ParameterizedStatement;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Query;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Statement;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.StringLiteral;
+import org.apache.iotdb.db.relational.grammar.sql.RelationalSqlLexer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of parsed table model queries. Numeric and string literals that are compared with other
+ * expressions, i.e. the right side of a comparison or the bounds of a BETWEEN, are replaced by
+ * {@link Parameter}s before parsing, so that queries only different in these literals share one
+ * parsed statement, and the literals are bound to the parameters during analysis.
+ *
+ * <p>The parsed statement does not depend on schema or partitions, which are resolved during
+ * analysis and planning, so there is nothing to invalidate on DDL, TTL or region changes. Queries
+ * using NOW(), which is evaluated during parsing, or COLUMNS(), whose select items are expanded in
+ * place during analysis, are never cached.
+ */
+public class ParameterizedStatementCache {
+
+  /** Marks a query shape whose parsed statement can not be shared. */
+  private static final Template NOT_CACHEABLE = new Template(null, new Parameter[0], 0);
+
+  private static final Comparator<Parameter> BY_LOCATION =
+      Comparator.comparing(
+          (Parameter parameter) -> parameter.getLocation().get(),
+          Comparator.comparingInt(NodeLocation::getLineNumber)
+              .thenComparingInt(NodeLocation::getColumnNumber));
+
+  private final int maxSize;
+  private final Cache<String, Template> cache;
+
+  private final AtomicLong requestCount = new AtomicLong(0);
+  private final AtomicLong hitCount = new AtomicLong(0);
+  private final AtomicLong savedParseTimeInNanos = new AtomicLong(0);
+
+  private ParameterizedStatementCache() {
+    this(IoTDBDescriptor.getInstance().getConfig().getParameterizedStatementCacheSize());
+    if (maxSize > 0) {
+      MetricService.getInstance().addMetricSet(new ParameterizedStatementCacheMetrics(this));
+    }
+  }
+
+  @TestOnly
+  ParameterizedStatementCache(final int maxSize) {
+    this.maxSize = maxSize;
+    cache = Caffeine.newBuilder().maximumSize(Math.max(maxSize, 0)).build();
+  }
+
+  public static ParameterizedStatementCache getInstance() {
+    return ParameterizedStatementCacheHolder.INSTANCE;
+  }
+
+  /**
+   * Parse the sql with the cached statement of its shape if possible.
+   *
+   * @return a {@link ParameterizedStatement} if the statement of its shape is cached or can be
+   *     cached, otherwise the statement parsed by sqlParser directly
+   */
+  public Statement createStatement(
+      final SqlParser sqlParser,
+      final String sql,
+      final ZoneId zoneId,
+      final IClientSession clientSession) {
+    if (maxSize <= 0) {
+      return sqlParser.createStatement(sql, zoneId, clientSession);
+    }
+    final NormalizedSql normalizedSql = normalize(sql);
+    if (normalizedSql == null) {
+      return sqlParser.createStatement(sql, zoneId, clientSession);
+    }
+    final String key = zoneId.getId() + ' ' + normalizedSql.sql;
+
+    requestCount.incrementAndGet();
+    Template template = cache.getIfPresent(key);
+    if (template != null) {
+      if (template == NOT_CACHEABLE) {
+        return sqlParser.createStatement(sql, zoneId, clientSession);
+      }
+      hitCount.incrementAndGet();
+      savedParseTimeInNanos.addAndGet(template.parseCostInNanos);
+      return template.bind(normalizedSql.literals);
+    }
+
+    template = parseTemplate(sqlParser, normalizedSql, zoneId, clientSession);
+    cache.put(key, template);
+    return template == NOT_CACHEABLE
+        ? sqlParser.createStatement(sql, zoneId, clientSession)
+        : template.bind(normalizedSql.literals);
+  }
+
+  private static Template parseTemplate(
+      final SqlParser sqlParser,
+      final NormalizedSql normalizedSql,
+      final ZoneId zoneId,
+      final IClientSession clientSession) {
+    final long startTime = System.nanoTime();
+    final Statement statement;
+    try {
+      statement = sqlParser.createStatement(normalizedSql.sql, zoneId, clientSession);
+    } catch (final Exception e) {
+      // let the original sql report the error
+      return NOT_CACHEABLE;
+    }
+    final long parseCostInNanos = System.nanoTime() - startTime;
+    if (!(statement instanceof Query)) {
+      return NOT_CACHEABLE;
+    }
+
+    // parameter ids follow the order in which AstBuilder visits the parse tree, e.g. the WITH
+    // clause after the query body, while the literals are in the order of the sql text, so the
+    // parameters are matched with the literals by their locations in the normalized sql
+    final List<Parameter> parameters = new ArrayList<>(normalizedSql.literals.size());
+    new DefaultTraversalVisitor<Void>() {
+      @Override
+      protected Void visitParameter(final Parameter node, final Void context) {
+        parameters.add(node);
+        return null;
+      }
+    }.process(statement, null);
+    if (parameters.size() != normalizedSql.literals.size()
+        || parameters.stream().anyMatch(parameter -> !parameter.getLocation().isPresent())) {
+      return NOT_CACHEABLE;
+    }
+    parameters.sort(BY_LOCATION);
+    return new Template(statement, parameters.toArray(new Parameter[0]), parseCostInNanos);
+  }
+
+  /**
+   * Replace the literals that can be parameterized with '?' and collapse whitespaces and comments.
+   *
+   * @return null if the sql is not a query or contains tokens that prevent the parsed statement
+   *     from being shared
+   */
+  static NormalizedSql normalize(final String sql) {
+    final RelationalSqlLexer lexer =
+        new RelationalSqlLexer(new CaseInsensitiveStream(CharStreams.fromString(sql)));
+    lexer.removeErrorListeners();
+    final List<? extends Token> tokens = lexer.getAllTokens();
+
+    final List<Token> defaultTokens = new ArrayList<>(tokens.size());
+    for (final Token token : tokens) {
+      if (token.getChannel() == Token.DEFAULT_CHANNEL) {
+        defaultTokens.add(token);
+      }
+    }
+    if (defaultTokens.isEmpty()
+        || (defaultTokens.get(0).getType() != RelationalSqlLexer.SELECT
+            && defaultTokens.get(0).getType() != RelationalSqlLexer.WITH)) {
+      return null;
+    }
+
+    final StringBuilder builder = new StringBuilder(sql.length());
+    final List<Token> literals = new ArrayList<>();
+    int defaultIndex = 0;
+    boolean afterBetweenLowerBound = false;
+    for (final Token token : tokens) {
+      if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+        if (builder.length() > 0 && builder.charAt(builder.length() - 1) != ' ') {
+          builder.append(' ');
+        }
+        continue;
+      }
+      switch (token.getType()) {
+        case RelationalSqlLexer.QUESTION_MARK:
+        case RelationalSqlLexer.NOW:
+        case RelationalSqlLexer.COLUMNS:
+        case RelationalSqlLexer.UNRECOGNIZED:
+          return null;
+        default:
+          break;
+      }
+
+      final Token previous = defaultIndex > 0 ? defaultTokens.get(defaultIndex - 1) : null;
+      final Token next =
+          defaultIndex + 1 < defaultTokens.size() ? defaultTokens.get(defaultIndex + 1) : null;
+      defaultIndex++;
+
+      boolean parameterize = false;
+      boolean betweenLowerBound = false;
+      if (isParameterizableLiteral(token) && previous != null) {
+        if (isComparisonOperator(previous.getType())
+            || (previous.getType() == RelationalSqlLexer.AND && afterBetweenLowerBound)) {
+          parameterize = isEndOfOperand(next);
+        } else if (previous.getType() == RelationalSqlLexer.BETWEEN) {
+          parameterize = next != null && next.getType() == RelationalSqlLexer.AND;
+          betweenLowerBound = parameterize;
+        }
+      }
+      afterBetweenLowerBound =
+          betweenLowerBound
+              || (afterBetweenLowerBound && token.getType() == RelationalSqlLexer.AND);
+
+      if (parameterize) {
+        builder.append('?');
+        literals.add(token);
+      } else {
+        builder.append(token.getText());
+      }
+    }
+    return new NormalizedSql(builder.toString().trim(), literals);
+  }
+
+  private static boolean isParameterizableLiteral(final Token token) {
+    switch (token.getType()) {
+      case RelationalSqlLexer.INTEGER_VALUE:
+      case RelationalSqlLexer.DECIMAL_VALUE:
+      case RelationalSqlLexer.DOUBLE_VALUE:
+      case RelationalSqlLexer.STRING:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isComparisonOperator(final int tokenType) {
+    switch (tokenType) {
+      case RelationalSqlLexer.EQ:
+      case RelationalSqlLexer.NEQ:
+      case RelationalSqlLexer.LT:
+      case RelationalSqlLexer.LTE:
+      case RelationalSqlLexer.GT:
+      case RelationalSqlLexer.GTE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /** Whether the literal before this token is a complete operand by itself. */
+  private static boolean isEndOfOperand(final Token next) {
+    if (next == null) {
+      return true;
+    }
+    switch (next.getType()) {
+      case RelationalSqlLexer.AND:
+      case RelationalSqlLexer.OR:
+      case RelationalSqlLexer.SEMICOLON:
+      case RelationalSqlLexer.GROUP:
+      case RelationalSqlLexer.HAVING:
+      case RelationalSqlLexer.FILL:
+      case RelationalSqlLexer.ORDER:
+      case RelationalSqlLexer.OFFSET:
+      case RelationalSqlLexer.LIMIT:
+        return true;
+      default:
+        return ")".equals(next.getText());
+    }
+  }
+
+  private static Expression toLiteral(final Token token) {
+    final String text = token.getText();
+    switch (token.getType()) {
+      case RelationalSqlLexer.INTEGER_VALUE:
+        return new LongLiteral(text);
+      case RelationalSqlLexer.DECIMAL_VALUE:
+      case RelationalSqlLexer.DOUBLE_VALUE:
+        return new DoubleLiteral(text);
+      case RelationalSqlLexer.STRING:
+        return new StringLiteral(text.substring(1, text.length() - 1).replace("''", "'"));
+      default:
+        throw new IllegalArgumentException("Unsupported literal: " + text);
+    }
+  }
+
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getSavedParseTimeInNanos() {
+    return savedParseTimeInNanos.get();
+  }
+
+  static class NormalizedSql {
+
+    final String sql;
+    final List<Token> literals;
+
+    private NormalizedSql(final String sql, final List<Token> literals) {
+      this.sql = sql;
+      this.literals = literals;
+    }
+  }
+
+  private static class Template {
+
+    private final Statement statement;
+
+    // in the order of their locations, which is also the order of the literals
+    private final Parameter[] parameters;
+
+    private final long parseCostInNanos;
+
+    private Template(
+        final Statement statement, final Parameter[] parameters, final long parseCostInNanos) {
+      this.statement = statement;
+      this.parameters = parameters;
+      this.parseCostInNanos = parseCostInNanos;
+    }
+
+    private ParameterizedStatement bind(final List<Token> literals) {
+      final List<Expression> values = new ArrayList<>(literals.size());
+      final Map<NodeRef<Parameter>, Expression> parameterLookup = new HashMap<>();
+      for (int i = 0; i < parameters.length; i++) {
+        final Expression value = toLiteral(literals.get(i));
+        values.add(value);
+        parameterLookup.put(NodeRef.of(parameters[i]), value);
+      }
+      return new ParameterizedStatement(statement, values, parameterLookup);
+    }
+  }
+
+  private static class ParameterizedStatementCacheHolder {
+    private static final ParameterizedStatementCache INSTANCE = new ParameterizedStatementCache();
+  }
+}
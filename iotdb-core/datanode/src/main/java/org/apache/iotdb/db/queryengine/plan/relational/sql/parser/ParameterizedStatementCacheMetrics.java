@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.sql.parser;
+
+import org.apache.iotdb.commons.service.metric.enums.Metric;
+import org.apache.iotdb.commons.service.metric.enums.Tag;
+import org.apache.iotdb.metrics.AbstractMetricService;
+import org.apache.iotdb.metrics.metricsets.IMetricSet;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+import org.apache.iotdb.metrics.utils.MetricType;
+
+import java.util.Objects;
+
+public class ParameterizedStatementCacheMetrics implements IMetricSet {
+
+  private static final String PARAMETERIZED_STATEMENT_CACHE = "ParameterizedStatementCache";
+  private static final String SAVED_PARSE_TIME = "saved_parse_time_in_nanos";
+
+  private final ParameterizedStatementCache parameterizedStatementCache;
+
+  public ParameterizedStatementCacheMetrics(
+      final ParameterizedStatementCache parameterizedStatementCache) {
+    this.parameterizedStatementCache = parameterizedStatementCache;
+  }
+
+  @Override
+  public void bindTo(final AbstractMetricService metricService) {
+    metricService.createAutoGauge(
+        Metric.CACHE.toString(),
+        MetricLevel.IMPORTANT,
+        parameterizedStatementCache,
+        ParameterizedStatementCache::getHitCount,
+        Tag.NAME.toString(),
+        PARAMETERIZED_STATEMENT_CACHE,
+        Tag.TYPE.toString(),
+        "hit");
+    metricService.createAutoGauge(
+        Metric.CACHE.toString(),
+        MetricLevel.IMPORTANT,
+        parameterizedStatementCache,
+        ParameterizedStatementCache::getRequestCount,
+        Tag.NAME.toString(),
+        PARAMETERIZED_STATEMENT_CACHE,
+        Tag.TYPE.toString(),
+        "all");
+    metricService.createAutoGauge(
+        Metric.CACHE.toString(),
+        MetricLevel.IMPORTANT,
+        parameterizedStatementCache,
+        ParameterizedStatementCache::getSavedParseTimeInNanos,
+        Tag.NAME.toString(),
+        PARAMETERIZED_STATEMENT_CACHE,
+        Tag.TYPE.toString(),
+        SAVED_PARSE_TIME);
+  }
+
+  @Override
+  public void unbindFrom(final AbstractMetricService metricService) {
+    for (final String type : new String[] {"hit", "all", SAVED_PARSE_TIME}) {
+      metricService.remove(
+          MetricType.AUTO_GAUGE,
+          Metric.CACHE.toString(),
+          Tag.NAME.toString(),
+          PARAMETERIZED_STATEMENT_CACHE,
+          Tag.TYPE.toString(),
+          type);
+    }
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final ParameterizedStatementCacheMetrics that = (ParameterizedStatementCacheMetrics) o;
+    return Objects.equals(parameterizedStatementCache, that.parameterizedStatementCache);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(parameterizedStatementCache);
+  }
+}
@@ -631,6 +631,7 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
               },
               tagManager::readTags,
               tagManager::readAttributes);
+      tagManager.finishIndexRecovery();
       logger.info(
           "MTree snapshot loading of schemaRegion {} costs {}ms.",
           schemaRegionId,
@@ -711,16 +712,6 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
       // Update statistics and schemaDataTypeNumMap
       regionStatistics.addMeasurement(1L);
 
-      // Update tag index
-      if (offset != -1 && isRecovering) {
-        // The time series has already been created and now system is recovering, using the tag
-        // info in tagFile to recover index directly
-        tagManager.recoverIndex(offset, leafMNode);
-      } else if (plan.getTags() != null) {
-        // Tag key, tag value
-        tagManager.addIndex(plan.getTags(), leafMNode);
-      }
-
       // Write log
       if (!isRecovering) {
         // Either tags or attributes is not empty
@@ -735,6 +726,16 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
         leafMNode.setOffset(offset);
       }
 
+      // Update tag index, the tag index is keyed by the tlog offset of the time series
+      if (offset != -1 && isRecovering) {
+        // The time series has already been created and now system is recovering, using the tag
+        // info in tagFile to recover index directly
+        tagManager.recoverIndex(offset, leafMNode);
+      } else if (plan.getTags() != null) {
+        // Tag key, tag value
+        tagManager.addIndex(plan.getTags(), leafMNode);
+      }
+
     } catch (IOException e) {
       throw new MetadataException(e);
     }
@@ -819,19 +820,6 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
         return;
       }
 
-      for (int i = 0; i < measurements.size(); i++) {
-        if (tagOffsets != null && !tagOffsets.isEmpty() && isRecovering) {
-          if (tagOffsets.get(i) != -1) {
-            tagManager.recoverIndex(plan.getTagOffsets().get(i), measurementMNodeList.get(i));
-          }
-        } else if (tagsList != null && !tagsList.isEmpty()) {
-          if (tagsList.get(i) != null) {
-            // tag key, tag value
-            tagManager.addIndex(tagsList.get(i), measurementMNodeList.get(i));
-          }
-        }
-      }
-
       // Write log
       tagOffsets = new ArrayList<>();
       if (!isRecovering) {
@@ -862,6 +850,20 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
           measurementMNodeList.get(i).setOffset(tagOffsets.get(i));
         }
       }
+
+      // Update tag index after the tlog offsets are set
+      for (int i = 0; i < measurements.size(); i++) {
+        if (tagOffsets != null && !tagOffsets.isEmpty() && isRecovering) {
+          if (tagOffsets.get(i) != -1) {
+            tagManager.recoverIndex(plan.getTagOffsets().get(i), measurementMNodeList.get(i));
+          }
+        } else if (tagsList != null && !tagsList.isEmpty()) {
+          if (tagsList.get(i) != null) {
+            // tag key, tag value
+            tagManager.addIndex(tagsList.get(i), measurementMNodeList.get(i));
+          }
+        }
+      }
     } catch (final IOException e) {
       throw new MetadataException(e);
     }
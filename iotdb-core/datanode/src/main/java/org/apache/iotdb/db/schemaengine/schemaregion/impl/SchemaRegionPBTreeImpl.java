@@ -564,6 +564,7 @@ public class SchemaRegionPBTreeImpl implements ISchemaRegion {
               tagManager::readTags,
               tagManager::readAttributes,
               this::flushCallback);
+      tagManager.finishIndexRecovery();
       logger.info(
           "MTree snapshot loading of schemaRegion {} costs {}ms.",
           schemaRegionId,
@@ -657,18 +658,6 @@ public class SchemaRegionPBTreeImpl implements ISchemaRegion {
         // Update statistics and schemaDataTypeNumMap
         regionStatistics.addMeasurement(1L);
 
-        // Update tag index
-        if (offset != -1 && isRecovering) {
-          // The time series has already been created and now system is recovering, using the tag
-          // info in tagFile to recover index directly
-          tagManager.recoverIndex(offset, leafMNode);
-          mtree.pinMNode(leafMNode.getAsMNode());
-        } else if (plan.getTags() != null) {
-          // Tag key, tag value
-          tagManager.addIndex(plan.getTags(), leafMNode);
-          mtree.pinMNode(leafMNode.getAsMNode());
-        }
-
         // write log
         if (!isRecovering) {
           // either tags or attributes is not empty
@@ -685,6 +674,18 @@ public class SchemaRegionPBTreeImpl implements ISchemaRegion {
               leafMNode.getAsMNode(), o -> o.getAsMeasurementMNode().setOffset(finalOffset));
         }
 
+        // Update tag index, the tag index is keyed by the tlog offset of the time series
+        if (offset != -1 && isRecovering) {
+          // The time series has already been created and now system is recovering, using the tag
+          // info in tagFile to recover index directly
+          tagManager.recoverIndex(offset, leafMNode);
+          mtree.pinMNode(leafMNode.getAsMNode());
+        } else if (plan.getTags() != null) {
+          // Tag key, tag value
+          tagManager.addIndex(plan.getTags(), leafMNode);
+          mtree.pinMNode(leafMNode.getAsMNode());
+        }
+
       } finally {
         if (Objects.nonNull(leafMNode)) {
           mtree.unPinMNode(leafMNode.getAsMNode());
@@ -791,21 +792,6 @@ public class SchemaRegionPBTreeImpl implements ISchemaRegion {
           return;
         }
 
-        for (int i = 0; i < measurements.size(); i++) {
-          if (tagOffsets != null && !plan.getTagOffsets().isEmpty() && isRecovering) {
-            if (tagOffsets.get(i) != -1) {
-              tagManager.recoverIndex(plan.getTagOffsets().get(i), measurementMNodeList.get(i));
-              mtree.pinMNode(measurementMNodeList.get(i).getAsMNode());
-            }
-          } else if (tagsList != null && !tagsList.isEmpty()) {
-            if (tagsList.get(i) != null) {
-              // Tag key, tag value
-              tagManager.addIndex(tagsList.get(i), measurementMNodeList.get(i));
-              mtree.pinMNode(measurementMNodeList.get(i).getAsMNode());
-            }
-          }
-        }
-
         // Write log
         tagOffsets = new ArrayList<>();
         if (!isRecovering) {
@@ -839,6 +825,22 @@ public class SchemaRegionPBTreeImpl implements ISchemaRegion {
                 o -> o.getAsMeasurementMNode().setOffset(offset));
           }
         }
+
+        // Update tag index after the tlog offsets are set
+        for (int i = 0; i < measurements.size(); i++) {
+          if (tagOffsets != null && !plan.getTagOffsets().isEmpty() && isRecovering) {
+            if (tagOffsets.get(i) != -1) {
+              tagManager.recoverIndex(plan.getTagOffsets().get(i), measurementMNodeList.get(i));
+              mtree.pinMNode(measurementMNodeList.get(i).getAsMNode());
+            }
+          } else if (tagsList != null && !tagsList.isEmpty()) {
+            if (tagsList.get(i) != null) {
+              // Tag key, tag value
+              tagManager.addIndex(tagsList.get(i), measurementMNodeList.get(i));
+              mtree.pinMNode(measurementMNodeList.get(i).getAsMNode());
+            }
+          }
+        }
       } finally {
         for (final IMeasurementMNode<ICachedMNode> measurementMNode : measurementMNodeList) {
           mtree.unPinMNode(measurementMNode.getAsMNode());
@@ -42,25 +42,31 @@ import org.apache.iotdb.db.schemaengine.schemaregion.read.resp.reader.impl.Times
 
 import org.apache.tsfile.utils.Pair;
 import org.apache.tsfile.utils.RamUsageEstimator;
+import org.apache.tsfile.utils.ReadWriteIOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
-import static java.util.stream.Collectors.toList;
-
 public class TagManager {
 
   private static final String TAG_FORMAT = "tag key is %s, tag value is %s, tlog offset is %d";
@@ -73,10 +79,19 @@ public class TagManager {
   private static final Logger logger = LoggerFactory.getLogger(TagManager.class);
   private static final CommonConfig COMMON_CONFIG = CommonDescriptor.getInstance().getConfig();
 
+  // memory occupied by one entry of offsetToNode, the referenced LeafMNode is not included
+  private static final long NODE_ENTRY_SIZE =
+      RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY
+          + RamUsageEstimator.shallowSizeOfInstance(Long.class);
+
   private TagLogFile tagLogFile;
-  // tag key -> tag value -> LeafMNode
-  private final Map<String, Map<String, Set<IMeasurementMNode<?>>>> tagIndex =
-      new ConcurrentHashMap<>();
+  // tag key -> tag value -> tlog offsets of LeafMNodes
+  private final Map<String, Map<String, TagPostingList>> tagIndex = new ConcurrentHashMap<>();
+  // tlog offset -> LeafMNode, only contains the timeseries present in tagIndex
+  private final Map<Long, IMeasurementMNode<?>> offsetToNode = new ConcurrentHashMap<>();
+  // ascending tlog offsets covered by the loaded index snapshot, only used while the schemaRegion
+  // is recovering from snapshot and null otherwise
+  private volatile long[] snapshotIndexedOffsets;
 
   private final MemSchemaRegionStatistics regionStatistics;
 
@@ -110,6 +125,7 @@ public class TagManager {
         return false;
       }
 
+      createIndexSnapshot(targetDir);
       return true;
     } catch (final IOException e) {
       logger.error("Failed to create tagManager snapshot due to {}", e.getMessage(), e);
@@ -126,6 +142,117 @@ public class TagManager {
     }
   }
 
+  /**
+   * Persist the tag inverted index as a term dictionary sorted by tag key and tag value, each term
+   * followed by its compressed posting list. The index snapshot only accelerates the recovery, so
+   * any failure here leaves the tlog snapshot valid and the index will be rebuilt from it.
+   */
+  private void createIndexSnapshot(final File targetDir) {
+    final File indexSnapshot =
+        SystemFileFactory.INSTANCE.getFile(targetDir, SchemaConstant.TAG_INDEX_SNAPSHOT);
+    final File indexSnapshotTmp =
+        SystemFileFactory.INSTANCE.getFile(targetDir, SchemaConstant.TAG_INDEX_SNAPSHOT_TMP);
+    if (indexSnapshot.exists() && !FileUtils.deleteFileIfExist(indexSnapshot)) {
+      logger.warn(
+          "Failed to delete old snapshot {} while creating tagManager snapshot.",
+          indexSnapshot.getName());
+      return;
+    }
+    try (final OutputStream outputStream =
+        new BufferedOutputStream(new FileOutputStream(indexSnapshotTmp))) {
+      final Map<String, Map<String, TagPostingList>> sortedIndex = new TreeMap<>(tagIndex);
+      ReadWriteIOUtils.write(sortedIndex.size(), outputStream);
+      for (final Map.Entry<String, Map<String, TagPostingList>> keyEntry :
+          sortedIndex.entrySet()) {
+        final Map<String, TagPostingList> sortedValues = new TreeMap<>(keyEntry.getValue());
+        ReadWriteIOUtils.write(keyEntry.getKey(), outputStream);
+        ReadWriteIOUtils.write(sortedValues.size(), outputStream);
+        for (final Map.Entry<String, TagPostingList> valueEntry : sortedValues.entrySet()) {
+          ReadWriteIOUtils.write(valueEntry.getKey(), outputStream);
+          valueEntry.getValue().serialize(outputStream);
+        }
+      }
+    } catch (final IOException e) {
+      logger.warn(
+          "Failed to create tag index snapshot, the index will be rebuilt from {} when loading.",
+          SchemaConstant.TAG_LOG_SNAPSHOT,
+          e);
+      FileUtils.deleteFileIfExist(indexSnapshotTmp);
+      return;
+    }
+    if (!indexSnapshotTmp.renameTo(indexSnapshot)) {
+      logger.warn(
+          "Failed to rename {} to {} while creating tagManager snapshot.",
+          indexSnapshotTmp.getName(),
+          indexSnapshot.getName());
+      FileUtils.deleteFileIfExist(indexSnapshotTmp);
+    }
+  }
+
+  /**
+   * Load the postings of the index snapshot if it exists. The LeafMNodes are bound to the postings
+   * afterward by {@link #recoverIndex} without reading tlog, until {@link #finishIndexRecovery} is
+   * called.
+   */
+  private void loadIndexSnapshot(final File snapshotDir) {
+    final File indexSnapshot =
+        SystemFileFactory.INSTANCE.getFile(snapshotDir, SchemaConstant.TAG_INDEX_SNAPSHOT);
+    if (!indexSnapshot.exists()) {
+      return;
+    }
+    final List<long[]> postings = new ArrayList<>();
+    int offsetNum = 0;
+    long memorySize = 0;
+    try (final InputStream inputStream =
+        new BufferedInputStream(new FileInputStream(indexSnapshot))) {
+      final int keyNum = ReadWriteIOUtils.readInt(inputStream);
+      for (int i = 0; i < keyNum; i++) {
+        final String tagKey = ReadWriteIOUtils.readString(inputStream);
+        final int valueNum = ReadWriteIOUtils.readInt(inputStream);
+        for (int j = 0; j < valueNum; j++) {
+          final String tagValue = ReadWriteIOUtils.readString(inputStream);
+          final TagPostingList postingList = TagPostingList.deserialize(inputStream);
+          if (postingList.isEmpty()) {
+            continue;
+          }
+          tagIndex
+              .computeIfAbsent(tagKey, k -> new ConcurrentHashMap<>())
+              .put(tagValue, postingList);
+          memorySize +=
+              RamUsageEstimator.sizeOf(tagValue) + 4 + (long) postingList.size() * Long.BYTES;
+          final long[] offsets = postingList.toArray();
+          postings.add(offsets);
+          offsetNum += offsets.length;
+        }
+        if (tagIndex.containsKey(tagKey)) {
+          memorySize += RamUsageEstimator.sizeOf(tagKey) + 4;
+        }
+      }
+    } catch (final IOException e) {
+      logger.warn(
+          "Failed to load tag index snapshot, the tag index will be rebuilt from {}.",
+          SchemaConstant.TAG_LOG,
+          e);
+      clearIndex();
+      return;
+    }
+
+    final long[] indexedOffsets = new long[offsetNum];
+    int position = 0;
+    for (final long[] offsets : postings) {
+      System.arraycopy(offsets, 0, indexedOffsets, position, offsets.length);
+      position += offsets.length;
+    }
+    Arrays.sort(indexedOffsets);
+    snapshotIndexedOffsets = indexedOffsets;
+    requestMemory(memorySize);
+  }
+
+  /** Stop binding LeafMNodes to the postings loaded from index snapshot. */
+  public void finishIndexRecovery() {
+    snapshotIndexedOffsets = null;
+  }
+
   public static TagManager loadFromSnapshot(
       File snapshotDir, String sgSchemaDirPath, MemSchemaRegionStatistics regionStatistics)
       throws IOException {
@@ -138,7 +265,9 @@ public class TagManager {
 
     try {
       org.apache.commons.io.FileUtils.copyFile(tagSnapshot, tagFile);
-      return new TagManager(sgSchemaDirPath, regionStatistics);
+      TagManager tagManager = new TagManager(sgSchemaDirPath, regionStatistics);
+      tagManager.loadIndexSnapshot(snapshotDir);
+      return tagManager;
     } catch (IOException e) {
       if (!tagFile.delete()) {
         logger.warn(
@@ -150,33 +279,57 @@ public class TagManager {
 
   public boolean recoverIndex(long offset, IMeasurementMNode<?> measurementMNode)
       throws IOException {
+    long[] indexedOffsets = snapshotIndexedOffsets;
+    if (indexedOffsets != null) {
+      // the postings have been loaded from index snapshot, only the LeafMNode needs to be bound
+      if (Arrays.binarySearch(indexedOffsets, offset) < 0) {
+        return false;
+      }
+      bindNode(offset, measurementMNode);
+      return true;
+    }
     Map<String, String> tags = tagLogFile.readTag(offset);
     if (tags == null || tags.isEmpty()) {
       return false;
     } else {
-      addIndex(tags, measurementMNode);
+      for (Map.Entry<String, String> entry : tags.entrySet()) {
+        addIndex(entry.getKey(), entry.getValue(), offset, measurementMNode);
+      }
       return true;
     }
   }
 
   public void addIndex(String tagKey, String tagValue, IMeasurementMNode<?> measurementMNode) {
+    if (measurementMNode == null) {
+      return;
+    }
+    addIndex(tagKey, tagValue, measurementMNode.getOffset(), measurementMNode);
+  }
+
+  private void addIndex(
+      String tagKey, String tagValue, long offset, IMeasurementMNode<?> measurementMNode) {
     if (tagKey == null || tagValue == null || measurementMNode == null) {
       return;
     }
+    if (offset < 0) {
+      logger.warn(
+          "TimeSeries {} is not added to tag inverted index because its tlog offset is {}.",
+          measurementMNode.getFullPath(),
+          offset);
+      return;
+    }
+    bindNode(offset, measurementMNode);
 
     int tagIndexOldSize = tagIndex.size();
-    Map<String, Set<IMeasurementMNode<?>>> tagValueMap =
+    Map<String, TagPostingList> tagValueMap =
         tagIndex.computeIfAbsent(tagKey, k -> new ConcurrentHashMap<>());
     int tagIndexNewSize = tagIndex.size();
 
     int tagValueMapOldSize = tagValueMap.size();
-    Set<IMeasurementMNode<?>> measurementsSet =
-        tagValueMap.computeIfAbsent(tagValue, v -> Collections.synchronizedSet(new HashSet<>()));
+    TagPostingList postingList = tagValueMap.computeIfAbsent(tagValue, v -> new TagPostingList());
     int tagValueMapNewSize = tagValueMap.size();
 
-    int measurementsSetOldSize = measurementsSet.size();
-    measurementsSet.add(measurementMNode);
-    int measurementsSetNewSize = measurementsSet.size();
+    boolean isNewPosting = postingList.add(offset);
 
     long memorySize = 0;
     if (tagIndexNewSize - tagIndexOldSize == 1) {
@@ -184,16 +337,22 @@ public class TagManager {
       memorySize += RamUsageEstimator.sizeOf(tagKey) + 4;
     }
     if (tagValueMapNewSize - tagValueMapOldSize == 1) {
-      // the last 4 is the memory occupied by the size of measurementsSet
+      // the last 4 is the memory occupied by the size of postingList
       memorySize += RamUsageEstimator.sizeOf(tagValue) + 4;
     }
-    if (measurementsSetNewSize - measurementsSetOldSize == 1) {
-      // 8 is the memory occupied by the length of the IMeasurementMNode
-      memorySize += RamUsageEstimator.NUM_BYTES_OBJECT_REF + 4;
+    if (isNewPosting) {
+      memorySize += Long.BYTES;
     }
     requestMemory(memorySize);
   }
 
+  private void bindNode(long offset, IMeasurementMNode<?> measurementMNode) {
+    // always keep the latest LeafMNode instance of this timeseries
+    if (offsetToNode.put(offset, measurementMNode) == null) {
+      requestMemory(NODE_ENTRY_SIZE);
+    }
+  }
+
   public void addIndex(Map<String, String> tagsMap, IMeasurementMNode<?> measurementMNode) {
     if (tagsMap != null && measurementMNode != null) {
       for (Map.Entry<String, String> entry : tagsMap.entrySet()) {
@@ -208,12 +367,12 @@ public class TagManager {
     }
     // init memory size
     long memorySize = 0;
-    if (tagIndex.get(tagKey).get(tagValue).remove(measurementMNode)) {
-      memorySize += RamUsageEstimator.NUM_BYTES_OBJECT_REF + 4;
+    if (tagIndex.get(tagKey).get(tagValue).remove(measurementMNode.getOffset())) {
+      memorySize += Long.BYTES;
     }
     if (tagIndex.get(tagKey).get(tagValue).isEmpty()) {
       if (tagIndex.get(tagKey).remove(tagValue) != null) {
-        // the last 4 is the memory occupied by the size of IMeasurementMNodeSet
+        // the last 4 is the memory occupied by the size of postingList
         memorySize += RamUsageEstimator.sizeOf(tagValue) + 4;
       }
     }
@@ -226,43 +385,65 @@ public class TagManager {
     releaseMemory(memorySize);
   }
 
-  private List<IMeasurementMNode<?>> getMatchedTimeseriesInIndex(TagFilter tagFilter) {
-    if (!tagIndex.containsKey(tagFilter.getKey())) {
-      return Collections.emptyList();
+  private long[] getMatchedOffsetsInIndex(TagFilter tagFilter) {
+    Map<String, TagPostingList> value2Offsets = tagIndex.get(tagFilter.getKey());
+    if (value2Offsets == null || value2Offsets.isEmpty()) {
+      return new long[0];
     }
-    Map<String, Set<IMeasurementMNode<?>>> value2Node = tagIndex.get(tagFilter.getKey());
-    if (value2Node.isEmpty()) {
-      return Collections.emptyList();
+
+    if (!tagFilter.isContains()) {
+      TagPostingList postingList = value2Offsets.get(tagFilter.getValue());
+      return postingList == null ? new long[0] : postingList.toArray();
     }
 
-    List<IMeasurementMNode<?>> allMatchedNodes = new ArrayList<>();
-    if (tagFilter.isContains()) {
-      for (Map.Entry<String, Set<IMeasurementMNode<?>>> entry : value2Node.entrySet()) {
-        if (entry.getKey() == null || entry.getValue() == null) {
-          continue;
-        }
-        String tagValue = entry.getKey();
-        if (tagValue.contains(tagFilter.getValue())) {
-          allMatchedNodes.addAll(entry.getValue());
-        }
+    // one timeseries has only one value of a tag key, so the matched postings are disjoint
+    List<long[]> matchedPostings = new ArrayList<>();
+    int matchedNum = 0;
+    for (Map.Entry<String, TagPostingList> entry : value2Offsets.entrySet()) {
+      if (entry.getKey() == null || entry.getValue() == null) {
+        continue;
       }
-    } else {
-      for (Map.Entry<String, Set<IMeasurementMNode<?>>> entry : value2Node.entrySet()) {
-        if (entry.getKey() == null || entry.getValue() == null) {
-          continue;
-        }
-        String tagValue = entry.getKey();
-        if (tagFilter.getValue().equals(tagValue)) {
-          allMatchedNodes.addAll(entry.getValue());
-        }
+      if (entry.getKey().contains(tagFilter.getValue())) {
+        long[] offsets = entry.getValue().toArray();
+        matchedPostings.add(offsets);
+        matchedNum += offsets.length;
       }
     }
-    // we just sort them by the alphabetical order
-    allMatchedNodes =
-        allMatchedNodes.stream()
-            .sorted(Comparator.comparing(IMNode::getFullPath))
-            .collect(toList());
+    long[] allMatchedOffsets = new long[matchedNum];
+    int position = 0;
+    for (long[] offsets : matchedPostings) {
+      System.arraycopy(offsets, 0, allMatchedOffsets, position, offsets.length);
+      position += offsets.length;
+    }
+    Arrays.sort(allMatchedOffsets);
+    return allMatchedOffsets;
+  }
+
+  private List<IMeasurementMNode<?>> getMatchedTimeseriesInIndex(List<SchemaFilter> tagFilters) {
+    // intersect the posting lists of all TagFilters, starting from the shortest one
+    List<long[]> matchedPostings = new ArrayList<>(tagFilters.size());
+    for (SchemaFilter tagFilter : tagFilters) {
+      long[] offsets = getMatchedOffsetsInIndex((TagFilter) tagFilter);
+      if (offsets.length == 0) {
+        return Collections.emptyList();
+      }
+      matchedPostings.add(offsets);
+    }
+    matchedPostings.sort(Comparator.comparingInt(offsets -> offsets.length));
+    long[] allMatchedOffsets = matchedPostings.get(0);
+    for (int i = 1; i < matchedPostings.size() && allMatchedOffsets.length > 0; i++) {
+      allMatchedOffsets = TagPostingList.intersect(allMatchedOffsets, matchedPostings.get(i));
+    }
 
+    List<IMeasurementMNode<?>> allMatchedNodes = new ArrayList<>(allMatchedOffsets.length);
+    for (long offset : allMatchedOffsets) {
+      IMeasurementMNode<?> node = offsetToNode.get(offset);
+      if (node != null) {
+        allMatchedNodes.add(node);
+      }
+    }
+    // we just sort them by the alphabetical order
+    allMatchedNodes.sort(Comparator.comparing(IMNode::getFullPath));
     return allMatchedNodes;
   }
 
@@ -270,12 +451,11 @@ public class TagManager {
       IShowTimeSeriesPlan plan) {
     // schemaFilter must not null
     SchemaFilter schemaFilter = plan.getSchemaFilter();
-    // currently, only one TagFilter is supported
-    // all IMeasurementMNode in allMatchedNodes satisfied TagFilter
+    // all IMeasurementMNode in allMatchedNodes satisfied every TagFilter in the conjunction
+    List<SchemaFilter> tagFilters =
+        SchemaFilter.extract(schemaFilter, SchemaFilterType.TAGS_FILTER);
     Iterator<IMeasurementMNode<?>> allMatchedNodes =
-        getMatchedTimeseriesInIndex(
-                (TagFilter) SchemaFilter.extract(schemaFilter, SchemaFilterType.TAGS_FILTER).get(0))
-            .iterator();
+        getMatchedTimeseriesInIndex(tagFilters).iterator();
     PartialPath pathPattern = plan.getPath();
     SchemaIterator<ITimeSeriesSchemaInfo> schemaIterator =
         new SchemaIterator<ITimeSeriesSchemaInfo>() {
@@ -388,6 +568,9 @@ public class TagManager {
         }
       }
     }
+    if (offsetToNode.remove(node.getOffset()) != null) {
+      releaseMemory(NODE_ENTRY_SIZE);
+    }
   }
 
   /**
@@ -756,13 +939,19 @@ public class TagManager {
   }
 
   public void clear() throws IOException {
-    this.tagIndex.clear();
+    clearIndex();
     if (tagLogFile != null) {
       tagLogFile.close();
       tagLogFile = null;
     }
   }
 
+  private void clearIndex() {
+    this.tagIndex.clear();
+    this.offsetToNode.clear();
+    this.snapshotIndexedOffsets = null;
+  }
+
   private void requestMemory(long size) {
     if (regionStatistics != null) {
       regionStatistics.requestMemory(size);
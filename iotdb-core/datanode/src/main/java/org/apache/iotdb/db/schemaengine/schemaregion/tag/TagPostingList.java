@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.schemaengine.schemaregion.tag;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Posting list of one tag key-value pair in the tag inverted index. Each timeseries is identified
+ * by its record offset in the tag log file, which is unique within a schema region and never
+ * changes during the lifetime of the timeseries. Offsets are kept in an ascending primitive array
+ * so that a posting costs 8 bytes and posting lists can be intersected by merging.
+ */
+public class TagPostingList {
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  private long[] offsets;
+  private int size;
+
+  public TagPostingList() {
+    this.offsets = new long[INITIAL_CAPACITY];
+  }
+
+  private TagPostingList(long[] offsets, int size) {
+    this.offsets = offsets;
+    this.size = size;
+  }
+
+  /** @return true if the offset did not exist before */
+  public synchronized boolean add(long offset) {
+    int index = Arrays.binarySearch(offsets, 0, size, offset);
+    if (index >= 0) {
+      return false;
+    }
+    index = -index - 1;
+    if (size == offsets.length) {
+      offsets = Arrays.copyOf(offsets, size + (size >> 1) + 1);
+    }
+    System.arraycopy(offsets, index, offsets, index + 1, size - index);
+    offsets[index] = offset;
+    size++;
+    return true;
+  }
+
+  /** @return true if the offset existed before */
+  public synchronized boolean remove(long offset) {
+    int index = Arrays.binarySearch(offsets, 0, size, offset);
+    if (index < 0) {
+      return false;
+    }
+    System.arraycopy(offsets, index + 1, offsets, index, size - index - 1);
+    size--;
+    if (size < offsets.length >> 2 && offsets.length > INITIAL_CAPACITY) {
+      offsets = Arrays.copyOf(offsets, Math.max(INITIAL_CAPACITY, size << 1));
+    }
+    return true;
+  }
+
+  public synchronized boolean contains(long offset) {
+    return Arrays.binarySearch(offsets, 0, size, offset) >= 0;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public synchronized boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** @return an ascending copy of the offsets in this posting list */
+  public synchronized long[] toArray() {
+    return Arrays.copyOf(offsets, size);
+  }
+
+  /** Intersect two ascending offset arrays by merging them. */
+  public static long[] intersect(long[] left, long[] right) {
+    long[] result = new long[Math.min(left.length, right.length)];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < left.length && j < right.length) {
+      if (left[i] < right[j]) {
+        i++;
+      } else if (left[i] > right[j]) {
+        j++;
+      } else {
+        result[count++] = left[i];
+        i++;
+        j++;
+      }
+    }
+    return count == result.length ? result : Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Serialize the posting list as the number of postings followed by the gaps between adjacent
+   * offsets, each written as an unsigned variable-length long.
+   */
+  public synchronized void serialize(OutputStream outputStream) throws IOException {
+    writeUnsignedVarLong(size, outputStream);
+    long previous = 0;
+    for (int i = 0; i < size; i++) {
+      writeUnsignedVarLong(offsets[i] - previous, outputStream);
+      previous = offsets[i];
+    }
+  }
+
+  public static TagPostingList deserialize(InputStream inputStream) throws IOException {
+    int size = (int) readUnsignedVarLong(inputStream);
+    long[] offsets = new long[Math.max(size, INITIAL_CAPACITY)];
+    long previous = 0;
+    for (int i = 0; i < size; i++) {
+      previous += readUnsignedVarLong(inputStream);
+      offsets[i] = previous;
+    }
+    return new TagPostingList(offsets, size);
+  }
+
+  private static void writeUnsignedVarLong(long value, OutputStream outputStream)
+      throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      outputStream.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    outputStream.write((int) value);
+  }
+
+  private static long readUnsignedVarLong(InputStream inputStream) throws IOException {
+    long value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = inputStream.read();
+      if (b < 0) {
+        throw new IOException("Unexpected end of tag posting list");
+      }
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
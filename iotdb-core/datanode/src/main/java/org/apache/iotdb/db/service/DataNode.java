@@ -89,6 +89,7 @@ import org.apache.iotdb.db.queryengine.plan.planner.LogicalPlanVisitor;
 import org.apache.iotdb.db.queryengine.plan.planner.distribution.DistributionPlanContext;
 import org.apache.iotdb.db.queryengine.plan.planner.distribution.SourceRewriter;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.LogicalQueryPlan;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher.cache.LastCacheSnapshotService;
 import org.apache.iotdb.db.schemaengine.SchemaEngine;
 import org.apache.iotdb.db.schemaengine.schemaregion.attribute.update.GeneralRegionAttributeSecurityService;
 import org.apache.iotdb.db.schemaengine.table.DataNodeTableCache;
@@ -758,6 +759,9 @@ public class DataNode extends ServerCommandLine implements DataNodeMBean {
     // Must init after SchemaEngine and StorageEngine prepared well
     DataNodeRegionManager.getInstance().init();
 
+    // Reload the last caches before serving queries
+    registerManager.register(LastCacheSnapshotService.getInstance());
+
     // Start region migrate service
     registerManager.register(RegionMigrateService.getInstance());
 
@@ -43,6 +43,7 @@ import java.util.Properties;
 public class MQTTService implements IService {
   private static final Logger LOG = LoggerFactory.getLogger(MQTTService.class);
   private final Server server = new Server();
+  private MPPPublishHandler publishHandler;
 
   private MQTTService() {}
 
@@ -60,7 +61,8 @@ public class MQTTService implements IService {
     IoTDBConfig iotDBConfig = IoTDBDescriptor.getInstance().getConfig();
     IConfig config = createBrokerConfig(iotDBConfig);
     List<InterceptHandler> handlers = new ArrayList<>(1);
-    handlers.add(new MPPPublishHandler(iotDBConfig));
+    publishHandler = new MPPPublishHandler(iotDBConfig);
+    handlers.add(publishHandler);
     IAuthenticator authenticator = new BrokerAuthenticator();
 
     try {
@@ -105,6 +107,9 @@ public class MQTTService implements IService {
 
   public void shutdown() {
     server.stopServer();
+    if (publishHandler != null) {
+      publishHandler.stop();
+    }
   }
 
   @Override
@@ -184,11 +184,15 @@ public class WritingMetrics implements IMetricSet {
   public static final String READ_WAL_BUFFER_COST_NS = "read_wal_buffer_cost";
   public static final String WRITE_WAL_BUFFER_COST_NS = "write_wal_buffer_cost";
   public static final String ENTRIES_COUNT = "entries_count";
+  public static final String GROUP_COMMIT_BATCH_SIZE = "group_commit_batch_size";
+  public static final String GROUP_COMMIT_WAIT_COST_NS = "group_commit_wait_cost";
   public static final String WAL_QUEUE_CURRENT_MEM_COST = "wal_queue_current_mem_cost";
   public static final String WAL_QUEUE_MAX_MEM_COST = "wal_queue_max_mem_cost";
 
   private Histogram usedRatioHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
   private Histogram entriesCountHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
+  private Histogram groupCommitBatchSizeHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
+  private Histogram groupCommitWaitCostHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
   private Histogram serializedWALBufferSizeHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
   private Histogram wroteWALBufferSizeHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
   private Histogram walCompressCostHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
@@ -215,6 +219,18 @@ public class WritingMetrics implements IMetricSet {
             MetricLevel.IMPORTANT,
             Tag.NAME.toString(),
             ENTRIES_COUNT);
+    groupCommitBatchSizeHistogram =
+        metricService.getOrCreateHistogram(
+            Metric.WAL_BUFFER.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.NAME.toString(),
+            GROUP_COMMIT_BATCH_SIZE);
+    groupCommitWaitCostHistogram =
+        metricService.getOrCreateHistogram(
+            Metric.WAL_BUFFER.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.NAME.toString(),
+            GROUP_COMMIT_WAIT_COST_NS);
 
     serializedWALBufferSizeHistogram =
         metricService.getOrCreateHistogram(
@@ -279,9 +295,13 @@ public class WritingMetrics implements IMetricSet {
         MetricType.AUTO_GAUGE, Metric.WAL_NODE_NUM.toString(), Tag.NAME.toString(), WAL_NODES_NUM);
     usedRatioHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
     entriesCountHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
+    groupCommitBatchSizeHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
+    groupCommitWaitCostHistogram = DoNothingMetricManager.DO_NOTHING_HISTOGRAM;
     Arrays.asList(
             USED_RATIO,
             ENTRIES_COUNT,
+            GROUP_COMMIT_BATCH_SIZE,
+            GROUP_COMMIT_WAIT_COST_NS,
             SERIALIZED_WAL_BUFFER_SIZE_BYTE,
             WROTE_WAL_BUFFER_SIZE_BYTE,
             WAL_COMPRESS_COST_NS,
@@ -916,6 +936,17 @@ public class WritingMetrics implements IMetricSet {
     entriesCountHistogram.update(count);
   }
 
+  /**
+   * Record one fsync of the group commit mode.
+   *
+   * @param batchSize number of write requests completed by this fsync
+   * @param waitCostInNanos time from the first write request of the group to its completion
+   */
+  public void recordWALGroupCommit(long batchSize, long waitCostInNanos) {
+    groupCommitBatchSizeHistogram.update(batchSize);
+    groupCommitWaitCostHistogram.update(waitCostInNanos);
+  }
+
   public void recordWALQueueMaxMemorySize(long size) {
     walQueueMaxMemSizeGauge.set(size);
   }
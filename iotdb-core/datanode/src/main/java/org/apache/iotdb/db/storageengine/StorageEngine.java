@@ -41,6 +41,7 @@ import org.apache.iotdb.commons.pipe.config.PipeConfig;
 import org.apache.iotdb.commons.schema.ttl.TTLCache;
 import org.apache.iotdb.commons.service.IService;
 import org.apache.iotdb.commons.service.ServiceType;
+import org.apache.iotdb.commons.service.metric.MetricService;
 import org.apache.iotdb.commons.utils.PathUtils;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.commons.utils.TimePartitionUtils;
@@ -63,6 +64,8 @@ import org.apache.iotdb.db.storageengine.buffer.BloomFilterCache;
 import org.apache.iotdb.db.storageengine.buffer.ChunkCache;
 import org.apache.iotdb.db.storageengine.buffer.TimeSeriesMetadataCache;
 import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
+import org.apache.iotdb.db.storageengine.dataregion.DataRegionRecoveryMetrics;
+import org.apache.iotdb.db.storageengine.dataregion.DataRegionRecoveryProgress;
 import org.apache.iotdb.db.storageengine.dataregion.compaction.repair.RepairLogger;
 import org.apache.iotdb.db.storageengine.dataregion.compaction.repair.UnsortedFileRepairTaskScheduler;
 import org.apache.iotdb.db.storageengine.dataregion.compaction.schedule.CompactionScheduleTaskManager;
@@ -90,6 +93,8 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -135,6 +140,12 @@ public class StorageEngine implements IService {
   /** number of ready data region */
   private AtomicInteger readyDataRegionNum;
 
+  /** DataRegionId -> recovery progress of the data regions found when starting */
+  private final ConcurrentHashMap<DataRegionId, DataRegionRecoveryProgress> recoveryProgressMap =
+      new ConcurrentHashMap<>();
+
+  private DataRegionRecoveryMetrics recoveryMetrics;
+
   private final AtomicBoolean isReadyForReadAndWrite = new AtomicBoolean();
 
   private final AtomicBoolean isReadyForNonReadWriteFunctions = new AtomicBoolean();
@@ -147,6 +158,9 @@ public class StorageEngine implements IService {
   /** used to do short-lived asynchronous tasks */
   private ExecutorService cachedThreadPool;
 
+  /** used to load TsFileResources of data regions after restart, bounded by the disk number */
+  private ExecutorService tsFileResourceRecoverThreadPool;
+
   // add customized listeners here for flush and close events
   private final List<CloseFileListener> customCloseFileListeners = new ArrayList<>();
   private final List<FlushListener> customFlushListeners = new ArrayList<>();
@@ -236,15 +250,32 @@ public class StorageEngine implements IService {
     // init wal recover manager
     WALRecoverManager.getInstance()
         .setAllDataRegionScannedLatch(new ExceptionalCountDownLatch(recoverDataRegionNum));
+    recoveryProgressMap.clear();
+    for (Map.Entry<String, List<DataRegionId>> entry : localDataRegionInfo.entrySet()) {
+      for (DataRegionId dataRegionId : entry.getValue()) {
+        recoveryProgressMap.put(
+            dataRegionId, new DataRegionRecoveryProgress(entry.getKey(), dataRegionId));
+      }
+    }
+    if (recoveryMetrics != null) {
+      MetricService.getInstance().removeMetricSet(recoveryMetrics);
+    }
+    recoveryMetrics = new DataRegionRecoveryMetrics(recoveryProgressMap.values());
+    MetricService.getInstance().addMetricSet(recoveryMetrics);
+    // all data regions must be scanned before wal can be recovered, and each data region waits for
+    // its unsealed TsFiles to be redone from wal, so they can't be bounded here
     for (Map.Entry<String, List<DataRegionId>> entry : localDataRegionInfo.entrySet()) {
       String sgName = entry.getKey();
       for (DataRegionId dataRegionId : entry.getValue()) {
+        DataRegionRecoveryProgress progress = recoveryProgressMap.get(dataRegionId);
         Callable<Void> recoverDataRegionTask =
             () -> {
               DataRegion dataRegion;
+              progress.start();
               try {
                 dataRegion = buildNewDataRegion(sgName, dataRegionId);
               } catch (DataRegionException e) {
+                progress.fail();
                 LOGGER.error(
                     "Failed to recover data region {}[{}]", sgName, dataRegionId.getId(), e);
                 return null;
@@ -364,24 +395,51 @@ public class StorageEngine implements IService {
   private void asyncRecoverTsFileResource() {
     List<Future<Void>> futures = new LinkedList<>();
     long startRecoverTime = System.currentTimeMillis();
+    List<DataRegion> dataRegionsToRecover = new ArrayList<>();
     for (DataRegion dataRegion : dataRegionMap.values()) {
-      if (dataRegion != null) {
-        List<Callable<Void>> asyncTsFileResourceRecoverTasks =
-            dataRegion.getAsyncTsFileResourceRecoverTaskList();
-        if (asyncTsFileResourceRecoverTasks != null) {
-          Callable<Void> taskOfRegion =
-              () -> {
-                for (Callable<Void> task : asyncTsFileResourceRecoverTasks) {
-                  task.call();
-                }
-                dataRegion.clearAsyncTsFileResourceRecoverTaskList();
-                dataRegion.initCompactionSchedule();
-                return null;
-              };
-          futures.add(cachedThreadPool.submit(taskOfRegion));
-        }
+      if (dataRegion != null && dataRegion.getAsyncTsFileResourceRecoverTaskList() != null) {
+        dataRegionsToRecover.add(dataRegion);
       }
     }
+    // the data regions with the most files are recovered first, so that the threads finish at
+    // about the same time
+    dataRegionsToRecover.sort(
+        Comparator.comparingLong(this::getRemainingFileNumToRecover).reversed());
+    int threadNum =
+        CONFIG.getTsFileResourceRecoverThreadNum() > 0
+            ? CONFIG.getTsFileResourceRecoverThreadNum()
+            : Math.max(1, CONFIG.getLocalDataDirs().length);
+    tsFileResourceRecoverThreadPool =
+        IoTDBThreadPoolFactory.newFixedThreadPool(
+            threadNum, ThreadName.TSFILE_RESOURCE_RECOVER.getName());
+    for (DataRegion dataRegion : dataRegionsToRecover) {
+      List<Callable<Void>> asyncTsFileResourceRecoverTasks =
+          dataRegion.getAsyncTsFileResourceRecoverTaskList();
+      DataRegionRecoveryProgress progress =
+          recoveryProgressMap.get(new DataRegionId(Integer.parseInt(dataRegion.getDataRegionId())));
+      Callable<Void> taskOfRegion =
+          () -> {
+            try {
+              for (Callable<Void> task : asyncTsFileResourceRecoverTasks) {
+                task.call();
+              }
+            } catch (Exception e) {
+              if (progress != null) {
+                progress.fail();
+              }
+              throw e;
+            }
+            dataRegion.clearAsyncTsFileResourceRecoverTaskList();
+            dataRegion.initCompactionSchedule();
+            if (progress != null) {
+              progress.finish();
+            }
+            return null;
+          };
+      futures.add(tsFileResourceRecoverThreadPool.submit(taskOfRegion));
+    }
+    // the submitted tasks are still executed after shutdown
+    tsFileResourceRecoverThreadPool.shutdown();
     Thread recoverEndTrigger =
         new Thread(
             () -> {
@@ -411,9 +469,31 @@ public class StorageEngine implements IService {
     if (cachedThreadPool != null) {
       cachedThreadPool.shutdownNow();
     }
+    if (tsFileResourceRecoverThreadPool != null) {
+      tsFileResourceRecoverThreadPool.shutdownNow();
+    }
     dataRegionMap.clear();
   }
 
+  private long getRemainingFileNumToRecover(DataRegion dataRegion) {
+    DataRegionRecoveryProgress progress =
+        recoveryProgressMap.get(new DataRegionId(Integer.parseInt(dataRegion.getDataRegionId())));
+    return progress == null ? 0 : progress.getRemainingFileNum();
+  }
+
+  /**
+   * Get the recovery progress of a data region found when starting.
+   *
+   * @return null if the data region is created after starting
+   */
+  public DataRegionRecoveryProgress getDataRegionRecoveryProgress(DataRegionId dataRegionId) {
+    return recoveryProgressMap.get(dataRegionId);
+  }
+
+  public Collection<DataRegionRecoveryProgress> getDataRegionRecoveryProgresses() {
+    return recoveryProgressMap.values();
+  }
+
   @Override
   public void shutdown(long milliseconds) throws ShutdownException {
     try {
@@ -774,6 +854,7 @@ public class StorageEngine implements IService {
     }
     DataRegion region =
         deletingDataRegionMap.computeIfAbsent(regionId, k -> dataRegionMap.remove(regionId));
+    recoveryProgressMap.remove(regionId);
     if (region != null) {
       region.markDeleted();
       try {
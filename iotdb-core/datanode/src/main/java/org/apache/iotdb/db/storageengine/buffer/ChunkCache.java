@@ -34,6 +34,7 @@ import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileID;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.Weigher;
 import org.apache.tsfile.file.metadata.statistics.Statistics;
 import org.apache.tsfile.read.TsFileSequenceReader;
@@ -54,7 +55,8 @@ import static org.apache.iotdb.db.queryengine.metric.SeriesScanCostMetricSet.REA
 
 /**
  * This class is used to cache <code>Chunk</code> of <code>ChunkMetaData</code> in IoTDB. The
- * caching strategy is LRU.
+ * caching strategy is LRU. If the off-heap chunk cache is enabled, chunks evicted from this cache
+ * are kept in {@link OffHeapChunkCache} and promoted back on hit.
  */
 @SuppressWarnings("squid:S6548")
 public class ChunkCache {
@@ -72,6 +74,9 @@ public class ChunkCache {
   // to save memory footprint, we don't save measurementId in ChunkHeader of Chunk
   private final Cache<ChunkCacheKey, Chunk> lruCache;
 
+  // null if the off-heap chunk cache is disabled
+  private final OffHeapChunkCache offHeapCache;
+
   static {
     CACHE_MEMORY_BLOCK =
         MEMORY_CONFIG
@@ -85,15 +90,31 @@ public class ChunkCache {
     if (CACHE_ENABLE) {
       LOGGER.info("ChunkCache size = {}", CACHE_MEMORY_BLOCK.getTotalMemorySizeInBytes());
     }
-    lruCache =
+    long offHeapCacheSize = MEMORY_CONFIG.getOffHeapChunkCacheSizeInBytes();
+    offHeapCache =
+        CACHE_ENABLE && offHeapCacheSize > 0 ? new OffHeapChunkCache(offHeapCacheSize) : null;
+    if (offHeapCache != null) {
+      LOGGER.info("Off-heap ChunkCache size = {}", offHeapCacheSize);
+    }
+    Caffeine<ChunkCacheKey, Chunk> builder =
         Caffeine.newBuilder()
             .maximumWeight(CACHE_MEMORY_BLOCK.getTotalMemorySizeInBytes())
             .weigher(
                 (Weigher<ChunkCacheKey, Chunk>)
                     (key, chunk) ->
                         (int) (key.getRetainedSizeInBytes() + chunk.getRetainedSizeInBytes()))
-            .recordStats()
-            .build();
+            .recordStats();
+    if (offHeapCache != null) {
+      builder =
+          builder.removalListener(
+              (ChunkCacheKey key, Chunk chunk, RemovalCause cause) -> {
+                // only chunks evicted because of size limit are moved to the second tier
+                if (cause == RemovalCause.SIZE && key != null && chunk != null) {
+                  offHeapCache.put(key, chunk);
+                }
+              });
+    }
+    lruCache = builder.build();
 
     // add metrics
     MetricService.getInstance().addMetricSet(new ChunkCacheMetrics(this));
@@ -154,7 +175,7 @@ public class ChunkCache {
       LongConsumer cacheMissAdder)
       throws IOException {
     long startTime = System.nanoTime();
-    ChunkLoader chunkLoader = new ChunkLoader(ioSizeRecorder);
+    ChunkLoader chunkLoader = new ChunkLoader(ioSizeRecorder, offHeapCache);
     try {
       if (!CACHE_ENABLE) {
         Chunk chunk = chunkLoader.apply(chunkCacheKey);
@@ -197,6 +218,18 @@ public class ChunkCache {
     return lruCache.stats().hitRate();
   }
 
+  public boolean isOffHeapCacheEnabled() {
+    return offHeapCache != null;
+  }
+
+  public double getOffHeapHitRate() {
+    return offHeapCache == null ? 0 : offHeapCache.getHitRate();
+  }
+
+  public long getOffHeapUsedSizeInBytes() {
+    return offHeapCache == null ? 0 : offHeapCache.getUsedSizeInBytes();
+  }
+
   public long getEvictionCount() {
     return lruCache.stats().evictionCount();
   }
@@ -213,6 +246,9 @@ public class ChunkCache {
   public void clear() {
     lruCache.invalidateAll();
     lruCache.cleanUp();
+    if (offHeapCache != null) {
+      offHeapCache.clear();
+    }
   }
 
   @TestOnly
@@ -295,13 +331,21 @@ public class ChunkCache {
 
     private boolean cacheMiss = false;
     private final LongConsumer ioSizeRecorder;
+    private final OffHeapChunkCache offHeapCache;
 
-    private ChunkLoader(LongConsumer ioSizeRecorder) {
+    private ChunkLoader(LongConsumer ioSizeRecorder, OffHeapChunkCache offHeapCache) {
       this.ioSizeRecorder = ioSizeRecorder;
+      this.offHeapCache = offHeapCache;
     }
 
     @Override
     public Chunk apply(ChunkCacheKey key) {
+      if (offHeapCache != null) {
+        Chunk chunk = offHeapCache.getAndRemove(key);
+        if (chunk != null) {
+          return chunk;
+        }
+      }
 
       long startTime = System.nanoTime();
       try {
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.storageengine.buffer;
+
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.storageengine.buffer.ChunkCache.ChunkCacheKey;
+import org.apache.iotdb.db.utils.MmapUtil;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.apache.tsfile.encrypt.EncryptParameter;
+import org.apache.tsfile.file.header.ChunkHeader;
+import org.apache.tsfile.file.metadata.statistics.Statistics;
+import org.apache.tsfile.read.common.Chunk;
+import org.apache.tsfile.read.common.TimeRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The second tier of {@link ChunkCache}. Chunks evicted from the on-heap {@link ChunkCache} because
+ * of its size limit are kept here with their data copied into direct buffers, so that the heap is
+ * not occupied. A chunk found here is removed and promoted back to {@link ChunkCache}.
+ *
+ * <p>Admission and eviction are decided by the W-TinyLFU policy of Caffeine, so that a chunk which
+ * is rarely read will not evict frequently read ones.
+ */
+public class OffHeapChunkCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapChunkCache.class);
+
+  private final Cache<ChunkCacheKey, OffHeapChunk> lruCache;
+
+  private final long maxSizeInBytes;
+
+  private final AtomicLong usedSizeInBytes = new AtomicLong();
+
+  public OffHeapChunkCache(long maxSizeInBytes) {
+    this.maxSizeInBytes = maxSizeInBytes;
+    this.lruCache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxSizeInBytes)
+            .weigher(
+                (Weigher<ChunkCacheKey, OffHeapChunk>)
+                    (key, chunk) -> (int) Math.min(Integer.MAX_VALUE, chunk.getOffHeapSize()))
+            // release the direct buffer in the removing thread, so that the used size is accurate
+            .executor(Runnable::run)
+            .removalListener(
+                (ChunkCacheKey key, OffHeapChunk chunk, RemovalCause cause) -> {
+                  if (chunk != null) {
+                    chunk.release();
+                  }
+                })
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Copy the data of an evicted chunk into a direct buffer and cache it. The chunk is skipped if
+   * the direct memory is exhausted.
+   */
+  public void put(ChunkCacheKey key, Chunk chunk) {
+    ByteBuffer data = chunk.getData().duplicate();
+    if (data.remaining() > maxSizeInBytes) {
+      return;
+    }
+    ByteBuffer offHeapData;
+    try {
+      offHeapData = ByteBuffer.allocateDirect(data.remaining());
+    } catch (OutOfMemoryError e) {
+      LOGGER.debug("Failed to allocate direct memory for off-heap chunk cache", e);
+      return;
+    }
+    offHeapData.put(data);
+    offHeapData.flip();
+    lruCache.put(key, new OffHeapChunk(chunk, offHeapData));
+  }
+
+  /**
+   * Remove the chunk of key from this cache and return it with its data copied back to heap.
+   *
+   * @return null if the chunk is not cached.
+   */
+  public Chunk getAndRemove(ChunkCacheKey key) {
+    OffHeapChunk offHeapChunk = lruCache.getIfPresent(key);
+    if (offHeapChunk == null) {
+      return null;
+    }
+    // the chunk will be promoted to ChunkCache, there is no need to keep it here
+    Chunk chunk = offHeapChunk.toChunk();
+    lruCache.asMap().remove(key, offHeapChunk);
+    return chunk;
+  }
+
+  public double getHitRate() {
+    return lruCache.stats().hitRate() * 100;
+  }
+
+  public long getUsedSizeInBytes() {
+    return usedSizeInBytes.get();
+  }
+
+  public long getMaxSizeInBytes() {
+    return maxSizeInBytes;
+  }
+
+  public void clear() {
+    lruCache.invalidateAll();
+    lruCache.cleanUp();
+  }
+
+  @TestOnly
+  public boolean contains(ChunkCacheKey key) {
+    return lruCache.asMap().containsKey(key);
+  }
+
+  private class OffHeapChunk {
+
+    private final ChunkHeader header;
+    private final List<TimeRange> deleteIntervalList;
+    private final Statistics chunkStatistic;
+    private final EncryptParameter encryptParam;
+
+    // guarded by this, null after released
+    private ByteBuffer data;
+    private final long offHeapSize;
+
+    private OffHeapChunk(Chunk chunk, ByteBuffer data) {
+      this.header = chunk.getHeader();
+      this.deleteIntervalList = chunk.getDeleteIntervalList();
+      this.chunkStatistic = chunk.getChunkStatistic();
+      this.encryptParam = chunk.getEncryptParam();
+      this.data = data;
+      this.offHeapSize = data.capacity();
+      usedSizeInBytes.addAndGet(offHeapSize);
+    }
+
+    private long getOffHeapSize() {
+      return offHeapSize;
+    }
+
+    /** @return null if the direct buffer has been released concurrently. */
+    private synchronized Chunk toChunk() {
+      if (data == null) {
+        return null;
+      }
+      ByteBuffer heapData = ByteBuffer.allocate(data.remaining());
+      heapData.put(data.duplicate());
+      heapData.flip();
+      return new Chunk(header, heapData, deleteIntervalList, chunkStatistic, encryptParam);
+    }
+
+    private synchronized void release() {
+      if (data != null) {
+        MmapUtil.clean(data);
+        data = null;
+        usedSizeInBytes.addAndGet(-offHeapSize);
+      }
+    }
+  }
+}
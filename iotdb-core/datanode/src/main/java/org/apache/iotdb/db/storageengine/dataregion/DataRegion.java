@@ -55,6 +55,7 @@ import org.apache.iotdb.db.pipe.consensus.deletion.DeletionResource.Status;
 import org.apache.iotdb.db.pipe.consensus.deletion.persist.PageCacheDeletionBuffer;
 import org.apache.iotdb.db.pipe.extractor.dataregion.realtime.listener.PipeInsertionDataNodeListener;
 import org.apache.iotdb.db.queryengine.common.DeviceContext;
+import org.apache.iotdb.db.queryengine.execution.aggregation.AggregationResultCache;
 import org.apache.iotdb.db.queryengine.execution.fragment.QueryContext;
 import org.apache.iotdb.db.queryengine.metric.QueryResourceMetricSet;
 import org.apache.iotdb.db.queryengine.plan.analyze.cache.schema.DataNodeTTLCache;
@@ -106,6 +107,7 @@ import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSourceForRegio
 import org.apache.iotdb.db.storageengine.dataregion.read.control.FileReaderManager;
 import org.apache.iotdb.db.storageengine.dataregion.read.filescan.IFileScanHandle;
 import org.apache.iotdb.db.storageengine.dataregion.read.filescan.impl.ClosedFileScanHandleImpl;
+import org.apache.iotdb.db.storageengine.dataregion.statistics.TableStatisticsManager;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileID;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileManager;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
@@ -432,6 +434,9 @@ public class DataRegion implements IDataRegionForQuery {
     /** last recovery log time. */
     private long lastLogTime;
 
+    /** null if this data region is created after starting. */
+    private final DataRegionRecoveryProgress recoveryProgress;
+
     /** recover performers of unsealed TsFiles. */
     private final List<UnsealedTsFileRecoverPerformer> recoverPerformers = new ArrayList<>();
 
@@ -439,10 +444,19 @@ public class DataRegion implements IDataRegionForQuery {
       this.numOfFilesToRecover = numOfFilesToRecover;
       this.recoveredFilesNum = 0;
       this.lastLogTime = System.currentTimeMillis();
+      this.recoveryProgress =
+          StorageEngine.getInstance()
+              .getDataRegionRecoveryProgress(new DataRegionId(Integer.parseInt(dataRegionId)));
+      if (recoveryProgress != null) {
+        recoveryProgress.setTotalFileNum(numOfFilesToRecover);
+      }
     }
 
     public void incrementRecoveredFilesNum() {
       recoveredFilesNum++;
+      if (recoveryProgress != null) {
+        recoveryProgress.incrementRecoveredFileNum();
+      }
       if (recoveredFilesNum < numOfFilesToRecover) {
         if (System.currentTimeMillis() - lastLogTime > config.getRecoveryLogIntervalInMs()) {
           logger.info(
@@ -1334,6 +1348,7 @@ public class DataRegion implements IDataRegionForQuery {
     // register TableSchema (and maybe more) for table insertion
     registerToTsFile(insertTabletNode, tsFileProcessor);
 
+    invalidateAggregationResultCache(insertTabletNode, rangeList);
     try {
       tsFileProcessor.insertTablet(insertTabletNode, rangeList, results, noFailure, infoForMetrics);
     } catch (WriteProcessRejectException e) {
@@ -1351,6 +1366,48 @@ public class DataRegion implements IDataRegionForQuery {
     return true;
   }
 
+  private void invalidateAggregationResultCache(InsertRowNode node) {
+    if (AggregationResultCache.getInstance().isUsed(dataRegionId)) {
+      AggregationResultCache.getInstance()
+          .invalidate(dataRegionId, node.getDeviceID(), node.getTime(), node.getTime());
+    }
+  }
+
+  private void invalidateAggregationResultCache(InsertRowsNode node) {
+    if (AggregationResultCache.getInstance().isUsed(dataRegionId)) {
+      for (InsertRowNode insertRowNode : node.getInsertRowNodeList()) {
+        invalidateAggregationResultCache(insertRowNode);
+      }
+    }
+  }
+
+  private void invalidateAggregationResultCache(InsertTabletNode node, List<int[]> rangeList) {
+    AggregationResultCache resultCache = AggregationResultCache.getInstance();
+    if (!resultCache.isUsed(dataRegionId)) {
+      return;
+    }
+    long[] times = node.getTimes();
+    for (int[] range : rangeList) {
+      // rows of a table model tablet may belong to different devices
+      IDeviceID deviceId = node.getDeviceID(range[0]);
+      long minTime = times[range[0]];
+      long maxTime = times[range[0]];
+      for (int i = range[0] + 1; i < range[1]; i++) {
+        IDeviceID rowDeviceId = node.getDeviceID(i);
+        if (!rowDeviceId.equals(deviceId)) {
+          resultCache.invalidate(dataRegionId, deviceId, minTime, maxTime);
+          deviceId = rowDeviceId;
+          minTime = times[i];
+          maxTime = times[i];
+        } else {
+          minTime = Math.min(minTime, times[i]);
+          maxTime = Math.max(maxTime, times[i]);
+        }
+      }
+      resultCache.invalidate(dataRegionId, deviceId, minTime, maxTime);
+    }
+  }
+
   private void registerToTsFile(InsertNode node, TsFileProcessor tsFileProcessor) {
     final String tableName = node.getTableName();
     if (tableName != null) {
@@ -1379,6 +1436,7 @@ public class DataRegion implements IDataRegionForQuery {
     // infoForMetrics[2]: ScheduleWalTimeCost
     // infoForMetrics[3]: ScheduleMemTableTimeCost
     // infoForMetrics[4]: InsertedPointsNumber
+    invalidateAggregationResultCache(insertRowNode);
     tsFileProcessor.insert(insertRowNode, infoForMetrics);
     updateTsFileProcessorMetric(insertRowNode, infoForMetrics);
     // register TableSchema (and maybe more) for table insertion
@@ -1434,6 +1492,7 @@ public class DataRegion implements IDataRegionForQuery {
     for (Map.Entry<TsFileProcessor, InsertRowsNode> entry : tsFileProcessorMap.entrySet()) {
       TsFileProcessor tsFileProcessor = entry.getKey();
       InsertRowsNode subInsertRowsNode = entry.getValue();
+      invalidateAggregationResultCache(subInsertRowsNode);
       try {
         tsFileProcessor.insertRows(subInsertRowsNode, infoForMetrics);
       } catch (WriteProcessException e) {
@@ -1735,6 +1794,7 @@ public class DataRegion implements IDataRegionForQuery {
       tsFileResourceList.forEach(
           x -> {
             FileMetrics.getInstance().deleteTsFile(x.isSeq(), Collections.singletonList(x));
+            TableStatisticsManager.getInstance().unregister(x);
             try {
               x.removeModFile();
             } catch (IOException e) {
@@ -1749,6 +1809,7 @@ public class DataRegion implements IDataRegionForQuery {
       lastFlushTimeMap.clearGlobalFlushedTime();
       TimePartitionManager.getInstance()
           .removeTimePartitionInfo(new DataRegionId(Integer.parseInt(dataRegionId)));
+      AggregationResultCache.getInstance().removeRegion(dataRegionId);
     } catch (InterruptedException e) {
       logger.error(
           "CloseFileNodeCondition error occurs while waiting for closing the storage " + "group {}",
@@ -1973,7 +2034,7 @@ public class DataRegion implements IDataRegionForQuery {
     try {
       List<TsFileResource> seqResources =
           getFileResourceListForQuery(
-              tsFileManager.getTsFileList(true, timePartitions, globalTimeFilter),
+              tsFileManager.getTsFileList(true, timePartitions, globalTimeFilter, singleDeviceId),
               pathList,
               singleDeviceId,
               context,
@@ -1981,7 +2042,7 @@ public class DataRegion implements IDataRegionForQuery {
               true);
       List<TsFileResource> unseqResources =
           getFileResourceListForQuery(
-              tsFileManager.getTsFileList(false, timePartitions, globalTimeFilter),
+              tsFileManager.getTsFileList(false, timePartitions, globalTimeFilter, singleDeviceId),
               pathList,
               singleDeviceId,
               context,
@@ -2126,14 +2187,15 @@ public class DataRegion implements IDataRegionForQuery {
   public void readLock() {
     // apply read lock for SG insert lock to prevent inconsistent with concurrently writing memtable
     insertLock.readLock().lock();
-    // apply read lock for TsFileResource list
-    tsFileManager.readLock();
+    // pin a snapshot of TsFileResource list instead of locking it, so that the query never waits
+    // for compaction to replace files
+    tsFileManager.pinSnapshot();
   }
 
   /** unlock the read lock of insert lock */
   @Override
   public void readUnlock() {
-    tsFileManager.readUnlock();
+    tsFileManager.unpinSnapshot();
     insertLock.readLock().unlock();
   }
 
@@ -2230,6 +2292,7 @@ public class DataRegion implements IDataRegionForQuery {
         return;
       }
       TreeDeviceSchemaCacheManager.getInstance().invalidateLastCache(pattern);
+      AggregationResultCache.getInstance().invalidate(dataRegionId, null, startTime, endTime);
       // write log to impacted working TsFileProcessors
       List<WALFlushListener> walListeners =
           logDeletionInWAL(startTime, endTime, searchIndex, pattern);
@@ -2260,6 +2323,8 @@ public class DataRegion implements IDataRegionForQuery {
       hasReleasedLock = true;
 
       deleteDataInSealedFiles(sealedTsFileResource, deletion);
+      // queries started before the mods of sealed files are written may have cached the old data
+      AggregationResultCache.getInstance().invalidate(dataRegionId, null, startTime, endTime);
     } catch (Exception e) {
       throw new IOException(e);
     } finally {
@@ -2291,6 +2356,7 @@ public class DataRegion implements IDataRegionForQuery {
       }
       TableDeviceSchemaCache.getInstance()
           .invalidateLastCache(getDatabaseName(), modEntries.get(0).getTableName());
+      invalidateAggregationResultCache(modEntries);
       List<WALFlushListener> walListeners = logDeletionInWAL(node);
 
       for (WALFlushListener walFlushListener : walListeners) {
@@ -2329,6 +2395,8 @@ public class DataRegion implements IDataRegionForQuery {
       for (int i = 0; i < modEntries.size(); i++) {
         deleteDataInSealedFiles(sealedTsFileResourceLists.get(i), modEntries.get(i));
       }
+      // queries started before the mods of sealed files are written may have cached the old data
+      invalidateAggregationResultCache(modEntries);
     } catch (Exception e) {
       throw new IOException(e);
     } finally {
@@ -2338,6 +2406,13 @@ public class DataRegion implements IDataRegionForQuery {
     }
   }
 
+  private void invalidateAggregationResultCache(List<TableDeletionEntry> modEntries) {
+    for (TableDeletionEntry modEntry : modEntries) {
+      AggregationResultCache.getInstance()
+          .invalidate(dataRegionId, null, modEntry.getStartTime(), modEntry.getEndTime());
+    }
+  }
+
   public void deleteDataDirectly(MeasurementPath pathToDelete, DeleteDataNode node)
       throws IOException {
     final long startTime = node.getDeleteStartTime();
@@ -2357,6 +2432,7 @@ public class DataRegion implements IDataRegionForQuery {
         return;
       }
       TreeDeviceSchemaCacheManager.getInstance().invalidateDatabaseLastCache(getDatabaseName());
+      AggregationResultCache.getInstance().invalidate(dataRegionId, null, startTime, endTime);
       // write log to impacted working TsFileProcessors
       List<WALFlushListener> walListeners =
           logDeletionInWAL(startTime, endTime, searchIndex, pathToDelete);
@@ -2382,6 +2458,8 @@ public class DataRegion implements IDataRegionForQuery {
       writeUnlock();
       releasedLock = true;
       deleteDataDirectlyInFile(sealedTsFileResource, deletion);
+      // queries started before the sealed files are changed may have cached the old data
+      AggregationResultCache.getInstance().invalidate(dataRegionId, null, startTime, endTime);
     } catch (Exception e) {
       throw new IOException(e);
     } finally {
@@ -2960,6 +3038,7 @@ public class DataRegion implements IDataRegionForQuery {
 
     writeLock("loadNewTsFile");
     try {
+      AggregationResultCache.getInstance().invalidate(dataRegionId);
       newTsFileResource.setSeq(false);
       final String newFileName =
           getNewTsFileName(
@@ -3435,6 +3514,7 @@ public class DataRegion implements IDataRegionForQuery {
       for (Map.Entry<TsFileProcessor, InsertRowsNode> entry : tsFileProcessorMap.entrySet()) {
         TsFileProcessor tsFileProcessor = entry.getKey();
         InsertRowsNode subInsertRowsNode = entry.getValue();
+        invalidateAggregationResultCache(subInsertRowsNode);
         try {
           tsFileProcessor.insertRows(subInsertRowsNode, infoForMetrics);
         } catch (WriteProcessException e) {
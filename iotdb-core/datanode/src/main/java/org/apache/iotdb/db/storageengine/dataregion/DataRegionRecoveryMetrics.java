@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion;
+
+import org.apache.iotdb.commons.service.metric.enums.Metric;
+import org.apache.iotdb.commons.service.metric.enums.Tag;
+import org.apache.iotdb.metrics.AbstractMetricService;
+import org.apache.iotdb.metrics.metricsets.IMetricSet;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+import org.apache.iotdb.metrics.utils.MetricType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/** Recovery progress of each data region when starting iotdb. */
+public class DataRegionRecoveryMetrics implements IMetricSet {
+  private static final String TOTAL_FILE = "total_file";
+  private static final String RECOVERED_FILE = "recovered_file";
+  private static final String PROGRESS = "progress";
+
+  private final List<DataRegionRecoveryProgress> progressList;
+
+  public DataRegionRecoveryMetrics(Collection<DataRegionRecoveryProgress> progressList) {
+    this.progressList = new ArrayList<>(progressList);
+  }
+
+  @Override
+  public void bindTo(AbstractMetricService metricService) {
+    for (DataRegionRecoveryProgress progress : progressList) {
+      String region = String.valueOf(progress.getDataRegionId().getId());
+      metricService.createAutoGauge(
+          Metric.DATA_REGION_RECOVERY.toString(),
+          MetricLevel.IMPORTANT,
+          progress,
+          DataRegionRecoveryProgress::getTotalFileNum,
+          Tag.DATABASE.toString(),
+          progress.getDatabaseName(),
+          Tag.REGION.toString(),
+          region,
+          Tag.TYPE.toString(),
+          TOTAL_FILE);
+      metricService.createAutoGauge(
+          Metric.DATA_REGION_RECOVERY.toString(),
+          MetricLevel.IMPORTANT,
+          progress,
+          DataRegionRecoveryProgress::getRecoveredFileNum,
+          Tag.DATABASE.toString(),
+          progress.getDatabaseName(),
+          Tag.REGION.toString(),
+          region,
+          Tag.TYPE.toString(),
+          RECOVERED_FILE);
+      metricService.createAutoGauge(
+          Metric.DATA_REGION_RECOVERY.toString(),
+          MetricLevel.IMPORTANT,
+          progress,
+          DataRegionRecoveryProgress::getProgress,
+          Tag.DATABASE.toString(),
+          progress.getDatabaseName(),
+          Tag.REGION.toString(),
+          region,
+          Tag.TYPE.toString(),
+          PROGRESS);
+    }
+  }
+
+  @Override
+  public void unbindFrom(AbstractMetricService metricService) {
+    for (DataRegionRecoveryProgress progress : progressList) {
+      String region = String.valueOf(progress.getDataRegionId().getId());
+      for (String type : new String[] {TOTAL_FILE, RECOVERED_FILE, PROGRESS}) {
+        metricService.remove(
+            MetricType.AUTO_GAUGE,
+            Metric.DATA_REGION_RECOVERY.toString(),
+            Tag.DATABASE.toString(),
+            progress.getDatabaseName(),
+            Tag.REGION.toString(),
+            region,
+            Tag.TYPE.toString(),
+            type);
+      }
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    DataRegionRecoveryMetrics that = (DataRegionRecoveryMetrics) o;
+    return Objects.equals(progressList, that.progressList);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(progressList);
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion;
+
+import org.apache.iotdb.commons.consensus.DataRegionId;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Recovery progress of a data region when starting iotdb. */
+public class DataRegionRecoveryProgress {
+
+  public enum Status {
+    /** waiting for a thread to recover it */
+    PENDING,
+    /** unsealed TsFiles are redone from wal, or TsFileResources are being loaded */
+    RECOVERING,
+    RECOVERED,
+    FAILED
+  }
+
+  private final String databaseName;
+  private final DataRegionId dataRegionId;
+
+  private volatile Status status = Status.PENDING;
+  private volatile long totalFileNum = 0;
+  private final AtomicLong recoveredFileNum = new AtomicLong(0);
+  private volatile long startTime = -1;
+  private volatile long endTime = -1;
+
+  public DataRegionRecoveryProgress(String databaseName, DataRegionId dataRegionId) {
+    this.databaseName = databaseName;
+    this.dataRegionId = dataRegionId;
+  }
+
+  public void start() {
+    startTime = System.currentTimeMillis();
+    status = Status.RECOVERING;
+  }
+
+  public void finish() {
+    endTime = System.currentTimeMillis();
+    status = Status.RECOVERED;
+  }
+
+  public void fail() {
+    endTime = System.currentTimeMillis();
+    status = Status.FAILED;
+  }
+
+  public void setTotalFileNum(long totalFileNum) {
+    this.totalFileNum = totalFileNum;
+  }
+
+  public void incrementRecoveredFileNum() {
+    recoveredFileNum.incrementAndGet();
+  }
+
+  public String getDatabaseName() {
+    return databaseName;
+  }
+
+  public DataRegionId getDataRegionId() {
+    return dataRegionId;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public long getTotalFileNum() {
+    return totalFileNum;
+  }
+
+  public long getRecoveredFileNum() {
+    return recoveredFileNum.get();
+  }
+
+  public long getRemainingFileNum() {
+    return Math.max(0, totalFileNum - recoveredFileNum.get());
+  }
+
+  /** Ratio of recovered files, from 0 to 1. */
+  public double getProgress() {
+    if (status == Status.RECOVERED) {
+      return 1;
+    }
+    long total = totalFileNum;
+    return total <= 0 ? 0 : Math.min(1, (double) recoveredFileNum.get() / total);
+  }
+
+  public long getElapsedTimeInMs() {
+    if (startTime < 0) {
+      return 0;
+    }
+    return (endTime < 0 ? System.currentTimeMillis() : endTime) - startTime;
+  }
+
+  /**
+   * Estimate the remaining time by the average recovery time of the recovered files.
+   *
+   * @return the estimated remaining time, or -1 if it can't be estimated yet
+   */
+  public long getEstimatedRemainingTimeInMs() {
+    if (status != Status.RECOVERING) {
+      return status == Status.PENDING ? -1 : 0;
+    }
+    long recovered = recoveredFileNum.get();
+    if (recovered <= 0) {
+      return -1;
+    }
+    return getElapsedTimeInMs() * getRemainingFileNum() / recovered;
+  }
+}
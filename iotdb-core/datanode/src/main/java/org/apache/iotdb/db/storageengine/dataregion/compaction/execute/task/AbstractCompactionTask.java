@@ -302,6 +302,8 @@ public abstract class AbstractCompactionTask {
     } finally {
       tsFileManager.writeUnlock();
     }
+    // queries may still read the removed files from the snapshots published before
+    tsFileManager.waitForStaleSnapshots();
   }
 
   protected boolean checkAllSourceFileExists(List<TsFileResource> tsFileResources) {
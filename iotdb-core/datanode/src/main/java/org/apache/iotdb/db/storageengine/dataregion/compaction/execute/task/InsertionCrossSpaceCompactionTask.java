@@ -226,6 +226,8 @@ public class InsertionCrossSpaceCompactionTask extends AbstractCompactionTask {
     targetFile.setProgressIndex(unseqFileToInsert.getMaxProgressIndexAfterClose());
     targetFile.deserialize();
     targetFile.setProgressIndex(unseqFileToInsert.getMaxProgressIndexAfterClose());
+    // the data is not rewritten, so the statistics are handed over to the target file
+    targetFile.setTableStatistics(unseqFileToInsert.getTableStatistics());
   }
 
   private boolean recoverTaskInfoFromLogFile() throws IOException {
@@ -84,7 +84,7 @@ public abstract class AbstractCrossCompactionWriter extends AbstractCompactionWr
     for (int i = 0; i < targetResources.size(); i++) {
       this.targetFileWriters.add(
           new CompactionTsFileWriter(
-              targetResources.get(i).getTsFile(),
+              targetResources.get(i),
               memorySizeForEachWriter,
               CompactionType.CROSS_COMPACTION));
       isEmptyFile[i] = true;
@@ -23,6 +23,8 @@ import org.apache.iotdb.db.service.metrics.CompactionMetrics;
 import org.apache.iotdb.db.storageengine.dataregion.compaction.schedule.CompactionTaskManager;
 import org.apache.iotdb.db.storageengine.dataregion.compaction.schedule.constant.CompactionIoDataType;
 import org.apache.iotdb.db.storageengine.dataregion.compaction.schedule.constant.CompactionType;
+import org.apache.iotdb.db.storageengine.dataregion.statistics.TsFileTableStatistics;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
 
 import org.apache.tsfile.enums.TSDataType;
 import org.apache.tsfile.file.metadata.ChunkMetadata;
@@ -52,6 +54,12 @@ public class CompactionTsFileWriter extends TsFileIOWriter {
   private boolean isEmptyTargetFile = true;
   private IDeviceID currentDeviceId;
 
+  /** the resource to set the table statistics on when the file is ended, may be null */
+  private TsFileResource targetResource;
+
+  private final TsFileTableStatistics.Builder tableStatisticsBuilder =
+      new TsFileTableStatistics.Builder();
+
   public CompactionTsFileWriter(File file, long maxMetadataSize, CompactionType type)
       throws IOException {
     super(file, maxMetadataSize);
@@ -61,6 +69,13 @@ public class CompactionTsFileWriter extends TsFileIOWriter {
             super.out, CompactionTaskManager.getInstance().getMergeWriteRateLimiter());
   }
 
+  public CompactionTsFileWriter(
+      TsFileResource targetResource, long maxMetadataSize, CompactionType type)
+      throws IOException {
+    this(targetResource.getTsFile(), maxMetadataSize, type);
+    this.targetResource = targetResource;
+  }
+
   public void markStartingWritingAligned() {
     isWritingAligned = true;
   }
@@ -137,6 +152,9 @@ public class CompactionTsFileWriter extends TsFileIOWriter {
     TableSchema tableSchema = getSchema().getTableSchemaMap().get(tableName);
     boolean generateTableSchemaForCurrentChunkGroup = tableSchema != null;
     setGenerateTableSchema(generateTableSchemaForCurrentChunkGroup);
+    if (generateTableSchemaForCurrentChunkGroup) {
+      tableStatisticsBuilder.collect(currentDeviceId, chunkMetadataList);
+    }
     super.endChunkGroup();
     currentDeviceId = null;
   }
@@ -149,6 +167,9 @@ public class CompactionTsFileWriter extends TsFileIOWriter {
     long writtenDataSize = this.getPos() - beforeSize;
     CompactionMetrics.getInstance()
         .recordWriteInfo(type, CompactionIoDataType.METADATA, writtenDataSize);
+    if (targetResource != null) {
+      targetResource.setTableStatistics(tableStatisticsBuilder.build());
+    }
   }
 
   @Override
@@ -24,6 +24,7 @@ import org.apache.iotdb.commons.service.metric.enums.Tag;
 import org.apache.iotdb.commons.utils.CommonDateTimeUtils;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.runtime.FlushRunTimeException;
 import org.apache.iotdb.db.service.metrics.WritingMetrics;
 import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
 import org.apache.iotdb.db.storageengine.dataregion.flush.pool.FlushSubTaskPoolManager;
@@ -41,6 +42,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -49,11 +51,16 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * flush task to flush one memtable using a pipeline model to flush, which is sort memtable ->
  * encoding -> write to disk (io task)
+ *
+ * <p>If flushEncodingParallelism > 1, the devices are sorted and encoded concurrently by sub tasks
+ * instead, and the encoding task passes their chunk writers to the io task in device order.
  */
 public class MemTableFlushTask {
 
@@ -79,9 +86,17 @@ public class MemTableFlushTask {
 
   private IMemTable memTable;
 
+  private final AtomicLong sortTime = new AtomicLong();
   private volatile long memSerializeTime = 0L;
   private volatile long ioTime = 0L;
 
+  /** max number of the series sorted or encoded but not written yet when encoding in parallel */
+  private final int maxEncodedSeriesNum =
+      config.getFlushEncodingParallelism() * config.getIoTaskQueueSizeForFlushing();
+
+  private final Semaphore encodedSeriesBudget = new Semaphore(maxEncodedSeriesNum);
+  private final Semaphore encodingSlots = new Semaphore(config.getFlushEncodingParallelism());
+
   /**
    * @param memTable the memTable to flush
    * @param writer the writer where memTable will be flushed to (current tsfile writer or vm writer)
@@ -118,58 +133,49 @@ public class MemTableFlushTask {
         memTable.getTotalPointsNum(),
         avgSeriesPointsNum);
 
-    long estimatedTemporaryMemSize = 0L;
-    if (SystemInfo.getInstance().isEncodingFasterThanIo()) {
-      estimatedTemporaryMemSize =
-          memTable.getSeriesNumber() == 0
-              ? 0
-              : memTable.memSize()
-                  / memTable.getSeriesNumber()
-                  * config.getIoTaskQueueSizeForFlushing();
-      SystemInfo.getInstance().applyTemporaryMemoryForFlushing(estimatedTemporaryMemSize);
-    }
-    long start = System.currentTimeMillis();
-    long sortTime = 0;
-
     // for map do not use get(key) to iterate
     Map<IDeviceID, IWritableMemChunkGroup> memTableMap = memTable.getMemTableMap();
     List<IDeviceID> deviceIDList = new ArrayList<>(memTableMap.keySet());
     // sort the IDeviceID in lexicographical order
     Collections.sort(deviceIDList);
-    for (IDeviceID deviceID : deviceIDList) {
-      final Map<String, IWritableMemChunk> value = memTableMap.get(deviceID).getMemChunkMap();
-      // skip the empty device/chunk group
-      if (memTableMap.get(deviceID).isEmpty() || value.isEmpty()) {
-        continue;
-      }
-      encodingTaskQueue.put(new StartFlushGroupIOTask(deviceID));
-      List<String> seriesInOrder = new ArrayList<>(value.keySet());
-      Collections.sort(seriesInOrder);
-      for (String seriesId : seriesInOrder) {
-        long startTime = System.currentTimeMillis();
-        IWritableMemChunk series = value.get(seriesId);
-        if (series.count() == 0) {
+    boolean parallelEncoding =
+        config.getFlushEncodingParallelism() > 1 && deviceIDList.size() > 1;
+
+    long estimatedTemporaryMemSize = 0L;
+    long avgSeriesMemSize =
+        memTable.getSeriesNumber() == 0 ? 0 : memTable.memSize() / memTable.getSeriesNumber();
+    if (parallelEncoding) {
+      // the io task queue is bounded by the budget as well
+      estimatedTemporaryMemSize = avgSeriesMemSize * maxEncodedSeriesNum;
+    } else if (SystemInfo.getInstance().isEncodingFasterThanIo()) {
+      estimatedTemporaryMemSize = avgSeriesMemSize * config.getIoTaskQueueSizeForFlushing();
+    }
+    if (estimatedTemporaryMemSize != 0) {
+      SystemInfo.getInstance().applyTemporaryMemoryForFlushing(estimatedTemporaryMemSize);
+    }
+    long start = System.currentTimeMillis();
+
+    if (parallelEncoding) {
+      submitEncodingTasks(memTableMap, deviceIDList);
+    } else {
+      for (IDeviceID deviceID : deviceIDList) {
+        List<IWritableMemChunk> seriesList = getSeriesToFlush(memTableMap.get(deviceID));
+        if (seriesList == null) {
           continue;
         }
-        /*
-         * sort task (first task of flush pipeline)
-         */
-        series.sortTvListForFlush();
-        long subTaskTime = System.currentTimeMillis() - startTime;
-        sortTime += subTaskTime;
-        WRITING_METRICS.recordFlushSubTaskCost(WritingMetrics.SORT_TASK, subTaskTime);
-        encodingTaskQueue.put(series);
-      }
+        encodingTaskQueue.put(new StartFlushGroupIOTask(deviceID));
+        for (IWritableMemChunk series : seriesList) {
+          /*
+           * sort task (first task of flush pipeline)
+           */
+          sortSeries(series);
+          encodingTaskQueue.put(series);
+        }
 
-      encodingTaskQueue.put(new EndChunkGroupIoTask());
+        encodingTaskQueue.put(new EndChunkGroupIoTask(0));
+      }
     }
     encodingTaskQueue.put(new TaskEnd());
-    LOGGER.debug(
-        "Database {} memtable flushing into file {}: data sort time cost {} ms.",
-        storageGroup,
-        writer.getFile().getName(),
-        sortTime);
-    WRITING_METRICS.recordFlushCost(WritingMetrics.FLUSH_STAGE_SORT, sortTime);
 
     try {
       encodingTaskFuture.get();
@@ -183,6 +189,13 @@ public class MemTableFlushTask {
 
     ioTaskFuture.get();
 
+    LOGGER.debug(
+        "Database {} memtable flushing into file {}: data sort time cost {} ms.",
+        storageGroup,
+        writer.getFile().getName(),
+        sortTime.get());
+    WRITING_METRICS.recordFlushCost(WritingMetrics.FLUSH_STAGE_SORT, sortTime.get());
+
     try {
       long writePlanIndicesStartTime = System.currentTimeMillis();
       writer.writePlanIndices();
@@ -208,6 +221,91 @@ public class MemTableFlushTask {
             "flush");
   }
 
+  /**
+   * @return the series of the device to flush in order, null if the chunk group should be skipped
+   */
+  private List<IWritableMemChunk> getSeriesToFlush(IWritableMemChunkGroup memChunkGroup) {
+    final Map<String, IWritableMemChunk> value = memChunkGroup.getMemChunkMap();
+    // skip the empty device/chunk group
+    if (memChunkGroup.isEmpty() || value.isEmpty()) {
+      return null;
+    }
+    List<String> seriesInOrder = new ArrayList<>(value.keySet());
+    Collections.sort(seriesInOrder);
+    List<IWritableMemChunk> seriesList = new ArrayList<>(seriesInOrder.size());
+    for (String seriesId : seriesInOrder) {
+      IWritableMemChunk series = value.get(seriesId);
+      if (series.count() != 0) {
+        seriesList.add(series);
+      }
+    }
+    return seriesList;
+  }
+
+  private void sortSeries(IWritableMemChunk series) {
+    long startTime = System.currentTimeMillis();
+    series.sortTvListForFlush();
+    long subTaskTime = System.currentTimeMillis() - startTime;
+    sortTime.addAndGet(subTaskTime);
+    WRITING_METRICS.recordFlushSubTaskCost(WritingMetrics.SORT_TASK, subTaskTime);
+  }
+
+  /**
+   * Submit a sub task sorting and encoding each device, at most flushEncodingParallelism of them
+   * run at the same time, and at most maxEncodedSeriesNum series are sorted or encoded but not
+   * written yet. The budget is acquired in device order, so the device the io task waits for
+   * always gets it.
+   */
+  private void submitEncodingTasks(
+      Map<IDeviceID, IWritableMemChunkGroup> memTableMap, List<IDeviceID> deviceIDList)
+      throws InterruptedException, ExecutionException {
+    for (IDeviceID deviceID : deviceIDList) {
+      List<IWritableMemChunk> seriesList = getSeriesToFlush(memTableMap.get(deviceID));
+      if (seriesList == null) {
+        continue;
+      }
+      // released by the io task after the chunk group is written
+      int encodedSeriesNum = Math.min(seriesList.size(), maxEncodedSeriesNum);
+      acquire(encodedSeriesBudget, encodedSeriesNum);
+      // released by the sub task
+      acquire(encodingSlots, 1);
+      encodingTaskQueue.put(
+          SUB_TASK_POOL_MANAGER.submit(
+              () -> encodeChunkGroup(deviceID, seriesList, encodedSeriesNum)));
+    }
+  }
+
+  private EncodedChunkGroup encodeChunkGroup(
+      IDeviceID deviceID, List<IWritableMemChunk> seriesList, int encodedSeriesNum) {
+    try {
+      BlockingQueue<Object> chunkWriters = new LinkedBlockingQueue<>();
+      for (IWritableMemChunk series : seriesList) {
+        sortSeries(series);
+        long startTime = System.currentTimeMillis();
+        series.encode(chunkWriters);
+        WRITING_METRICS.recordFlushSubTaskCost(
+            WritingMetrics.ENCODING_TASK, System.currentTimeMillis() - startTime);
+      }
+      return new EncodedChunkGroup(deviceID, chunkWriters, encodedSeriesNum);
+    } finally {
+      encodingSlots.release();
+    }
+  }
+
+  /** Wait for the permits, unless the encoding task or the io task has failed. */
+  private void acquire(Semaphore semaphore, int permits)
+      throws InterruptedException, ExecutionException {
+    while (!semaphore.tryAcquire(permits, 100, TimeUnit.MILLISECONDS)) {
+      if (encodingTaskFuture.isDone() || ioTaskFuture.isDone()) {
+        // get() throws the exception of the failed task
+        encodingTaskFuture.get();
+        ioTaskFuture.get();
+        throw new ExecutionException(
+            new IllegalStateException("the flush pipeline ends before all devices are encoded"));
+      }
+    }
+  }
+
   /** encoding task (second task of pipeline) */
   private Runnable encodingTask =
       new Runnable() {
@@ -245,6 +343,36 @@ public class MemTableFlushTask {
               }
             } else if (task instanceof TaskEnd) {
               break;
+            } else if (task instanceof Future) {
+              // a chunk group encoded by a sub task, its time is counted as the time waiting for it
+              long starTime = System.currentTimeMillis();
+              EncodedChunkGroup chunkGroup;
+              try {
+                chunkGroup = getEncodedChunkGroup(task);
+              } catch (InterruptedException e) {
+                LOGGER.error("Wait for encoding sub task Interrupted");
+                Thread.currentThread().interrupt();
+                break;
+              } catch (ExecutionException e) {
+                throw new FlushRunTimeException(e);
+              }
+              memSerializeTime += System.currentTimeMillis() - starTime;
+              try {
+                ioTaskQueue.put(new StartFlushGroupIOTask(chunkGroup.deviceId));
+                for (Object chunkWriter : chunkGroup.chunkWriters) {
+                  ioTaskQueue.put(chunkWriter);
+                }
+                ioTaskQueue.put(new EndChunkGroupIoTask(chunkGroup.encodedSeriesNum));
+              } catch (
+                  @SuppressWarnings("squid:S2142")
+                  InterruptedException e) {
+                LOGGER.error(
+                    "Database {} memtable flushing to file {}, encoding task is interrupted.",
+                    storageGroup,
+                    writer.getFile().getName(),
+                    e);
+                break;
+              }
             } else {
               long starTime = System.currentTimeMillis();
               IWritableMemChunk writableMemChunk = (IWritableMemChunk) task;
@@ -270,6 +398,12 @@ public class MemTableFlushTask {
         }
       };
 
+  @SuppressWarnings("unchecked")
+  private static EncodedChunkGroup getEncodedChunkGroup(Object task)
+      throws InterruptedException, ExecutionException {
+    return ((Future<EncodedChunkGroup>) task).get();
+  }
+
   public static void recordFlushPointsMetricInternal(
       long totalPointsNum, String storageGroupName, String dataRegionId) {
     long currentTime = CommonDateTimeUtils.currentTime();
@@ -326,6 +460,7 @@ public class MemTableFlushTask {
               this.writer.setMinPlanIndex(memTable.getMinPlanIndex());
               this.writer.setMaxPlanIndex(memTable.getMaxPlanIndex());
               this.writer.endChunkGroup();
+              encodedSeriesBudget.release(((EndChunkGroupIoTask) ioMessage).encodedSeriesNum);
             } else {
               ((IChunkWriter) ioMessage).writeToFileWriter(this.writer);
             }
@@ -354,7 +489,12 @@ public class MemTableFlushTask {
 
   static class EndChunkGroupIoTask {
 
-    EndChunkGroupIoTask() {}
+    /** permits of encodedSeriesBudget held by the chunk group */
+    private final int encodedSeriesNum;
+
+    EndChunkGroupIoTask(int encodedSeriesNum) {
+      this.encodedSeriesNum = encodedSeriesNum;
+    }
   }
 
   static class StartFlushGroupIOTask {
@@ -365,4 +505,17 @@ public class MemTableFlushTask {
       this.deviceId = deviceId;
     }
   }
+
+  static class EncodedChunkGroup {
+
+    private final IDeviceID deviceId;
+    private final Collection<Object> chunkWriters;
+    private final int encodedSeriesNum;
+
+    EncodedChunkGroup(IDeviceID deviceId, Collection<Object> chunkWriters, int encodedSeriesNum) {
+      this.deviceId = deviceId;
+      this.chunkWriters = chunkWriters;
+      this.encodedSeriesNum = encodedSeriesNum;
+    }
+  }
 }
@@ -62,6 +62,7 @@ import org.apache.iotdb.db.storageengine.dataregion.read.filescan.IFileScanHandl
 import org.apache.iotdb.db.storageengine.dataregion.read.filescan.impl.DiskAlignedChunkHandleImpl;
 import org.apache.iotdb.db.storageengine.dataregion.read.filescan.impl.DiskChunkHandleImpl;
 import org.apache.iotdb.db.storageengine.dataregion.read.filescan.impl.UnclosedFileScanHandleImpl;
+import org.apache.iotdb.db.storageengine.dataregion.statistics.TsFileTableStatistics;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.FileTimeIndexCacheRecorder;
 import org.apache.iotdb.db.storageengine.dataregion.utils.SharedTimeDataBuffer;
@@ -1721,6 +1722,8 @@ public class TsFileProcessor {
     if (logger.isDebugEnabled()) {
       logger.debug("Start to end file {}", tsFileResource);
     }
+    tsFileResource.setTableStatistics(
+        TsFileTableStatistics.collect(writer.getSchema(), writer.getChunkGroupMetadataList()));
     writer.endFile();
     tsFileResource.serialize();
     FileTimeIndexCacheRecorder.getInstance().logFileTimeIndex(tsFileResource);
@@ -19,7 +19,10 @@
 
 package org.apache.iotdb.db.storageengine.dataregion.read.control;
 
+import org.apache.iotdb.commons.service.metric.MetricService;
 import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.metric.FileReaderManagerMetrics;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
 
 import org.apache.tsfile.read.TsFileSequenceReader;
@@ -29,14 +32,22 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.LongConsumer;
 
 /**
  * {@link FileReaderManager} is a singleton, which is used to manage all file readers(opened file
  * streams) to ensure that each file is opened at most once.
+ *
+ * <p>Readers are created and reference counted under a lock striped by file path, so that queries
+ * on different files do not block each other. Readers of closed files that are no longer
+ * referenced are kept open and closed in LRU order once the number of opened closed file readers
+ * exceeds {@code max_opened_tsfile_reader_num}.
  */
 public class FileReaderManager {
 
@@ -53,6 +64,9 @@ public class FileReaderManager {
    */
   private static final int PRINT_INTERVAL = 10000;
 
+  /** number of lock stripes, must be a power of 2. */
+  private static final int LOCK_STRIPE_NUM = 256;
+
   /**
    * the key of closedFileReaderMap is the file path and the value of closedFileReaderMap is the
    * corresponding reader.
@@ -77,27 +91,72 @@ public class FileReaderManager {
    */
   private Map<String, AtomicInteger> unclosedReferenceMap;
 
+  /**
+   * file paths of closed file readers whose reference count has dropped to zero, in the order they
+   * were released. Guarded by itself, and always locked after the lock stripe of a path.
+   */
+  private final Set<String> idleClosedFilePaths = new LinkedHashSet<>();
+
+  /** reference counting and reader creation of a file path are guarded by its lock stripe. */
+  private final Object[] locks = new Object[LOCK_STRIPE_NUM];
+
+  /** max number of opened closed file readers, 0 means closing them once unreferenced. */
+  private volatile int maxOpenedClosedReaderNum;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictedCount = new AtomicLong();
+
   private FileReaderManager() {
     closedFileReaderMap = new ConcurrentHashMap<>();
     unclosedFileReaderMap = new ConcurrentHashMap<>();
     closedReferenceMap = new ConcurrentHashMap<>();
     unclosedReferenceMap = new ConcurrentHashMap<>();
+    for (int i = 0; i < LOCK_STRIPE_NUM; i++) {
+      locks[i] = new Object();
+    }
+    maxOpenedClosedReaderNum =
+        Math.max(0, IoTDBDescriptor.getInstance().getConfig().getMaxOpenedTsFileReaderNum());
+
+    // add metrics
+    MetricService.getInstance().addMetricSet(new FileReaderManagerMetrics(this));
   }
 
   public static FileReaderManager getInstance() {
     return FileReaderManagerHelper.INSTANCE;
   }
 
-  public synchronized void closeFileAndRemoveReader(String filePath) throws IOException {
-    closedReferenceMap.remove(filePath);
-    TsFileSequenceReader reader = closedFileReaderMap.remove(filePath);
-    if (reader != null) {
-      reader.close();
+  private Object getLock(String filePath) {
+    return locks[filePath.hashCode() & (LOCK_STRIPE_NUM - 1)];
+  }
+
+  public void closeFileAndRemoveReader(String filePath) throws IOException {
+    synchronized (getLock(filePath)) {
+      closedReferenceMap.remove(filePath);
+      removeIdleClosedFilePath(filePath);
+      TsFileSequenceReader reader = closedFileReaderMap.remove(filePath);
+      if (reader != null) {
+        reader.close();
+      }
+      unclosedReferenceMap.remove(filePath);
+      reader = unclosedFileReaderMap.remove(filePath);
+      if (reader != null) {
+        reader.close();
+      }
     }
-    unclosedReferenceMap.remove(filePath);
-    reader = unclosedFileReaderMap.remove(filePath);
-    if (reader != null) {
-      reader.close();
+  }
+
+  /**
+   * Close the reader of the closed file indicated by filePath if it is not referenced by any query.
+   * It is called before the file is deleted, so that an idle reader will not keep the deleted file
+   * open until it is evicted.
+   */
+  public void closeUnusedReader(String filePath) {
+    synchronized (getLock(filePath)) {
+      if (!closedReferenceMap.containsKey(filePath)) {
+        removeIdleClosedFilePath(filePath);
+        closeReader(filePath, true);
+      }
     }
   }
 
@@ -112,8 +171,7 @@ public class FileReaderManager {
    * @throws IOException when reader cannot be created.
    */
   @SuppressWarnings("squid:S2095")
-  public synchronized TsFileSequenceReader get(String filePath, boolean isClosed)
-      throws IOException {
+  public TsFileSequenceReader get(String filePath, boolean isClosed) throws IOException {
     return get(filePath, isClosed, null);
   }
 
@@ -129,31 +187,52 @@ public class FileReaderManager {
    * @throws IOException when reader cannot be created.
    */
   @SuppressWarnings("squid:S2095")
-  public synchronized TsFileSequenceReader get(
-      String filePath, boolean isClosed, LongConsumer ioSizeRecorder) throws IOException {
+  public TsFileSequenceReader get(String filePath, boolean isClosed, LongConsumer ioSizeRecorder)
+      throws IOException {
 
     Map<String, TsFileSequenceReader> readerMap =
         !isClosed ? unclosedFileReaderMap : closedFileReaderMap;
-    if (!readerMap.containsKey(filePath)) {
-      int currentOpenedReaderCount = readerMap.size();
-      if (currentOpenedReaderCount >= MAX_CACHED_FILE_SIZE
-          && (currentOpenedReaderCount % PRINT_INTERVAL == 0)) {
-        logger.warn("Query has opened {} files !", readerMap.size());
-      }
 
-      TsFileSequenceReader tsFileReader = null;
-      // check if the file is old version
-      if (!isClosed) {
-        tsFileReader = new UnClosedTsFileReader(filePath, ioSizeRecorder);
-      } else {
-        // already do the version check in TsFileSequenceReader's constructor
-        tsFileReader = new TsFileSequenceReader(filePath, ioSizeRecorder);
-      }
-      readerMap.put(filePath, tsFileReader);
+    // a referenced reader will not be closed, so it can be returned without locking
+    TsFileSequenceReader tsFileReader = readerMap.get(filePath);
+    if (tsFileReader != null && (!isClosed || closedReferenceMap.containsKey(filePath))) {
+      hitCount.incrementAndGet();
       return tsFileReader;
     }
 
-    return readerMap.get(filePath);
+    boolean opened = false;
+    synchronized (getLock(filePath)) {
+      tsFileReader = readerMap.get(filePath);
+      if (tsFileReader == null) {
+        int currentOpenedReaderCount = readerMap.size();
+        if (currentOpenedReaderCount >= MAX_CACHED_FILE_SIZE
+            && (currentOpenedReaderCount % PRINT_INTERVAL == 0)) {
+          logger.warn("Query has opened {} files !", readerMap.size());
+        }
+
+        // check if the file is old version
+        if (!isClosed) {
+          tsFileReader = new UnClosedTsFileReader(filePath, ioSizeRecorder);
+        } else {
+          // already do the version check in TsFileSequenceReader's constructor
+          tsFileReader = new TsFileSequenceReader(filePath, ioSizeRecorder);
+        }
+        readerMap.put(filePath, tsFileReader);
+        missCount.incrementAndGet();
+        opened = true;
+      } else {
+        hitCount.incrementAndGet();
+        if (isClosed && !closedReferenceMap.containsKey(filePath)) {
+          // the caller does not hold a reference, so the reader is no longer evictable, which is
+          // the same as a newly opened reader
+          removeIdleClosedFilePath(filePath);
+        }
+      }
+    }
+    if (opened && isClosed) {
+      evictIdleReadersIfNecessary();
+    }
+    return tsFileReader;
   }
 
   /**
@@ -162,57 +241,105 @@ public class FileReaderManager {
    */
   public void increaseFileReaderReference(TsFileResource tsFile, boolean isClosed) {
     tsFile.readLock();
-    synchronized (this) {
+    String filePath = tsFile.getTsFilePath();
+    synchronized (getLock(filePath)) {
       if (!isClosed) {
-        unclosedReferenceMap
-            .computeIfAbsent(tsFile.getTsFilePath(), k -> new AtomicInteger())
-            .getAndIncrement();
-      } else {
-        closedReferenceMap
-            .computeIfAbsent(tsFile.getTsFilePath(), k -> new AtomicInteger())
-            .getAndIncrement();
+        unclosedReferenceMap.computeIfAbsent(filePath, k -> new AtomicInteger()).getAndIncrement();
+      } else if (closedReferenceMap
+              .computeIfAbsent(filePath, k -> new AtomicInteger())
+              .getAndIncrement()
+          == 0) {
+        removeIdleClosedFilePath(filePath);
       }
     }
   }
 
   /**
-   * Decrease the reference count of the reader specified by filePath. This method is latch-free.
-   * Only when the reference count of a reader equals zero, the reader can be closed and removed.
+   * Decrease the reference count of the reader specified by filePath. Only when the reference count
+   * of a reader equals zero, the reader can be closed and removed.
    */
   public void decreaseFileReaderReference(TsFileResource tsFile, boolean isClosed) {
-    synchronized (this) {
-      if (!isClosed && unclosedReferenceMap.containsKey(tsFile.getTsFilePath())) {
-        if (unclosedReferenceMap.get(tsFile.getTsFilePath()).decrementAndGet() == 0) {
-          closeUnUsedReaderAndRemoveRef(tsFile.getTsFilePath(), false);
+    String filePath = tsFile.getTsFilePath();
+    boolean released = false;
+    synchronized (getLock(filePath)) {
+      AtomicInteger unclosedReference = unclosedReferenceMap.get(filePath);
+      if (!isClosed && unclosedReference != null) {
+        if (unclosedReference.decrementAndGet() == 0) {
+          unclosedReferenceMap.remove(filePath);
+          closeReader(filePath, false);
+        }
+      } else {
+        AtomicInteger closedReference = closedReferenceMap.get(filePath);
+        if (closedReference != null && closedReference.decrementAndGet() == 0) {
+          closedReferenceMap.remove(filePath);
+          released = releaseClosedReader(filePath);
         }
-      } else if (closedReferenceMap.containsKey(tsFile.getTsFilePath())
-          && (closedReferenceMap.get(tsFile.getTsFilePath()).decrementAndGet() == 0)) {
-        closeUnUsedReaderAndRemoveRef(tsFile.getTsFilePath(), true);
       }
     }
     tsFile.readUnlock();
+    if (released) {
+      evictIdleReadersIfNecessary();
+    }
   }
 
-  private void closeUnUsedReaderAndRemoveRef(String tsFilePath, boolean isClosed) {
-    Map<String, TsFileSequenceReader> readerMap =
-        isClosed ? closedFileReaderMap : unclosedFileReaderMap;
-    Map<String, AtomicInteger> refMap = isClosed ? closedReferenceMap : unclosedReferenceMap;
-    synchronized (this) {
-      // check ref num again
-      if (refMap.get(tsFilePath).get() != 0) {
-        return;
+  /**
+   * Keep the unreferenced reader of a closed file open for later queries if the budget allows,
+   * otherwise close it. Must be called with the lock stripe of tsFilePath held.
+   *
+   * @return true if the reader is kept as an idle reader.
+   */
+  private boolean releaseClosedReader(String tsFilePath) {
+    if (maxOpenedClosedReaderNum > 0 && closedFileReaderMap.containsKey(tsFilePath)) {
+      synchronized (idleClosedFilePaths) {
+        idleClosedFilePaths.add(tsFilePath);
       }
+      return true;
+    }
+    closeReader(tsFilePath, true);
+    return false;
+  }
 
-      TsFileSequenceReader reader = readerMap.get(tsFilePath);
-      if (reader != null) {
-        try {
-          reader.close();
-        } catch (IOException e) {
-          logger.error("Can not close TsFileSequenceReader {} !", reader.getFileName(), e);
+  private void removeIdleClosedFilePath(String tsFilePath) {
+    synchronized (idleClosedFilePaths) {
+      idleClosedFilePaths.remove(tsFilePath);
+    }
+  }
+
+  /** Close idle readers in LRU order until the number of opened closed readers is in budget. */
+  private void evictIdleReadersIfNecessary() {
+    while (closedFileReaderMap.size() > maxOpenedClosedReaderNum) {
+      String candidate;
+      synchronized (idleClosedFilePaths) {
+        if (idleClosedFilePaths.isEmpty()) {
+          return;
+        }
+        candidate = idleClosedFilePaths.iterator().next();
+      }
+      synchronized (getLock(candidate)) {
+        boolean stillIdle;
+        synchronized (idleClosedFilePaths) {
+          stillIdle = idleClosedFilePaths.remove(candidate);
+        }
+        // check ref num again
+        if (stillIdle && !closedReferenceMap.containsKey(candidate)) {
+          closeReader(candidate, true);
+          evictedCount.incrementAndGet();
         }
       }
-      readerMap.remove(tsFilePath);
-      refMap.remove(tsFilePath);
+    }
+  }
+
+  /** Must be called with the lock stripe of tsFilePath held. */
+  private void closeReader(String tsFilePath, boolean isClosed) {
+    Map<String, TsFileSequenceReader> readerMap =
+        isClosed ? closedFileReaderMap : unclosedFileReaderMap;
+    TsFileSequenceReader reader = readerMap.remove(tsFilePath);
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        logger.error("Can not close TsFileSequenceReader {} !", reader.getFileName(), e);
+      }
       if (resourceLogger.isDebugEnabled()) {
         resourceLogger.debug("{} TsFileReader is closed because of no reference.", tsFilePath);
       }
@@ -225,36 +352,80 @@ public class FileReaderManager {
    *
    * @throws IOException if failed to close file handlers, IOException will be thrown
    */
-  public synchronized void closeAndRemoveAllOpenedReaders() throws IOException {
+  public void closeAndRemoveAllOpenedReaders() throws IOException {
     Iterator<Map.Entry<String, TsFileSequenceReader>> iterator =
         closedFileReaderMap.entrySet().iterator();
     while (iterator.hasNext()) {
       Map.Entry<String, TsFileSequenceReader> entry = iterator.next();
-      entry.getValue().close();
-      if (resourceLogger.isDebugEnabled()) {
-        resourceLogger.debug("{} closedTsFileReader is closed.", entry.getKey());
+      synchronized (getLock(entry.getKey())) {
+        entry.getValue().close();
+        if (resourceLogger.isDebugEnabled()) {
+          resourceLogger.debug("{} closedTsFileReader is closed.", entry.getKey());
+        }
+        closedReferenceMap.remove(entry.getKey());
+        iterator.remove();
       }
-      closedReferenceMap.remove(entry.getKey());
-      iterator.remove();
+    }
+    synchronized (idleClosedFilePaths) {
+      idleClosedFilePaths.clear();
     }
     iterator = unclosedFileReaderMap.entrySet().iterator();
     while (iterator.hasNext()) {
       Map.Entry<String, TsFileSequenceReader> entry = iterator.next();
-      entry.getValue().close();
-      if (resourceLogger.isDebugEnabled()) {
-        resourceLogger.debug("{} unclosedTsFileReader is closed.", entry.getKey());
+      synchronized (getLock(entry.getKey())) {
+        entry.getValue().close();
+        if (resourceLogger.isDebugEnabled()) {
+          resourceLogger.debug("{} unclosedTsFileReader is closed.", entry.getKey());
+        }
+        unclosedReferenceMap.remove(entry.getKey());
+        iterator.remove();
       }
-      unclosedReferenceMap.remove(entry.getKey());
-      iterator.remove();
     }
   }
 
   /** This method is only for unit tests. */
-  public synchronized boolean contains(TsFileResource tsFile, boolean isClosed) {
+  public boolean contains(TsFileResource tsFile, boolean isClosed) {
     return (isClosed && closedFileReaderMap.containsKey(tsFile.getTsFilePath()))
         || (!isClosed && unclosedFileReaderMap.containsKey(tsFile.getTsFilePath()));
   }
 
+  public int getOpenedClosedReaderNum() {
+    return closedFileReaderMap.size();
+  }
+
+  public int getOpenedUnclosedReaderNum() {
+    return unclosedFileReaderMap.size();
+  }
+
+  public int getIdleClosedReaderNum() {
+    synchronized (idleClosedFilePaths) {
+      return idleClosedFilePaths.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getEvictedCount() {
+    return evictedCount.get();
+  }
+
+  public double getHitRate() {
+    long hit = hitCount.get();
+    long total = hit + missCount.get();
+    return total == 0 ? 100.0d : hit * 100.0d / total;
+  }
+
+  @TestOnly
+  public void setMaxOpenedClosedReaderNum(int maxOpenedClosedReaderNum) {
+    this.maxOpenedClosedReaderNum = maxOpenedClosedReaderNum;
+  }
+
   @TestOnly
   public Map<String, TsFileSequenceReader> getClosedFileReaderMap() {
     return closedFileReaderMap;
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.statistics;
+
+import org.apache.iotdb.commons.utils.PathUtils;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.TableStatistics;
+import org.apache.iotdb.db.storageengine.dataregion.statistics.TsFileTableStatistics.ColumnStatistics;
+import org.apache.iotdb.db.storageengine.dataregion.statistics.TsFileTableStatistics.PerTableStatistics;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+
+import org.apache.tsfile.file.metadata.IDeviceID;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sum of the {@link TsFileTableStatistics} of all the sealed TsFiles of this DataNode, grouped by
+ * database and table. A file is added when it is sealed by flush or produced by compaction, and
+ * subtracted when it is removed from the TsFile lists.
+ */
+public class TableStatisticsManager {
+
+  private final Map<String, Map<String, TableAccumulator>> databaseTableMap =
+      new ConcurrentHashMap<>();
+
+  private TableStatisticsManager() {}
+
+  public void register(TsFileResource resource) {
+    TsFileTableStatistics statistics = resource.getTableStatistics();
+    if (statistics != null && statistics.markRegistered()) {
+      apply(resource.getDatabaseName(), statistics, 1);
+    }
+  }
+
+  public void unregister(TsFileResource resource) {
+    TsFileTableStatistics statistics = resource.getTableStatistics();
+    if (statistics != null && statistics.markUnregistered()) {
+      apply(resource.getDatabaseName(), statistics, -1);
+    }
+  }
+
+  private void apply(String database, TsFileTableStatistics statistics, int sign) {
+    Map<String, TableAccumulator> tableMap =
+        databaseTableMap.computeIfAbsent(
+            PathUtils.unQualifyDatabaseName(database), d -> new ConcurrentHashMap<>());
+    for (Map.Entry<String, PerTableStatistics> entry :
+        statistics.getTableStatisticsMap().entrySet()) {
+      tableMap
+          .computeIfAbsent(entry.getKey(), t -> new TableAccumulator())
+          .apply(entry.getValue(), sign);
+    }
+  }
+
+  /**
+   * @param database the database name without the "root." prefix
+   * @return empty if no sealed TsFile of the table is on this DataNode
+   */
+  public Optional<TableStatistics> getTableStatistics(String database, String table) {
+    Map<String, TableAccumulator> tableMap = databaseTableMap.get(database);
+    if (tableMap == null) {
+      return Optional.empty();
+    }
+    TableAccumulator accumulator = tableMap.get(table);
+    return accumulator == null ? Optional.empty() : accumulator.getStatistics();
+  }
+
+  @TestOnly
+  public void clear() {
+    databaseTableMap.clear();
+  }
+
+  private static class TableAccumulator {
+
+    private final Map<IDeviceID, Long> deviceRowCounts = new HashMap<>();
+    private final Map<String, ColumnStatistics> columnStatisticsMap = new HashMap<>();
+    private long rowCount = 0;
+
+    // the time and value ranges only grow, since they can't be subtracted
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+
+    /** built lazily and reset on every change */
+    private TableStatistics statistics;
+
+    private synchronized void apply(PerTableStatistics fileStatistics, int sign) {
+      for (Map.Entry<IDeviceID, Long> entry : fileStatistics.getDeviceRowCounts().entrySet()) {
+        long delta = sign * entry.getValue();
+        rowCount += delta;
+        deviceRowCounts.compute(
+            entry.getKey(),
+            (device, count) -> {
+              long newCount = (count == null ? 0 : count) + delta;
+              return newCount > 0 ? newCount : null;
+            });
+      }
+      for (Map.Entry<String, ColumnStatistics> entry :
+          fileStatistics.getColumnStatisticsMap().entrySet()) {
+        ColumnStatistics columnStatistics =
+            columnStatisticsMap.computeIfAbsent(entry.getKey(), c -> new ColumnStatistics());
+        columnStatistics.addCount(sign * entry.getValue().getCount());
+        if (sign > 0) {
+          columnStatistics.updateRange(
+              entry.getValue().getMinValue(), entry.getValue().getMaxValue());
+        }
+      }
+      if (sign > 0) {
+        minTime = Math.min(minTime, fileStatistics.getMinTime());
+        maxTime = Math.max(maxTime, fileStatistics.getMaxTime());
+      }
+      statistics = null;
+    }
+
+    private synchronized Optional<TableStatistics> getStatistics() {
+      if (deviceRowCounts.isEmpty()) {
+        return Optional.empty();
+      }
+      if (statistics == null) {
+        Map<String, TableStatistics.ColumnStatistics> fieldStatistics = new HashMap<>();
+        columnStatisticsMap.forEach(
+            (column, columnStatistics) ->
+                fieldStatistics.put(
+                    column,
+                    new TableStatistics.ColumnStatistics(
+                        Math.max(columnStatistics.getCount(), 0),
+                        columnStatistics.getMinValue(),
+                        columnStatistics.getMaxValue())));
+        statistics =
+            new TableStatistics(
+                Math.max(rowCount, 0),
+                deviceRowCounts.size(),
+                minTime,
+                maxTime,
+                countDistinctTags(),
+                fieldStatistics);
+      }
+      return Optional.of(statistics);
+    }
+
+    /** The first segment of a table model device id is the table name, followed by the tags. */
+    private long[] countDistinctTags() {
+      int tagCount = 0;
+      for (IDeviceID deviceID : deviceRowCounts.keySet()) {
+        tagCount = Math.max(tagCount, deviceID.segmentNum() - 1);
+      }
+      List<Set<Object>> tagValues = new ArrayList<>(tagCount);
+      for (int i = 0; i < tagCount; i++) {
+        tagValues.add(new HashSet<>());
+      }
+      for (IDeviceID deviceID : deviceRowCounts.keySet()) {
+        for (int i = 0; i < tagCount; i++) {
+          // the trailing null tags are omitted in the device id
+          tagValues.get(i).add(i + 1 < deviceID.segmentNum() ? deviceID.segment(i + 1) : null);
+        }
+      }
+      long[] distinctCounts = new long[tagCount];
+      for (int i = 0; i < tagCount; i++) {
+        distinctCounts[i] = tagValues.get(i).size();
+      }
+      return distinctCounts;
+    }
+  }
+
+  public static TableStatisticsManager getInstance() {
+    return TableStatisticsManager.InstanceHolder.INSTANCE;
+  }
+
+  private static class InstanceHolder {
+    private InstanceHolder() {}
+
+    private static final TableStatisticsManager INSTANCE = new TableStatisticsManager();
+  }
+}
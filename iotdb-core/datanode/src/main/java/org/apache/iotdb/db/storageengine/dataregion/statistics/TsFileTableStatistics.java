@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.statistics;
+
+import org.apache.tsfile.common.constant.TsFileConstant;
+import org.apache.tsfile.file.metadata.ChunkGroupMetadata;
+import org.apache.tsfile.file.metadata.ChunkMetadata;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.file.metadata.statistics.Statistics;
+import org.apache.tsfile.write.schema.Schema;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Row counts and value ranges of the table model data in one TsFile, which are derived from the
+ * chunk statistics when the file is written by flush or compaction. They are added to the {@link
+ * TableStatisticsManager} when the file is sealed and subtracted when the file is removed.
+ */
+public class TsFileTableStatistics {
+
+  private final Map<String, PerTableStatistics> tableStatisticsMap;
+
+  /** whether the statistics are counted in the {@link TableStatisticsManager} */
+  private final AtomicBoolean registered = new AtomicBoolean(false);
+
+  private TsFileTableStatistics(Map<String, PerTableStatistics> tableStatisticsMap) {
+    this.tableStatisticsMap = tableStatisticsMap;
+  }
+
+  /**
+   * Collect the statistics from the chunk group metadata of a written file. Only the tables in the
+   * schema of the file, which belong to the table model, are collected.
+   *
+   * @return null if there is no table model data in the file
+   */
+  public static TsFileTableStatistics collect(
+      Schema schema, List<ChunkGroupMetadata> chunkGroupMetadataList) {
+    if (schema.getTableSchemaMap() == null || schema.getTableSchemaMap().isEmpty()) {
+      return null;
+    }
+    Builder builder = new Builder();
+    for (ChunkGroupMetadata chunkGroupMetadata : chunkGroupMetadataList) {
+      IDeviceID deviceId = chunkGroupMetadata.getDevice();
+      if (schema.getTableSchemaMap().containsKey(deviceId.getTableName())) {
+        builder.collect(deviceId, chunkGroupMetadata.getChunkMetadataList());
+      }
+    }
+    return builder.build();
+  }
+
+  public Map<String, PerTableStatistics> getTableStatisticsMap() {
+    return tableStatisticsMap;
+  }
+
+  boolean markRegistered() {
+    return registered.compareAndSet(false, true);
+  }
+
+  boolean markUnregistered() {
+    return registered.compareAndSet(true, false);
+  }
+
+  /** Statistics of one table in the file. */
+  public static class PerTableStatistics {
+
+    private final Map<IDeviceID, Long> deviceRowCounts = new HashMap<>();
+    private final Map<String, ColumnStatistics> columnStatisticsMap = new HashMap<>();
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+
+    public Map<IDeviceID, Long> getDeviceRowCounts() {
+      return deviceRowCounts;
+    }
+
+    public Map<String, ColumnStatistics> getColumnStatisticsMap() {
+      return columnStatisticsMap;
+    }
+
+    public long getMinTime() {
+      return minTime;
+    }
+
+    public long getMaxTime() {
+      return maxTime;
+    }
+  }
+
+  /** Non-null value count and value range of a numeric field column. */
+  public static class ColumnStatistics {
+
+    private long count;
+    private double minValue = Double.NaN;
+    private double maxValue = Double.NaN;
+
+    void update(Statistics<? extends Serializable> statistics) {
+      count += statistics.getCount();
+      switch (statistics.getType()) {
+        case INT32:
+        case INT64:
+        case FLOAT:
+        case DOUBLE:
+        case DATE:
+        case TIMESTAMP:
+          Object min = statistics.getMinValue();
+          Object max = statistics.getMaxValue();
+          if (min instanceof Number && max instanceof Number) {
+            updateRange(((Number) min).doubleValue(), ((Number) max).doubleValue());
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    void updateRange(double min, double max) {
+      if (Double.isNaN(min) || Double.isNaN(max)) {
+        return;
+      }
+      minValue = Double.isNaN(minValue) ? min : Math.min(minValue, min);
+      maxValue = Double.isNaN(maxValue) ? max : Math.max(maxValue, max);
+    }
+
+    void addCount(long delta) {
+      count += delta;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    /** @return NaN if the column is not numeric */
+    public double getMinValue() {
+      return minValue;
+    }
+
+    /** @return NaN if the column is not numeric */
+    public double getMaxValue() {
+      return maxValue;
+    }
+  }
+
+  /** Collect the statistics of a file chunk group by chunk group while it is written. */
+  public static class Builder {
+
+    private final Map<String, PerTableStatistics> tableStatisticsMap = new HashMap<>();
+
+    public void collect(IDeviceID deviceId, List<ChunkMetadata> chunkMetadataList) {
+      if (chunkMetadataList == null || chunkMetadataList.isEmpty()) {
+        return;
+      }
+      PerTableStatistics tableStatistics =
+          tableStatisticsMap.computeIfAbsent(
+              deviceId.getTableName(), t -> new PerTableStatistics());
+      long timeRowCount = 0;
+      boolean hasTimeChunk = false;
+      Map<String, Long> valueCounts = new HashMap<>();
+      for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+        Statistics<? extends Serializable> statistics = chunkMetadata.getStatistics();
+        if (statistics == null || statistics.getCount() == 0) {
+          continue;
+        }
+        if (chunkMetadata.getMask() == TsFileConstant.TIME_COLUMN_MASK) {
+          hasTimeChunk = true;
+          timeRowCount += statistics.getCount();
+          tableStatistics.minTime = Math.min(tableStatistics.minTime, statistics.getStartTime());
+          tableStatistics.maxTime = Math.max(tableStatistics.maxTime, statistics.getEndTime());
+          continue;
+        }
+        String measurement = chunkMetadata.getMeasurementUid();
+        tableStatistics
+            .columnStatisticsMap
+            .computeIfAbsent(measurement, m -> new ColumnStatistics())
+            .update(statistics);
+        valueCounts.merge(measurement, statistics.getCount(), Long::sum);
+        if (chunkMetadata.getMask() != TsFileConstant.VALUE_COLUMN_MASK) {
+          // non-aligned series carries its own timestamps
+          tableStatistics.minTime = Math.min(tableStatistics.minTime, statistics.getStartTime());
+          tableStatistics.maxTime = Math.max(tableStatistics.maxTime, statistics.getEndTime());
+        }
+      }
+      long rowCount =
+          hasTimeChunk
+              ? timeRowCount
+              : valueCounts.values().stream().mapToLong(Long::longValue).max().orElse(0L);
+      if (rowCount > 0) {
+        tableStatistics.deviceRowCounts.merge(deviceId, rowCount, Long::sum);
+      }
+    }
+
+    /** @return null if nothing is collected */
+    public TsFileTableStatistics build() {
+      tableStatisticsMap.values().removeIf(t -> t.deviceRowCounts.isEmpty());
+      if (tableStatisticsMap.isEmpty()) {
+        return null;
+      }
+      return new TsFileTableStatistics(Collections.unmodifiableMap(tableStatisticsMap));
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable view of the sequence and unsequence file lists of a {@link TsFileManager}. A new
+ * snapshot is published every time the lists are changed under the write lock of the manager, so
+ * queries may read the lists without taking the read lock. A query pins the snapshot it reads, and
+ * compaction waits until the snapshots older than its commit are unpinned before deleting the
+ * source files.
+ */
+public class TsFileListSnapshot {
+
+  private final long version;
+
+  private final TreeMap<Long, PartitionFiles> sequenceFiles;
+  private final TreeMap<Long, PartitionFiles> unsequenceFiles;
+
+  private final AtomicInteger pinCount = new AtomicInteger(0);
+
+  TsFileListSnapshot(
+      long version,
+      TreeMap<Long, PartitionFiles> sequenceFiles,
+      TreeMap<Long, PartitionFiles> unsequenceFiles) {
+    this.version = version;
+    this.sequenceFiles = sequenceFiles;
+    this.unsequenceFiles = unsequenceFiles;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  TreeMap<Long, PartitionFiles> getPartitionFiles(boolean sequence) {
+    return sequence ? sequenceFiles : unsequenceFiles;
+  }
+
+  void pin() {
+    pinCount.incrementAndGet();
+  }
+
+  void unpin() {
+    pinCount.decrementAndGet();
+  }
+
+  boolean isPinned() {
+    return pinCount.get() > 0;
+  }
+
+  /** Files of one time partition in the snapshot. */
+  static class PartitionFiles {
+
+    /** the live list these files are copied from, whose interval index is shared */
+    private final TsFileResourceList resourceList;
+
+    private final int modCount;
+    private final List<TsFileResource> resources;
+
+    @SuppressWarnings("squid:S3077")
+    private volatile Map<TsFileResource, Integer> positions;
+
+    PartitionFiles(TsFileResourceList resourceList) {
+      this.resourceList = resourceList;
+      this.modCount = resourceList.getModCount();
+      this.resources = Collections.unmodifiableList(resourceList.getArrayList());
+    }
+
+    /** @return true if the live list has not been changed since this copy */
+    boolean isCopyOf(TsFileResourceList list) {
+      return resourceList == list && modCount == list.getModCount();
+    }
+
+    TsFileResourceList getResourceList() {
+      return resourceList;
+    }
+
+    List<TsFileResource> getResources() {
+      return resources;
+    }
+
+    /** @return the position of the resource in this partition, or -1 if it is not in it */
+    int indexOf(TsFileResource resource) {
+      Map<TsFileResource, Integer> map = positions;
+      if (map == null) {
+        map = new IdentityHashMap<>(resources.size());
+        for (int i = 0; i < resources.size(); i++) {
+          map.put(resources.get(i), i);
+        }
+        positions = map;
+      }
+      return map.getOrDefault(resource, -1);
+    }
+  }
+}
@@ -19,33 +19,69 @@
 
 package org.apache.iotdb.db.storageengine.dataregion.tsfile;
 
+import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.commons.utils.TimePartitionUtils;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.metric.QueryResourceMetricSet;
 import org.apache.iotdb.db.storageengine.dataregion.modification.ModFileManagement;
 import org.apache.iotdb.db.storageengine.dataregion.modification.PartitionLevelModFileManager;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileListSnapshot.PartitionFiles;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.FileTimeIndexCacheRecorder;
 import org.apache.iotdb.db.storageengine.rescon.memory.TsFileResourceManager;
 
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.common.TimeRange;
 import org.apache.tsfile.read.filter.basic.Filter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class TsFileManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TsFileManager.class);
+
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
   private final String storageGroupName;
   private String dataRegionId;
   private final String dataRegionSysDir;
 
   /** Serialize queries, delete resource files, compaction cleanup files */
-  private final ReadWriteLock resourceListLock = new ReentrantReadWriteLock();
+  private final ReentrantReadWriteLock resourceListLock = new ReentrantReadWriteLock();
+
+  /**
+   * Published when the file lists are changed under the write lock, so that queries may read the
+   * file lists without waiting for the write lock.
+   */
+  private volatile TsFileListSnapshot snapshot =
+      new TsFileListSnapshot(0, new TreeMap<>(), new TreeMap<>());
+
+  /** replaced snapshots which may still be pinned by queries, in the order of versions */
+  private final Queue<TsFileListSnapshot> staleSnapshots = new ConcurrentLinkedQueue<>();
+
+  /** the snapshot pinned by the query running in the current thread */
+  private final ThreadLocal<PinnedSnapshot> pinnedSnapshot = new ThreadLocal<>();
+
+  /** notified when a stale snapshot is unpinned, see waitForStaleSnapshots */
+  private final Object staleSnapshotMonitor = new Object();
+
+  /** queries pinning a snapshot longer than their timeout are expected to have been cancelled */
+  private long staleSnapshotWaitTimeoutMs = CONFIG.getQueryTimeoutThreshold();
 
   private String writeLockHolder;
   // time partition -> double linked list of tsfiles
@@ -72,6 +108,10 @@ public class TsFileManager {
    */
   public List<TsFileResource> getTsFileList(
       boolean sequence, List<Long> timePartitions, Filter timeFilter) {
+    PinnedSnapshot pinned = pinnedSnapshot.get();
+    if (pinned != null) {
+      return getTsFileList(pinned.snapshot, sequence, timePartitions, timeFilter, null, 0, 0);
+    }
     // the iteration of ConcurrentSkipListMap is not concurrent secure
     // so we must add read lock here
     readLock();
@@ -98,6 +138,120 @@ public class TsFileManager {
     }
   }
 
+  /**
+   * Like {@link #getTsFileList(boolean, List, Filter)}, but only returns the files which may
+   * contain data of the given device in the time range of the filter, looked up by the interval
+   * index of each time partition. The returned files should still be checked by {@link
+   * TsFileResource#isSatisfied}.
+   *
+   * @param deviceId {@code null} for all devices
+   */
+  public List<TsFileResource> getTsFileList(
+      boolean sequence, List<Long> timePartitions, Filter timeFilter, IDeviceID deviceId) {
+    if (deviceId == null || !CONFIG.isEnableTsFileIntervalIndex()) {
+      return getTsFileList(sequence, timePartitions, timeFilter);
+    }
+    long startTime = Long.MIN_VALUE;
+    long endTime = Long.MAX_VALUE;
+    if (timeFilter != null) {
+      List<TimeRange> timeRanges = timeFilter.getTimeRanges();
+      if (!timeRanges.isEmpty()) {
+        startTime = Long.MAX_VALUE;
+        endTime = Long.MIN_VALUE;
+        for (TimeRange timeRange : timeRanges) {
+          startTime = Math.min(startTime, timeRange.getMin());
+          endTime = Math.max(endTime, timeRange.getMax());
+        }
+      }
+    }
+    PinnedSnapshot pinned = pinnedSnapshot.get();
+    if (pinned != null) {
+      return getTsFileList(
+          pinned.snapshot, sequence, timePartitions, timeFilter, deviceId, startTime, endTime);
+    }
+    readLock();
+    try {
+      List<TsFileResource> allResources = new ArrayList<>();
+      Map<Long, TsFileResourceList> chosenMap = sequence ? sequenceFiles : unsequenceFiles;
+      if (timePartitions == null) {
+        for (Map.Entry<Long, TsFileResourceList> entry : chosenMap.entrySet()) {
+          if (TimePartitionUtils.satisfyTimePartition(timeFilter, entry.getKey())) {
+            allResources.addAll(
+                entry.getValue().getOverlappedResources(deviceId, startTime, endTime));
+          }
+        }
+      } else {
+        for (Long timePartitionId : timePartitions) {
+          TsFileResourceList tsFileResources = chosenMap.get(timePartitionId);
+          if (tsFileResources != null) {
+            allResources.addAll(
+                tsFileResources.getOverlappedResources(deviceId, startTime, endTime));
+          }
+        }
+      }
+      return allResources;
+    } finally {
+      readUnlock();
+    }
+  }
+
+  private static List<TsFileResource> getTsFileList(
+      TsFileListSnapshot snapshot,
+      boolean sequence,
+      List<Long> timePartitions,
+      Filter timeFilter,
+      IDeviceID deviceId,
+      long startTime,
+      long endTime) {
+    List<TsFileResource> allResources = new ArrayList<>();
+    Map<Long, PartitionFiles> chosenMap = snapshot.getPartitionFiles(sequence);
+    if (timePartitions == null) {
+      for (Map.Entry<Long, PartitionFiles> entry : chosenMap.entrySet()) {
+        if (TimePartitionUtils.satisfyTimePartition(timeFilter, entry.getKey())) {
+          collectFiles(entry.getValue(), deviceId, startTime, endTime, allResources);
+        }
+      }
+    } else {
+      for (Long timePartitionId : timePartitions) {
+        PartitionFiles partitionFiles = chosenMap.get(timePartitionId);
+        if (partitionFiles != null) {
+          collectFiles(partitionFiles, deviceId, startTime, endTime, allResources);
+        }
+      }
+    }
+    return allResources;
+  }
+
+  private static void collectFiles(
+      PartitionFiles partitionFiles,
+      IDeviceID deviceId,
+      long startTime,
+      long endTime,
+      List<TsFileResource> result) {
+    TsFileResourceIntervalIndex index = partitionFiles.getResourceList().getIntervalIndex();
+    if (deviceId == null || index == null) {
+      result.addAll(partitionFiles.getResources());
+      return;
+    }
+    // the index is shared with the live list, keep the files in this snapshot only
+    List<Integer> positions = new ArrayList<>();
+    for (TsFileResource resource :
+        index.getOverlappedResourcesIncludingRetired(deviceId, startTime, endTime)) {
+      int position = partitionFiles.indexOf(resource);
+      if (position >= 0) {
+        positions.add(position);
+      }
+    }
+    Collections.sort(positions);
+    int lastPosition = -1;
+    for (int position : positions) {
+      if (position != lastPosition) {
+        result.add(partitionFiles.getResources().get(position));
+        lastPosition = position;
+      }
+    }
+  }
+
   public List<TsFileResource> getTsFileListSnapshot(long timePartition, boolean sequence) {
     readLock();
     try {
@@ -129,7 +283,7 @@ public class TsFileManager {
   public TsFileResourceList getOrCreateSequenceListByTimePartition(long timePartition) {
     writeLock("getOrCreateSequenceListByTimePartition");
     try {
-      return sequenceFiles.computeIfAbsent(timePartition, l -> new TsFileResourceList());
+      return sequenceFiles.computeIfAbsent(timePartition, l -> new TsFileResourceList(this));
     } finally {
       writeUnlock();
     }
@@ -138,7 +292,7 @@ public class TsFileManager {
   public TsFileResourceList getOrCreateUnsequenceListByTimePartition(long timePartition) {
     writeLock("getOrCreateUnsequenceListByTimePartition");
     try {
-      return unsequenceFiles.computeIfAbsent(timePartition, l -> new TsFileResourceList());
+      return unsequenceFiles.computeIfAbsent(timePartition, l -> new TsFileResourceList(this));
     } finally {
       writeUnlock();
     }
@@ -167,6 +321,7 @@ public class TsFileManager {
     } finally {
       writeUnlock();
     }
+    waitForStaleSnapshots();
   }
 
   public void removeAll(List<TsFileResource> tsFileResourceList, boolean sequence) {
@@ -191,7 +346,7 @@ public class TsFileManager {
     try {
       Map<Long, TsFileResourceList> selectedMap = sequence ? sequenceFiles : unsequenceFiles;
       TsFileResourceList tsFileResources =
-          selectedMap.computeIfAbsent(timePartition, o -> new TsFileResourceList());
+          selectedMap.computeIfAbsent(timePartition, o -> new TsFileResourceList(this));
       tsFileResources.set(insertPos, tsFileResource);
       if (tsFileResource.getModFileManagement() == null) {
         tsFileResource.setModFileManagement(
@@ -209,7 +364,7 @@ public class TsFileManager {
     try {
       Map<Long, TsFileResourceList> selectedMap = sequence ? sequenceFiles : unsequenceFiles;
       selectedMap
-          .computeIfAbsent(tsFileResource.getTimePartition(), o -> new TsFileResourceList())
+          .computeIfAbsent(tsFileResource.getTimePartition(), o -> new TsFileResourceList(this))
           .add(tsFileResource);
       if (tsFileResource.getModFileManagement() == null) {
         tsFileResource.setModFileManagement(
@@ -227,7 +382,7 @@ public class TsFileManager {
     try {
       Map<Long, TsFileResourceList> selectedMap = sequence ? sequenceFiles : unsequenceFiles;
       selectedMap
-          .computeIfAbsent(tsFileResource.getTimePartition(), o -> new TsFileResourceList())
+          .computeIfAbsent(tsFileResource.getTimePartition(), o -> new TsFileResourceList(this))
           .keepOrderInsert(tsFileResource);
       if (tsFileResource.getModFileManagement() == null) {
         tsFileResource.setModFileManagement(
@@ -281,11 +436,11 @@ public class TsFileManager {
           TsFileResourceManager.getInstance().registerSealedTsFileResource(resource);
           if (resource.isSeq()) {
             sequenceFiles
-                .computeIfAbsent(timePartition, t -> new TsFileResourceList())
+                .computeIfAbsent(timePartition, t -> new TsFileResourceList(this))
                 .keepOrderInsert(resource);
           } else {
             unsequenceFiles
-                .computeIfAbsent(timePartition, t -> new TsFileResourceList())
+                .computeIfAbsent(timePartition, t -> new TsFileResourceList(this))
                 .keepOrderInsert(resource);
           }
           FileTimeIndexCacheRecorder.getInstance().logFileTimeIndex(resource);
@@ -299,6 +454,7 @@ public class TsFileManager {
     } finally {
       writeUnlock();
     }
+    waitForStaleSnapshots();
   }
 
   public boolean contains(TsFileResource tsFileResource, boolean sequence) {
@@ -354,7 +510,10 @@ public class TsFileManager {
   public void getModFileManagement() {}
 
   public void readLock() {
+    long startTime = System.nanoTime();
     resourceListLock.readLock().lock();
+    QueryResourceMetricSet.getInstance()
+        .recordTsFileListLockWait(QueryResourceMetricSet.READ_LOCK, System.nanoTime() - startTime);
   }
 
   public void readUnlock() {
@@ -362,15 +521,167 @@ public class TsFileManager {
   }
 
   public void writeLock(String holder) {
+    long startTime = System.nanoTime();
     resourceListLock.writeLock().lock();
+    QueryResourceMetricSet.getInstance()
+        .recordTsFileListLockWait(QueryResourceMetricSet.WRITE_LOCK, System.nanoTime() - startTime);
     writeLockHolder = holder;
   }
 
   public void writeUnlock() {
+    if (resourceListLock.getWriteHoldCount() == 1) {
+      publishSnapshot();
+    }
     resourceListLock.writeLock().unlock();
     writeLockHolder = "";
   }
 
+  /**
+   * Pin the current snapshot of the file lists to the current thread instead of taking the read
+   * lock, so that the query never waits for compaction or flush. Until {@link #unpinSnapshot()} is
+   * called, {@link #getTsFileList(boolean, List, Filter)} called by this thread reads the pinned
+   * snapshot, and {@link #waitForStaleSnapshots()} waits for it.
+   */
+  public void pinSnapshot() {
+    PinnedSnapshot pinned = pinnedSnapshot.get();
+    if (pinned != null) {
+      pinned.depth++;
+      return;
+    }
+    TsFileListSnapshot current;
+    while (true) {
+      current = snapshot;
+      current.pin();
+      // the snapshot may have been replaced before it is pinned, then it is not waited for
+      if (current == snapshot) {
+        break;
+      }
+      unpin(current);
+    }
+    pinnedSnapshot.set(new PinnedSnapshot(current));
+  }
+
+  public void unpinSnapshot() {
+    PinnedSnapshot pinned = pinnedSnapshot.get();
+    if (pinned == null) {
+      return;
+    }
+    if (--pinned.depth == 0) {
+      pinnedSnapshot.remove();
+      unpin(pinned.snapshot);
+    }
+  }
+
+  private void unpin(TsFileListSnapshot pinned) {
+    pinned.unpin();
+    // wake up waitForStaleSnapshots, which never waits for the current snapshot
+    if (pinned != snapshot) {
+      synchronized (staleSnapshotMonitor) {
+        staleSnapshotMonitor.notifyAll();
+      }
+    }
+  }
+
+  public long getSnapshotVersion() {
+    return snapshot.getVersion();
+  }
+
+  /**
+   * @return the version of the oldest snapshot which is still pinned, or the version of the
+   *     current snapshot if no older snapshot is pinned
+   */
+  public long getOldestPinnedSnapshotVersion() {
+    // read the current version first, older snapshots are queued before it is published
+    long currentVersion = snapshot.getVersion();
+    TsFileListSnapshot head;
+    while ((head = staleSnapshots.peek()) != null) {
+      if (head.isPinned()) {
+        return head.getVersion();
+      }
+      staleSnapshots.remove(head);
+    }
+    return currentVersion;
+  }
+
+  /**
+   * Wait until the queries reading the snapshots published before this call have pinned their
+   * files, so that the files removed from the lists can be deleted. Returns at once if the current
+   * thread pins a snapshot itself, and gives up with a warning after the query timeout.
+   */
+  public void waitForStaleSnapshots() {
+    long targetVersion = snapshot.getVersion();
+    if (pinnedSnapshot.get() != null || getOldestPinnedSnapshotVersion() >= targetVersion) {
+      return;
+    }
+    long startTime = System.nanoTime();
+    long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(staleSnapshotWaitTimeoutMs);
+    try {
+      synchronized (staleSnapshotMonitor) {
+        // checked under the monitor, so the notification of unpinSnapshot can't be missed
+        while (getOldestPinnedSnapshotVersion() < targetVersion) {
+          long remainingNanos = deadline - System.nanoTime();
+          if (remainingNanos <= 0) {
+            LOGGER.warn(
+                "{}-{} stops waiting for the snapshot {} pinned by queries after {}ms",
+                storageGroupName,
+                dataRegionId,
+                getOldestPinnedSnapshotVersion(),
+                staleSnapshotWaitTimeoutMs);
+            return;
+          }
+          TimeUnit.NANOSECONDS.timedWait(staleSnapshotMonitor, remainingNanos);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      QueryResourceMetricSet.getInstance()
+          .recordTsFileListLockWait(
+              QueryResourceMetricSet.STALE_SNAPSHOT, System.nanoTime() - startTime);
+    }
+  }
+
+  @TestOnly
+  public void setStaleSnapshotWaitTimeoutMs(long staleSnapshotWaitTimeoutMs) {
+    this.staleSnapshotWaitTimeoutMs = staleSnapshotWaitTimeoutMs;
+  }
+
+  private void publishSnapshot() {
+    TsFileListSnapshot current = snapshot;
+    TreeMap<Long, PartitionFiles> newSequenceFiles =
+        copyPartitions(sequenceFiles, current.getPartitionFiles(true));
+    TreeMap<Long, PartitionFiles> newUnsequenceFiles =
+        copyPartitions(unsequenceFiles, current.getPartitionFiles(false));
+    if (newSequenceFiles == null && newUnsequenceFiles == null) {
+      // nothing changed
+      return;
+    }
+    TsFileListSnapshot newSnapshot =
+        new TsFileListSnapshot(
+            current.getVersion() + 1,
+            newSequenceFiles == null ? current.getPartitionFiles(true) : newSequenceFiles,
+            newUnsequenceFiles == null ? current.getPartitionFiles(false) : newUnsequenceFiles);
+    // queue the old snapshot before it is replaced, see getOldestPinnedSnapshotVersion
+    staleSnapshots.add(current);
+    snapshot = newSnapshot;
+  }
+
+  /** @return null if the lists are not changed since the previous snapshot */
+  private static TreeMap<Long, PartitionFiles> copyPartitions(
+      TreeMap<Long, TsFileResourceList> lists, TreeMap<Long, PartitionFiles> previous) {
+    boolean changed = lists.size() != previous.size();
+    TreeMap<Long, PartitionFiles> partitions = new TreeMap<>();
+    for (Map.Entry<Long, TsFileResourceList> entry : lists.entrySet()) {
+      PartitionFiles partitionFiles = previous.get(entry.getKey());
+      if (partitionFiles == null || !partitionFiles.isCopyOf(entry.getValue())) {
+        partitionFiles = new PartitionFiles(entry.getValue());
+        changed = true;
+      }
+      partitions.put(entry.getKey(), partitionFiles);
+    }
+    return changed ? partitions : null;
+  }
+
   public String getStorageGroupName() {
     return storageGroupName;
   }
@@ -442,6 +753,16 @@ public class TsFileManager {
     }
   }
 
+  private static class PinnedSnapshot {
+
+    private final TsFileListSnapshot snapshot;
+    private int depth = 1;
+
+    private PinnedSnapshot(TsFileListSnapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+  }
+
   public long getMaxFileTimestampOfUnSequenceFile() {
     long maxFileTimestamp = -1;
     resourceListLock.readLock().lock();
@@ -43,6 +43,8 @@ import org.apache.iotdb.db.storageengine.dataregion.modification.TreeDeletionEnt
 import org.apache.iotdb.db.storageengine.dataregion.modification.v1.Deletion;
 import org.apache.iotdb.db.storageengine.dataregion.modification.v1.Modification;
 import org.apache.iotdb.db.storageengine.dataregion.modification.v1.ModificationFileV1;
+import org.apache.iotdb.db.storageengine.dataregion.read.control.FileReaderManager;
+import org.apache.iotdb.db.storageengine.dataregion.statistics.TsFileTableStatistics;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.generator.TsFileNameGenerator;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.ArrayDeviceTimeIndex;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.FileTimeIndex;
@@ -202,6 +204,9 @@ public class TsFileResource implements PersistentResource {
   /** used to prevent circular replication in Pipe */
   private boolean isGeneratedByPipe = false;
 
+  /** statistics of the table model data, collected when the file is written, not persisted */
+  private volatile TsFileTableStatistics tableStatistics;
+
   private InsertionCompactionCandidateStatus insertionCompactionCandidateStatus =
       InsertionCompactionCandidateStatus.NOT_CHECKED;
 
@@ -767,6 +772,14 @@ public class TsFileResource implements PersistentResource {
     isGeneratedByPipe = generatedByPipe;
   }
 
+  public TsFileTableStatistics getTableStatistics() {
+    return tableStatistics;
+  }
+
+  public void setTableStatistics(TsFileTableStatistics tableStatistics) {
+    this.tableStatistics = tableStatistics;
+  }
+
   public void writeLock() {
     if (originTsFileResource == null) {
       tsFileLock.writeLock();
@@ -833,6 +846,8 @@ public class TsFileResource implements PersistentResource {
    */
   public boolean remove() {
     forceMarkDeleted();
+    // the idle reader of this file may still be kept open by FileReaderManager
+    FileReaderManager.getInstance().closeUnusedReader(getTsFilePath());
     try {
       fsFactory.deleteIfExists(file);
       fsFactory.deleteIfExists(
@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile;
+
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.ITimeIndex;
+
+import org.apache.tsfile.file.metadata.IDeviceID;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Interval index over the TsFileResources of one {@link TsFileResourceList}. For every device, the
+ * time ranges of the closed files containing it are kept in an interval tree, so that the files
+ * overlapping a time range of the device are found in O(log n + k) instead of checking the time
+ * index of every file in the list.
+ *
+ * <p>Files are indexed by device only when they are closed and their time index is device level.
+ * Closed files whose time index has been degraded to {@link ITimeIndex#FILE_TIME_INDEX_TYPE} are
+ * indexed by their file time range, and unclosed files are always returned as candidates because
+ * their time ranges still grow. An unclosed file is moved into the trees by the first lookup after
+ * it is closed. Time ranges of a closed file never grow afterwards, so the index never misses a
+ * file, but callers should still check each returned file against the device and time filter.
+ *
+ * <p>Every file in the list has a rank which follows the order of the list, so that the overlapping
+ * files are returned in the same order as in the list.
+ *
+ * <p>If the list belongs to a {@link TsFileManager}, a removed file is only retired, and is kept in
+ * the trees until no pinned {@link TsFileListSnapshot} may still contain it, so that queries
+ * reading an older snapshot can use the index as well.
+ */
+class TsFileResourceIntervalIndex {
+
+  private static final long RANK_GAP = 1L << 20;
+
+  private static final long NOT_RETIRED = Long.MAX_VALUE;
+
+  private static final Comparator<IndexedFile> RANK_COMPARATOR =
+      Comparator.comparingLong(file -> file.rank);
+
+  private final TsFileResourceList resourceList;
+
+  /** null if removed files can be dropped at once */
+  private final TsFileManager tsFileManager;
+
+  private final Map<TsFileResource, IndexedFile> indexedFiles = new IdentityHashMap<>();
+
+  /** files whose time ranges may still change, including the retired ones */
+  private final Set<IndexedFile> unclosedFiles = new LinkedHashSet<>();
+
+  /** removed files which may still be visible in pinned snapshots */
+  private final List<IndexedFile> retiredFiles = new ArrayList<>();
+
+  private final Map<IDeviceID, IntervalTree> deviceTrees = new HashMap<>();
+
+  /** closed files without device level time index */
+  private final IntervalTree fileTree = new IntervalTree();
+
+  /** identifies the intervals of one file in the trees, since a file may be indexed twice */
+  private long nextFileId = 0;
+
+  TsFileResourceIntervalIndex(TsFileResourceList resourceList, TsFileManager tsFileManager) {
+    this.resourceList = resourceList;
+    this.tsFileManager = tsFileManager;
+    rebuild();
+  }
+
+  /** Called after the resource is linked into the list. */
+  synchronized void insert(TsFileResource resource) {
+    IndexedFile prev = resource.prev == null ? null : indexedFiles.get(resource.prev);
+    IndexedFile next = resource.next == null ? null : indexedFiles.get(resource.next);
+    if ((resource.prev != null && prev == null) || (resource.next != null && next == null)) {
+      rebuild();
+      return;
+    }
+    long rank;
+    if (prev == null) {
+      rank = next == null ? 0 : next.rank - RANK_GAP;
+    } else if (next == null) {
+      rank = prev.rank + RANK_GAP;
+    } else if (next.rank - prev.rank > 1) {
+      rank = prev.rank + (next.rank - prev.rank) / 2;
+    } else {
+      // no room between the neighbours, renumber all files in the order of the list
+      rebuild();
+      return;
+    }
+    index(new IndexedFile(resource, rank, nextFileId++));
+  }
+
+  /** Called after the resource is unlinked from the list. */
+  synchronized void remove(TsFileResource resource) {
+    IndexedFile file = indexedFiles.remove(resource);
+    if (file != null) {
+      retire(file);
+    }
+    purgeRetiredFiles();
+  }
+
+  synchronized void clear() {
+    for (IndexedFile file : indexedFiles.values()) {
+      retire(file);
+    }
+    indexedFiles.clear();
+    purgeRetiredFiles();
+  }
+
+  /**
+   * @return files in the order of the list, which may contain data of the device in [startTime,
+   *     endTime]
+   */
+  synchronized List<TsFileResource> getOverlappedResources(
+      IDeviceID deviceId, long startTime, long endTime) {
+    List<IndexedFile> overlapped = collect(deviceId, startTime, endTime);
+    overlapped.removeIf(file -> file.retiredVersion != NOT_RETIRED);
+    overlapped.sort(RANK_COMPARATOR);
+    List<TsFileResource> result = new ArrayList<>(overlapped.size());
+    for (IndexedFile file : overlapped) {
+      result.add(file.resource);
+    }
+    return result;
+  }
+
+  /**
+   * Like {@link #getOverlappedResources}, but retired files are returned as well, in no particular
+   * order and maybe more than once. Used to look up files in a pinned snapshot.
+   */
+  synchronized List<TsFileResource> getOverlappedResourcesIncludingRetired(
+      IDeviceID deviceId, long startTime, long endTime) {
+    List<IndexedFile> overlapped = collect(deviceId, startTime, endTime);
+    List<TsFileResource> result = new ArrayList<>(overlapped.size());
+    for (IndexedFile file : overlapped) {
+      result.add(file.resource);
+    }
+    return result;
+  }
+
+  synchronized int size() {
+    return indexedFiles.size();
+  }
+
+  synchronized int retiredSize() {
+    return retiredFiles.size();
+  }
+
+  private List<IndexedFile> collect(IDeviceID deviceId, long startTime, long endTime) {
+    purgeRetiredFiles();
+    promoteClosedFiles();
+    List<IndexedFile> overlapped = new ArrayList<>(unclosedFiles);
+    IntervalTree tree = deviceTrees.get(deviceId);
+    if (tree != null) {
+      tree.collect(startTime, endTime, overlapped);
+    }
+    fileTree.collect(startTime, endTime, overlapped);
+    return overlapped;
+  }
+
+  private void rebuild() {
+    unclosedFiles.clear();
+    deviceTrees.clear();
+    fileTree.clear();
+    indexedFiles.clear();
+    // retired files keep their ranks, they are ordered by the snapshots containing them
+    for (IndexedFile file : retiredFiles) {
+      place(file);
+    }
+    long rank = 0;
+    TsFileResource current = resourceList.getHeader();
+    while (current != null) {
+      index(new IndexedFile(current, rank, nextFileId++));
+      rank += RANK_GAP;
+      current = current.next;
+    }
+  }
+
+  private void retire(IndexedFile file) {
+    if (tsFileManager == null) {
+      detach(file);
+      return;
+    }
+    // snapshots up to the current version may contain the file
+    file.retiredVersion = tsFileManager.getSnapshotVersion();
+    retiredFiles.add(file);
+  }
+
+  private void purgeRetiredFiles() {
+    if (retiredFiles.isEmpty()) {
+      return;
+    }
+    long oldestPinnedVersion = tsFileManager.getOldestPinnedSnapshotVersion();
+    retiredFiles.removeIf(
+        file -> {
+          if (file.retiredVersion < oldestPinnedVersion) {
+            detach(file);
+            return true;
+          }
+          return false;
+        });
+  }
+
+  private void promoteClosedFiles() {
+    Iterator<IndexedFile> iterator = unclosedFiles.iterator();
+    while (iterator.hasNext()) {
+      IndexedFile file = iterator.next();
+      if (isStable(file.resource)) {
+        iterator.remove();
+        addToTrees(file);
+      }
+    }
+  }
+
+  private void index(IndexedFile file) {
+    indexedFiles.put(file.resource, file);
+    place(file);
+  }
+
+  private void place(IndexedFile file) {
+    if (isStable(file.resource)) {
+      addToTrees(file);
+    } else {
+      file.devices = null;
+      file.startTimes = null;
+      unclosedFiles.add(file);
+    }
+  }
+
+  private void detach(IndexedFile file) {
+    if (file.startTimes == null) {
+      unclosedFiles.remove(file);
+      return;
+    }
+    if (file.devices == null) {
+      fileTree.remove(file.startTimes[0], file);
+      return;
+    }
+    for (int i = 0; i < file.devices.length; i++) {
+      IntervalTree tree = deviceTrees.get(file.devices[i]);
+      if (tree != null) {
+        tree.remove(file.startTimes[i], file);
+        if (tree.isEmpty()) {
+          deviceTrees.remove(file.devices[i]);
+        }
+      }
+    }
+  }
+
+  /** processor is released after the time index of the file is finished */
+  private static boolean isStable(TsFileResource resource) {
+    return resource.isClosed() && resource.getProcessor() == null;
+  }
+
+  private void addToTrees(IndexedFile file) {
+    // read the time index once, since it may be degraded concurrently
+    ITimeIndex timeIndex = file.resource.getTimeIndex();
+    if (timeIndex.getTimeIndexType() == ITimeIndex.FILE_TIME_INDEX_TYPE) {
+      file.devices = null;
+      file.startTimes = new long[] {timeIndex.getMinStartTime()};
+      fileTree.insert(timeIndex.getMinStartTime(), timeIndex.getMaxEndTime(), file);
+      return;
+    }
+    Set<IDeviceID> devices = timeIndex.getDevices(file.resource.getTsFilePath(), file.resource);
+    List<IDeviceID> indexedDevices = new ArrayList<>(devices.size());
+    List<Long> startTimes = new ArrayList<>(devices.size());
+    for (IDeviceID device : devices) {
+      Optional<Long> startTime = timeIndex.getStartTime(device);
+      Optional<Long> endTime = timeIndex.getEndTime(device);
+      if (!startTime.isPresent() || !endTime.isPresent()) {
+        continue;
+      }
+      deviceTrees
+          .computeIfAbsent(device, d -> new IntervalTree())
+          .insert(startTime.get(), endTime.get(), file);
+      indexedDevices.add(device);
+      startTimes.add(startTime.get());
+    }
+    file.devices = indexedDevices.toArray(new IDeviceID[0]);
+    file.startTimes = new long[startTimes.size()];
+    for (int i = 0; i < file.startTimes.length; i++) {
+      file.startTimes[i] = startTimes.get(i);
+    }
+  }
+
+  private static class IndexedFile {
+
+    private final TsFileResource resource;
+    private final long rank;
+    private final long id;
+
+    /** version of the last snapshot which may contain the file after it is removed */
+    private long retiredVersion = NOT_RETIRED;
+
+    /** null if the file is indexed by its file time range */
+    private IDeviceID[] devices;
+
+    /**
+     * start times of the intervals inserted into the trees, used to remove them, null if the file
+     * is unclosed
+     */
+    private long[] startTimes;
+
+    private IndexedFile(TsFileResource resource, long rank, long id) {
+      this.resource = resource;
+      this.rank = rank;
+      this.id = id;
+    }
+  }
+
+  /**
+   * A treap ordered by (start time, file id), in which every node also records the max end time of
+   * its subtree, so that subtrees without any overlapping interval are skipped.
+   */
+  private static class IntervalTree {
+
+    private Node root;
+
+    private boolean isEmpty() {
+      return root == null;
+    }
+
+    private void clear() {
+      root = null;
+    }
+
+    private void insert(long startTime, long endTime, IndexedFile file) {
+      root = insert(root, new Node(startTime, endTime, file));
+    }
+
+    private void remove(long startTime, IndexedFile file) {
+      root = remove(root, startTime, file.id);
+    }
+
+    private void collect(long startTime, long endTime, List<IndexedFile> result) {
+      collect(root, startTime, endTime, result);
+    }
+
+    private static Node insert(Node node, Node newNode) {
+      if (node == null) {
+        return newNode;
+      }
+      if (compare(newNode.startTime, newNode.file.id, node) < 0) {
+        node.left = insert(node.left, newNode);
+        if (node.left.priority > node.priority) {
+          node = rotateRight(node);
+        }
+      } else {
+        node.right = insert(node.right, newNode);
+        if (node.right.priority > node.priority) {
+          node = rotateLeft(node);
+        }
+      }
+      node.update();
+      return node;
+    }
+
+    private static Node remove(Node node, long startTime, long id) {
+      if (node == null) {
+        return null;
+      }
+      int cmp = compare(startTime, id, node);
+      if (cmp < 0) {
+        node.left = remove(node.left, startTime, id);
+      } else if (cmp > 0) {
+        node.right = remove(node.right, startTime, id);
+      } else {
+        return merge(node.left, node.right);
+      }
+      node.update();
+      return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+      if (left == null) {
+        return right;
+      }
+      if (right == null) {
+        return left;
+      }
+      if (left.priority > right.priority) {
+        left.right = merge(left.right, right);
+        left.update();
+        return left;
+      } else {
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+      }
+    }
+
+    private static void collect(Node node, long startTime, long endTime, List<IndexedFile> result) {
+      if (node == null || node.maxEndTime < startTime) {
+        return;
+      }
+      collect(node.left, startTime, endTime, result);
+      if (node.startTime > endTime) {
+        // all intervals in the right subtree start even later
+        return;
+      }
+      if (node.endTime >= startTime) {
+        result.add(node.file);
+      }
+      collect(node.right, startTime, endTime, result);
+    }
+
+    private static int compare(long startTime, long id, Node node) {
+      int cmp = Long.compare(startTime, node.startTime);
+      return cmp != 0 ? cmp : Long.compare(id, node.file.id);
+    }
+
+    private static Node rotateRight(Node node) {
+      Node left = node.left;
+      node.left = left.right;
+      left.right = node;
+      node.update();
+      return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+      Node right = node.right;
+      node.right = right.left;
+      right.left = node;
+      node.update();
+      return right;
+    }
+  }
+
+  private static class Node {
+
+    private final long startTime;
+    private final long endTime;
+    private final IndexedFile file;
+    private final int priority = ThreadLocalRandom.current().nextInt();
+    private long maxEndTime;
+    private Node left;
+    private Node right;
+
+    private Node(long startTime, long endTime, IndexedFile file) {
+      this.startTime = startTime;
+      this.endTime = endTime;
+      this.file = file;
+      this.maxEndTime = endTime;
+    }
+
+    private void update() {
+      maxEndTime = endTime;
+      if (left != null) {
+        maxEndTime = Math.max(maxEndTime, left.maxEndTime);
+      }
+      if (right != null) {
+        maxEndTime = Math.max(maxEndTime, right.maxEndTime);
+      }
+    }
+  }
+}
@@ -20,9 +20,11 @@
 package org.apache.iotdb.db.storageengine.dataregion.tsfile;
 
 import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.generator.TsFileNameGenerator;
 
 import org.apache.tsfile.exception.NotImplementedException;
+import org.apache.tsfile.file.metadata.IDeviceID;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -40,6 +42,29 @@ public class TsFileResourceList implements List<TsFileResource> {
   private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
   private int count = 0;
 
+  /** increased on every change of the list, used to tell whether a snapshot of it is stale */
+  private volatile int modCount = 0;
+
+  /** the manager which publishes snapshots of this list, may be null */
+  private final TsFileManager tsFileManager;
+
+  /**
+   * created by the first query through {@link #getOverlappedResources}, or with the list if it
+   * belongs to a {@link TsFileManager}, since snapshot readers do not hold the lock of the manager
+   */
+  private volatile TsFileResourceIntervalIndex intervalIndex;
+
+  public TsFileResourceList() {
+    this.tsFileManager = null;
+  }
+
+  public TsFileResourceList(TsFileManager tsFileManager) {
+    this.tsFileManager = tsFileManager;
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableTsFileIntervalIndex()) {
+      this.intervalIndex = new TsFileResourceIntervalIndex(this, tsFileManager);
+    }
+  }
+
   /**
    * Insert a new node before an existing node
    *
@@ -59,6 +84,7 @@ public class TsFileResourceList implements List<TsFileResource> {
     }
     node.prev = newNode;
     count++;
+    onInserted(newNode);
   }
 
   /**
@@ -77,6 +103,7 @@ public class TsFileResourceList implements List<TsFileResource> {
     }
     node.next = newNode;
     count++;
+    onInserted(newNode);
   }
 
   @Override
@@ -126,6 +153,7 @@ public class TsFileResourceList implements List<TsFileResource> {
       header = newNode;
       tail = newNode;
       count++;
+      onInserted(newNode);
     } else {
       insertAfter(tail, newNode);
     }
@@ -147,6 +175,7 @@ public class TsFileResourceList implements List<TsFileResource> {
       header = newNode;
       tail = newNode;
       count++;
+      onInserted(newNode);
     } else {
       TsFileNameGenerator.TsFileName newTsFileName =
           TsFileNameGenerator.getTsFileName(newNode.getTsFile().getName());
@@ -221,6 +250,11 @@ public class TsFileResourceList implements List<TsFileResource> {
     tsFileResource.prev = null;
     tsFileResource.next = null;
     count--;
+    modCount++;
+    TsFileResourceIntervalIndex index = intervalIndex;
+    if (index != null) {
+      index.remove(tsFileResource);
+    }
     return true;
   }
 
@@ -246,6 +280,11 @@ public class TsFileResourceList implements List<TsFileResource> {
     header = null;
     tail = null;
     count = 0;
+    modCount++;
+    TsFileResourceIntervalIndex index = intervalIndex;
+    if (index != null) {
+      index.clear();
+    }
   }
 
   @Override
@@ -363,6 +402,43 @@ public class TsFileResourceList implements List<TsFileResource> {
     return list;
   }
 
+  /**
+   * Get the files which may contain data of the device in [startTime, endTime], in the order of
+   * this list. Unclosed files are always returned, and each returned file should still be checked
+   * by {@link TsFileResource#isSatisfied}.
+   */
+  public List<TsFileResource> getOverlappedResources(
+      IDeviceID deviceId, long startTime, long endTime) {
+    TsFileResourceIntervalIndex index = intervalIndex;
+    if (index == null) {
+      synchronized (this) {
+        index = intervalIndex;
+        if (index == null) {
+          index = new TsFileResourceIntervalIndex(this, tsFileManager);
+          intervalIndex = index;
+        }
+      }
+    }
+    return index.getOverlappedResources(deviceId, startTime, endTime);
+  }
+
+  /** @return null if the index is not created */
+  TsFileResourceIntervalIndex getIntervalIndex() {
+    return intervalIndex;
+  }
+
+  int getModCount() {
+    return modCount;
+  }
+
+  private void onInserted(TsFileResource newNode) {
+    modCount++;
+    TsFileResourceIntervalIndex index = intervalIndex;
+    if (index != null) {
+      index.insert(newNode);
+    }
+  }
+
   private class TsFileIterator implements Iterator<TsFileResource> {
     List<TsFileResource> tsFileResourceList;
     int currentIndex = 0;
@@ -408,7 +484,6 @@ public class TsFileResourceList implements List<TsFileResource> {
     }
   }
 
-  @TestOnly
   public TsFileResource getHeader() {
     return header;
   }
@@ -70,7 +70,9 @@ import static org.apache.iotdb.db.storageengine.dataregion.wal.node.WALNode.DEFA
 
 /**
  * This buffer guarantees the concurrent safety and uses double buffers mechanism to accelerate
- * writes and avoid waiting for buffer syncing to disk.
+ * writes and avoid waiting for buffer syncing to disk. In the {@link WALMode#GROUP_COMMIT} mode,
+ * WALEntries taken within a bounded window are fsynced once and their listeners are notified
+ * together.
  */
 public class WALBuffer extends AbstractWALBuffer {
   private static final Logger logger = LoggerFactory.getLogger(WALBuffer.class);
@@ -220,6 +222,9 @@ public class WALBuffer extends AbstractWALBuffer {
     final List<Checkpoint> checkpoints = new ArrayList<>();
     final List<WALFlushListener> fsyncListeners = new ArrayList<>();
     WALFlushListener rollWALFileWriterListener = null;
+    boolean groupCommit = false;
+    // time when the first WALEntry of this group is taken, only used in the group commit mode
+    long groupStartTime = 0;
   }
 
   /** This task serializes WALEntry to workingBuffer and will call fsync at last. */
@@ -243,8 +248,13 @@ public class WALBuffer extends AbstractWALBuffer {
     private void serialize() {
       // try to get first WALEntry with blocking interface
       long start = System.nanoTime();
+      boolean groupCommit = config.getWalMode() == WALMode.GROUP_COMMIT;
       try {
         WALEntry firstWALEntry = walEntries.take();
+        if (groupCommit) {
+          info.groupCommit = true;
+          info.groupStartTime = System.nanoTime();
+        }
         boolean returnFlag = handleWALEntry(firstWALEntry);
         if (returnFlag) {
           WRITING_METRICS.recordSerializeWALEntryTotalCost(System.nanoTime() - start);
@@ -256,12 +266,29 @@ public class WALBuffer extends AbstractWALBuffer {
         Thread.currentThread().interrupt();
       }
 
+      // in the group commit mode, the batch is bounded by both its size and a window counted from
+      // the first WALEntry, so that the latency of each write request is bounded
+      double maxBatchSize =
+          groupCommit
+              ? Math.min(
+                  ONE_THIRD_WAL_BUFFER_SIZE * FSYNC_BUFFER_RATIO,
+                  config.getWalGroupCommitMaxBatchSizeInByte())
+              : ONE_THIRD_WAL_BUFFER_SIZE * FSYNC_BUFFER_RATIO;
+      long groupDeadline =
+          groupCommit
+              ? info.groupStartTime
+                  + TimeUnit.MILLISECONDS.toNanos(config.getWalGroupCommitWindowInMs())
+              : Long.MAX_VALUE;
       // try to get more WALEntries with blocking interface to enlarge write batch
-      while (totalSize < ONE_THIRD_WAL_BUFFER_SIZE * FSYNC_BUFFER_RATIO) {
+      while (totalSize < maxBatchSize) {
         WALEntry walEntry = null;
         try {
           // for better fsync performance, wait a while to enlarge write batch
-          if (config.getWalMode().equals(WALMode.ASYNC)) {
+          if (groupCommit) {
+            long remainingTime = groupDeadline - System.nanoTime();
+            walEntry =
+                remainingTime > 0 ? walEntries.poll(remainingTime, TimeUnit.NANOSECONDS) : null;
+          } else if (config.getWalMode().equals(WALMode.ASYNC)) {
             walEntry =
                 walEntries.poll(config.getWalAsyncModeFsyncDelayInMs(), TimeUnit.MILLISECONDS);
           } else {
@@ -614,6 +641,10 @@ public class WALBuffer extends AbstractWALBuffer {
           }
         }
         lastFsyncPosition = currentWALFileWriter.originalSize();
+        if (info.groupCommit) {
+          WRITING_METRICS.recordWALGroupCommit(
+              info.fsyncListeners.size(), System.nanoTime() - info.groupStartTime);
+        }
       }
       WRITING_METRICS.recordWALBufferEntriesCount(info.fsyncListeners.size());
       WRITING_METRICS.recordSyncWALBufferCost(System.nanoTime() - startTime, forceFlag);
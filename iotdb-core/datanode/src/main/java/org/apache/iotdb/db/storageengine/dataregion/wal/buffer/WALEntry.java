@@ -36,6 +36,7 @@ import org.apache.iotdb.db.utils.SerializedSize;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -140,6 +141,63 @@ public abstract class WALEntry implements SerializedSize {
     return new WALInfoEntry(type, memTableId, value);
   }
 
+  /**
+   * Like {@link #deserialize(DataInputStream)}, but plan nodes are read from the buffer directly,
+   * which may be a slice of a memory mapped wal file.
+   */
+  public static WALEntry deserialize(ByteBuffer buffer) throws IOException {
+    byte typeNum = buffer.get();
+    WALEntryType type = WALEntryType.valueOf(typeNum);
+
+    // handle signal
+    switch (type) {
+      case CLOSE_SIGNAL:
+      case ROLL_WAL_LOG_WRITER_SIGNAL:
+      case WAL_FILE_INFO_END_MARKER:
+        return new WALSignalEntry(type);
+      default:
+        break;
+    }
+
+    // handle info
+    long memTableId = buffer.getLong();
+    WALEntryValue value = null;
+    switch (type) {
+      case MEMORY_TABLE_SNAPSHOT:
+      case OLD_MEMORY_TABLE_SNAPSHOT:
+        // memTable snapshots can only be deserialized from streams
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        DataInputStream stream = new DataInputStream(new ByteArrayInputStream(bytes));
+        value =
+            type == WALEntryType.MEMORY_TABLE_SNAPSHOT
+                ? AbstractMemTable.Factory.create(stream)
+                : AbstractMemTable.Factory.createFromOldMemTableSnapshot(stream);
+        break;
+      case INSERT_ROW_NODE:
+        value = (InsertRowNode) PlanNodeType.deserializeFromWAL(buffer);
+        break;
+      case INSERT_TABLET_NODE:
+        value = (InsertTabletNode) PlanNodeType.deserializeFromWAL(buffer);
+        break;
+      case INSERT_ROWS_NODE:
+        value = (InsertRowsNode) PlanNodeType.deserializeFromWAL(buffer);
+        break;
+      case DELETE_DATA_NODE:
+        value = (DeleteDataNode) PlanNodeType.deserializeFromWAL(buffer);
+        break;
+      case RELATIONAL_DELETE_DATA_NODE:
+        value = (RelationalDeleteDataNode) PlanNodeType.deserializeFromWAL(buffer);
+        break;
+      case CONTINUOUS_SAME_SEARCH_INDEX_SEPARATOR_NODE:
+        value = (ContinuousSameSearchIndexSeparatorNode) PlanNodeType.deserializeFromWAL(buffer);
+        break;
+      default:
+        throw new RuntimeException("Unknown WALEntry type " + type);
+    }
+    return new WALInfoEntry(type, memTableId, value);
+  }
+
   /**
    * This deserialization method is only for iot consensus and just deserializes InsertRowNode and
    * InsertTabletNode.
@@ -48,7 +48,7 @@ public class WALInfoEntry extends WALEntry {
   }
 
   public WALInfoEntry(long memTableId, WALEntryValue value) {
-    this(memTableId, value, config.getWalMode() == WALMode.SYNC);
+    this(memTableId, value, config.getWalMode().isWaitForFsync());
     if (value instanceof InsertTabletNode) {
       tabletInfo =
           new TabletInfo(
@@ -57,7 +57,7 @@ public class WALInfoEntry extends WALEntry {
   }
 
   public WALInfoEntry(long memTableId, InsertTabletNode value, List<int[]> tabletRangeList) {
-    this(memTableId, value, config.getWalMode() == WALMode.SYNC);
+    this(memTableId, value, config.getWalMode().isWaitForFsync());
     tabletInfo = new TabletInfo(tabletRangeList);
   }
 
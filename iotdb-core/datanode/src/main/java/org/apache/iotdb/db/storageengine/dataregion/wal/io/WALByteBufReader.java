@@ -35,12 +35,14 @@ import java.util.Iterator;
  */
 public class WALByteBufReader implements Closeable {
   private WALMetaData metaData;
+  private WALInputStream walInputStream;
   private DataInputStream logStream;
   private Iterator<Integer> sizeIterator;
 
   public WALByteBufReader(File logFile) throws IOException {
     WALInputStream walInputStream = new WALInputStream(logFile);
     try {
+      this.walInputStream = walInputStream;
       this.logStream = new DataInputStream(walInputStream);
       this.metaData = walInputStream.getWALMetaData();
       this.sizeIterator = metaData.getBuffersSize().iterator();
@@ -53,6 +55,7 @@ public class WALByteBufReader implements Closeable {
   public WALByteBufReader(WALEntryPosition walEntryPosition) throws IOException {
     WALInputStream walInputStream = walEntryPosition.openReadFileStream();
     try {
+      this.walInputStream = walInputStream;
       this.logStream = new DataInputStream(walInputStream);
       this.metaData = walInputStream.getWALMetaData();
       this.sizeIterator = metaData.getBuffersSize().iterator();
@@ -85,6 +88,16 @@ public class WALByteBufReader implements Closeable {
     return buffer;
   }
 
+  /**
+   * Like {@link #next()}, but the returned buffer may be a slice of the memory mapped wal file to
+   * avoid copying, so it's only valid before this reader is closed and must not be retained.
+   *
+   * @throws IOException when failing to read from channel.
+   */
+  public ByteBuffer nextSlice() throws IOException {
+    return walInputStream.readSlice(sizeIterator.next());
+  }
+
   public WALMetaData getMetaData() {
     return metaData;
   }
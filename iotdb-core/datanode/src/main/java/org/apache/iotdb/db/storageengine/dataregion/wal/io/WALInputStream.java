@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.storageengine.dataregion.wal.io;
 
 import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.service.metrics.WritingMetrics;
 import org.apache.iotdb.db.utils.MmapUtil;
 
@@ -32,6 +33,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
@@ -48,6 +50,16 @@ public class WALInputStream extends InputStream implements AutoCloseable {
   private final ByteBuffer compressedSizeBuffer = ByteBuffer.allocate(Integer.BYTES);
   private ByteBuffer dataBuffer = null;
   private ByteBuffer compressedBuffer = null;
+
+  /**
+   * The read-only mapping of the whole file, only used for V2 files when wal_read_mmap_enable is
+   * true. When it's present, uncompressed segments are sliced from it instead of being copied into
+   * {@link #dataBuffer}, so {@link #dataBuffer} must not be cleaned when {@link #dataBufferMapped}
+   * is true.
+   */
+  private MappedByteBuffer mappedFile = null;
+
+  private boolean dataBufferMapped = false;
   private final long fileSize;
   File logFile;
   /*
@@ -67,12 +79,28 @@ public class WALInputStream extends InputStream implements AutoCloseable {
       fileSize = channel.size();
       analyzeFileVersion();
       getEndOffset();
+      tryMapFile();
     } catch (Exception e) {
       channel.close();
       throw e;
     }
   }
 
+  private void tryMapFile() {
+    if (!IoTDBDescriptor.getInstance().getConfig().isWalReadMmapEnable()
+        || version != WALFileVersion.V2
+        || fileSize > Integer.MAX_VALUE) {
+      return;
+    }
+    try {
+      mappedFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+    } catch (IOException e) {
+      // fall back to channel reads
+      logger.debug("Fail to map wal file {}, read it through file channel.", logFile, e);
+      mappedFile = null;
+    }
+  }
+
   private void getEndOffset() throws IOException {
     if (channel.size() < WALFileVersion.V2.getVersionBytes().length + Integer.BYTES) {
       // An broken file
@@ -170,9 +198,19 @@ public class WALInputStream extends InputStream implements AutoCloseable {
   @Override
   public void close() throws IOException {
     channel.close();
-    MmapUtil.clean(dataBuffer);
+    releaseDataBuffer();
     MmapUtil.clean(compressedBuffer);
+    MmapUtil.clean(mappedFile);
+    mappedFile = null;
+  }
+
+  private void releaseDataBuffer() {
+    // slices of the mapping share its memory, which is released in close
+    if (!dataBufferMapped) {
+      MmapUtil.clean(dataBuffer);
+    }
     dataBuffer = null;
+    dataBufferMapped = false;
   }
 
   @Override
@@ -220,13 +258,22 @@ public class WALInputStream extends InputStream implements AutoCloseable {
     if (segmentInfo.compressionType != CompressionType.UNCOMPRESSED) {
       // A compressed segment
       if (Objects.isNull(dataBuffer)
+          || dataBufferMapped
           || dataBuffer.capacity() < segmentInfo.uncompressedSize
           || dataBuffer.capacity() > segmentInfo.uncompressedSize * 2) {
-        MmapUtil.clean(dataBuffer);
+        releaseDataBuffer();
         dataBuffer = ByteBuffer.allocateDirect(segmentInfo.uncompressedSize);
       }
       dataBuffer.clear();
 
+      IUnCompressor unCompressor = IUnCompressor.getUnCompressor(segmentInfo.compressionType);
+      if (Objects.nonNull(mappedFile)) {
+        // decompress from the mapping directly
+        uncompressWALBuffer(sliceMappedFile(segmentInfo.dataInDiskSize), dataBuffer, unCompressor);
+        dataBuffer.flip();
+        return;
+      }
+
       if (Objects.isNull(compressedBuffer)
           || compressedBuffer.capacity() < segmentInfo.dataInDiskSize
           || compressedBuffer.capacity() > segmentInfo.dataInDiskSize * 2) {
@@ -240,14 +287,22 @@ public class WALInputStream extends InputStream implements AutoCloseable {
         throw new IOException("Unexpected end of file");
       }
       compressedBuffer.flip();
-      IUnCompressor unCompressor = IUnCompressor.getUnCompressor(segmentInfo.compressionType);
       uncompressWALBuffer(compressedBuffer, dataBuffer, unCompressor);
     } else {
       // An uncompressed segment
+      if (Objects.nonNull(mappedFile)) {
+        // slice the segment from the mapping without copying
+        ByteBuffer segment = sliceMappedFile(segmentInfo.dataInDiskSize);
+        releaseDataBuffer();
+        dataBuffer = segment;
+        dataBufferMapped = true;
+        return;
+      }
       if (Objects.isNull(dataBuffer)
+          || dataBufferMapped
           || dataBuffer.capacity() < segmentInfo.dataInDiskSize
           || dataBuffer.capacity() > segmentInfo.dataInDiskSize * 2) {
-        MmapUtil.clean(dataBuffer);
+        releaseDataBuffer();
         dataBuffer = ByteBuffer.allocateDirect(segmentInfo.dataInDiskSize);
       }
       dataBuffer.clear();
@@ -261,6 +316,22 @@ public class WALInputStream extends InputStream implements AutoCloseable {
     dataBuffer.flip();
   }
 
+  /**
+   * Slice the next size bytes of the mapping from the current channel position, and move the
+   * channel position over them.
+   */
+  private ByteBuffer sliceMappedFile(int size) throws IOException {
+    long position = channel.position();
+    if (position + size > mappedFile.capacity()) {
+      throw new IOException("Unexpected end of file");
+    }
+    ByteBuffer slice = mappedFile.duplicate();
+    slice.position((int) position);
+    slice.limit((int) position + size);
+    channel.position(position + size);
+    return slice.slice();
+  }
+
   private void tryLoadSegment() throws IOException {
     long originPosition = channel.position();
     try {
@@ -283,6 +354,7 @@ public class WALInputStream extends InputStream implements AutoCloseable {
    * @throws IOException If the file is broken or the given position is invalid
    */
   public void skipToGivenLogicalPosition(long pos) throws IOException {
+    releaseDataBuffer();
     if (version == WALFileVersion.V2) {
       channel.position(version.getVersionBytes().length);
       long posRemain = pos;
@@ -314,11 +386,32 @@ public class WALInputStream extends InputStream implements AutoCloseable {
 
       dataBuffer.position((int) posRemain);
     } else {
-      dataBuffer = null;
       channel.position(pos);
     }
   }
 
+  /**
+   * Read the next size bytes. If they lie in one uncompressed segment of a mapped file, the
+   * returned buffer is a slice of the mapping, which is only valid before this stream is closed;
+   * otherwise they are copied into a new heap buffer.
+   */
+  public ByteBuffer readSlice(int size) throws IOException {
+    if (Objects.isNull(dataBuffer) || dataBuffer.position() >= dataBuffer.limit()) {
+      loadNextSegment();
+    }
+    if (dataBufferMapped && dataBuffer.remaining() >= size) {
+      ByteBuffer slice = dataBuffer.slice();
+      slice.limit(size);
+      dataBuffer.position(dataBuffer.position() + size);
+      // slice again so that the capacity is also size, otherwise clear() or rewinding the limit
+      // would expose the bytes of the following entries
+      return slice.slice();
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    read(buffer.array(), 0, size);
+    return buffer;
+  }
+
   public void read(ByteBuffer buffer) throws IOException {
     int totalBytesToBeRead = buffer.remaining();
     while (totalBytesToBeRead > 0) {
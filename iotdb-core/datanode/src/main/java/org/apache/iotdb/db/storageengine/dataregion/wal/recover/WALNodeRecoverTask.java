@@ -41,8 +41,6 @@ import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALFileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -266,16 +264,16 @@ public class WALNodeRecoverTask implements Runnable {
           continue;
         }
         while (reader.hasNext()) {
-          ByteBuffer buffer = reader.next();
+          // the buffer is only used before the reader is closed, so it can be a mapped slice
+          ByteBuffer buffer = reader.nextSlice();
           // see WALInfoEntry#serialize, entry type
           buffer.position(Byte.BYTES);
           long memTableId = buffer.getLong();
           if (!memTableId2Info.containsKey(memTableId)) {
             continue;
           }
-          buffer.clear();
-          WALEntry walEntry =
-              WALEntry.deserialize(new DataInputStream(new ByteArrayInputStream(buffer.array())));
+          buffer.position(0);
+          WALEntry walEntry = WALEntry.deserialize(buffer);
           UnsealedTsFileRecoverPerformer recoverPerformer =
               memTableId2RecoverPerformer.get(walEntry.getMemTableId());
           if (recoverPerformer != null) {
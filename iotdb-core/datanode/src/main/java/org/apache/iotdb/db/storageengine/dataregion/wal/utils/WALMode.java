@@ -29,4 +29,14 @@ public enum WALMode {
   // submit wal asynchronously
   // write request will return immediately no matter its wal is flushed
   ASYNC,
+  // submit wal synchronously in groups
+  // write request will not return until its wal is flushed to the disk successfully, and wal of
+  // concurrent write requests in a bounded window are flushed by one fsync
+  GROUP_COMMIT,
+  ;
+
+  /** Whether write requests wait until their wal is flushed to the disk. */
+  public boolean isWaitForFsync() {
+    return this == SYNC || this == GROUP_COMMIT;
+  }
 }
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.rescon.memory;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.write.UnSupportedDataTypeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.iotdb.db.storageengine.rescon.memory.PrimitiveArrayManager.ARRAY_SIZE;
+
+/**
+ * Manage the value blocks of TVLists whose values are kept off heap. Each block holds {@link
+ * PrimitiveArrayManager#ARRAY_SIZE} values, just like a primitive array from {@link
+ * PrimitiveArrayManager}. Blocks are sliced from direct memory arenas and brought back to the pool
+ * when the TVList is cleared after flush, so that the direct memory is reused by later memtables
+ * instead of being allocated and freed again.
+ *
+ * <p>The arenas are never freed once allocated, and the total size of them is limited by
+ * off_heap_tvlist_size_in_bytes. A heap block is returned instead when the limit is reached.
+ */
+public class OffHeapPrimitiveArrayManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapPrimitiveArrayManager.class);
+
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
+  /** number of blocks sliced from one arena */
+  private static final int ARENA_BLOCK_NUM = 256;
+
+  private static final AtomicLong ALLOCATED_SIZE_IN_BYTES = new AtomicLong(0);
+
+  /** blocks for INT32, DATE and FLOAT */
+  private static final BlockPool INT_BLOCK_POOL = new BlockPool(Integer.BYTES);
+
+  /** blocks for INT64, TIMESTAMP and DOUBLE */
+  private static final BlockPool LONG_BLOCK_POOL = new BlockPool(Long.BYTES);
+
+  private OffHeapPrimitiveArrayManager() {
+    // Empty constructor
+  }
+
+  public static boolean isEnabled() {
+    return CONFIG.getOffHeapTVListSizeInBytes() > 0;
+  }
+
+  /**
+   * Get or allocate a value block according to type.
+   *
+   * @return a block with position 0, which is on heap if the direct memory is exhausted
+   */
+  public static ByteBuffer allocate(TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+      case DATE:
+      case FLOAT:
+        return INT_BLOCK_POOL.allocate();
+      case INT64:
+      case TIMESTAMP:
+      case DOUBLE:
+        return LONG_BLOCK_POOL.allocate();
+      default:
+        throw new UnSupportedDataTypeException(dataType.name());
+    }
+  }
+
+  /**
+   * This method is called when bringing back a value block. Heap blocks are left to GC.
+   *
+   * @param block value block to be released
+   */
+  public static void release(ByteBuffer block) {
+    if (!block.isDirect()) {
+      return;
+    }
+    if (block.capacity() == INT_BLOCK_POOL.blockSize) {
+      INT_BLOCK_POOL.release(block);
+    } else {
+      LONG_BLOCK_POOL.release(block);
+    }
+  }
+
+  /** @return the total size of allocated arenas, including the pooled blocks */
+  public static long getAllocatedSizeInBytes() {
+    return ALLOCATED_SIZE_IN_BYTES.get();
+  }
+
+  private static class BlockPool {
+
+    private final int blockSize;
+
+    // guarded by this
+    private final ArrayDeque<ByteBuffer> freeBlocks = new ArrayDeque<>();
+
+    private BlockPool(int valueSize) {
+      this.blockSize = valueSize * ARRAY_SIZE;
+    }
+
+    private synchronized ByteBuffer allocate() {
+      ByteBuffer block = freeBlocks.poll();
+      if (block == null && allocateArena()) {
+        block = freeBlocks.poll();
+      }
+      return block == null ? ByteBuffer.allocate(blockSize) : block;
+    }
+
+    private synchronized void release(ByteBuffer block) {
+      block.clear();
+      freeBlocks.add(block);
+    }
+
+    private boolean allocateArena() {
+      long arenaSize = (long) blockSize * ARENA_BLOCK_NUM;
+      if (ALLOCATED_SIZE_IN_BYTES.addAndGet(arenaSize) > CONFIG.getOffHeapTVListSizeInBytes()) {
+        ALLOCATED_SIZE_IN_BYTES.addAndGet(-arenaSize);
+        return false;
+      }
+      ByteBuffer arena;
+      try {
+        arena = ByteBuffer.allocateDirect((int) arenaSize);
+      } catch (OutOfMemoryError e) {
+        ALLOCATED_SIZE_IN_BYTES.addAndGet(-arenaSize);
+        LOGGER.debug("Failed to allocate direct memory for off-heap TVList", e);
+        return false;
+      }
+      for (int i = 0; i < ARENA_BLOCK_NUM; i++) {
+        arena.limit((i + 1) * blockSize);
+        arena.position(i * blockSize);
+        freeBlocks.add(arena.slice());
+      }
+      return true;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import org.apache.iotdb.commons.memory.MemoryBlockType;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.DataNodeMemoryConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.storageengine.dataregion.statistics.TableStatisticsManager;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.TimeIndexLevel;
 
@@ -73,11 +74,13 @@ public class TsFileResourceManager {
       sealedTsFileResources.add(tsFileResource);
       memoryBlock.forceAllocateWithoutLimitation(tsFileResource.calculateRamSize());
       chooseTsFileResourceToDegrade();
+      TableStatisticsManager.getInstance().register(tsFileResource);
     }
   }
 
   /** delete the TsFileResource in PriorityQueue when the source file is deleted */
   public synchronized void removeTsFileResource(TsFileResource tsFileResource) {
+    TableStatisticsManager.getInstance().unregister(tsFileResource);
     if (sealedTsFileResources.contains(tsFileResource)) {
       sealedTsFileResources.remove(tsFileResource);
       if (TimeIndexLevel.valueOf(tsFileResource.getTimeIndexType())
@@ -20,6 +20,7 @@ package org.apache.iotdb.db.utils.datastructure;
 
 import org.apache.iotdb.db.storageengine.dataregion.wal.buffer.IWALByteBufferView;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALWriteUtils;
+import org.apache.iotdb.db.storageengine.rescon.memory.OffHeapPrimitiveArrayManager;
 import org.apache.iotdb.db.storageengine.rescon.memory.PrimitiveArrayManager;
 
 import org.apache.tsfile.enums.TSDataType;
@@ -33,6 +34,7 @@ import org.apache.tsfile.utils.TsPrimitiveType;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -45,10 +47,15 @@ public abstract class LongTVList extends TVList {
   // list of primitive array, add 1 when expanded -> long primitive array
   // index relation: arrayIndex -> elementIndex
   protected List<long[]> values;
+  // list of value blocks when the values are kept off heap, values is not used then
+  protected List<ByteBuffer> offHeapValues;
 
   LongTVList() {
     super();
     values = new ArrayList<>();
+    if (OffHeapPrimitiveArrayManager.isEnabled()) {
+      offHeapValues = new ArrayList<>();
+    }
   }
 
   public static LongTVList newList() {
@@ -70,6 +77,11 @@ public abstract class LongTVList extends TVList {
     for (long[] valueArray : values) {
       cloneList.values.add(cloneValue(valueArray));
     }
+    if (offHeapValues != null) {
+      for (ByteBuffer valueBlock : offHeapValues) {
+        cloneList.offHeapValues.add(cloneOffHeapValue(valueBlock));
+      }
+    }
     return cloneList;
   }
 
@@ -79,6 +91,13 @@ public abstract class LongTVList extends TVList {
     return cloneArray;
   }
 
+  private ByteBuffer cloneOffHeapValue(ByteBuffer block) {
+    ByteBuffer cloneBlock = OffHeapPrimitiveArrayManager.allocate(TSDataType.INT64);
+    cloneBlock.put(block.duplicate());
+    cloneBlock.clear();
+    return cloneBlock;
+  }
+
   @Override
   public synchronized void putLong(long timestamp, long value) {
     checkExpansion();
@@ -87,7 +106,11 @@ public abstract class LongTVList extends TVList {
     maxTime = Math.max(maxTime, timestamp);
     minTime = Math.min(minTime, timestamp);
     timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    values.get(arrayIndex)[elementIndex] = value;
+    if (offHeapValues != null) {
+      offHeapValues.get(arrayIndex).putLong(elementIndex * Long.BYTES, value);
+    } else {
+      values.get(arrayIndex)[elementIndex] = value;
+    }
     if (indices != null) {
       indices.get(arrayIndex)[elementIndex] = rowCount;
     }
@@ -109,6 +132,9 @@ public abstract class LongTVList extends TVList {
     int valueIndex = getValueIndex(index);
     int arrayIndex = valueIndex / ARRAY_SIZE;
     int elementIndex = valueIndex % ARRAY_SIZE;
+    if (offHeapValues != null) {
+      return offHeapValues.get(arrayIndex).getLong(elementIndex * Long.BYTES);
+    }
     return values.get(arrayIndex)[elementIndex];
   }
 
@@ -120,6 +146,12 @@ public abstract class LongTVList extends TVList {
       }
       values.clear();
     }
+    if (offHeapValues != null) {
+      for (ByteBuffer valueBlock : offHeapValues) {
+        OffHeapPrimitiveArrayManager.release(valueBlock);
+      }
+      offHeapValues.clear();
+    }
   }
 
   @Override
@@ -127,7 +159,11 @@ public abstract class LongTVList extends TVList {
     if (indices != null) {
       indices.add((int[]) getPrimitiveArraysByType(TSDataType.INT32));
     }
-    values.add((long[]) getPrimitiveArraysByType(TSDataType.INT64));
+    if (offHeapValues != null) {
+      offHeapValues.add(OffHeapPrimitiveArrayManager.allocate(TSDataType.INT64));
+    } else {
+      values.add((long[]) getPrimitiveArraysByType(TSDataType.INT64));
+    }
     if (bitMap != null) {
       bitMap.add(null);
     }
@@ -197,7 +233,7 @@ public abstract class LongTVList extends TVList {
         // the remaining inputs can fit the last array, copy all remaining inputs into last array
         System.arraycopy(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, inputRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
+        copyValues(value, idx, arrayIdx, elementIdx, inputRemaining);
         if (indices != null) {
           int[] indexes = IntStream.range(rowCount, rowCount + inputRemaining).toArray();
           System.arraycopy(indexes, 0, indices.get(arrayIdx), elementIdx, inputRemaining);
@@ -209,7 +245,7 @@ public abstract class LongTVList extends TVList {
         // one and enter the next loop
         System.arraycopy(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, internalRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
+        copyValues(value, idx, arrayIdx, elementIdx, internalRemaining);
         if (indices != null) {
           int[] indexes = IntStream.range(rowCount, rowCount + internalRemaining).toArray();
           System.arraycopy(indexes, 0, indices.get(arrayIdx), elementIdx, internalRemaining);
@@ -221,6 +257,16 @@ public abstract class LongTVList extends TVList {
     }
   }
 
+  private void copyValues(long[] value, int idx, int arrayIdx, int elementIdx, int length) {
+    if (offHeapValues != null) {
+      ByteBuffer valueBlock = offHeapValues.get(arrayIdx).duplicate();
+      valueBlock.position(elementIdx * Long.BYTES);
+      valueBlock.asLongBuffer().put(value, idx, length);
+    } else {
+      System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, length);
+    }
+  }
+
   // move null values to the end of time array and value array, then return number of null values
   int dropNullValThenUpdateMinMaxTimeAndSorted(
       long[] time, long[] values, BitMap bitMap, int start, int end, int tIdxOffset) {
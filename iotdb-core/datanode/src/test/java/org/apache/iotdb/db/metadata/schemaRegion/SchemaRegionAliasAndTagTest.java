@@ -22,6 +22,7 @@ package org.apache.iotdb.db.metadata.schemaRegion;
 import org.apache.iotdb.commons.exception.MetadataException;
 import org.apache.iotdb.commons.path.PartialPath;
 import org.apache.iotdb.commons.path.PathPatternTree;
+import org.apache.iotdb.commons.schema.filter.SchemaFilterFactory;
 import org.apache.iotdb.db.schemaengine.schemaregion.ISchemaRegion;
 import org.apache.iotdb.db.schemaengine.schemaregion.read.resp.info.ITimeSeriesSchemaInfo;
 
@@ -36,6 +37,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -565,4 +567,68 @@ public class SchemaRegionAliasAndTagTest extends AbstractSchemaRegionTest {
       Assert.fail(e.getMessage());
     }
   }
+
+  @Test
+  public void testShowTimeseriesWithMultipleTagFilters() {
+    try {
+      prepareTimeseries();
+      List<ITimeSeriesSchemaInfo> result =
+          SchemaRegionTestUtil.showTimeseries(
+              schemaRegion,
+              new PartialPath("root.sg.**"),
+              Collections.emptyMap(),
+              0,
+              0,
+              false,
+              SchemaFilterFactory.and(
+                  SchemaFilterFactory.createTagFilter("tag1", "t1", false),
+                  SchemaFilterFactory.createTagFilter("tag2", "t2", false)),
+              false);
+      Assert.assertEquals(1, result.size());
+      Assert.assertEquals("root.sg.wf01.wt01.v1.s2", result.get(0).getFullPath());
+
+      result =
+          SchemaRegionTestUtil.showTimeseries(
+              schemaRegion,
+              new PartialPath("root.sg.**"),
+              Collections.emptyMap(),
+              0,
+              0,
+              false,
+              SchemaFilterFactory.and(
+                  SchemaFilterFactory.createTagFilter("tag1", "t", true),
+                  SchemaFilterFactory.createTagFilter("tag2", "2", true)),
+              false);
+      Assert.assertEquals(1, result.size());
+      Assert.assertEquals("root.sg.wf01.wt01.v1.s2", result.get(0).getFullPath());
+
+      // remove tag1 of root.sg.wf01.wt01.v1.s2 from the posting lists
+      schemaRegion.dropTagsOrAttributes(
+          Collections.singleton("tag1"), new PartialPath("root.sg.wf01.wt01.v1.s2"));
+      result =
+          SchemaRegionTestUtil.showTimeseries(
+              schemaRegion,
+              new PartialPath("root.sg.**"),
+              Collections.emptyMap(),
+              0,
+              0,
+              false,
+              SchemaFilterFactory.and(
+                  SchemaFilterFactory.createTagFilter("tag1", "t1", false),
+                  SchemaFilterFactory.createTagFilter("tag2", "t2", false)),
+              false);
+      Assert.assertTrue(result.isEmpty());
+
+      result =
+          SchemaRegionTestUtil.showTimeseries(
+              schemaRegion, new PartialPath("root.sg.**"), false, "tag2", "t2");
+      result.sort(Comparator.comparing(ITimeSeriesSchemaInfo::getFullPath));
+      Assert.assertEquals(2, result.size());
+      Assert.assertEquals("root.sg.wf01.aligned_device2.s2", result.get(0).getFullPath());
+      Assert.assertEquals("root.sg.wf01.wt01.v1.s2", result.get(1).getFullPath());
+    } catch (final Exception e) {
+      logger.error(e.getMessage(), e);
+      Assert.fail(e.getMessage());
+    }
+  }
 }
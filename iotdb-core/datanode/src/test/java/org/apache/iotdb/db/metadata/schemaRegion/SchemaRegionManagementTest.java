@@ -24,6 +24,8 @@ import org.apache.iotdb.commons.file.SystemFileFactory;
 import org.apache.iotdb.commons.path.MeasurementPath;
 import org.apache.iotdb.commons.path.PartialPath;
 import org.apache.iotdb.commons.schema.SchemaConstant;
+import org.apache.iotdb.commons.schema.filter.SchemaFilter;
+import org.apache.iotdb.commons.schema.filter.SchemaFilterFactory;
 import org.apache.iotdb.consensus.ConsensusFactory;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -41,11 +43,13 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class SchemaRegionManagementTest extends AbstractSchemaRegionTest {
 
@@ -138,6 +142,106 @@ public class SchemaRegionManagementTest extends AbstractSchemaRegionTest {
     }
   }
 
+  @Test
+  public void testTagIndexSnapshot() throws Exception {
+    String schemaRegionConsensusProtocolClass = config.getSchemaRegionConsensusProtocolClass();
+    config.setSchemaRegionConsensusProtocolClass(ConsensusFactory.RATIS_CONSENSUS);
+    try {
+      ISchemaRegion schemaRegion = getSchemaRegion("root.sg", 0);
+      Map<String, String> tags = new HashMap<>();
+      tags.put("tag1", "v1");
+      tags.put("tag2", "v2");
+      createTimeSeriesWithTags(schemaRegion, "root.sg.d1.s1", tags);
+      createTimeSeriesWithTags(
+          schemaRegion, "root.sg.d1.s2", Collections.singletonMap("tag1", "v1"));
+      createTimeSeriesWithTags(
+          schemaRegion, "root.sg.d2.s1", Collections.singletonMap("tag1", "v3"));
+
+      File snapshotDir = new File(config.getSchemaDir() + File.separator + "snapshot");
+      snapshotDir.mkdir();
+      schemaRegion.createSnapshot(snapshotDir);
+      File indexSnapshot =
+          SystemFileFactory.INSTANCE.getFile(snapshotDir, SchemaConstant.TAG_INDEX_SNAPSHOT);
+      Assert.assertTrue(indexSnapshot.exists());
+
+      // load the postings from the index snapshot
+      simulateRestart();
+      ISchemaRegion newSchemaRegion = getSchemaRegion("root.sg", 0);
+      newSchemaRegion.loadSnapshot(snapshotDir);
+      checkTagIndex(newSchemaRegion);
+
+      // the timeseries created after recovery are indexed by their tags as usual
+      createTimeSeriesWithTags(
+          newSchemaRegion, "root.sg.d2.s2", Collections.singletonMap("tag1", "v1"));
+      Assert.assertEquals(
+          Arrays.asList("root.sg.d1.s1", "root.sg.d1.s2", "root.sg.d2.s2"),
+          showTimeseriesByTags(
+              newSchemaRegion, SchemaFilterFactory.createTagFilter("tag1", "v1", false)));
+
+      // rebuild the index from the tlog if the index snapshot is missing
+      Assert.assertTrue(indexSnapshot.delete());
+      simulateRestart();
+      newSchemaRegion = getSchemaRegion("root.sg", 0);
+      newSchemaRegion.loadSnapshot(snapshotDir);
+      checkTagIndex(newSchemaRegion);
+    } finally {
+      config.setSchemaRegionConsensusProtocolClass(schemaRegionConsensusProtocolClass);
+    }
+  }
+
+  private void createTimeSeriesWithTags(
+      ISchemaRegion schemaRegion, String path, Map<String, String> tags) throws Exception {
+    schemaRegion.createTimeSeries(
+        SchemaRegionWritePlanFactory.getCreateTimeSeriesPlan(
+            new MeasurementPath(path),
+            TSDataType.INT32,
+            TSEncoding.PLAIN,
+            CompressionType.UNCOMPRESSED,
+            null,
+            tags,
+            null,
+            null),
+        -1);
+  }
+
+  private void checkTagIndex(ISchemaRegion schemaRegion) throws Exception {
+    Assert.assertEquals(
+        Arrays.asList("root.sg.d1.s1", "root.sg.d1.s2"),
+        showTimeseriesByTags(
+            schemaRegion, SchemaFilterFactory.createTagFilter("tag1", "v1", false)));
+    Assert.assertEquals(
+        Arrays.asList("root.sg.d1.s1", "root.sg.d1.s2", "root.sg.d2.s1"),
+        showTimeseriesByTags(schemaRegion, SchemaFilterFactory.createTagFilter("tag1", "v", true)));
+    Assert.assertEquals(
+        Collections.singletonList("root.sg.d1.s1"),
+        showTimeseriesByTags(
+            schemaRegion,
+            SchemaFilterFactory.and(
+                SchemaFilterFactory.createTagFilter("tag1", "v1", false),
+                SchemaFilterFactory.createTagFilter("tag2", "v2", false))));
+    Assert.assertTrue(
+        showTimeseriesByTags(
+                schemaRegion, SchemaFilterFactory.createTagFilter("tag2", "v1", false))
+            .isEmpty());
+  }
+
+  private List<String> showTimeseriesByTags(ISchemaRegion schemaRegion, SchemaFilter tagFilter)
+      throws Exception {
+    return SchemaRegionTestUtil.showTimeseries(
+            schemaRegion,
+            new PartialPath("root.sg.**"),
+            Collections.emptyMap(),
+            0,
+            0,
+            false,
+            tagFilter,
+            false)
+        .stream()
+        .map(ISchemaInfo::getFullPath)
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
   private Template generateTemplate() throws IllegalPathException {
     Template template =
         new Template(
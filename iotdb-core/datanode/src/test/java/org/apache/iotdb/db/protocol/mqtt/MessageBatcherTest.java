@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.protocol.mqtt;
+
+import org.apache.iotdb.db.protocol.session.MqttClientSession;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class MessageBatcherTest {
+
+  private final List<List<Message>> insertedBatches = new CopyOnWriteArrayList<>();
+
+  @Test
+  public void testFlushByRowNum() {
+    MessageBatcher batcher =
+        new MessageBatcher(
+            (session, messages) -> insertedBatches.add(messages), TimeUnit.HOURS.toMillis(1), 3, 1);
+    MqttClientSession session = new MqttClientSession("client1");
+    try {
+      batcher.add("client1", session, Arrays.asList(message(1), message(2)));
+      Assert.assertTrue(insertedBatches.isEmpty());
+      batcher.add("client1", session, Collections.singletonList(message(3)));
+      Assert.assertEquals(1, insertedBatches.size());
+      Assert.assertEquals(3, insertedBatches.get(0).size());
+
+      // the rest are inserted when the client disconnects
+      batcher.add("client1", session, Collections.singletonList(message(4)));
+      batcher.flush("client1");
+      Assert.assertEquals(2, insertedBatches.size());
+      Assert.assertEquals(4L, (long) insertedBatches.get(1).get(0).getTimestamp());
+    } finally {
+      batcher.stop();
+    }
+  }
+
+  @Test
+  public void testFlushByDelay() throws InterruptedException {
+    MessageBatcher batcher =
+        new MessageBatcher((session, messages) -> insertedBatches.add(messages), 50, 1000, 1);
+    try {
+      batcher.add(
+          "client1", new MqttClientSession("client1"), Collections.singletonList(message(1)));
+      batcher.add(
+          "client2", new MqttClientSession("client2"), Collections.singletonList(message(2)));
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (insertedBatches.size() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(2, insertedBatches.size());
+    } finally {
+      batcher.stop();
+    }
+  }
+
+  @Test
+  public void testFlushOnStop() {
+    MessageBatcher batcher =
+        new MessageBatcher(
+            (session, messages) -> insertedBatches.add(messages),
+            TimeUnit.HOURS.toMillis(1),
+            1000,
+            1);
+    List<Message> messages = new ArrayList<>();
+    for (long i = 0; i < 10; i++) {
+      messages.add(message(i));
+    }
+    batcher.add("client1", new MqttClientSession("client1"), messages);
+    batcher.stop();
+    Assert.assertEquals(1, insertedBatches.size());
+    Assert.assertEquals(10, insertedBatches.get(0).size());
+  }
+
+  private static Message message(long timestamp) {
+    TreeMessage message = new TreeMessage();
+    message.setDevice("root.sg.d1");
+    message.setTimestamp(timestamp);
+    message.setMeasurements(Collections.singletonList("s1"));
+    message.setValues(Collections.singletonList(String.valueOf(timestamp)));
+    return message;
+  }
+}
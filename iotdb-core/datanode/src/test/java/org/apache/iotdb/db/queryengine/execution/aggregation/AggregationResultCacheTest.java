@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.aggregation;
+
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.common.TimeRange;
+import org.apache.tsfile.read.common.block.TsBlockBuilder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class AggregationResultCacheTest {
+
+  private static final String REGION_ID = "1";
+  private static final String AGGREGATION_KEY = "[s1][INT64];SINGLE:count(root.sg.d1.s1)";
+  private static final IDeviceID DEVICE_1 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+  private static final IDeviceID DEVICE_2 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d2");
+
+  private final AggregationResultCache resultCache = AggregationResultCache.getInstance();
+
+  @After
+  public void tearDown() {
+    resultCache.clear();
+  }
+
+  @Test
+  public void testPutAndInvalidate() {
+    AggregationResultCache.ScanContext context1 =
+        resultCache.createScanContext(REGION_ID, DEVICE_1, AGGREGATION_KEY);
+    AggregationResultCache.ScanContext context2 =
+        resultCache.createScanContext(REGION_ID, DEVICE_2, AGGREGATION_KEY);
+    for (long startTime = 0; startTime < 300; startTime += 100) {
+      resultCache.put(context1, new TimeRange(startTime, startTime + 99), result(startTime));
+      resultCache.put(context2, new TimeRange(startTime, startTime + 99), result(startTime));
+    }
+    Assert.assertEquals(6, resultCache.getWindowNum());
+    Assert.assertEquals(100, resultCache.get(context1, new TimeRange(100, 199))[0].getLong(0));
+    Assert.assertNull(resultCache.get(context1, new TimeRange(100, 150)));
+
+    // a write of d1 at 150 only invalidates the window [100, 199] of d1
+    resultCache.invalidate(REGION_ID, DEVICE_1, 150, 150);
+    Assert.assertEquals(5, resultCache.getWindowNum());
+    Assert.assertNull(resultCache.get(context1, new TimeRange(100, 199)));
+    Assert.assertNotNull(resultCache.get(context1, new TimeRange(0, 99)));
+    Assert.assertNotNull(resultCache.get(context1, new TimeRange(200, 299)));
+    Assert.assertNotNull(resultCache.get(context2, new TimeRange(100, 199)));
+
+    // a deletion of all devices in [50, 250]
+    resultCache.invalidate(REGION_ID, null, 50, 250);
+    Assert.assertEquals(0, resultCache.getWindowNum());
+
+    // writes to other regions change nothing
+    AggregationResultCache.ScanContext context3 =
+        resultCache.createScanContext(REGION_ID, DEVICE_1, AGGREGATION_KEY);
+    resultCache.put(context3, new TimeRange(0, 99), result(0));
+    resultCache.invalidate("2", DEVICE_1, 0, 99);
+    Assert.assertNotNull(resultCache.get(context3, new TimeRange(0, 99)));
+  }
+
+  @Test
+  public void testWriteDuringQuery() {
+    AggregationResultCache.ScanContext context =
+        resultCache.createScanContext(REGION_ID, DEVICE_1, AGGREGATION_KEY);
+    // the scan may not see this write, so its result on [0, 99] must not be cached
+    resultCache.invalidate(REGION_ID, DEVICE_1, 50, 50);
+    resultCache.put(context, new TimeRange(0, 99), result(0));
+    Assert.assertNull(resultCache.get(context, new TimeRange(0, 99)));
+
+    // windows not touched by the write are still cached
+    resultCache.put(context, new TimeRange(100_000_000, 100_000_099), result(0));
+    Assert.assertNotNull(resultCache.get(context, new TimeRange(100_000_000, 100_000_099)));
+  }
+
+  @Test
+  public void testOpenWindow() {
+    AggregationResultCache.ScanContext context =
+        resultCache.createScanContext(REGION_ID, DEVICE_1, AGGREGATION_KEY);
+    TimeRange openWindow = new TimeRange(0, Long.MAX_VALUE);
+    resultCache.put(context, openWindow, result(0));
+    Assert.assertNull(resultCache.get(context, openWindow));
+  }
+
+  @Test
+  public void testMemoryBudget() {
+    AggregationResultCache.ScanContext context =
+        resultCache.createScanContext(REGION_ID, DEVICE_1, AGGREGATION_KEY);
+    resultCache.put(context, new TimeRange(0, 99), result(0));
+    long windowSize = resultCache.getMemoryUsage();
+    Assert.assertTrue(windowSize > 0);
+
+    // replacing the result of a window doesn't change the memory
+    resultCache.put(context, new TimeRange(0, 99), result(1));
+    Assert.assertEquals(1, resultCache.getWindowNum());
+    Assert.assertEquals(windowSize, resultCache.getMemoryUsage());
+
+    resultCache.setMaxMemoryInBytes(windowSize * 3);
+    resultCache.put(context, new TimeRange(100, 199), result(100));
+    resultCache.put(context, new TimeRange(200, 299), result(200));
+    Assert.assertEquals(3, resultCache.getWindowNum());
+    Assert.assertEquals(windowSize * 3, resultCache.getMemoryUsage());
+
+    // the cache starts over when it is out of memory
+    resultCache.put(context, new TimeRange(300, 399), result(300));
+    Assert.assertEquals(1, resultCache.getWindowNum());
+    Assert.assertEquals(windowSize, resultCache.getMemoryUsage());
+    Assert.assertNull(resultCache.get(context, new TimeRange(0, 99)));
+    Assert.assertNotNull(resultCache.get(context, new TimeRange(300, 399)));
+
+    // the memory is released by invalidations and the removal of regions
+    resultCache.invalidate(REGION_ID, DEVICE_1, 300, 300);
+    Assert.assertEquals(0, resultCache.getMemoryUsage());
+    resultCache.put(context, new TimeRange(400, 499), result(400));
+    Assert.assertEquals(windowSize, resultCache.getMemoryUsage());
+    resultCache.removeRegion(REGION_ID);
+    Assert.assertEquals(0, resultCache.getWindowNum());
+    Assert.assertEquals(0, resultCache.getMemoryUsage());
+  }
+
+  private static Column[] result(long value) {
+    TsBlockBuilder builder = new TsBlockBuilder(1, Collections.singletonList(TSDataType.INT64));
+    builder.getTimeColumnBuilder().writeLong(0);
+    builder.getColumnBuilder(0).writeLong(value);
+    builder.declarePosition();
+    return builder.build().getValueColumns();
+  }
+}
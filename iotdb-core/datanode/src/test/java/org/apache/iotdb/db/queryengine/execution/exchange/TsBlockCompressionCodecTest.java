@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.exchange;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.enums.CompressionType;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.tsfile.read.common.block.column.TsBlockSerde;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class TsBlockCompressionCodecTest {
+
+  private final TsBlockSerde serde = new TsBlockSerde();
+
+  @Test
+  public void testCompressAndUncompress() throws IOException {
+    TsBlock tsBlock = buildTsBlock(1000);
+    ByteBuffer serialized = serde.serialize(tsBlock);
+    int serializedSize = serialized.remaining();
+
+    for (CompressionType compressionType :
+        Arrays.asList(CompressionType.LZ4, CompressionType.ZSTD, CompressionType.SNAPPY)) {
+      ByteBuffer compressed = TsBlockCompressionCodec.compress(serialized, compressionType, 0);
+      Assert.assertNotNull(compressed);
+      Assert.assertTrue(compressed.remaining() < serializedSize);
+      Assert.assertEquals(serializedSize, serialized.remaining());
+
+      TsBlock result =
+          serde.deserialize(
+              TsBlockCompressionCodec.uncompress(compressed, compressionType, serializedSize));
+      Assert.assertEquals(tsBlock.getPositionCount(), result.getPositionCount());
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        Assert.assertEquals(tsBlock.getTimeByIndex(i), result.getTimeByIndex(i));
+        Assert.assertEquals(tsBlock.getColumn(0).getLong(i), result.getColumn(0).getLong(i));
+        Assert.assertEquals(tsBlock.getColumn(1).getDouble(i), result.getColumn(1).getDouble(i), 0);
+      }
+    }
+  }
+
+  @Test
+  public void testSkipCompression() throws IOException {
+    ByteBuffer serialized = serde.serialize(buildTsBlock(10));
+    Assert.assertNull(
+        TsBlockCompressionCodec.compress(
+            serialized, CompressionType.LZ4, serialized.remaining() + 1));
+    Assert.assertNull(
+        TsBlockCompressionCodec.compress(serialized, CompressionType.UNCOMPRESSED, 0));
+  }
+
+  private TsBlock buildTsBlock(int positionCount) {
+    TsBlockBuilder builder = new TsBlockBuilder(Arrays.asList(TSDataType.INT64, TSDataType.DOUBLE));
+    for (int i = 0; i < positionCount; i++) {
+      builder.getTimeColumnBuilder().writeLong(i);
+      builder.getColumnBuilder(0).writeLong(i % 10);
+      builder.getColumnBuilder(1).writeDouble(i * 0.5);
+      builder.declarePosition();
+    }
+    return builder.build();
+  }
+}
@@ -47,11 +47,14 @@ import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.Duration;
+import org.apache.tsfile.block.column.Column;
 import org.apache.tsfile.common.conf.TSFileDescriptor;
 import org.apache.tsfile.enums.TSDataType;
 import org.apache.tsfile.exception.write.WriteProcessException;
 import org.apache.tsfile.file.metadata.IDeviceID;
 import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.filter.basic.Filter;
+import org.apache.tsfile.read.filter.factory.TimeFilterApi;
 import org.apache.tsfile.utils.TimeDuration;
 import org.apache.tsfile.write.schema.IMeasurementSchema;
 import org.apache.tsfile.write.schema.MeasurementSchema;
@@ -62,6 +65,7 @@ import org.junit.Test;
 import java.io.IOException;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -291,6 +295,193 @@ public class AggregationOperatorTest {
     assertEquals(4, count);
   }
 
+  /**
+   * Split the aggregation scan into PARTIAL scans of adjacent time ranges, in the same way as
+   * OperatorTreeGenerator splits a scan by time partition, and merge them by FINAL aggregation.
+   * The result must be the same as the one of the scan which is not split.
+   */
+  @Test
+  public void testMergeAggregationScansSplitByTimeRange() throws Exception {
+    List<TAggregationType> aggregationTypes =
+        Arrays.asList(
+            TAggregationType.COUNT,
+            TAggregationType.SUM,
+            TAggregationType.AVG,
+            TAggregationType.MIN_TIME,
+            TAggregationType.MAX_TIME,
+            TAggregationType.MAX_VALUE,
+            TAggregationType.MIN_VALUE,
+            TAggregationType.EXTREME,
+            TAggregationType.FIRST_VALUE,
+            TAggregationType.LAST_VALUE);
+    // the first and the last split are unbounded
+    List<Filter> splitTimeRanges =
+        Arrays.asList(
+            TimeFilterApi.between(Long.MIN_VALUE, 149),
+            TimeFilterApi.between(150, 249),
+            TimeFilterApi.between(250, Long.MAX_VALUE));
+
+    List<String> expected = collectRows(initAggregationScanOperator(aggregationTypes, null));
+    assertEquals(1, expected.size());
+    assertEquals(
+        expected,
+        collectRows(initSplitAggregationOperator(aggregationTypes, null, splitTimeRanges)));
+
+    // windows crossing the bounds of the splits are merged from the partial results of each split
+    GroupByTimeParameter groupByTimeParameter =
+        new GroupByTimeParameter(0, 499, new TimeDuration(0, 100), new TimeDuration(0, 100), true);
+    expected = collectRows(initAggregationScanOperator(aggregationTypes, groupByTimeParameter));
+    assertEquals(5, expected.size());
+    assertEquals(
+        expected,
+        collectRows(
+            initSplitAggregationOperator(aggregationTypes, groupByTimeParameter, splitTimeRanges)));
+  }
+
+  private static List<String> collectRows(Operator operator) throws Exception {
+    List<String> rows = new ArrayList<>();
+    while (true) {
+      ListenableFuture<?> blocked = operator.isBlocked();
+      blocked.get();
+      if (!operator.hasNext()) {
+        break;
+      }
+      TsBlock resultTsBlock = operator.next();
+      if (resultTsBlock == null) {
+        continue;
+      }
+      for (int pos = 0; pos < resultTsBlock.getPositionCount(); pos++) {
+        StringBuilder row = new StringBuilder().append(resultTsBlock.getTimeByIndex(pos));
+        for (int i = 0; i < resultTsBlock.getValueColumnCount(); i++) {
+          Column column = resultTsBlock.getColumn(i);
+          row.append(',').append(column.isNull(pos) ? "null" : column.getObject(pos));
+        }
+        rows.add(row.toString());
+      }
+    }
+    operator.close();
+    return rows;
+  }
+
+  /** One aggregation scan of SINGLE step on all the data. */
+  private SeriesAggregationScanOperator initAggregationScanOperator(
+      List<TAggregationType> aggregationTypes, GroupByTimeParameter groupByTimeParameter)
+      throws IllegalPathException {
+    DriverContext driverContext = createDriverContext(1);
+    List<TreeAggregator> aggregators = new ArrayList<>();
+    createAccumulators(aggregationTypes)
+        .forEach(o -> aggregators.add(new TreeAggregator(o, AggregationStep.SINGLE)));
+    return initAggregationScanOperator(
+        driverContext.getOperatorContexts().get(0), aggregators, groupByTimeParameter, null);
+  }
+
+  /** PARTIAL aggregation scans of each time range, merged by an AggregationOperator. */
+  private AggregationOperator initSplitAggregationOperator(
+      List<TAggregationType> aggregationTypes,
+      GroupByTimeParameter groupByTimeParameter,
+      List<Filter> splitTimeRanges)
+      throws IllegalPathException {
+    DriverContext driverContext = createDriverContext(splitTimeRanges.size() + 1);
+    List<Operator> children = new ArrayList<>();
+    List<List<InputLocation[]>> inputLocations = new ArrayList<>();
+    for (int i = 0; i < aggregationTypes.size(); i++) {
+      inputLocations.add(new ArrayList<>());
+    }
+    for (int childIndex = 0; childIndex < splitTimeRanges.size(); childIndex++) {
+      List<TreeAggregator> aggregators = new ArrayList<>();
+      createAccumulators(aggregationTypes)
+          .forEach(o -> aggregators.add(new TreeAggregator(o, AggregationStep.PARTIAL)));
+      children.add(
+          initAggregationScanOperator(
+              driverContext.getOperatorContexts().get(childIndex),
+              aggregators,
+              groupByTimeParameter,
+              splitTimeRanges.get(childIndex)));
+
+      // the intermediate results of each aggregator are in the adjacent columns
+      int columnIndex = 0;
+      for (int i = 0; i < aggregators.size(); i++) {
+        int columnNum = aggregators.get(i).getOutputType().length;
+        InputLocation[] inputLocation = new InputLocation[columnNum];
+        for (int j = 0; j < columnNum; j++) {
+          inputLocation[j] = new InputLocation(childIndex, columnIndex++);
+        }
+        inputLocations.get(i).add(inputLocation);
+      }
+    }
+
+    List<TreeAggregator> finalAggregators = new ArrayList<>();
+    List<Accumulator> accumulators = createAccumulators(aggregationTypes);
+    for (int i = 0; i < accumulators.size(); i++) {
+      finalAggregators.add(
+          new TreeAggregator(accumulators.get(i), AggregationStep.FINAL, inputLocations.get(i)));
+    }
+    return new AggregationOperator(
+        driverContext.getOperatorContexts().get(splitTimeRanges.size()),
+        finalAggregators,
+        initTimeRangeIterator(groupByTimeParameter, true, true, ZoneId.systemDefault()),
+        children,
+        false,
+        DEFAULT_MAX_TSBLOCK_SIZE_IN_BYTES);
+  }
+
+  private SeriesAggregationScanOperator initAggregationScanOperator(
+      OperatorContext operatorContext,
+      List<TreeAggregator> aggregators,
+      GroupByTimeParameter groupByTimeParameter,
+      Filter splitTimeRange)
+      throws IllegalPathException {
+    NonAlignedFullPath measurementPath =
+        new NonAlignedFullPath(
+            IDeviceID.Factory.DEFAULT_FACTORY.create(AGGREGATION_OPERATOR_TEST_SG + ".device0"),
+            new MeasurementSchema("sensor0", TSDataType.INT32));
+    SeriesScanOptions.Builder scanOptionsBuilder = new SeriesScanOptions.Builder();
+    scanOptionsBuilder.withAllSensors(Collections.singleton("sensor0"));
+    if (splitTimeRange != null) {
+      scanOptionsBuilder.withGlobalTimeFilter(splitTimeRange);
+    }
+    SeriesAggregationScanOperator seriesAggregationScanOperator =
+        new SeriesAggregationScanOperator(
+            operatorContext.getPlanNodeId(),
+            measurementPath,
+            Ordering.ASC,
+            scanOptionsBuilder.build(),
+            operatorContext,
+            aggregators,
+            initTimeRangeIterator(groupByTimeParameter, true, true, ZoneId.systemDefault()),
+            groupByTimeParameter,
+            DEFAULT_MAX_TSBLOCK_SIZE_IN_BYTES,
+            true);
+    // every split scans all the files, the data out of its time range is filtered
+    seriesAggregationScanOperator.initQueryDataSource(
+        new QueryDataSource(seqResources, unSeqResources));
+    return seriesAggregationScanOperator;
+  }
+
+  private static List<Accumulator> createAccumulators(List<TAggregationType> aggregationTypes) {
+    return AccumulatorFactory.createBuiltinAccumulators(
+        aggregationTypes, TSDataType.INT32, Collections.emptyList(), Collections.emptyMap(), true);
+  }
+
+  private DriverContext createDriverContext(int operatorNum) {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    DriverContext driverContext = new DriverContext(fragmentInstanceContext, 0);
+    for (int i = 0; i < operatorNum; i++) {
+      driverContext.addOperatorContext(
+          i + 1,
+          new PlanNodeId(Integer.toString(i + 1)),
+          SeriesAggregationScanOperator.class.getSimpleName());
+    }
+    OperatorContext.setMaxRunTime(TEST_TIME_SLICE);
+    return driverContext;
+  }
+
   /**
    * @param aggregationTypes Aggregation function used in test
    * @param groupByTimeParameter group by time parameter
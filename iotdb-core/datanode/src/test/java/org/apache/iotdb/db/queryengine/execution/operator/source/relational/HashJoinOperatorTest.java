@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.queryengine.common.FragmentInstanceId;
+import org.apache.iotdb.db.queryengine.common.PlanFragmentId;
+import org.apache.iotdb.db.queryengine.common.QueryId;
+import org.apache.iotdb.db.queryengine.execution.driver.DriverContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.queryengine.execution.operator.Operator;
+import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
+
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.tsfile.read.common.block.column.RunLengthEncodedColumn;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.TableScanOperator.TIME_COLUMN_TEMPLATE;
+import static org.apache.tsfile.read.common.type.IntType.INT32;
+import static org.junit.Assert.assertEquals;
+
+public class HashJoinOperatorTest {
+  private static final ExecutorService instanceNotificationExecutor =
+      IoTDBThreadPoolFactory.newFixedThreadPool(1, "hashJoinOperator-test-instance-notification");
+
+  // probe side
+  // key,  value
+  // 1     10
+  // 2     20
+  // null  30
+  // ----------- TsBlock-1
+  // 3     40
+  // 1     50
+  // ----------- TsBlock-2
+  private static final Integer[][] LEFT_KEYS = {{1, 2, null}, {3, 1}};
+  private static final Long[][] LEFT_VALUES = {{10L, 20L, 30L}, {40L, 50L}};
+
+  // build side, key 1 is spread over two TsBlocks and NULL keys exist
+  // key,  value
+  // 1     100
+  // null  200
+  // ----------- TsBlock-1
+  // null TsBlock
+  // ----------- TsBlock-2
+  // 1     300
+  // 4     400
+  // ----------- TsBlock-3
+  // 2     500
+  // null  600
+  // 2     700
+  // ----------- TsBlock-4
+  private static final Integer[][] RIGHT_KEYS = {{1, null}, null, {1, 4}, {2, null, 2}};
+  private static final Long[][] RIGHT_VALUES = {
+    {100L, 200L}, null, {300L, 400L}, {500L, 600L, 700L}
+  };
+
+  @Test
+  public void testInnerJoin() throws Exception {
+    DriverContext driverContext = createDriverContext();
+    List<String> result =
+        collect(
+            new HashJoinOperator(
+                driverContext.getOperatorContexts().get(0),
+                new ChildOperator(LEFT_KEYS, LEFT_VALUES, driverContext),
+                new int[] {0},
+                new int[] {0, 1},
+                new ChildOperator(RIGHT_KEYS, RIGHT_VALUES, driverContext),
+                new int[] {0},
+                new int[] {1},
+                Collections.singletonList(INT32),
+                Arrays.asList(TSDataType.INT32, TSDataType.INT64, TSDataType.INT64),
+                false,
+                false,
+                0));
+
+    // NULL key is never matched, each probing row is matched with all the rows of its key
+    assertEquals(
+        Arrays.asList("1,10,100", "1,10,300", "1,50,100", "1,50,300", "2,20,500", "2,20,700"),
+        result);
+  }
+
+  @Test
+  public void testLeftOuterJoin() throws Exception {
+    DriverContext driverContext = createDriverContext();
+    List<String> result =
+        collect(
+            new HashJoinOperator(
+                driverContext.getOperatorContexts().get(0),
+                new ChildOperator(LEFT_KEYS, LEFT_VALUES, driverContext),
+                new int[] {0},
+                new int[] {0, 1},
+                new ChildOperator(RIGHT_KEYS, RIGHT_VALUES, driverContext),
+                new int[] {0},
+                new int[] {1},
+                Collections.singletonList(INT32),
+                Arrays.asList(TSDataType.INT32, TSDataType.INT64, TSDataType.INT64),
+                true,
+                false,
+                0));
+
+    assertEquals(
+        Arrays.asList(
+            "1,10,100",
+            "1,10,300",
+            "1,50,100",
+            "1,50,300",
+            "2,20,500",
+            "2,20,700",
+            "3,40,null",
+            "null,30,null"),
+        result);
+  }
+
+  @Test
+  public void testInnerJoinWithEmptyBuildSide() throws Exception {
+    DriverContext driverContext = createDriverContext();
+    List<String> result =
+        collect(
+            new HashJoinOperator(
+                driverContext.getOperatorContexts().get(0),
+                new ChildOperator(LEFT_KEYS, LEFT_VALUES, driverContext),
+                new int[] {0},
+                new int[] {0, 1},
+                new ChildOperator(new Integer[][] {{null}}, new Long[][] {{1L}}, driverContext),
+                new int[] {0},
+                new int[] {1},
+                Collections.singletonList(INT32),
+                Arrays.asList(TSDataType.INT32, TSDataType.INT64, TSDataType.INT64),
+                false,
+                false,
+                0));
+
+    assertEquals(Collections.emptyList(), result);
+  }
+
+  @Test
+  public void testSemiJoin() throws Exception {
+    DriverContext driverContext = createDriverContext();
+    List<String> result =
+        collect(
+            new HashSemiJoinOperator(
+                driverContext.getOperatorContexts().get(0),
+                new ChildOperator(LEFT_KEYS, LEFT_VALUES, driverContext),
+                0,
+                new int[] {0, 1},
+                new ChildOperator(RIGHT_KEYS, RIGHT_VALUES, driverContext),
+                0,
+                INT32,
+                Arrays.asList(TSDataType.INT32, TSDataType.INT64, TSDataType.BOOLEAN),
+                false,
+                0));
+
+    // build side has NULL key, so the unmatched keys are NULL rather than false
+    assertEquals(
+        Arrays.asList("1,10,true", "1,50,true", "2,20,true", "3,40,null", "null,30,null"), result);
+  }
+
+  @Test
+  public void testSemiJoinWithoutNullKey() throws Exception {
+    DriverContext driverContext = createDriverContext();
+    List<String> result =
+        collect(
+            new HashSemiJoinOperator(
+                driverContext.getOperatorContexts().get(0),
+                new ChildOperator(LEFT_KEYS, LEFT_VALUES, driverContext),
+                0,
+                new int[] {0, 1},
+                new ChildOperator(
+                    new Integer[][] {{1}, {2, 1}},
+                    new Long[][] {{100L}, {200L, 300L}},
+                    driverContext),
+                0,
+                INT32,
+                Arrays.asList(TSDataType.INT32, TSDataType.INT64, TSDataType.BOOLEAN),
+                false,
+                0));
+
+    assertEquals(
+        Arrays.asList("1,10,true", "1,50,true", "2,20,true", "3,40,false", "null,30,null"), result);
+  }
+
+  @Test
+  public void testSemiJoinWithEmptyBuildSide() throws Exception {
+    DriverContext driverContext = createDriverContext();
+    List<String> result =
+        collect(
+            new HashSemiJoinOperator(
+                driverContext.getOperatorContexts().get(0),
+                new ChildOperator(LEFT_KEYS, LEFT_VALUES, driverContext),
+                0,
+                new int[] {0, 1},
+                new ChildOperator(new Integer[][] {null}, new Long[][] {null}, driverContext),
+                0,
+                INT32,
+                Arrays.asList(TSDataType.INT32, TSDataType.INT64, TSDataType.BOOLEAN),
+                false,
+                0));
+
+    // NULL IN (empty set) is false
+    assertEquals(
+        Arrays.asList("1,10,false", "1,50,false", "2,20,false", "3,40,false", "null,30,false"),
+        result);
+  }
+
+  /** Drive the operator until it is finished, rows are sorted since the output order is free. */
+  private static List<String> collect(Operator operator) throws Exception {
+    List<String> result = new ArrayList<>();
+    try {
+      while (!operator.isFinished()) {
+        operator.isBlocked().get();
+        TsBlock tsBlock = operator.next();
+        if (tsBlock == null || tsBlock.isEmpty()) {
+          continue;
+        }
+        for (int i = 0, size = tsBlock.getPositionCount(); i < size; i++) {
+          StringBuilder row = new StringBuilder();
+          for (int j = 0; j < tsBlock.getValueColumnCount(); j++) {
+            Column column = tsBlock.getColumn(j);
+            row.append(j == 0 ? "" : ",").append(column.isNull(i) ? "null" : column.getObject(i));
+          }
+          result.add(row.toString());
+        }
+      }
+    } finally {
+      operator.close();
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  private static DriverContext createDriverContext() {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    DriverContext driverContext = new DriverContext(fragmentInstanceContext, 0);
+    driverContext.addOperatorContext(
+        1, new PlanNodeId("1"), HashJoinOperator.class.getSimpleName());
+    return driverContext;
+  }
+
+  /** Returns one TsBlock of (key INT32, value INT64) per call, a null array means a null block. */
+  private static class ChildOperator implements Operator {
+    private final Integer[][] keys;
+    private final Long[][] values;
+    private final DriverContext driverContext;
+    private int index = 0;
+
+    ChildOperator(Integer[][] keys, Long[][] values, DriverContext driverContext) {
+      this.keys = keys;
+      this.values = values;
+      this.driverContext = driverContext;
+    }
+
+    @Override
+    public OperatorContext getOperatorContext() {
+      return driverContext.getOperatorContexts().get(0);
+    }
+
+    @Override
+    public TsBlock next() {
+      if (keys[index] == null) {
+        index++;
+        return null;
+      }
+      TsBlockBuilder builder =
+          new TsBlockBuilder(
+              keys[index].length, Arrays.asList(TSDataType.INT32, TSDataType.INT64));
+      for (int i = 0; i < keys[index].length; i++) {
+        if (keys[index][i] == null) {
+          builder.getColumnBuilder(0).appendNull();
+        } else {
+          builder.getColumnBuilder(0).writeInt(keys[index][i]);
+        }
+        builder.getColumnBuilder(1).writeLong(values[index][i]);
+      }
+      builder.declarePositions(keys[index].length);
+      index++;
+      return builder.build(
+          new RunLengthEncodedColumn(TIME_COLUMN_TEMPLATE, builder.getPositionCount()));
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < keys.length;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return index >= keys.length;
+    }
+
+    @Override
+    public void close() {
+      // do nothing
+    }
+
+    @Override
+    public long calculateMaxPeekMemory() {
+      return 0;
+    }
+
+    @Override
+    public long calculateMaxReturnSize() {
+      return 0;
+    }
+
+    @Override
+    public long calculateRetainedSizeAfterCallingNext() {
+      return 0;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return 0;
+    }
+  }
+}
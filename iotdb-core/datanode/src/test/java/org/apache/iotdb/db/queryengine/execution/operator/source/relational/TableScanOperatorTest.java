@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory;
+import org.apache.iotdb.db.queryengine.common.FragmentInstanceId;
+import org.apache.iotdb.db.queryengine.common.PlanFragmentId;
+import org.apache.iotdb.db.queryengine.common.QueryId;
+import org.apache.iotdb.db.queryengine.execution.driver.DriverContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.DataNodeQueryContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.queryengine.execution.operator.AlignedSeriesTestUtil;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.SeriesScanOptions;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.AlignedDeviceEntry;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.ColumnSchema;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.DeviceEntry;
+import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
+import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSource;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+
+import org.apache.tsfile.common.conf.TSFileConfig;
+import org.apache.tsfile.common.conf.TSFileDescriptor;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.exception.write.WriteProcessException;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.column.BinaryColumn;
+import org.apache.tsfile.read.common.block.column.LongColumn;
+import org.apache.tsfile.utils.Binary;
+import org.apache.tsfile.write.schema.IMeasurementSchema;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.AbstractTableScanOperator.DYNAMIC_FILTER_SKIPPED_DEVICE_NUMBER;
+import static org.apache.tsfile.read.common.type.IntType.INT32;
+import static org.apache.tsfile.read.common.type.StringType.STRING;
+import static org.apache.tsfile.read.common.type.TimestampType.TIMESTAMP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TableScanOperatorTest {
+  private static final String TABLE_SCAN_OPERATOR_TEST_SG = "root.TableScanOperatorTest";
+  private static final String FILTER_ID = "1_0";
+
+  private static final ExecutorService instanceNotificationExecutor =
+      IoTDBThreadPoolFactory.newFixedThreadPool(1, "tableScanOperator-test-instance-notification");
+
+  private static final List<IMeasurementSchema> measurementSchemas = new ArrayList<>();
+  private static final List<TsFileResource> seqResources = new ArrayList<>();
+  private static final List<TsFileResource> unSeqResources = new ArrayList<>();
+
+  @BeforeClass
+  public static void setUp() throws MetadataException, IOException, WriteProcessException {
+    // device0 and device1 are aligned, each of them has 500 rows whose time is in [0, 499]
+    AlignedSeriesTestUtil.setUp(
+        measurementSchemas, seqResources, unSeqResources, TABLE_SCAN_OPERATOR_TEST_SG);
+  }
+
+  @AfterClass
+  public static void tearDown() throws IOException {
+    AlignedSeriesTestUtil.tearDown(seqResources, unSeqResources);
+    instanceNotificationExecutor.shutdown();
+  }
+
+  @Test
+  public void testAttributeDynamicFilter() throws Exception {
+    // DynamicFilter is not published, nothing is skipped
+    DataNodeQueryContext dataNodeQueryContext = new DataNodeQueryContext(1);
+    TableScanOperator operator =
+        genTableScanOperator(dataNodeQueryContext, TsTableColumnCategory.ATTRIBUTE);
+    assertEquals(Arrays.asList(500, 500), countRowsOfEachAttribute(operator, "a", "b"));
+    assertNull(
+        operator.getOperatorContext().getSpecifiedInfo().get(DYNAMIC_FILTER_SKIPPED_DEVICE_NUMBER));
+
+    // build side only has "a", so device1 whose attribute is "b" is skipped
+    dataNodeQueryContext = new DataNodeQueryContext(1);
+    DynamicFilter.Builder builder = new DynamicFilter.Builder(TSDataType.STRING, 10);
+    builder.add(
+        new BinaryColumn(
+            1, Optional.empty(), new Binary[] {new Binary("a", TSFileConfig.STRING_CHARSET)}));
+    dataNodeQueryContext.publishDynamicFilter(FILTER_ID, builder.build());
+    operator = genTableScanOperator(dataNodeQueryContext, TsTableColumnCategory.ATTRIBUTE);
+    assertEquals(Arrays.asList(500, 0), countRowsOfEachAttribute(operator, "a", "b"));
+    assertEquals(
+        "1",
+        operator.getOperatorContext().getSpecifiedInfo().get(DYNAMIC_FILTER_SKIPPED_DEVICE_NUMBER));
+  }
+
+  @Test
+  public void testTimeDynamicFilter() throws Exception {
+    // join keys of build side are in [100, 150], so only these rows of device1 are read
+    DataNodeQueryContext dataNodeQueryContext = new DataNodeQueryContext(1);
+    DynamicFilter.Builder builder = new DynamicFilter.Builder(TSDataType.TIMESTAMP, 10);
+    builder.add(new LongColumn(2, Optional.empty(), new long[] {150, 100}));
+    dataNodeQueryContext.publishDynamicFilter(FILTER_ID, builder.build());
+    TableScanOperator operator =
+        genTableScanOperator(dataNodeQueryContext, TsTableColumnCategory.TIME);
+
+    List<Long> timesOfDevice1 = new ArrayList<>();
+    int rowsOfDevice0 = 0;
+    try {
+      while (operator.hasNext()) {
+        TsBlock tsBlock = operator.next();
+        if (tsBlock == null) {
+          continue;
+        }
+        for (int i = 0, size = tsBlock.getPositionCount(); i < size; i++) {
+          if ("a".equals(tsBlock.getColumn(1).getBinary(i).toString())) {
+            rowsOfDevice0++;
+          } else {
+            timesOfDevice1.add(tsBlock.getColumn(0).getLong(i));
+          }
+        }
+      }
+    } finally {
+      operator.close();
+    }
+
+    // the scan of the first device is set up when the operator is created, before any
+    // DynamicFilter is received
+    assertEquals(500, rowsOfDevice0);
+    assertEquals(51, timesOfDevice1.size());
+    for (int i = 0; i < timesOfDevice1.size(); i++) {
+      assertEquals(100L + i, (long) timesOfDevice1.get(i));
+    }
+  }
+
+  /** Scan (time, attr1, sensor1) of device0 with attribute "a" and device1 with attribute "b". */
+  private TableScanOperator genTableScanOperator(
+      DataNodeQueryContext dataNodeQueryContext, TsTableColumnCategory filterColumnCategory) {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    fragmentInstanceContext.setDataNodeQueryContext(dataNodeQueryContext);
+    DriverContext driverContext = new DriverContext(fragmentInstanceContext, 0);
+    PlanNodeId planNodeId = new PlanNodeId("2");
+    driverContext.addOperatorContext(1, planNodeId, TableScanOperator.class.getSimpleName());
+
+    List<DeviceEntry> deviceEntries =
+        Arrays.asList(
+            new AlignedDeviceEntry(
+                IDeviceID.Factory.DEFAULT_FACTORY.create(TABLE_SCAN_OPERATOR_TEST_SG + ".device0"),
+                new Binary[] {new Binary("a", TSFileConfig.STRING_CHARSET)}),
+            new AlignedDeviceEntry(
+                IDeviceID.Factory.DEFAULT_FACTORY.create(TABLE_SCAN_OPERATOR_TEST_SG + ".device1"),
+                new Binary[] {new Binary("b", TSFileConfig.STRING_CHARSET)}));
+    List<ColumnSchema> columnSchemas =
+        Arrays.asList(
+            new ColumnSchema("time", TIMESTAMP, false, TsTableColumnCategory.TIME),
+            new ColumnSchema("attr1", STRING, false, TsTableColumnCategory.ATTRIBUTE),
+            new ColumnSchema("sensor1", INT32, false, TsTableColumnCategory.FIELD));
+    List<String> measurementColumnNames = Collections.singletonList("sensor1");
+    Set<String> allSensors = new HashSet<>(measurementColumnNames);
+    // for time column
+    allSensors.add("");
+
+    TableScanOperator operator =
+        new TableScanOperator(
+            new AbstractTableScanOperator.AbstractTableScanOperatorParameter(
+                allSensors,
+                driverContext.getOperatorContexts().get(0),
+                planNodeId,
+                columnSchemas,
+                new int[] {0, 0, 0},
+                deviceEntries,
+                Ordering.ASC,
+                new SeriesScanOptions.Builder()
+                    .withAllSensors(new HashSet<>(measurementColumnNames))
+                    .build(),
+                measurementColumnNames,
+                Collections.singletonList(measurementSchemas.get(1)),
+                TSFileDescriptor.getInstance().getConfig().getMaxTsBlockLineNumber(),
+                Collections.singletonList(
+                    new AbstractTableScanOperator.DynamicFilterTarget(
+                        FILTER_ID,
+                        filterColumnCategory,
+                        filterColumnCategory == TsTableColumnCategory.ATTRIBUTE ? 0 : -1))));
+    operator.initQueryDataSource(new QueryDataSource(seqResources, unSeqResources));
+    return operator;
+  }
+
+  private static List<Integer> countRowsOfEachAttribute(
+      TableScanOperator operator, String... attributes) throws Exception {
+    List<String> attributeList = Arrays.asList(attributes);
+    Integer[] counts = new Integer[attributes.length];
+    Arrays.fill(counts, 0);
+    try {
+      while (operator.hasNext()) {
+        TsBlock tsBlock = operator.next();
+        if (tsBlock == null) {
+          continue;
+        }
+        for (int i = 0, size = tsBlock.getPositionCount(); i < size; i++) {
+          counts[attributeList.indexOf(tsBlock.getColumn(1).getBinary(i).toString())]++;
+        }
+      }
+    } finally {
+      operator.close();
+    }
+    return Arrays.asList(counts);
+  }
+}
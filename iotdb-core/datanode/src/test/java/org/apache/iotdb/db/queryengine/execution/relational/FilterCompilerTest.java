@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.relational;
+
+import org.apache.iotdb.db.queryengine.plan.analyze.TypeProvider;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.InputLocation;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.BetweenPredicate;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ComparisonExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.DoubleLiteral;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.IsNullPredicate;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.LogicalExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.LongLiteral;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.NotExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.SymbolReference;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.tsfile.read.common.block.column.DoubleColumn;
+import org.apache.tsfile.read.common.block.column.IntColumn;
+import org.apache.tsfile.read.common.block.column.TimeColumn;
+import org.apache.tsfile.read.common.type.BooleanType;
+import org.apache.tsfile.read.common.type.DoubleType;
+import org.apache.tsfile.read.common.type.IntType;
+import org.apache.tsfile.read.common.type.TimestampType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class FilterCompilerTest {
+
+  private static final SymbolReference TIME = new SymbolReference("time");
+  private static final SymbolReference S1 = new SymbolReference("s1");
+  private static final SymbolReference S2 = new SymbolReference("s2");
+  private static final SymbolReference S3 = new SymbolReference("s3");
+
+  private static final Map<Symbol, List<InputLocation>> INPUT_LOCATIONS =
+      ImmutableMap.of(
+          new Symbol("time"), Collections.singletonList(new InputLocation(0, -1)),
+          new Symbol("s1"), Collections.singletonList(new InputLocation(0, 0)),
+          new Symbol("s2"), Collections.singletonList(new InputLocation(0, 1)),
+          new Symbol("s3"), Collections.singletonList(new InputLocation(0, 2)));
+
+  private static final TypeProvider TYPE_PROVIDER =
+      new TypeProvider(
+          ImmutableMap.of(
+              new Symbol("time"), TimestampType.TIMESTAMP,
+              new Symbol("s1"), IntType.INT32,
+              new Symbol("s2"), DoubleType.DOUBLE,
+              new Symbol("s3"), BooleanType.BOOLEAN));
+
+  // s1: 1, 2, null, 4, 5
+  // s2: 1.0, NaN, 3.0, null, 5.0
+  // s3: true, false, null, true, false
+  private static final TsBlock INPUT =
+      new TsBlock(
+          5,
+          new TimeColumn(5, new long[] {1, 2, 3, 4, 5}),
+          new IntColumn(
+              5,
+              Optional.of(new boolean[] {false, false, true, false, false}),
+              new int[] {1, 2, 0, 4, 5}),
+          new DoubleColumn(
+              5,
+              Optional.of(new boolean[] {false, false, false, true, false}),
+              new double[] {1.0, Double.NaN, 3.0, 0, 5.0}),
+          new BooleanColumn(
+              5,
+              Optional.of(new boolean[] {false, false, true, false, false}),
+              new boolean[] {true, false, false, true, false}));
+
+  @Test
+  public void testComparisonAndLogic() {
+    assertSelected(
+        and(
+            new ComparisonExpression(
+                ComparisonExpression.Operator.GREATER_THAN_OR_EQUAL, S1, new LongLiteral("2")),
+            new ComparisonExpression(
+                ComparisonExpression.Operator.LESS_THAN_OR_EQUAL, S2, new DoubleLiteral(5.0))),
+        4);
+    assertSelected(
+        new LogicalExpression(
+            LogicalExpression.Operator.OR,
+            Arrays.asList(
+                new ComparisonExpression(
+                    ComparisonExpression.Operator.LESS_THAN, S1, new LongLiteral("2")),
+                S3)),
+        0,
+        3);
+    // literal on the left side
+    assertSelected(
+        new ComparisonExpression(
+            ComparisonExpression.Operator.LESS_THAN, new LongLiteral("3"), TIME),
+        3,
+        4);
+  }
+
+  @Test
+  public void testNullAndNaN() {
+    // NaN fails the comparison, so it satisfies the negated one, while null satisfies neither
+    assertSelected(
+        new NotExpression(
+            new ComparisonExpression(
+                ComparisonExpression.Operator.GREATER_THAN, S2, new DoubleLiteral(2.0))),
+        0,
+        1);
+    assertSelected(
+        new ComparisonExpression(
+            ComparisonExpression.Operator.NOT_EQUAL, S2, new DoubleLiteral(3.0)),
+        0,
+        4);
+    assertSelected(
+        new NotExpression(new BetweenPredicate(S1, new LongLiteral("2"), new LongLiteral("4"))),
+        0,
+        4);
+    assertSelected(
+        new LogicalExpression(
+            LogicalExpression.Operator.OR,
+            Arrays.asList(new IsNullPredicate(S1), new IsNullPredicate(S2))),
+        2,
+        3);
+    // NOT (s1 IS NULL OR s3) = s1 IS NOT NULL AND NOT s3
+    assertSelected(
+        new NotExpression(
+            new LogicalExpression(
+                LogicalExpression.Operator.OR, Arrays.asList(new IsNullPredicate(S1), S3))),
+        1,
+        4);
+  }
+
+  @Test
+  public void testUnsupportedAndCache() {
+    Assert.assertNull(
+        FilterCompiler.compile(
+            new ComparisonExpression(ComparisonExpression.Operator.EQUAL, S1, S2),
+            INPUT_LOCATIONS,
+            TYPE_PROVIDER));
+    Assert.assertNull(
+        FilterCompiler.compile(
+            and(
+                new IsNullPredicate(S1),
+                new ComparisonExpression(
+                    ComparisonExpression.Operator.EQUAL, S1, new DoubleLiteral(-0.0))),
+            INPUT_LOCATIONS,
+            TYPE_PROVIDER));
+
+    Expression predicate =
+        new ComparisonExpression(
+            ComparisonExpression.Operator.GREATER_THAN, S1, new LongLiteral("100"));
+    Assert.assertSame(
+        FilterCompiler.compile(predicate, INPUT_LOCATIONS, TYPE_PROVIDER),
+        FilterCompiler.compile(predicate, INPUT_LOCATIONS, TYPE_PROVIDER));
+  }
+
+  private static Expression and(Expression left, Expression right) {
+    return new LogicalExpression(LogicalExpression.Operator.AND, Arrays.asList(left, right));
+  }
+
+  private static void assertSelected(Expression predicate, int... expected) {
+    CompiledFilter compiledFilter =
+        FilterCompiler.compile(predicate, INPUT_LOCATIONS, TYPE_PROVIDER);
+    Assert.assertNotNull(compiledFilter);
+    int[] positions = new int[INPUT.getPositionCount()];
+    int count = compiledFilter.filter(INPUT, positions);
+    Assert.assertArrayEquals(expected, Arrays.copyOf(positions, count));
+  }
+}
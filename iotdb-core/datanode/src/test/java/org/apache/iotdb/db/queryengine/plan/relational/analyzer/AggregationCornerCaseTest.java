@@ -20,6 +20,7 @@
 package org.apache.iotdb.db.queryengine.plan.relational.analyzer;
 
 import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.utils.FileUtils;
 import org.apache.iotdb.db.queryengine.common.FragmentInstanceId;
 import org.apache.iotdb.db.queryengine.common.PlanFragmentId;
 import org.apache.iotdb.db.queryengine.common.QueryId;
@@ -29,6 +30,8 @@ import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceStateM
 import org.apache.iotdb.db.queryengine.execution.operator.Operator;
 import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.TableScanOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.GroupedAggregator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.GroupedCountAccumulator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.HashAggregationOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.StreamingHashAggregationOperator;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
@@ -47,17 +50,23 @@ import org.apache.tsfile.read.common.type.IntType;
 import org.apache.tsfile.read.common.type.TimestampType;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.List;
+import java.util.OptionalInt;
 
 import static org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
 import static org.apache.iotdb.db.queryengine.execution.operator.process.join.merge.MergeSortComparator.getComparatorForTable;
 import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.AbstractTableScanOperator.TIME_COLUMN_TEMPLATE;
 import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.hash.GroupByHash.DEFAULT_GROUP_NUMBER;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 public class AggregationCornerCaseTest {
+  private static final String SPILL_FOLDER_PATH =
+      "target" + File.separator + "agg" + File.separator + "tmp" + File.separator;
+
   @Test
   // test StreamingHashOperator produces two output TsBlocks in one calculation
   public void streamingHashAggTest() {
@@ -318,6 +327,139 @@ public class AggregationCornerCaseTest {
         DEFAULT_GROUP_NUMBER,
         Long.MAX_VALUE,
         false,
-        Long.MAX_VALUE);
+        Long.MAX_VALUE,
+        null);
+  }
+
+  @Test
+  public void groupByWithSpillTest() {
+    int groupCount = 3000;
+    int blockCount = 3;
+    boolean[] visited = new boolean[groupCount];
+    try (HashAggregationOperator aggregationOperator =
+        genSpillableHashAggregationOperator(groupCount, blockCount)) {
+      ListenableFuture<?> listenableFuture = aggregationOperator.isBlocked();
+      listenableFuture.get();
+      int resultCount = 0;
+      while (!aggregationOperator.isFinished() && aggregationOperator.hasNext()) {
+        TsBlock tsBlock = aggregationOperator.next();
+        if (tsBlock != null && !tsBlock.isEmpty()) {
+          for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+            int key = tsBlock.getColumn(0).getInt(i);
+            assertFalse(visited[key]);
+            visited[key] = true;
+            assertEquals(blockCount, tsBlock.getColumn(1).getLong(i));
+          }
+          resultCount += tsBlock.getPositionCount();
+        }
+        listenableFuture = aggregationOperator.isBlocked();
+        listenableFuture.get();
+      }
+      assertEquals(groupCount, resultCount);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail(e.getMessage());
+    } finally {
+      FileUtils.deleteFileOrDirectory(new File(SPILL_FOLDER_PATH), true);
+    }
+  }
+
+  // construct a AggregationHashOperator which spills after every input TsBlock
+  private HashAggregationOperator genSpillableHashAggregationOperator(
+      int groupCount, int blockCount) {
+    QueryId queryId = new QueryId("stub_query");
+
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(
+            instanceId,
+            IoTDBThreadPoolFactory.newFixedThreadPool(
+                1, "spillableAggregationHashOperator-test-instance-notification"));
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    DriverContext driverContext = new DriverContext(fragmentInstanceContext, 0);
+    PlanNodeId planNodeId1 = new PlanNodeId("1");
+    driverContext.addOperatorContext(1, planNodeId1, TableScanOperator.class.getSimpleName());
+    PlanNodeId planNodeId2 = new PlanNodeId("2");
+    driverContext.addOperatorContext(2, planNodeId2, HashAggregationOperator.class.getSimpleName());
+    Operator childOperator =
+        new Operator() {
+          int returnedBlockCount = 0;
+
+          @Override
+          public OperatorContext getOperatorContext() {
+            return driverContext.getOperatorContexts().get(0);
+          }
+
+          @Override
+          public TsBlock next() {
+            TsBlockBuilder builder =
+                new TsBlockBuilder(Collections.singletonList(TSDataType.INT32));
+            ColumnBuilder columnBuilder = builder.getValueColumnBuilders()[0];
+            for (int i = 0; i < groupCount; i++) {
+              columnBuilder.writeInt(i);
+            }
+            builder.declarePositions(groupCount);
+            returnedBlockCount++;
+            return builder.build(
+                new RunLengthEncodedColumn(TIME_COLUMN_TEMPLATE, builder.getPositionCount()));
+          }
+
+          @Override
+          public boolean hasNext() throws Exception {
+            return !isFinished();
+          }
+
+          @Override
+          public void close() throws Exception {}
+
+          @Override
+          public boolean isFinished() throws Exception {
+            return returnedBlockCount == blockCount;
+          }
+
+          @Override
+          public long calculateMaxPeekMemory() {
+            return 0;
+          }
+
+          @Override
+          public long calculateMaxReturnSize() {
+            return 0;
+          }
+
+          @Override
+          public long calculateRetainedSizeAfterCallingNext() {
+            return 0;
+          }
+
+          @Override
+          public long ramBytesUsed() {
+            return 0;
+          }
+        };
+
+    OperatorContext operatorContext = driverContext.getOperatorContexts().get(1);
+
+    return new HashAggregationOperator(
+        operatorContext,
+        childOperator,
+        Collections.singletonList(IntType.INT32),
+        Collections.singletonList(0),
+        Collections.singletonList(
+            new GroupedAggregator(
+                new GroupedCountAccumulator(),
+                AggregationNode.Step.SINGLE,
+                TSDataType.INT64,
+                TSDataType.INT64,
+                Collections.singletonList(0),
+                OptionalInt.empty())),
+        AggregationNode.Step.SINGLE,
+        DEFAULT_GROUP_NUMBER,
+        Long.MAX_VALUE,
+        true,
+        0,
+        SPILL_FOLDER_PATH);
   }
 }
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.analyzer;
+
+import org.apache.iotdb.db.queryengine.common.SessionInfo;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.QualifiedObjectName;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.TableStatistics;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.PlanTester;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.DeviceTableScanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations.PlanNodeStatsEstimator;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.apache.iotdb.db.queryengine.plan.relational.analyzer.TestUtils.SESSION_INFO;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class CostBasedOptimizationTest {
+
+  private static final double DELTA = 1e-6;
+
+  // 1000 rows of one device, s1 and s2 are in [0, 100]
+  private static final TableStatistics TABLE1_STATISTICS =
+      new TableStatistics(
+          1000,
+          1,
+          0,
+          999,
+          new long[] {3, 2, 1},
+          ImmutableMap.of(
+              "s1",
+              new TableStatistics.ColumnStatistics(1000, 0, 100),
+              "s2",
+              new TableStatistics.ColumnStatistics(1000, 0, 100)));
+
+  private static class StatisticsMetadata extends TestMatadata {
+    @Override
+    public Optional<TableStatistics> getTableStatistics(
+        SessionInfo session, QualifiedObjectName name) {
+      return TABLE1.equals(name.getObjectName())
+          ? Optional.of(TABLE1_STATISTICS)
+          : Optional.empty();
+    }
+  }
+
+  @Test
+  public void estimateRowCountTest() {
+    StatisticsMetadata metadata = new StatisticsMetadata();
+    PlanTester planTester = new PlanTester(metadata);
+
+    PlanNode root = planTester.createPlan("SELECT s1 FROM table1").getRootNode();
+    assertEquals(1000, estimator(metadata).estimateRowCount(root), DELTA);
+
+    // (100 - 90) / (100 - 0) of the rows
+    root = planTester.createPlan("SELECT s1 FROM table1 WHERE s1 > 90").getRootNode();
+    assertEquals(100, estimator(metadata).estimateRowCount(root), DELTA);
+
+    root = planTester.createPlan("SELECT s1 FROM table1 LIMIT 10").getRootNode();
+    assertEquals(10, estimator(metadata).estimateRowCount(root), DELTA);
+
+    // time has 1000 distinct values since there is only one device
+    root =
+        planTester
+            .createPlan("SELECT t1.s1 FROM table1 t1 JOIN table1 t2 ON t1.time = t2.time")
+            .getRootNode();
+    assertEquals(1000, estimator(metadata).estimateRowCount(root), DELTA);
+
+    root = planTester.createPlan("SELECT tag1, s1 FROM table1").getRootNode();
+    DeviceTableScanNode scanNode = findFirstNode(root, DeviceTableScanNode.class);
+    assertNotNull(scanNode);
+    Symbol tag1 =
+        scanNode.getAssignments().keySet().stream()
+            .filter(symbol -> symbol.getName().startsWith("tag1"))
+            .findFirst()
+            .orElseThrow(IllegalStateException::new);
+    assertEquals(3, estimator(metadata).estimateDistinctValues(scanNode, tag1), DELTA);
+
+    // statistics are unknown
+    TestMatadata testMatadata = new TestMatadata();
+    root = new PlanTester(testMatadata).createPlan("SELECT s1 FROM table1").getRootNode();
+    assertTrue(Double.isNaN(estimator(testMatadata).estimateRowCount(root)));
+  }
+
+  @Test
+  public void reorderJoinsTest() {
+    // t3 is the smallest source after the filter, so it is joined first
+    String sql =
+        "SELECT t1.s1, t2.s2, t3.s1 FROM table1 t1 "
+            + "JOIN table1 t2 ON t1.time = t2.time "
+            + "JOIN table1 t3 ON t1.time = t3.time "
+            + "WHERE t3.s1 > 90";
+
+    PlanNode root = new PlanTester(new StatisticsMetadata()).createPlan(sql).getRootNode();
+    List<JoinNode> joinNodes = findAllNodes(root, JoinNode.class, new ArrayList<>());
+    assertEquals(2, joinNodes.size());
+    for (JoinNode joinNode : joinNodes) {
+      assertFalse(joinNode.getCriteria().isEmpty());
+    }
+    JoinNode innerJoin = joinNodes.get(1);
+    assertTrue(
+        hasFilteredScan(innerJoin.getLeftChild()) || hasFilteredScan(innerJoin.getRightChild()));
+
+    // without statistics, the joins are kept in the original order
+    root = new PlanTester().createPlan(sql).getRootNode();
+    joinNodes = findAllNodes(root, JoinNode.class, new ArrayList<>());
+    assertEquals(2, joinNodes.size());
+    innerJoin = joinNodes.get(1);
+    assertFalse(hasFilteredScan(innerJoin.getLeftChild()));
+    assertFalse(hasFilteredScan(innerJoin.getRightChild()));
+    assertTrue(hasFilteredScan(joinNodes.get(0).getRightChild()));
+  }
+
+  @Test
+  public void keepOuterJoinTest() {
+    String sql =
+        "SELECT t1.s1, t2.s2 FROM table1 t1 LEFT JOIN table1 t2 ON t1.time = t2.time "
+            + "WHERE t1.s1 > 90";
+    PlanNode root = new PlanTester(new StatisticsMetadata()).createPlan(sql).getRootNode();
+    JoinNode joinNode = findFirstNode(root, JoinNode.class);
+    assertNotNull(joinNode);
+    assertEquals(JoinNode.JoinType.LEFT, joinNode.getJoinType());
+    assertTrue(hasFilteredScan(joinNode.getLeftChild()));
+    assertFalse(hasFilteredScan(joinNode.getRightChild()));
+  }
+
+  private static PlanNodeStatsEstimator estimator(TestMatadata metadata) {
+    return new PlanNodeStatsEstimator(metadata, SESSION_INFO);
+  }
+
+  private static boolean hasFilteredScan(PlanNode root) {
+    DeviceTableScanNode scanNode = findFirstNode(root, DeviceTableScanNode.class);
+    assertNotNull(scanNode);
+    return scanNode.getPushDownPredicate() != null;
+  }
+
+  private static <T extends PlanNode> T findFirstNode(PlanNode root, Class<T> nodeClass) {
+    List<T> nodes = findAllNodes(root, nodeClass, new ArrayList<>());
+    return nodes.isEmpty() ? null : nodes.get(0);
+  }
+
+  /** Collect the nodes of the class in pre-order, so a parent is before its descendants. */
+  private static <T extends PlanNode> List<T> findAllNodes(
+      PlanNode root, Class<T> nodeClass, List<T> result) {
+    if (nodeClass.isInstance(root)) {
+      result.add(nodeClass.cast(root));
+    }
+    for (PlanNode child : root.getChildren()) {
+      findAllNodes(child, nodeClass, result);
+    }
+    return result;
+  }
+}
@@ -19,6 +19,9 @@
 
 package org.apache.iotdb.db.queryengine.plan.relational.analyzer;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.DynamicFilter;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.DistributedQueryPlan;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.LogicalQueryPlan;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
@@ -37,6 +40,7 @@ import org.apache.iotdb.db.queryengine.plan.relational.planner.node.MergeSortNod
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.OffsetNode;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.OutputNode;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.ProjectNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.SemiJoinNode;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.SortNode;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.TopKNode;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ComparisonExpression;
@@ -85,6 +89,9 @@ import static org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinN
 import static org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ComparisonExpression.Operator.EQUAL;
 import static org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ComparisonExpression.Operator.GREATER_THAN;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class JoinTest {
@@ -621,6 +628,119 @@ public class JoinTest {
         false);
   }
 
+  @Test
+  public void hashJoinTest() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean enableHashJoin = config.isEnableHashJoin();
+    config.setEnableHashJoin(true);
+    try {
+      PlanTester planTester = new PlanTester();
+
+      // right side is small, use HashJoin and no SortNode is needed
+      sql =
+          "SELECT t1.s1, t2.s2 FROM table1 t1 JOIN (SELECT * FROM table1 LIMIT 10) t2 "
+              + "ON t1.time = t2.time";
+      logicalQueryPlan = planTester.createPlan(sql);
+      joinNode = findFirstNode(logicalQueryPlan.getRootNode(), JoinNode.class);
+      assertTrue(joinNode.isHashJoin());
+      assertFalse(joinNode.getLeftChild() instanceof SortNode);
+      assertFalse(joinNode.getRightChild() instanceof SortNode);
+      assertTrue(planTester.getFragmentPlan(0) instanceof OutputNode);
+
+      // left side is small, the inner join is flipped to make it the build side
+      sql =
+          "SELECT t1.s1, t2.s2 FROM (SELECT * FROM table1 LIMIT 10) t1 JOIN table1 t2 "
+              + "ON t1.time = t2.time";
+      logicalQueryPlan = planTester.createPlan(sql);
+      joinNode = findFirstNode(logicalQueryPlan.getRootNode(), JoinNode.class);
+      assertTrue(joinNode.isHashJoin());
+      assertNull(findFirstNode(joinNode.getLeftChild(), LimitNode.class));
+      assertNotNull(findFirstNode(joinNode.getRightChild(), LimitNode.class));
+
+      // filtering source of IN subquery is small, use HashSemiJoin
+      sql = "SELECT s1 FROM table1 WHERE s1 IN (SELECT s1 FROM table1 LIMIT 10)";
+      logicalQueryPlan = planTester.createPlan(sql);
+      SemiJoinNode semiJoinNode = findFirstNode(logicalQueryPlan.getRootNode(), SemiJoinNode.class);
+      assertTrue(semiJoinNode.isHashJoin());
+      assertFalse(semiJoinNode.getSource() instanceof SortNode);
+      assertFalse(semiJoinNode.getFilteringSource() instanceof SortNode);
+
+      // both sides are large, still use MergeSortJoin
+      sql = "SELECT t1.s1 FROM table1 t1 JOIN table1 t2 ON t1.time = t2.time";
+      logicalQueryPlan = planTester.createPlan(sql);
+      joinNode = findFirstNode(logicalQueryPlan.getRootNode(), JoinNode.class);
+      assertFalse(joinNode.isHashJoin());
+      assertTrue(joinNode.getLeftChild() instanceof SortNode);
+      assertTrue(joinNode.getRightChild() instanceof SortNode);
+    } finally {
+      config.setEnableHashJoin(enableHashJoin);
+    }
+  }
+
+  @Test
+  public void dynamicFilterTest() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean enableHashJoin = config.isEnableHashJoin();
+    config.setEnableHashJoin(true);
+    try {
+      PlanTester planTester = new PlanTester();
+
+      // join keys of build side are applied on the scan of probe side
+      sql =
+          "SELECT t1.s1, t2.s2 FROM table1 t1 JOIN (SELECT * FROM table1 LIMIT 10) t2 "
+              + "ON t1.time = t2.time";
+      logicalQueryPlan = planTester.createPlan(sql);
+      joinNode = findFirstNode(logicalQueryPlan.getRootNode(), JoinNode.class);
+      DeviceTableScanNode probeScanNode =
+          findFirstNode(joinNode.getLeftChild(), DeviceTableScanNode.class);
+      assertEquals(
+          Collections.singletonMap(
+              DynamicFilter.getFilterId(joinNode.getPlanNodeId(), 0),
+              joinNode.getCriteria().get(0).getLeft()),
+          probeScanNode.getDynamicFilters());
+      assertTrue(
+          findFirstNode(joinNode.getRightChild(), DeviceTableScanNode.class)
+              .getDynamicFilters()
+              .isEmpty());
+
+      // IN subquery used as filter
+      sql = "SELECT s1 FROM table1 WHERE tag1 IN (SELECT tag1 FROM table1 LIMIT 10)";
+      logicalQueryPlan = planTester.createPlan(sql);
+      SemiJoinNode semiJoinNode = findFirstNode(logicalQueryPlan.getRootNode(), SemiJoinNode.class);
+      probeScanNode = findFirstNode(semiJoinNode.getSource(), DeviceTableScanNode.class);
+      assertEquals(
+          Collections.singletonMap(
+              DynamicFilter.getFilterId(semiJoinNode.getPlanNodeId(), 0),
+              semiJoinNode.getSourceJoinSymbol()),
+          probeScanNode.getDynamicFilters());
+
+      // rows which are not matched by IN subquery can still pass the filter
+      sql = "SELECT s1 FROM table1 WHERE tag1 IN (SELECT tag1 FROM table1 LIMIT 10) OR s1 > 1";
+      logicalQueryPlan = planTester.createPlan(sql);
+      semiJoinNode = findFirstNode(logicalQueryPlan.getRootNode(), SemiJoinNode.class);
+      assertTrue(semiJoinNode.isHashJoin());
+      assertTrue(
+          findFirstNode(semiJoinNode.getSource(), DeviceTableScanNode.class)
+              .getDynamicFilters()
+              .isEmpty());
+    } finally {
+      config.setEnableHashJoin(enableHashJoin);
+    }
+  }
+
+  private static <T extends PlanNode> T findFirstNode(PlanNode root, Class<T> nodeClass) {
+    if (nodeClass.isInstance(root)) {
+      return nodeClass.cast(root);
+    }
+    for (PlanNode child : root.getChildren()) {
+      T result = findFirstNode(child, nodeClass);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
   // ========== unsupported test ===============
   @Test
   public void unsupportedJoinTest() {
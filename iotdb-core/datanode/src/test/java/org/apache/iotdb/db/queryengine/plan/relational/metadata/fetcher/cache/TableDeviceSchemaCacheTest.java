@@ -434,6 +434,15 @@ public class TableDeviceSchemaCacheTest {
         convertIdValuesToDeviceID(table2, device2),
         tempMeasurements,
         tempTimeValuePairs);
+    // The last caches are compact, more devices are needed to exceed the memory
+    for (int i = 3; i < 6; ++i) {
+      updateLastCache4Query(
+          cache,
+          database1,
+          convertIdValuesToDeviceID(table2, new String[] {"hebei", "p_1", "d_" + i}),
+          tempMeasurements,
+          tempTimeValuePairs);
+    }
 
     // Test cache eviction
     Assert.assertNull(
@@ -545,6 +554,54 @@ public class TableDeviceSchemaCacheTest {
         cache.getLastEntry(database1, convertIdValuesToDeviceID(table1, device0), "s2"));
   }
 
+  @Test
+  public void testReloadLastCache() {
+    final TableDeviceSchemaCache cache = TableDeviceSchemaCache.getInstance();
+    final IDeviceID deviceID =
+        convertIdValuesToDeviceID(table1, new String[] {"hebei", "p_1", "d_0"});
+
+    final TimeValuePair tv0 = new TimeValuePair(2L, new TsPrimitiveType.TsInt(0));
+    final TimeValuePair tv1 =
+        new TimeValuePair(1L, new TsPrimitiveType.TsBinary(new Binary("a".getBytes())));
+    updateLastCache4Query(
+        cache,
+        database1,
+        deviceID,
+        new String[] {"s0", "s1", "s2", ""},
+        new TimeValuePair[] {
+          tv0,
+          tv1,
+          TableDeviceLastCache.EMPTY_TIME_VALUE_PAIR,
+          new TimeValuePair(2L, TableDeviceLastCache.EMPTY_PRIMITIVE_TYPE)
+        });
+
+    final Map<IDeviceID, Map<String, TimeValuePair>> lastCacheMap = new HashMap<>();
+    cache.forEachLastCache(database1, lastCacheMap::put);
+    cache.forEachLastCache(database2, (device, timeValuePairs) -> Assert.fail());
+    Assert.assertEquals(Collections.singleton(deviceID), lastCacheMap.keySet());
+    Assert.assertEquals(4, lastCacheMap.get(deviceID).size());
+
+    cache.invalidateAll();
+    lastCacheMap.forEach(
+        (device, timeValuePairs) ->
+            cache.putLastCache(
+                database1,
+                device,
+                timeValuePairs.keySet().toArray(new String[0]),
+                timeValuePairs.values().toArray(new TimeValuePair[0])));
+
+    Assert.assertEquals(tv0, cache.getLastEntry(database1, deviceID, "s0"));
+    Assert.assertEquals(tv1, cache.getLastEntry(database1, deviceID, "s1"));
+    Assert.assertSame(
+        TableDeviceLastCache.EMPTY_TIME_VALUE_PAIR, cache.getLastEntry(database1, deviceID, "s2"));
+    final Optional<Pair<OptionalLong, TsPrimitiveType[]>> result =
+        cache.getLastRow(database1, deviceID, "", Collections.singletonList("s0"));
+    Assert.assertTrue(result.isPresent());
+    Assert.assertEquals(OptionalLong.of(2L), result.get().getLeft());
+    Assert.assertArrayEquals(
+        new TsPrimitiveType[] {new TsPrimitiveType.TsInt(0)}, result.get().getRight());
+  }
+
   private void updateLastCache4Query(
       final TableDeviceSchemaCache cache,
       final String database,
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.sql.parser;
+
+import org.apache.iotdb.db.protocol.session.IClientSession;
+import org.apache.iotdb.db.protocol.session.InternalClientSession;
+import org.apache.iotdb.db.queryengine.plan.relational.analyzer.NodeRef;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.DefaultTraversalVisitor;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Literal;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Parameter;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ParameterizedStatement;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Query;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Statement;
+
+import org.antlr.v4.runtime.Token;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParameterizedStatementCacheTest {
+
+  private final SqlParser parser = new SqlParser();
+  private final IClientSession clientSession = new InternalClientSession("internal");
+
+  @Test
+  public void testNormalize() {
+    ParameterizedStatementCache.NormalizedSql first =
+        ParameterizedStatementCache.normalize(
+            "select s1 from table1 where device_id = 'd1' and time >= 1000 and time < 2000");
+    ParameterizedStatementCache.NormalizedSql second =
+        ParameterizedStatementCache.normalize(
+            "SELECT s1\n  FROM table1 -- dashboard\n WHERE device_id = 'd''2' AND time >= 3000 "
+                + "AND time < 4000");
+    assertEquals("select s1 from table1 where device_id = ? and time >= ? and time < ?", first.sql);
+    assertEquals(
+        Arrays.asList("'d1'", "1000", "2000"),
+        first.literals.stream().map(Token::getText).collect(Collectors.toList()));
+    assertEquals(
+        Arrays.asList("'d''2'", "3000", "4000"),
+        second.literals.stream().map(Token::getText).collect(Collectors.toList()));
+
+    Statement statement = parser.createStatement(first.sql, ZoneId.systemDefault(), clientSession);
+    assertTrue(statement instanceof Query);
+  }
+
+  @Test
+  public void testNormalizeBetween() {
+    ParameterizedStatementCache.NormalizedSql normalizedSql =
+        ParameterizedStatementCache.normalize(
+            "select avg(s1) from table1 where time between 10 and 20 and s2 > 1.5 group by 1");
+    assertEquals(
+        "select avg(s1) from table1 where time between ? and ? and s2 > ? group by 1",
+        normalizedSql.sql);
+    assertEquals(3, normalizedSql.literals.size());
+  }
+
+  @Test
+  public void testKeepLiteralsOutsideComparisons() {
+    ParameterizedStatementCache.NormalizedSql normalizedSql =
+        ParameterizedStatementCache.normalize(
+            "select s1 + 1 from table1 where s1 = 1 + s2 and s3 = -1 order by 1 limit 10");
+    assertEquals(
+        "select s1 + 1 from table1 where s1 = 1 + s2 and s3 = -1 order by 1 limit 10",
+        normalizedSql.sql);
+    assertTrue(normalizedSql.literals.isEmpty());
+  }
+
+  @Test
+  public void testNotCacheable() {
+    assertNull(ParameterizedStatementCache.normalize("insert into table1(time, s1) values(1, 1)"));
+    assertNull(
+        ParameterizedStatementCache.normalize("select s1 from table1 where time > now() - 1h"));
+    assertNull(ParameterizedStatementCache.normalize("select s1 from table1 where time > ?"));
+    assertNull(ParameterizedStatementCache.normalize("select columns('s.*') from table1"));
+  }
+
+  @Test
+  public void testBindWith() {
+    // the WITH clause is visited after the query body when the parameter ids are assigned
+    checkBind(
+        "with t as (select * from table1 where s1 = 1) select * from t where s2 = 2",
+        "with t as (select * from table1 where s1 = 3) select * from t where s2 = 4");
+  }
+
+  @Test
+  public void testBindScalarSubquery() {
+    checkBind(
+        "select s1, (select max(s2) from table2 where s2 > 10) from table1 where s1 < 20 "
+            + "order by s1 limit 5",
+        "select s1, (select max(s2) from table2 where s2 > 30) from table1 where s1 < 40 "
+            + "order by s1 limit 5");
+  }
+
+  @Test
+  public void testBindMultipleLiteralsOfPredicate() {
+    checkBind(
+        "select * from table1 where device_id = 'd1' and s1 >= 1.5 and time between 10 and 20 "
+            + "or s2 <> 3",
+        "select * from table1 where device_id = 'd2' and s1 >= 2.5 and time between 30 and 40 "
+            + "or s2 <> 5");
+  }
+
+  /** Both sqls are only different in the parameterized literals, the second one hits the cache. */
+  private void checkBind(String sql, String sqlOfSameShape) {
+    ParameterizedStatementCache cache = new ParameterizedStatementCache(10);
+    for (String query : Arrays.asList(sql, sqlOfSameShape)) {
+      Statement cached =
+          cache.createStatement(parser, query, ZoneId.systemDefault(), clientSession);
+      Statement parsed = parser.createStatement(query, ZoneId.systemDefault(), clientSession);
+      assertTrue(cached instanceof ParameterizedStatement);
+      assertFalse(((ParameterizedStatement) cached).getParameters().isEmpty());
+      assertEquals(boundLiterals(parsed), boundLiterals(cached));
+    }
+    assertEquals(2, cache.getRequestCount());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  /** All the literals of the statement in traversal order, parameters are replaced by values. */
+  private static List<Expression> boundLiterals(Statement statement) {
+    Map<NodeRef<Parameter>, Expression> parameterLookup = Collections.emptyMap();
+    if (statement instanceof ParameterizedStatement) {
+      parameterLookup = ((ParameterizedStatement) statement).getParameterLookup();
+      statement = ((ParameterizedStatement) statement).getInnerStatement();
+    }
+    Map<NodeRef<Parameter>, Expression> values = parameterLookup;
+    List<Expression> literals = new ArrayList<>();
+    new DefaultTraversalVisitor<Void>() {
+      @Override
+      protected Void visitLiteral(Literal node, Void context) {
+        literals.add(node);
+        return null;
+      }
+
+      @Override
+      protected Void visitParameter(Parameter node, Void context) {
+        literals.add(values.get(NodeRef.of(node)));
+        return null;
+      }
+    }.process(statement, null);
+    return literals;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.storageengine.buffer;
+
+import org.apache.iotdb.db.storageengine.buffer.ChunkCache.ChunkCacheKey;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileID;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.header.ChunkHeader;
+import org.apache.tsfile.file.metadata.enums.CompressionType;
+import org.apache.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.tsfile.file.metadata.statistics.DoubleStatistics;
+import org.apache.tsfile.read.common.Chunk;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class OffHeapChunkCacheTest {
+
+  private static final int CHUNK_SIZE = 1024;
+
+  private final OffHeapChunkCache offHeapChunkCache = new OffHeapChunkCache(4 * CHUNK_SIZE);
+
+  @After
+  public void tearDown() {
+    offHeapChunkCache.clear();
+  }
+
+  @Test
+  public void testPutAndPromote() {
+    ChunkCacheKey key = createKey(0);
+    Chunk chunk = createChunk((byte) 1);
+    offHeapChunkCache.put(key, chunk);
+    Assert.assertEquals(CHUNK_SIZE, offHeapChunkCache.getUsedSizeInBytes());
+
+    Chunk promoted = offHeapChunkCache.getAndRemove(key);
+    Assert.assertNotNull(promoted);
+    Assert.assertFalse(promoted.getData().isDirect());
+    Assert.assertEquals(chunk.getData(), promoted.getData());
+    Assert.assertSame(chunk.getHeader(), promoted.getHeader());
+
+    // the promoted chunk is removed and its direct buffer is released
+    Assert.assertFalse(offHeapChunkCache.contains(key));
+    Assert.assertEquals(0, offHeapChunkCache.getUsedSizeInBytes());
+    Assert.assertNull(offHeapChunkCache.getAndRemove(key));
+  }
+
+  @Test
+  public void testSizeLimit() {
+    for (int i = 0; i < 16; i++) {
+      offHeapChunkCache.put(createKey(i), createChunk((byte) i));
+    }
+    offHeapChunkCache.clear();
+    Assert.assertEquals(0, offHeapChunkCache.getUsedSizeInBytes());
+
+    for (int i = 0; i < 16; i++) {
+      offHeapChunkCache.put(createKey(i), createChunk((byte) i));
+      Assert.assertTrue(
+          offHeapChunkCache.getUsedSizeInBytes() <= offHeapChunkCache.getMaxSizeInBytes());
+    }
+  }
+
+  private ChunkCacheKey createKey(long offset) {
+    return new ChunkCacheKey("1-0-0-0.tsfile", new TsFileID(1, 0, 1, 0, 0), offset, true);
+  }
+
+  private Chunk createChunk(byte value) {
+    byte[] data = new byte[CHUNK_SIZE];
+    for (int i = 0; i < CHUNK_SIZE; i++) {
+      data[i] = value;
+    }
+    ChunkHeader header =
+        new ChunkHeader(
+            "s1",
+            CHUNK_SIZE,
+            TSDataType.DOUBLE,
+            CompressionType.UNCOMPRESSED,
+            TSEncoding.PLAIN,
+            1);
+    return new Chunk(header, ByteBuffer.wrap(data), null, new DoubleStatistics());
+  }
+}
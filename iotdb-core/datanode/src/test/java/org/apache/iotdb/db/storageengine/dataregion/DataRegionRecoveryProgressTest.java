@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion;
+
+import org.apache.iotdb.commons.consensus.DataRegionId;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DataRegionRecoveryProgressTest {
+
+  @Test
+  public void testProgress() throws InterruptedException {
+    DataRegionRecoveryProgress progress =
+        new DataRegionRecoveryProgress("root.sg", new DataRegionId(1));
+    Assert.assertEquals(DataRegionRecoveryProgress.Status.PENDING, progress.getStatus());
+    Assert.assertEquals(0, progress.getProgress(), 0);
+    Assert.assertEquals(-1, progress.getEstimatedRemainingTimeInMs());
+
+    progress.start();
+    progress.setTotalFileNum(4);
+    Assert.assertEquals(DataRegionRecoveryProgress.Status.RECOVERING, progress.getStatus());
+    // nothing is recovered, so the remaining time can't be estimated
+    Assert.assertEquals(-1, progress.getEstimatedRemainingTimeInMs());
+
+    Thread.sleep(10);
+    progress.incrementRecoveredFileNum();
+    Assert.assertEquals(1, progress.getRecoveredFileNum());
+    Assert.assertEquals(3, progress.getRemainingFileNum());
+    Assert.assertEquals(0.25, progress.getProgress(), 0.0001);
+    // 3 remaining files take 3 times as long as the recovered one, which took at least 10ms
+    Assert.assertTrue(progress.getEstimatedRemainingTimeInMs() >= 30);
+
+    progress.finish();
+    Assert.assertEquals(DataRegionRecoveryProgress.Status.RECOVERED, progress.getStatus());
+    Assert.assertEquals(1, progress.getProgress(), 0);
+    Assert.assertEquals(0, progress.getEstimatedRemainingTimeInMs());
+    long elapsedTime = progress.getElapsedTimeInMs();
+    Thread.sleep(10);
+    Assert.assertEquals(elapsedTime, progress.getElapsedTimeInMs());
+  }
+
+  @Test
+  public void testFail() {
+    DataRegionRecoveryProgress progress =
+        new DataRegionRecoveryProgress("root.sg", new DataRegionId(2));
+    progress.start();
+    progress.setTotalFileNum(2);
+    progress.incrementRecoveredFileNum();
+    progress.fail();
+    Assert.assertEquals(DataRegionRecoveryProgress.Status.FAILED, progress.getStatus());
+    Assert.assertEquals(0.5, progress.getProgress(), 0.0001);
+    Assert.assertEquals(0, progress.getEstimatedRemainingTimeInMs());
+  }
+}
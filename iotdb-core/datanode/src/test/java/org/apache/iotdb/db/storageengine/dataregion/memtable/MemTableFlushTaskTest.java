@@ -20,19 +20,24 @@
 package org.apache.iotdb.db.storageengine.dataregion.memtable;
 
 import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.WriteProcessException;
 import org.apache.iotdb.db.storageengine.dataregion.flush.MemTableFlushTask;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.db.utils.constant.TestConstant;
 
 import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.ChunkGroupMetadata;
 import org.apache.tsfile.file.metadata.ChunkMetadata;
+import org.apache.tsfile.file.metadata.IDeviceID;
 import org.apache.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.tsfile.write.writer.RestorableTsFileIOWriter;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
@@ -161,4 +166,41 @@ public class MemTableFlushTaskTest {
     assertEquals(TSDataType.BOOLEAN, chunkMetaData.getDataType());
     assertEquals(endTime - startTime + 1, chunkMetaData.getNumOfPoints());
   }
+
+  @Test
+  public void testFlushMultiDevicesInParallel()
+      throws ExecutionException, InterruptedException, IllegalPathException {
+    int parallelism = IoTDBDescriptor.getInstance().getConfig().getFlushEncodingParallelism();
+    IoTDBDescriptor.getInstance().getConfig().setFlushEncodingParallelism(4);
+    try {
+      List<IDeviceID> deviceIds = new ArrayList<>();
+      for (int i = 9; i >= 0; i--) {
+        IDeviceID deviceId = IDeviceID.Factory.DEFAULT_FACTORY.create("d" + i);
+        deviceIds.add(0, deviceId);
+        MemTableTestUtils.produceData(
+            memTable,
+            startTime,
+            endTime,
+            deviceId,
+            MemTableTestUtils.measurementId0,
+            MemTableTestUtils.dataType0);
+      }
+      new MemTableFlushTask(memTable, writer, storageGroup, dataRegionId).syncFlushMemTable();
+
+      // the chunk groups are written in device order
+      List<ChunkGroupMetadata> chunkGroupMetadataList = writer.getChunkGroupMetadataList();
+      assertEquals(deviceIds.size(), chunkGroupMetadataList.size());
+      for (int i = 0; i < deviceIds.size(); i++) {
+        ChunkGroupMetadata chunkGroupMetadata = chunkGroupMetadataList.get(i);
+        assertEquals(deviceIds.get(i), chunkGroupMetadata.getDevice());
+        assertEquals(1, chunkGroupMetadata.getChunkMetadataList().size());
+        ChunkMetadata chunkMetaData = chunkGroupMetadata.getChunkMetadataList().get(0);
+        assertEquals(startTime, chunkMetaData.getStartTime());
+        assertEquals(endTime, chunkMetaData.getEndTime());
+        assertEquals(endTime - startTime + 1, chunkMetaData.getNumOfPoints());
+      }
+    } finally {
+      IoTDBDescriptor.getInstance().getConfig().setFlushEncodingParallelism(parallelism);
+    }
+  }
 }
@@ -137,4 +137,68 @@ public class FileReaderManagerTest {
       }
     }
   }
+
+  @Test
+  public void testEvictIdleClosedReaders() throws IOException {
+    String filePath = TestConstant.BASE_OUTPUT_PATH.concat("evict.file");
+    FileReaderManager manager = FileReaderManager.getInstance();
+    manager.closeAndRemoveAllOpenedReaders();
+    manager.setMaxOpenedClosedReaderNum(2);
+
+    TsFileResource[] tsFileResources = new TsFileResource[3];
+    try {
+      for (int i = 0; i < 3; i++) {
+        File file = SystemFileFactory.INSTANCE.getFile(filePath + i);
+        TsFileIOWriter writer = new TsFileIOWriter(file);
+        writer.endFile();
+        writer.close();
+        tsFileResources[i] = new TsFileResource(file);
+      }
+
+      for (int i = 0; i < 3; i++) {
+        manager.increaseFileReaderReference(tsFileResources[i], true);
+        manager.get(tsFileResources[i].getTsFilePath(), true);
+      }
+      // all readers are referenced, none of them can be evicted
+      Assert.assertEquals(3, manager.getOpenedClosedReaderNum());
+
+      manager.decreaseFileReaderReference(tsFileResources[0], true);
+      // readers[0] is the only idle one and the budget is exceeded
+      Assert.assertFalse(manager.contains(tsFileResources[0], true));
+
+      manager.decreaseFileReaderReference(tsFileResources[1], true);
+      manager.decreaseFileReaderReference(tsFileResources[2], true);
+      // unreferenced readers are kept open within the budget
+      Assert.assertTrue(manager.contains(tsFileResources[1], true));
+      Assert.assertTrue(manager.contains(tsFileResources[2], true));
+      Assert.assertEquals(2, manager.getIdleClosedReaderNum());
+
+      // reuse the idle reader of file 1, so that file 2 becomes the least recently used one
+      manager.increaseFileReaderReference(tsFileResources[1], true);
+      long hitCount = manager.getHitCount();
+      manager.get(tsFileResources[1].getTsFilePath(), true);
+      Assert.assertEquals(hitCount + 1, manager.getHitCount());
+      manager.decreaseFileReaderReference(tsFileResources[1], true);
+
+      manager.increaseFileReaderReference(tsFileResources[0], true);
+      manager.get(tsFileResources[0].getTsFilePath(), true);
+      Assert.assertTrue(manager.contains(tsFileResources[0], true));
+      Assert.assertTrue(manager.contains(tsFileResources[1], true));
+      Assert.assertFalse(manager.contains(tsFileResources[2], true));
+      manager.decreaseFileReaderReference(tsFileResources[0], true);
+
+      // removing a file closes its idle reader
+      manager.closeUnusedReader(tsFileResources[1].getTsFilePath());
+      Assert.assertFalse(manager.contains(tsFileResources[1], true));
+    } finally {
+      manager.setMaxOpenedClosedReaderNum(dbConfig.getMaxOpenedTsFileReaderNum());
+      manager.closeAndRemoveAllOpenedReaders();
+      for (int i = 0; i < 3; i++) {
+        File file = SystemFileFactory.INSTANCE.getFile(filePath + i);
+        if (file.exists() && !file.delete()) {
+          fail();
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.statistics;
+
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.TableStatistics;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.utils.constant.TestConstant;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.ChunkMetadata;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.file.metadata.enums.CompressionType;
+import org.apache.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.tsfile.file.metadata.statistics.Statistics;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Collections;
+
+public class TableStatisticsManagerTest {
+
+  private static final String DATABASE = "root.testdb";
+  private static final String TABLE = "table1";
+
+  @After
+  public void tearDown() {
+    TableStatisticsManager.getInstance().clear();
+  }
+
+  @Test
+  public void testRegisterAndUnregister() {
+    TableStatisticsManager manager = TableStatisticsManager.getInstance();
+    // tag1 of the three devices: beijing, beijing, shanghai
+    TsFileResource resource1 =
+        createResource(1, device("beijing", "d1"), 0, 99, device("beijing", "d2"), 0, 49);
+    TsFileResource resource2 = createResource(2, device("shanghai", "d3"), 100, 199);
+
+    manager.register(resource1);
+    manager.register(resource2);
+    // registering twice is ignored
+    manager.register(resource2);
+
+    TableStatistics statistics = manager.getTableStatistics("testdb", TABLE).get();
+    Assert.assertEquals(250, statistics.getRowCount());
+    Assert.assertEquals(3, statistics.getDeviceCount());
+    Assert.assertEquals(2, statistics.getTagDistinctCount(0));
+    Assert.assertEquals(3, statistics.getTagDistinctCount(1));
+    Assert.assertEquals(0, statistics.getMinTime());
+    Assert.assertEquals(199, statistics.getMaxTime());
+    TableStatistics.ColumnStatistics s1 = statistics.getFieldStatistics("s1").get();
+    Assert.assertEquals(250, s1.getNonNullCount());
+    Assert.assertEquals(0, s1.getMinValue(), 0);
+    Assert.assertEquals(199, s1.getMaxValue(), 0);
+
+    manager.unregister(resource1);
+    statistics = manager.getTableStatistics("testdb", TABLE).get();
+    Assert.assertEquals(100, statistics.getRowCount());
+    Assert.assertEquals(1, statistics.getDeviceCount());
+    Assert.assertEquals(1, statistics.getTagDistinctCount(0));
+
+    manager.unregister(resource2);
+    Assert.assertFalse(manager.getTableStatistics("testdb", TABLE).isPresent());
+    Assert.assertFalse(manager.getTableStatistics("testdb", "table2").isPresent());
+  }
+
+  private static IDeviceID device(String... tags) {
+    String[] segments = new String[tags.length + 1];
+    segments[0] = TABLE;
+    System.arraycopy(tags, 0, segments, 1, tags.length);
+    return IDeviceID.Factory.DEFAULT_FACTORY.create(segments);
+  }
+
+  /** @param devicesAndTimeRanges device, start time and end time of each device */
+  private static TsFileResource createResource(long version, Object... devicesAndTimeRanges) {
+    TsFileTableStatistics.Builder builder = new TsFileTableStatistics.Builder();
+    for (int i = 0; i < devicesAndTimeRanges.length; i += 3) {
+      Statistics<? extends Serializable> statistics = Statistics.getStatsByType(TSDataType.INT64);
+      for (long time = (int) devicesAndTimeRanges[i + 1];
+          time <= (int) devicesAndTimeRanges[i + 2];
+          time++) {
+        statistics.update(time, time);
+      }
+      ChunkMetadata chunkMetadata =
+          new ChunkMetadata(
+              "s1", TSDataType.INT64, TSEncoding.PLAIN, CompressionType.LZ4, 0, statistics);
+      builder.collect(
+          (IDeviceID) devicesAndTimeRanges[i], Collections.singletonList(chunkMetadata));
+    }
+    TsFileResource resource =
+        new TsFileResource(
+            new File(
+                TestConstant.BASE_OUTPUT_PATH
+                    + String.join(
+                        File.separator,
+                        "sequence",
+                        DATABASE,
+                        "1",
+                        "0",
+                        version + "-" + version + "-0-0.tsfile")));
+    resource.setTableStatistics(builder.build());
+    return resource;
+  }
+}
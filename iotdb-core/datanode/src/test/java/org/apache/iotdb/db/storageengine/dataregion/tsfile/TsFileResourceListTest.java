@@ -20,16 +20,23 @@
 package org.apache.iotdb.db.storageengine.dataregion.tsfile;
 
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.generator.TsFileNameGenerator;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.FileTimeIndex;
 import org.apache.iotdb.db.utils.constant.TestConstant;
 
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.filter.factory.TimeFilterApi;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class TsFileResourceListTest {
 
@@ -323,4 +330,170 @@ public class TsFileResourceListTest {
     tsFileResourceList.keepOrderInsert(seqResources.get(0));
     Assert.assertEquals(seqResources, tsFileResourceList.getArrayList());
   }
+
+  @Test
+  public void testGetOverlappedResources() throws IOException {
+    IDeviceID d1 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+    IDeviceID d2 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d2");
+    TsFileResourceList tsFileResourceList = new TsFileResourceList();
+    TsFileResource resource0 = generateClosedTsFileResource(0, d1, 0, 9);
+    TsFileResource resource1 = generateClosedTsFileResource(10, d1, 10, 19);
+    TsFileResource resource2 = generateClosedTsFileResource(20, d2, 20, 29);
+    // degraded time index
+    TsFileResource resource3 = generateClosedTsFileResource(30, d2, 30, 39);
+    resource3.setTimeIndex(new FileTimeIndex(30, 39));
+    TsFileResource resource4 = generateTsFileResource(40);
+    resource4.updateStartTime(d1, 40);
+    resource4.updateEndTime(d1, 49);
+    tsFileResourceList.add(resource0);
+    tsFileResourceList.add(resource1);
+    tsFileResourceList.add(resource2);
+    tsFileResourceList.add(resource3);
+    tsFileResourceList.add(resource4);
+
+    // unclosed files are always returned
+    Assert.assertEquals(
+        Arrays.asList(resource0, resource1, resource4),
+        tsFileResourceList.getOverlappedResources(d1, 5, 15));
+    Assert.assertEquals(
+        Arrays.asList(resource3, resource4),
+        tsFileResourceList.getOverlappedResources(d1, 30, 35));
+    Assert.assertEquals(
+        Arrays.asList(resource2, resource3, resource4),
+        tsFileResourceList.getOverlappedResources(d2, Long.MIN_VALUE, Long.MAX_VALUE));
+
+    resource4.setStatusForTest(TsFileResourceStatus.NORMAL);
+    Assert.assertEquals(
+        Arrays.asList(resource0, resource1), tsFileResourceList.getOverlappedResources(d1, 5, 15));
+    Assert.assertEquals(
+        Collections.singletonList(resource4),
+        tsFileResourceList.getOverlappedResources(d1, 45, 100));
+
+    // inserted between resource1 and resource2
+    TsFileResource resource5 = generateClosedTsFileResource(15, d1, 12, 14);
+    tsFileResourceList.keepOrderInsert(resource5);
+    Assert.assertEquals(
+        Arrays.asList(resource0, resource1, resource5),
+        tsFileResourceList.getOverlappedResources(d1, 5, 15));
+
+    tsFileResourceList.remove(resource1);
+    Assert.assertEquals(
+        Arrays.asList(resource0, resource5), tsFileResourceList.getOverlappedResources(d1, 5, 15));
+
+    tsFileResourceList.clear();
+    Assert.assertTrue(tsFileResourceList.getOverlappedResources(d1, 5, 15).isEmpty());
+  }
+
+  @Test
+  public void testPinnedSnapshot() {
+    IDeviceID d1 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+    TsFileManager tsFileManager = new TsFileManager("root.sg", "0", TestConstant.BASE_OUTPUT_PATH);
+    TsFileResource resource0 = generateClosedTsFileResource(0, d1, 0, 9);
+    TsFileResource resource1 = generateClosedTsFileResource(10, d1, 10, 19);
+    tsFileManager.add(resource0, true);
+    tsFileManager.add(resource1, true);
+    List<Long> partitions = Collections.singletonList(resource0.getTimePartition());
+
+    tsFileManager.pinSnapshot();
+    long pinnedVersion = tsFileManager.getSnapshotVersion();
+    tsFileManager.remove(resource1, true);
+    TsFileResource resource2 = generateClosedTsFileResource(20, d1, 20, 29);
+    tsFileManager.add(resource2, true);
+    Assert.assertEquals(pinnedVersion, tsFileManager.getOldestPinnedSnapshotVersion());
+
+    // the pinned snapshot is not changed
+    Assert.assertEquals(
+        Arrays.asList(resource0, resource1), tsFileManager.getTsFileList(true, null, null));
+    Assert.assertEquals(
+        Collections.singletonList(resource1),
+        tsFileManager.getTsFileList(true, partitions, TimeFilterApi.between(10, 25), d1));
+    TsFileResourceIntervalIndex index =
+        tsFileManager.getOrCreateSequenceListByTimePartition(partitions.get(0)).getIntervalIndex();
+    Assert.assertEquals(1, index.retiredSize());
+
+    tsFileManager.unpinSnapshot();
+    Assert.assertEquals(
+        Arrays.asList(resource0, resource2), tsFileManager.getTsFileList(true, null, null));
+    Assert.assertEquals(
+        Collections.singletonList(resource2),
+        tsFileManager.getTsFileList(true, partitions, TimeFilterApi.between(10, 25), d1));
+    Assert.assertEquals(
+        tsFileManager.getSnapshotVersion(), tsFileManager.getOldestPinnedSnapshotVersion());
+    Assert.assertEquals(0, index.retiredSize());
+  }
+
+  @Test
+  public void testWaitForStaleSnapshots() throws InterruptedException {
+    IDeviceID d1 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+    TsFileManager tsFileManager = new TsFileManager("root.sg", "0", TestConstant.BASE_OUTPUT_PATH);
+    TsFileResource resource0 = generateClosedTsFileResource(0, d1, 0, 9);
+    TsFileResource resource1 = generateClosedTsFileResource(10, d1, 10, 19);
+    tsFileManager.add(resource0, true);
+    tsFileManager.add(resource1, true);
+
+    // the snapshot is unpinned by the query while the removal is waiting for it
+    CountDownLatch pinned = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread query = startQuery(tsFileManager, pinned, release);
+    Assert.assertTrue(pinned.await(10, TimeUnit.SECONDS));
+    Thread releaser =
+        new Thread(
+            () -> {
+              try {
+                Thread.sleep(100);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              release.countDown();
+            });
+    releaser.start();
+    tsFileManager.remove(resource1, true);
+    Assert.assertEquals(0, release.getCount());
+    query.join();
+    releaser.join();
+    Assert.assertEquals(
+        tsFileManager.getSnapshotVersion(), tsFileManager.getOldestPinnedSnapshotVersion());
+
+    // the query never unpins the snapshot, the removal gives up after the timeout
+    tsFileManager.setStaleSnapshotWaitTimeoutMs(100);
+    pinned = new CountDownLatch(1);
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    query = startQuery(tsFileManager, pinned, neverReleased);
+    Assert.assertTrue(pinned.await(10, TimeUnit.SECONDS));
+    long pinnedVersion = tsFileManager.getSnapshotVersion();
+    long startTime = System.nanoTime();
+    tsFileManager.remove(resource0, true);
+    Assert.assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(100));
+    Assert.assertEquals(pinnedVersion, tsFileManager.getOldestPinnedSnapshotVersion());
+    neverReleased.countDown();
+    query.join();
+  }
+
+  private Thread startQuery(
+      TsFileManager tsFileManager, CountDownLatch pinned, CountDownLatch release) {
+    Thread query =
+        new Thread(
+            () -> {
+              tsFileManager.pinSnapshot();
+              pinned.countDown();
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              } finally {
+                tsFileManager.unpinSnapshot();
+              }
+            });
+    query.start();
+    return query;
+  }
+
+  private TsFileResource generateClosedTsFileResource(
+      int id, IDeviceID deviceId, long startTime, long endTime) {
+    TsFileResource resource = generateTsFileResource(id);
+    resource.updateStartTime(deviceId, startTime);
+    resource.updateEndTime(deviceId, endTime);
+    resource.setStatusForTest(TsFileResourceStatus.NORMAL);
+    return resource;
+  }
 }
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.storageengine.dataregion.wal.buffer;
+
+import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALMode;
+import org.apache.iotdb.db.storageengine.dataregion.wal.utils.listener.AbstractResultListener.Status;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class WALBufferGroupCommitTest extends WALBufferCommonTest {
+  private WALMode prevMode;
+
+  @Before
+  public void setUp() throws Exception {
+    prevMode = config.getWalMode();
+    config.setWalMode(WALMode.GROUP_COMMIT);
+    EnvironmentUtils.cleanDir(logDirectory);
+    super.setUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    super.tearDown();
+    EnvironmentUtils.cleanDir(logDirectory);
+    config.setWalMode(prevMode);
+  }
+
+  @Test
+  public void testAllWritersNotified() throws Exception {
+    List<WALEntry> walEntries = new ArrayList<>();
+    for (int i = 0; i < 100; ++i) {
+      WALEntry walEntry = new WALInfoEntry(0, getInsertRowNode(devicePath, i));
+      walEntries.add(walEntry);
+      walBuffer.write(walEntry);
+    }
+    for (WALEntry walEntry : walEntries) {
+      assertEquals(Status.SUCCESS, walEntry.getWalFlushListener().waitForResult());
+    }
+  }
+}
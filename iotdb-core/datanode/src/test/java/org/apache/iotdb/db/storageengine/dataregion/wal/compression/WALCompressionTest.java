@@ -72,6 +72,8 @@ public class WALCompressionTest {
   long originalMinCompressionSize;
   CompressionType originCompressionType =
       IoTDBDescriptor.getInstance().getConfig().getWALCompressionAlgorithm();
+  boolean originWalReadMmapEnable =
+      IoTDBDescriptor.getInstance().getConfig().isWalReadMmapEnable();
 
   @Before
   public void setUp()
@@ -96,6 +98,7 @@ public class WALCompressionTest {
     }
     WALTestUtils.setMinCompressionSize(originalMinCompressionSize);
     IoTDBDescriptor.getInstance().getConfig().setWALCompressionAlgorithm(originCompressionType);
+    IoTDBDescriptor.getInstance().getConfig().setWalReadMmapEnable(originWalReadMmapEnable);
   }
 
   @Test
@@ -438,4 +441,61 @@ public class WALCompressionTest {
       }
     }
   }
+
+  @Test
+  public void testReadSliceWithMmap()
+      throws IOException,
+          QueryProcessException,
+          IllegalPathException,
+          InterruptedException,
+          NoSuchFieldException,
+          ClassNotFoundException,
+          IllegalAccessException {
+    File dir = new File(compressionDir);
+    if (!dir.exists()) {
+      dir.mkdirs();
+    }
+    WALTestUtils.setMinCompressionSize(0);
+    WALBuffer walBuffer = new WALBuffer("", compressionDir);
+    List<WALEntry> entryList = new ArrayList<>();
+    // the first half is uncompressed and the second half is compressed
+    for (CompressionType compressionType :
+        new CompressionType[] {CompressionType.UNCOMPRESSED, CompressionType.LZ4}) {
+      IoTDBDescriptor.getInstance().getConfig().setWALCompressionAlgorithm(compressionType);
+      for (int i = 0; i < 50; ++i) {
+        InsertRowNode node = WALTestUtils.getInsertRowNode(devicePath, entryList.size());
+        WALEntry entry = new WALInfoEntry(0, node);
+        walBuffer.write(entry);
+        entryList.add(entry);
+      }
+      long sleepTime = 0;
+      while (!walBuffer.isAllWALEntriesConsumed()) {
+        Thread.sleep(100);
+        sleepTime += 100;
+        if (sleepTime > 10_000) {
+          Assert.fail("It has been too long for all entries to be consumed");
+        }
+      }
+    }
+    walBuffer.close();
+
+    File[] walFiles = WALFileUtils.listAllWALFiles(new File(compressionDir));
+    Assert.assertNotNull(walFiles);
+    Assert.assertEquals(1, walFiles.length);
+    for (boolean mmapEnable : new boolean[] {true, false}) {
+      IoTDBDescriptor.getInstance().getConfig().setWalReadMmapEnable(mmapEnable);
+      List<WALEntry> readWALEntryList = new ArrayList<>();
+      try (WALByteBufReader reader = new WALByteBufReader(walFiles[0])) {
+        while (reader.hasNext()) {
+          ByteBuffer slice = reader.nextSlice();
+          // rewinding the slice must not expose the bytes of the following entries
+          slice.clear();
+          Assert.assertEquals(
+              entryList.get(readWALEntryList.size()).serializedSize(), slice.remaining());
+          readWALEntryList.add(WALEntry.deserialize(slice));
+        }
+      }
+      Assert.assertEquals(entryList, readWALEntryList);
+    }
+  }
 }
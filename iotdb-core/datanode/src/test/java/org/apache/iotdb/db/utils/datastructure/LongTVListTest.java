@@ -18,6 +18,10 @@
  */
 package org.apache.iotdb.db.utils.datastructure;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.storageengine.rescon.memory.OffHeapPrimitiveArrayManager;
+
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.tsfile.read.TimeValuePair;
 import org.apache.tsfile.utils.BitMap;
@@ -154,4 +158,48 @@ public class LongTVListTest {
       Assert.assertEquals(tvList.getTime((int) i), clonedTvList.getTime((int) i));
     }
   }
+
+  @Test
+  public void testOffHeapValues() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    long originalOffHeapTVListSize = config.getOffHeapTVListSizeInBytes();
+    config.setOffHeapTVListSizeInBytes(1024 * 1024);
+    try {
+      Random random = new Random();
+      LongTVList tvList = LongTVList.newList();
+      Assert.assertNotNull(tvList.offHeapValues);
+      List<TimeValuePair> inputs = new ArrayList<>();
+      for (long i = 0; i < 1000; i++) {
+        long time = 1999 - i;
+        long value = random.nextLong();
+        tvList.putLong(time, value);
+        inputs.add(new TimeValuePair(time, new TsLong(value)));
+      }
+      long[] times = new long[1000];
+      long[] values = new long[1000];
+      for (int i = 0; i < 1000; i++) {
+        times[i] = 999 - i;
+        values[i] = random.nextLong();
+        inputs.add(new TimeValuePair(times[i], new TsLong(values[i])));
+      }
+      tvList.putLongs(times, values, null, 0, 1000);
+      Assert.assertTrue(tvList.values.isEmpty());
+      Assert.assertTrue(tvList.offHeapValues.get(0).isDirect());
+      Assert.assertTrue(OffHeapPrimitiveArrayManager.getAllocatedSizeInBytes() > 0);
+
+      tvList.sort();
+      LongTVList clonedTvList = tvList.clone();
+      inputs.sort(TimeValuePair::compareTo);
+      for (int i = 0; i < tvList.rowCount; i++) {
+        Assert.assertEquals(inputs.get(i).getTimestamp(), tvList.getTime(i));
+        Assert.assertEquals(inputs.get(i).getValue().getLong(), tvList.getLong(i));
+        Assert.assertEquals(tvList.getLong(i), clonedTvList.getLong(i));
+      }
+      tvList.clear();
+      clonedTvList.clear();
+      Assert.assertTrue(tvList.offHeapValues.isEmpty());
+    } finally {
+      config.setOffHeapTVListSizeInBytes(originalOffHeapTVListSize);
+    }
+  }
 }
@@ -55,6 +55,7 @@ public enum ThreadName {
   WAL_DELETE("WAL-Delete"),
   WAL_RECOVER("WAL-Recover"),
   TSFILE_RECOVER("TsFile-Recover"),
+  TSFILE_RESOURCE_RECOVER("TsFileResource-Recover"),
   // -------------------------- Flush --------------------------
   FLUSH("Flush"),
   FLUSH_SUB_TASK("Flush-SubTask"),
@@ -69,6 +70,7 @@ public enum ThreadName {
   PBTREE_FLUSH_MONITOR("PBTree-Flush-Monitor"),
   PBTREE_WORKER_POOL("PBTree-Worker-Pool"),
   GENERAL_REGION_ATTRIBUTE_SECURITY_SERVICE("General-Region-Attribute-Security-Service"),
+  LAST_CACHE_SNAPSHOT("Last-Cache-Snapshot"),
   // -------------------------- ClientService --------------------------
   CLIENT_RPC_SERVICE("ClientRPC-Service"),
   CLIENT_RPC_PROCESSOR("ClientRPC-Processor"),
@@ -111,6 +113,7 @@ public enum ThreadName {
   IOT_CONSENSUS_RPC_PROCESSOR("IoTConsensusRPC-Processor"),
   ASYNC_DATANODE_IOT_CONSENSUS_CLIENT_POOL("AsyncDataNodeIoTConsensusServiceClientPool"),
   LOG_DISPATCHER("LogDispatcher"),
+  SHARED_LOG_DISPATCHER("SharedLogDispatcher"),
   IOT_CONSENSUS_BACKGROUND_TASK_EXECUTOR("IoTConsensusBackgroundTaskExecutor"),
   // -------------------------- Ratis --------------------------
   // NOTICE: The thread name of ratis cannot be edited here!
@@ -185,6 +188,7 @@ public enum ThreadName {
   SETTLE("Settle"),
   INFLUXDB_RPC_SERVICE("InfluxdbRPC-Service"),
   INFLUXDB_RPC_PROCESSOR("InfluxdbRPC-Processor"),
+  MQTT_BATCH_FLUSH("MQTT-Batch-Flush"),
   STORAGE_ENGINE_CACHED_POOL("StorageEngine"),
   AINODE_RPC_SERVICE("AINodeRpc-Service"),
   DATANODE_SHUTDOWN_HOOK("DataNode-Shutdown-Hook"),
@@ -227,7 +231,13 @@ public enum ThreadName {
 
   private static final Set<ThreadName> walThreadNames =
       new HashSet<>(
-          Arrays.asList(WAL_SERIALIZE, WAL_SYNC, WAL_DELETE, WAL_RECOVER, TSFILE_RECOVER));
+          Arrays.asList(
+              WAL_SERIALIZE,
+              WAL_SYNC,
+              WAL_DELETE,
+              WAL_RECOVER,
+              TSFILE_RECOVER,
+              TSFILE_RESOURCE_RECOVER));
 
   private static final Set<ThreadName> flushThreadNames =
       new HashSet<>(
@@ -246,7 +256,8 @@ public enum ThreadName {
               SCHEMA_FORCE_MLOG,
               PBTREE_FLUSH_MONITOR,
               PBTREE_WORKER_POOL,
-              GENERAL_REGION_ATTRIBUTE_SECURITY_SERVICE));
+              GENERAL_REGION_ATTRIBUTE_SECURITY_SERVICE,
+              LAST_CACHE_SNAPSHOT));
 
   private static final Set<ThreadName> clientServiceThreadNames =
       new HashSet<>(Arrays.asList(CLIENT_RPC_SERVICE, CLIENT_RPC_PROCESSOR));
@@ -258,6 +269,7 @@ public enum ThreadName {
               IOT_CONSENSUS_RPC_PROCESSOR,
               ASYNC_DATANODE_IOT_CONSENSUS_CLIENT_POOL,
               LOG_DISPATCHER,
+              SHARED_LOG_DISPATCHER,
               IOT_CONSENSUS_BACKGROUND_TASK_EXECUTOR));
 
   private static final Set<ThreadName> pipeConsensusThreadNames =
@@ -380,6 +392,7 @@ public enum ThreadName {
               SETTLE,
               INFLUXDB_RPC_SERVICE,
               INFLUXDB_RPC_PROCESSOR,
+              MQTT_BATCH_FLUSH,
               STORAGE_ENGINE_CACHED_POOL,
               AINODE_RPC_SERVICE,
               DATANODE_SHUTDOWN_HOOK,
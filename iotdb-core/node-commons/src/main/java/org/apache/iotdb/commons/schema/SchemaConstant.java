@@ -55,6 +55,8 @@ public class SchemaConstant {
   public static final String PBTREE_SNAPSHOT = "pbtree.pst.snapshot";
   public static final String TAG_LOG_SNAPSHOT = "tlog.txt.snapshot";
   public static final String TAG_LOG_SNAPSHOT_TMP = "tlog.txt.snapshot.tmp";
+  public static final String TAG_INDEX_SNAPSHOT = "tag_index.snapshot";
+  public static final String TAG_INDEX_SNAPSHOT_TMP = "tag_index.snapshot.tmp";
   public static final String MTREE_SNAPSHOT = "mtree.snapshot";
   public static final String MTREE_SNAPSHOT_TMP = "mtree.snapshot.tmp";
 
@@ -243,6 +243,9 @@ public class ColumnHeaderConstant {
   public static final String CONSUMER_GROUP_NAME_TABLE_MODEL = "consumer_group_name";
   public static final String SUBSCRIBED_CONSUMERS_TABLE_MODEL = "subscribed_consumers";
 
+  public static final String TOTAL_FILE_NUM_TABLE_MODEL = "total_file_num";
+  public static final String RECOVERED_FILE_NUM_TABLE_MODEL = "recovered_file_num";
+
   // column names for show space quota
   public static final String QUOTA_TYPE = "QuotaType";
   public static final String LIMIT = "Limit";
@@ -42,6 +42,7 @@ public class InformationSchema {
   public static final String PIPE_PLUGINS = "pipe_plugins";
   public static final String TOPICS = "topics";
   public static final String SUBSCRIPTIONS = "subscriptions";
+  public static final String RECOVERY_PROGRESS = "recovery_progress";
 
   static {
     final TsTable queriesTable = new TsTable(QUERIES);
@@ -229,6 +230,31 @@ public class InformationSchema {
             ColumnHeaderConstant.SUBSCRIBED_CONSUMERS_TABLE_MODEL, TSDataType.STRING));
     subscriptionTable.removeColumnSchema(TsTable.TIME_COLUMN_NAME);
     schemaTables.put(SUBSCRIPTIONS, subscriptionTable);
+
+    final TsTable recoveryProgressTable = new TsTable(RECOVERY_PROGRESS);
+    recoveryProgressTable.addColumnSchema(
+        new TagColumnSchema(ColumnHeaderConstant.REGION_ID_TABLE_MODEL, TSDataType.INT32));
+    recoveryProgressTable.addColumnSchema(
+        new TagColumnSchema(ColumnHeaderConstant.DATANODE_ID_TABLE_MODEL, TSDataType.INT32));
+    recoveryProgressTable.addColumnSchema(
+        new AttributeColumnSchema(
+            ColumnHeaderConstant.DATABASE.toLowerCase(Locale.ENGLISH), TSDataType.STRING));
+    recoveryProgressTable.addColumnSchema(
+        new AttributeColumnSchema(
+            ColumnHeaderConstant.STATUS.toLowerCase(Locale.ENGLISH), TSDataType.STRING));
+    recoveryProgressTable.addColumnSchema(
+        new AttributeColumnSchema(
+            ColumnHeaderConstant.TOTAL_FILE_NUM_TABLE_MODEL, TSDataType.INT64));
+    recoveryProgressTable.addColumnSchema(
+        new AttributeColumnSchema(
+            ColumnHeaderConstant.RECOVERED_FILE_NUM_TABLE_MODEL, TSDataType.INT64));
+    recoveryProgressTable.addColumnSchema(
+        new AttributeColumnSchema(ColumnHeaderConstant.ELAPSED_TIME_TABLE_MODEL, TSDataType.FLOAT));
+    recoveryProgressTable.addColumnSchema(
+        new AttributeColumnSchema(
+            ColumnHeaderConstant.ESTIMATED_REMAINING_SECONDS_TABLE_MODEL, TSDataType.DOUBLE));
+    recoveryProgressTable.removeColumnSchema(TsTable.TIME_COLUMN_NAME);
+    schemaTables.put(RECOVERY_PROGRESS, recoveryProgressTable);
   }
 
   public static Map<String, TsTable> getSchemaTables() {
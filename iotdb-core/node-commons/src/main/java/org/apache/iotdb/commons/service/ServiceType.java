@@ -86,6 +86,7 @@ public enum ServiceType {
   SUBSCRIPTION_RUNTIME_AGENT("Subscription Runtime Agent", "SubscriptionRuntimeAgent"),
   GENERAL_REGION_ATTRIBUTE_SECURITY_SERVICE(
       "General Region Attribute Security Service", "GeneralRegionAttributeSecurityService"),
+  LAST_CACHE_SNAPSHOT_SERVICE("Last Cache Snapshot Service", "LastCacheSnapshotService"),
 
   SESSION_MANAGER("Session Manager", "RpcSession"),
   CONFIG_NODE("Config Node", "ConfigNode"),
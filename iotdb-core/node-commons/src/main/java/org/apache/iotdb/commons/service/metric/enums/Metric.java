@@ -82,6 +82,7 @@ public enum Metric {
   ACTIVE_MEMTABLE_COUNT("active_memtable_count"),
   ACTIVE_TIME_PARTITION_COUNT("active_time_partition_count"),
   MEMTABLE_LIVE_DURATION("memtable_live_duration"),
+  DATA_REGION_RECOVERY("data_region_recovery"),
 
   // compaction related
   DATA_WRITTEN("data_written"),
@@ -117,15 +118,19 @@ public enum Metric {
   QUERY_EXECUTION("query_execution"),
   AGGREGATION("aggregation"),
   QUERY_RESOURCE("query_resource"),
+  TSFILE_LIST_LOCK_WAIT("tsfile_list_lock_wait"),
   DATA_EXCHANGE_COST("data_exchange_cost"),
   DATA_EXCHANGE_COUNT("data_exchange_count"),
   DATA_EXCHANGE_SIZE("data_exchange_size"),
+  DATA_EXCHANGE_BYTES("data_exchange_bytes"),
+  DATA_EXCHANGE_CODEC_COST("data_exchange_codec_cost"),
   DRIVER_SCHEDULER("driver_scheduler"),
   COORDINATOR("coordinator"),
   FRAGMENT_INSTANCE_MANAGER("fragment_instance_manager"),
   MEMORY_POOL("memory_pool"),
   LOCAL_EXECUTION_PLANNER("local_execution_planner"),
   QUERY_DISK_READ("query_disk_read"),
+  FILE_READER_MANAGER("file_reader_manager"),
 
   // file related
   FILE_SIZE("file_size"),
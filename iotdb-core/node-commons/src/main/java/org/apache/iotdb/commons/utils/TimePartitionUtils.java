@@ -160,17 +160,18 @@ public class TimePartitionUtils {
   }
 
   public static boolean satisfyTimePartition(Filter timeFilter, long partitionId) {
-    long partitionStartTime;
+    return satisfyPartitionStartTime(timeFilter, getTimePartitionStartTime(partitionId));
+  }
+
+  public static long getTimePartitionStartTime(long partitionId) {
     if (originMayCauseOverflow) {
-      partitionStartTime =
-          BigInteger.valueOf(partitionId)
-              .multiply(bigTimePartitionInterval)
-              .add(bigTimePartitionOrigin)
-              .longValue();
+      return BigInteger.valueOf(partitionId)
+          .multiply(bigTimePartitionInterval)
+          .add(bigTimePartitionOrigin)
+          .longValue();
     } else {
-      partitionStartTime = partitionId * timePartitionInterval + timePartitionOrigin;
+      return partitionId * timePartitionInterval + timePartitionOrigin;
     }
-    return satisfyPartitionStartTime(timeFilter, partitionStartTime);
   }
 
   public static void setTimePartitionInterval(long timePartitionInterval) {
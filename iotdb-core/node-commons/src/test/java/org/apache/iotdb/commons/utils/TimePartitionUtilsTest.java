@@ -91,6 +91,21 @@ public class TimePartitionUtilsTest {
     assertEquals(expectedSlot.getStartTime(), actualSlot.getStartTime());
   }
 
+  @Test
+  public void testGetTimePartitionStartTime() {
+    long[] testTimes = {
+      TEST_TIME_PARTITION_ORIGIN,
+      TEST_TIME_PARTITION_ORIGIN + TEST_TIME_PARTITION_INTERVAL * 3 + 1,
+      TEST_TIME_PARTITION_ORIGIN - 1
+    };
+    for (long testTime : testTimes) {
+      assertEquals(
+          TimePartitionUtils.getTimePartitionLowerBound(testTime),
+          TimePartitionUtils.getTimePartitionStartTime(
+              TimePartitionUtils.getTimePartitionId(testTime)));
+    }
+  }
+
   @Test
   public void testOverflow() {
     long testTime = Long.MIN_VALUE;
@@ -124,6 +124,7 @@ statement
     | setSystemStatusStatement
     | showVersionStatement
     | showQueriesStatement
+    | showRecoveryProgressStatement
     | killQueryStatement
     | loadConfigurationStatement
     | setConfigurationStatement
@@ -550,6 +551,13 @@ showQueriesStatement
     ;
 
 
+showRecoveryProgressStatement
+    : SHOW RECOVERY PROGRESS
+        (WHERE where=booleanExpression)?
+        (ORDER BY sortItem (',' sortItem)*)?
+        limitOffsetClause
+    ;
+
 killQueryStatement
     : KILL (QUERY queryId=string | ALL QUERIES)
     ;
@@ -1136,9 +1144,9 @@ nonReserved
     | MANAGE_ROLE | MANAGE_USER | MAP | MATCH | MATCHED | MATCHES | MATCH_RECOGNIZE | MATERIALIZED | MEASURES | METHOD | MERGE | MICROSECOND | MIGRATE | MILLISECOND | MINUTE | MODIFY | MONTH
     | NANOSECOND | NESTED | NEXT | NFC | NFD | NFKC | NFKD | NO | NODEID | NONE | NULLIF | NULLS
     | OBJECT | OF | OFFSET | OMIT | ONE | ONLY | OPTION | ORDINALITY | OUTPUT | OVER | OVERFLOW
-    | PARTITION | PARTITIONS | PASSING | PAST | PATH | PATTERN | PER | PERIOD | PERMUTE | PIPE | PIPEPLUGIN | PIPEPLUGINS | PIPES | PLAN | POSITION | PRECEDING | PRECISION | PRIVILEGES | PREVIOUS | PROCESSLIST | PROCESSOR | PROPERTIES | PRUNE
+    | PARTITION | PARTITIONS | PASSING | PAST | PATH | PATTERN | PER | PERIOD | PERMUTE | PIPE | PIPEPLUGIN | PIPEPLUGINS | PIPES | PLAN | POSITION | PRECEDING | PRECISION | PRIVILEGES | PREVIOUS | PROCESSLIST | PROCESSOR | PROGRESS | PROPERTIES | PRUNE
     | QUERIES | QUERY | QUOTES
-    | RANGE | READ | READONLY | RECONSTRUCT | REFRESH | REGION | REGIONID | REGIONS | REMOVE | RENAME | REPAIR | REPEAT  | REPEATABLE | REPLACE | RESET | RESPECT | RESTRICT | RETURN | RETURNING | RETURNS | REVOKE | ROLE | ROLES | ROLLBACK | ROW | ROWS | RUNNING
+    | RANGE | READ | READONLY | RECONSTRUCT | RECOVERY | REFRESH | REGION | REGIONID | REGIONS | REMOVE | RENAME | REPAIR | REPEAT  | REPEATABLE | REPLACE | RESET | RESPECT | RESTRICT | RETURN | RETURNING | RETURNS | REVOKE | ROLE | ROLES | ROLLBACK | ROW | ROWS | RUNNING
     | SERIESSLOTID | SCALAR | SCHEMA | SCHEMAS | SECOND | SECURITY | SEEK | SERIALIZABLE | SESSION | SET | SETS
     | SHOW | SINK | SOME | SOURCE | START | STATS | STOP | SUBSCRIPTIONS | SUBSET | SUBSTRING | SYSTEM
     | TABLES | TABLESAMPLE | TAG | TEXT | TEXT_STRING | TIES | TIME | TIMEPARTITION | TIMESERIES | TIMESLOTID | TIMESTAMP | TO | TOPIC | TOPICS | TRAILING | TRANSACTION | TRUNCATE | TRY_CAST | TYPE
@@ -1403,6 +1411,7 @@ PRIVILEGES: 'PRIVILEGES';
 PREVIOUS: 'PREVIOUS';
 PROCESSLIST: 'PROCESSLIST';
 PROCESSOR: 'PROCESSOR';
+PROGRESS: 'PROGRESS';
 PROPERTIES: 'PROPERTIES';
 PRUNE: 'PRUNE';
 QUERIES: 'QUERIES';
@@ -1412,6 +1421,7 @@ RANGE: 'RANGE';
 READ: 'READ';
 READONLY: 'READONLY';
 RECONSTRUCT: 'RECONSTRUCT';
+RECOVERY: 'RECOVERY';
 RECURSIVE: 'RECURSIVE';
 REFRESH: 'REFRESH';
 REGION: 'REGION';
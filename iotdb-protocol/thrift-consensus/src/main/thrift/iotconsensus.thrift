@@ -39,6 +39,16 @@ struct TSyncLogEntriesRes {
   1: required list<common.TSStatus> statuses
 }
 
+// TSyncLogEntriesReqs of different consensus groups to the same peer
+struct TBatchSyncLogEntriesReq {
+  1: required list<TSyncLogEntriesReq> requests
+}
+
+// the i-th response is for the i-th request of TBatchSyncLogEntriesReq
+struct TBatchSyncLogEntriesRes {
+  1: required list<TSyncLogEntriesRes> responses
+}
+
 struct TInactivatePeerReq {
   1: required common.TConsensusGroupId consensusGroupId
   2: optional bool forDeletionPurpose
@@ -127,6 +137,7 @@ struct TCleanupTransferredSnapshotRes {
 
 service IoTConsensusIService {
   TSyncLogEntriesRes syncLogEntries(TSyncLogEntriesReq req)
+  TBatchSyncLogEntriesRes batchSyncLogEntries(TBatchSyncLogEntriesReq req)
   TInactivatePeerRes inactivatePeer(TInactivatePeerReq req)
   TActivatePeerRes activatePeer(TActivatePeerReq req)
   TBuildSyncLogChannelRes buildSyncLogChannel(TBuildSyncLogChannelReq req)
@@ -86,10 +86,15 @@ struct TGetDataBlockRequest {
   3: required i32 endSequenceId
   // Index of upstream SinkChannel
   4: required i32 index
+  // Serialized CompressionType the receiver accepts, TsBlocks are not compressed if it is not set
+  5: optional byte compressionType
 }
 
 struct TGetDataBlockResponse {
   1: required list<binary> tsBlocks
+  // Uncompressed size of each TsBlock, -1 if the TsBlock is not compressed. It is only set when
+  // compressionType is set in the request
+  2: optional list<i32> uncompressedSizes
 }
 
 struct TAcknowledgeDataBlockEvent {